@@ -0,0 +1,260 @@
+package HW1;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A BatchDirections computes the directions of many Routes with a single
+ * RouteFormatter on several threads, and passes them to a Sink in the
+ * order of the Routes.
+ * <p>
+ * The Routes are read in waves. The Routes of a wave are split into
+ * blocks of consecutive Routes, the threads of a pool, started once per
+ * run, take blocks one at a time and render the directions of all the
+ * Routes of a block into the buffer of the block, and then the directions
+ * of the wave are passed to the Sink, block by block, on the calling
+ * thread. There are two waves, used in turn: while the directions of one
+ * are passed to the Sink, the pool renders the next one, so the Sink
+ * doesn't wait for rendering and rendering doesn't wait for the Sink. The
+ * buffers are reused by the following waves, so only the directions of
+ * two waves are held in memory however many Routes there are, and
+ * rendering doesn't build a String per Route.
+ * <p>
+ * The directions of every Route are the ones
+ * <tt>formatter.computeDirections(route, route.getStartHeading())</tt>
+ * returns. RouteFormatters don't change their state when computing
+ * directions, hence a single formatter is shared by all the threads.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   formatter : RouteFormatter   // the formatter the directions are computed with
+ *   numOfThreads : integer       // the number of threads the directions are computed on
+ * </pre>
+ */
+public class BatchDirections {
+
+	/**
+	 * A Sink receives the directions of the Routes of a batch.
+	 */
+	public interface Sink {
+
+		/**
+		 * Receives the directions of a Route.
+		 * @param index the position of the Route in the batch, from 0.
+		 * @param directions the buffer the directions are in.
+		 * @param start the index of the first character of the directions
+		 *        in the buffer.
+		 * @param end the index after the last character of the directions
+		 *        in the buffer.
+		 * @throws IOException if the directions can't be written.
+		 */
+		void accept(long index, CharSequence directions, int start, int end) throws IOException;
+	}
+
+
+	// The default number of Routes of a block.
+	static final int DEFAULT_BLOCK_SIZE = 64;
+	// The number of blocks of a wave, for every thread.
+	private static final int blocksPerThread = 16;
+
+	private final RouteFormatter formatter;
+	private final int numOfThreads;
+	private final int blockSize;
+
+	// Rep. Inv.:
+	// this.formatter != null && this.numOfThreads > 0 && this.blockSize > 0
+
+	// Abstraction Function:
+	// formatter = this.formatter, numOfThreads = this.numOfThreads
+
+
+	/**
+	 * Constructs a BatchDirections on all the available processors.
+	 * @requires formatter != null
+	 * @effects Constructs a new BatchDirections with the given formatter,
+	 *          and numOfThreads = the number of available processors.
+	 */
+	public BatchDirections(RouteFormatter formatter)
+	{
+		this(formatter, Runtime.getRuntime().availableProcessors());
+	}
+
+
+	/**
+	 * Constructs a BatchDirections.
+	 * @requires formatter != null && numOfThreads > 0
+	 * @effects Constructs a new BatchDirections with the given formatter and
+	 *          numOfThreads.
+	 */
+	public BatchDirections(RouteFormatter formatter, int numOfThreads)
+	{
+		this(formatter, numOfThreads, DEFAULT_BLOCK_SIZE);
+	}
+
+
+	// Constructs a BatchDirections with blocks of blockSize Routes.
+	BatchDirections(RouteFormatter formatter, int numOfThreads, int blockSize)
+	{
+		this.formatter = formatter;
+		this.numOfThreads = numOfThreads;
+		this.blockSize = blockSize;
+		this.checkRep();
+	}
+
+
+	/**
+	 * Computes the directions of Routes.
+	 * @requires routes != null && sink != null and every element of routes
+	 *           is non null.
+	 * @modifies routes, sink
+	 * @effects reads all the Routes of routes, and for the i-th of them,
+	 *          from 0, calls sink.accept(i, cs, start, end) where
+	 *          cs.subSequence(start, end) equals
+	 *          formatter.computeDirections(route, route.getStartHeading()),
+	 *          in order of i, on the calling thread.
+	 * @return the number of Routes read.
+	 * @throws IOException if sink throws it; the Routes after the one it
+	 *         was thrown for aren't passed to sink, though up to a wave of
+	 *         them may have been read.
+	 */
+	public long run(Iterator<Route> routes, Sink sink) throws IOException
+	{
+		assert routes != null && sink != null : "BatchDirections: null argument";
+		int numOfBlocks = this.numOfThreads * blocksPerThread;
+		Wave current = new Wave(numOfBlocks, this.blockSize);
+		Wave next = new Wave(numOfBlocks, this.blockSize);
+		ExecutorService pool = Executors.newFixedThreadPool(this.numOfThreads, task -> {
+			Thread thread = new Thread(task, "BatchDirections");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try
+		{
+			long index = 0;
+			this.render(current.read(routes), pool);
+			while (current.count > 0)
+			{
+				// The next wave is read while the current one renders, and renders while the current one is passed to
+				// the sink.
+				next.read(routes);
+				current.await();
+				this.render(next, pool);
+				for (int i = 0; i < current.count; i++)
+				{
+					int start = (i % this.blockSize == 0) ? 0 : current.ends[i - 1];
+					sink.accept(index++, current.buffers[i / this.blockSize], start, current.ends[i]);
+					current.routes[i] = null;
+				}
+				Wave done = current;
+				current = next;
+				next = done;
+			}
+			return index;
+		}
+		finally
+		{
+			// The threads of a wave still rendering after the sink failed finish it, and then end.
+			pool.shutdown();
+		}
+	}
+
+
+	// Submits tasks to the pool that render the blocks of the wave, on up to numOfThreads threads.
+	private void render(Wave wave, ExecutorService pool)
+	{
+		int waveBlocks = (wave.count + this.blockSize - 1) / this.blockSize;
+		AtomicInteger next = new AtomicInteger(0);
+		Runnable task = () -> {
+			for (int b = next.getAndIncrement(); b < waveBlocks; b = next.getAndIncrement())
+			{
+				StringBuilder buffer = wave.buffers[b];
+				buffer.setLength(0);
+				for (int i = b * this.blockSize; i < Math.min(wave.count, (b + 1) * this.blockSize); i++)
+				{
+					Route route = wave.routes[i];
+					this.formatter.appendDirections(route, route.getStartHeading(), buffer);
+					wave.ends[i] = buffer.length();
+				}
+			}
+		};
+		wave.numOfTasks = Math.min(this.numOfThreads, waveBlocks);
+		for (int t = 0; t < wave.numOfTasks; t++)
+			wave.tasks[t] = pool.submit(task);
+	}
+
+
+	// The Routes of a wave, and the buffers their directions are rendered into by the tasks of the wave.
+	private static final class Wave {
+
+		private final Route[] routes;
+		private final StringBuilder[] buffers;
+		private final int[] ends;
+		private final Future<?>[] tasks;
+		private int count;
+		private int numOfTasks;
+
+		private Wave(int numOfBlocks, int blockSize)
+		{
+			this.routes = new Route[numOfBlocks * blockSize];
+			this.buffers = new StringBuilder[numOfBlocks];
+			this.ends = new int[this.routes.length];
+			this.tasks = new Future<?>[numOfBlocks];
+			for (int b = 0; b < numOfBlocks; b++)
+				this.buffers[b] = new StringBuilder();
+		}
+
+
+		// Reads up to a wave of Routes, and returns this.
+		private Wave read(Iterator<Route> i)
+		{
+			this.count = 0;
+			while (this.count < this.routes.length && i.hasNext())
+				this.routes[this.count++] = i.next();
+			return this;
+		}
+
+
+		// Waits for the tasks of the wave to finish, and rethrows what any of them throws.
+		private void await()
+		{
+			try
+			{
+				for (int t = 0; t < this.numOfTasks; t++)
+					this.tasks[t].get();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("BatchDirections: computing directions was interrupted", e);
+			}
+			catch (ExecutionException e)
+			{
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw new IllegalStateException("BatchDirections: computing directions failed", cause);
+			}
+			finally
+			{
+				Arrays.fill(this.tasks, 0, this.numOfTasks, null);
+				this.numOfTasks = 0;
+			}
+		}
+	}
+
+
+	private void checkRep()
+	{
+		assert this.formatter != null : "BatchDirections: formatter is null";
+		assert this.numOfThreads > 0 : "BatchDirections: numOfThreads must be positive";
+		assert this.blockSize > 0 : "BatchDirections: blockSize must be positive";
+	}
+}
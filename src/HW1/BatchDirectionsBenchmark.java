@@ -0,0 +1,121 @@
+package HW1;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Computes the driving and walking directions of many shortest path Routes
+ * of a grid road network one at a time with computeDirections(), and with
+ * BatchDirections on 1 to N threads, and reports their throughput, the
+ * speedup over one thread, and whether the text passed to the Sink is the
+ * same as the one computed one Route at a time.
+ * <p>
+ * Usage: <tt>java HW1.BatchDirectionsBenchmark [gridSize] [numOfRoutes] [maxThreads]</tt>
+ */
+public class BatchDirectionsBenchmark {
+
+	// The number of distinct Routes, computed over and over.
+	private static final int poolSize = 2000;
+
+	private final int gridSize;
+	private final int numOfRoutes;
+	private final int maxThreads;
+
+
+	public BatchDirectionsBenchmark(int gridSize, int numOfRoutes, int maxThreads) {
+		this.gridSize = gridSize;
+		this.numOfRoutes = numOfRoutes;
+		this.maxThreads = maxThreads;
+	}
+
+
+	// Returns the Routes of the pool, over and over, numOfRoutes in all.
+	Iterator<Route> routes(List<Route> pool) {
+		return new Iterator<Route>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < numOfRoutes;
+			}
+
+			@Override
+			public Route next() {
+				return pool.get(next++ % pool.size());
+			}
+		};
+	}
+
+
+	// A Sink that hashes the characters it receives and counts them.
+	static class HashSink implements BatchDirections.Sink {
+		long hash = 0;
+		long length = 0;
+
+		void add(CharSequence cs, int start, int end) {
+			for (int i = start; i < end; i++)
+				hash = 31 * hash + cs.charAt(i);
+			length += end - start;
+		}
+
+		@Override
+		public void accept(long index, CharSequence cs, int start, int end) {
+			add(cs, start, end);
+		}
+	}
+
+
+	// Runs the formatter over the Routes, and prints the results unless it's a warm-up.
+	void run(RouteFormatter formatter, List<Route> pool, boolean print) throws IOException {
+		if (print)
+			System.out.println(formatter.getClass().getSimpleName() + ":");
+		HashSink expected = new HashSink();
+		long begin = System.nanoTime();
+		for (Iterator<Route> i = routes(pool); i.hasNext(); ) {
+			Route route = i.next();
+			String directions = formatter.computeDirections(route, route.getStartHeading());
+			expected.add(directions, 0, directions.length());
+		}
+		double sequential = (System.nanoTime() - begin) / 1e9;
+		if (print)
+			System.out.printf("  computeDirections(): %.2f s, %.0f K routes/s, %.0f M chars%n",
+					sequential, numOfRoutes / sequential / 1e3, expected.length / 1e6);
+		double single = 0;
+		for (int numOfThreads = 1; numOfThreads <= maxThreads; numOfThreads *= 2) {
+			BatchDirections batch = new BatchDirections(formatter, numOfThreads);
+			HashSink sink = new HashSink();
+			begin = System.nanoTime();
+			batch.run(routes(pool), sink);
+			double seconds = (System.nanoTime() - begin) / 1e9;
+			if (numOfThreads == 1)
+				single = seconds;
+			if (print)
+				System.out.printf("  %2d threads:          %.2f s, %.0f K routes/s, %.2fx, same text: %b%n",
+						numOfThreads, seconds, numOfRoutes / seconds / 1e3, single / seconds,
+						sink.hash == expected.hash && sink.length == expected.length);
+		}
+	}
+
+
+	public void run() throws IOException {
+		List<Route> pool = BatchDirectionsTest.createRoutes(gridSize, poolSize, new Random(47));
+		System.out.printf("%d routes, %d of them distinct, %d available processors%n", numOfRoutes, poolSize,
+				Runtime.getRuntime().availableProcessors());
+		// A first pass warms up the formatters and the batches.
+		int warmUp = Math.min(numOfRoutes, 100000);
+		new BatchDirectionsBenchmark(gridSize, warmUp, maxThreads).run(new DrivingRouteFormatter(), pool, false);
+		run(new DrivingRouteFormatter(), pool, true);
+		run(new WalkingRouteFormatter(), pool, true);
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		int gridSize = (args.length > 0) ? Integer.parseInt(args[0]) : 100;
+		int numOfRoutes = (args.length > 1) ? Integer.parseInt(args[1]) : 1000000;
+		int maxThreads = (args.length > 2) ? Integer.parseInt(args[2])
+				: Math.max(4, Runtime.getRuntime().availableProcessors());
+		new BatchDirectionsBenchmark(gridSize, numOfRoutes, maxThreads).run();
+	}
+}
@@ -0,0 +1,177 @@
+package HW1;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class BatchDirectionsTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Returns numOfRoutes shortest path Routes between random nodes of a grid road network.
+	static List<Route> createRoutes(int gridSize, int numOfRoutes, Random random) {
+		RoadGraph graph = RoadGraphBenchmark.createGraph(gridSize);
+		ShortestPathRouter router = new ShortestPathRouter(graph);
+		List<Route> routes = new ArrayList<>();
+		while (routes.size() < numOfRoutes) {
+			int source = random.nextInt(graph.numOfNodes());
+			int target = random.nextInt(graph.numOfNodes());
+			if (source != target && router.search(source, target))
+				routes.add(graph.toRoute(router.getPathEdges(), graph.getNodePoint(source)));
+		}
+		return routes;
+	}
+
+
+	// Returns the directions of every Route, one after the other, computed one at a time.
+	static String sequential(RouteFormatter formatter, List<Route> routes) {
+		StringBuilder sb = new StringBuilder();
+		for (Route route : routes)
+			sb.append(formatter.computeDirections(route, route.getStartHeading()));
+		return sb.toString();
+	}
+
+
+	// A Sink that appends the directions it receives, and checks their indices follow each other.
+	static class Collector implements BatchDirections.Sink {
+		final StringBuilder text = new StringBuilder();
+		final List<String> directions = new ArrayList<>();
+		boolean inOrder = true;
+
+		@Override
+		public void accept(long index, CharSequence cs, int start, int end) {
+			inOrder &= index == directions.size();
+			text.append(cs, start, end);
+			directions.add(cs.subSequence(start, end).toString());
+		}
+	}
+
+
+	public void test() throws IOException {
+		Random random = new Random(43);
+		List<Route> routes = createRoutes(20, 500, random);
+		routes.add(RouteCodecTest.toRoute(Arrays.copyOfRange(ExampleGeoSegments.segments, 0, 5)));
+		RouteFormatter driving = new DrivingRouteFormatter();
+		RouteFormatter walking = new WalkingRouteFormatter();
+
+		show("Order and identity");
+		for (int numOfThreads : new int[] { 1, 3 }) {
+			for (int blockSize : new int[] { 1, 7, BatchDirections.DEFAULT_BLOCK_SIZE }) {
+				Collector collector = new Collector();
+				long count = new BatchDirections(driving, numOfThreads, blockSize).run(routes.iterator(), collector);
+				boolean same = count == routes.size() && collector.inOrder
+					&& collector.text.toString().equals(sequential(driving, routes));
+				for (int i = 0; i < routes.size(); i++)
+					same &= collector.directions.get(i).equals(
+						driving.computeDirections(routes.get(i), routes.get(i).getStartHeading()));
+				show(numOfThreads + " threads, blocks of " + blockSize
+					+ ": the directions of every Route, in order, as computed alone", same);
+			}
+		}
+		Collector collector = new Collector();
+		new BatchDirections(walking, 2, 5).run(routes.iterator(), collector);
+		show("Any formatter", collector.text.toString().equals(sequential(walking, routes)));
+		List<Route> many = new ArrayList<>();
+		for (int i = 0; i < 20; i++)
+			many.addAll(routes);
+		collector = new Collector();
+		new BatchDirections(driving, 2, 3).run(many.iterator(), collector);
+		show("Many waves", collector.inOrder && collector.text.toString().equals(sequential(driving, many)));
+		collector = new Collector();
+		show("No Routes", new BatchDirections(driving).run(Collections.<Route>emptyIterator(), collector) == 0
+			&& collector.directions.isEmpty());
+
+		show("Threads and waves");
+		Set<Thread> renderers = ConcurrentHashMap.newKeySet();
+		CountDownLatch rendered = new CountDownLatch(1);
+		RouteFormatter watched = new DrivingRouteFormatter() {
+			@Override
+			public void computeLine(GeoFeature geoFeature, double origHeading, StringBuilder out) {
+				renderers.add(Thread.currentThread());
+				if (geoFeature.getName().equals("Marker"))
+					rendered.countDown();
+				super.computeLine(geoFeature, origHeading, out);
+			}
+		};
+		// A wave of 2 threads and blocks of 3 Routes has 2 * 16 * 3 Routes, so the marker is the first of the second.
+		List<Route> marked = new ArrayList<>(many.subList(0, 96));
+		marked.add(new Route(new GeoSegment("Marker", new GeoPoint(32000000, 35000000),
+			new GeoPoint(32001000, 35000000))));
+		marked.addAll(many.subList(96, many.size()));
+		boolean[] overlapped = new boolean[1];
+		collector = new Collector();
+		Collector inner = collector;
+		new BatchDirections(watched, 2, 3).run(marked.iterator(), (index, cs, start, end) -> {
+			if (index == 0) {
+				try {
+					overlapped[0] = rendered.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			inner.accept(index, cs, start, end);
+		});
+		show("The next wave is rendered while the sink receives a wave", overlapped[0]
+			&& collector.text.toString().equals(sequential(driving, marked)));
+		show("Every wave is rendered by the same threads, not the calling one", renderers.size() <= 2
+			&& !renderers.contains(Thread.currentThread()));
+
+		show("Failures");
+		long[] accepted = new long[1];
+		boolean thrown = false;
+		try {
+			new BatchDirections(driving, 2, 4).run(routes.iterator(), (index, cs, start, end) -> {
+				if (index == 10)
+					throw new IOException("full");
+				accepted[0]++;
+			});
+		}
+		catch (IOException e) {
+			thrown = e.getMessage().equals("full");
+		}
+		show("An IOException of the Sink stops the batch", thrown && accepted[0] == 10);
+		RouteFormatter failing = new DrivingRouteFormatter() {
+			@Override
+			public void computeLine(GeoFeature geoFeature, double origHeading, StringBuilder out) {
+				if (geoFeature.getName().equals("Hagalil"))
+					throw new IllegalArgumentException("Hagalil");
+				super.computeLine(geoFeature, origHeading, out);
+			}
+		};
+		thrown = false;
+		try {
+			new BatchDirections(failing, 3, 2).run(routes.iterator(), new Collector());
+		}
+		catch (IllegalArgumentException e) {
+			thrown = e.getMessage().equals("Hagalil");
+		}
+		show("An exception of a worker thread is thrown by run()", thrown);
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		BatchDirectionsTest batchTest = new BatchDirectionsTest();
+		batchTest.test();
+	}
+}
@@ -0,0 +1,356 @@
+package HW1;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A CachingRouteFormatter is a RouteFormatter that computes its lines with
+ * another RouteFormatter, and remembers the most recently used ones, so a
+ * GeoFeature that is formatted again with the same turn, such as a popular
+ * road in many routes, is formatted once.
+ * <p>
+ * A line is looked up by the GeoFeature, compared by reference and then
+ * with equals(), and by the turn string the other formatter's
+ * getTurnString() returns for the heading the feature is entered with.
+ * Hence the other formatter's lines must only depend on the heading
+ * through the turn string. If the other formatter declares, with
+ * rendersFromMetrics(), that its lines only depend on the turn string and
+ * the name and length of the feature, a line is looked up by them
+ * instead, and shared by all the features of that name and length.
+ * <p>
+ * A lookup costs about as much as rendering a line from a template, so the
+ * cache only pays off for formatters whose lines are expensive to compute,
+ * such as ones that format them with String.format() or look them up
+ * elsewhere. It doesn't make DrivingRouteFormatter or
+ * WalkingRouteFormatter faster, and a cache too small for the lines in use
+ * makes any formatter slower; CachingRouteFormatterBenchmark measures both.
+ * <p>
+ * The lines are kept in a number of stripes, each a map of up to
+ * capacity / numOfStripes lines that evicts its least recently used line
+ * when it's full, and is locked by the threads that use it, so threads
+ * that use different stripes don't wait for each other. A line that isn't
+ * cached is computed outside of the lock. CachingRouteFormatters are safe
+ * for use by multiple threads, and count their hits, misses and evictions.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   formatter : RouteFormatter   // the formatter the lines are computed with
+ *   capacity : integer           // the maximal number of lines cached
+ * </pre>
+ */
+public class CachingRouteFormatter extends RouteFormatter {
+
+	// The default number of stripes.
+	static final int DEFAULT_NUM_OF_STRIPES = 16;
+
+	private final RouteFormatter formatter;
+	// Whether the lines are looked up by the metrics of the features rather than by the features.
+	private final boolean byMetrics;
+	private final Stripe[] stripes;
+	private final int stripeShift;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	// Rep. Inv.:
+	// this.formatter != null && this.stripes.length is a power of 2 && every stripe holds at most its capacity
+	// lines, and maps a key to this.formatter's line for a feature equal to the feature of the key, or of the name
+	// and length of the key if this.byMetrics, entered with the turn of the key. The keys have features iff
+	// !this.byMetrics.
+
+	// Abstraction Function:
+	// formatter = this.formatter, capacity = the sum of the capacities of this.stripes. The cached lines are the
+	// values of this.stripes.
+
+
+	/**
+	 * Constructs a new CachingRouteFormatter.
+	 * @requires formatter != null && capacity > 0
+	 * @effects Constructs a new CachingRouteFormatter c with no cached
+	 *          lines such that c.formatter = formatter and c.capacity is
+	 *          capacity, rounded up to a whole number of lines per stripe.
+	 */
+	public CachingRouteFormatter(RouteFormatter formatter, int capacity)
+	{
+		this(formatter, capacity, DEFAULT_NUM_OF_STRIPES);
+	}
+
+
+	// Constructs a CachingRouteFormatter with up to numOfStripes stripes, a power of 2 no larger than capacity.
+	CachingRouteFormatter(RouteFormatter formatter, int capacity, int numOfStripes)
+	{
+		assert formatter != null : "CachingRouteFormatter: formatter is null";
+		assert capacity > 0 && numOfStripes > 0 : "CachingRouteFormatter: capacity must be positive";
+		int n = Integer.highestOneBit(Math.min(capacity, numOfStripes));
+		this.formatter = formatter;
+		this.byMetrics = formatter.rendersFromMetrics();
+		this.stripes = new Stripe[n];
+		this.stripeShift = 32 - Integer.numberOfTrailingZeros(n);
+		for (int s = 0; s < n; s++)
+			this.stripes[s] = new Stripe((capacity + n - 1) / n, this.evictions);
+		this.checkRep();
+	}
+
+
+	/**
+	 * Computes a single line of a multi-line directions String that
+	 * represents the instructions for traversing a single geographic
+	 * feature, or returns it from the cache.
+	 * @requires geoFeature != null && 0 <= origHeading < 360
+	 * @param geoFeature the geographical feature to traverse.
+	 * @param origHeading the initial heading.
+	 * @return formatter.computeLine(geoFeature, origHeading)
+	 */
+	@Override
+	public String computeLine(GeoFeature geoFeature, double origHeading)
+	{
+		assert geoFeature != null : "CachingRouteFormatter: geoFeature is null";
+		String turn = this.formatter.getTurnString(origHeading, geoFeature.getStartHeading());
+		return this.line(geoFeature, origHeading, turn, null, 0);
+	}
+
+
+	/**
+	 * Computes a single line of a multi-line directions String, as
+	 * computeLine(geoFeature, origHeading) does, and appends it to out.
+	 * @requires geoFeature != null && out != null && 0 <= origHeading < 360
+	 * @param geoFeature the geographical feature to traverse.
+	 * @param origHeading the initial heading.
+	 * @param out the buffer the line is appended to.
+	 * @modifies out
+	 * @effects appends computeLine(geoFeature, origHeading) to out.
+	 */
+	@Override
+	public void computeLine(GeoFeature geoFeature, double origHeading, StringBuilder out)
+	{
+		out.append(this.computeLine(geoFeature, origHeading));
+	}
+
+
+	/**
+	 * Computes a single line of a multi-line directions String, as
+	 * computeLine(geoFeature, origHeading) does, from the turn string and
+	 * the metrics of the feature, and appends it to out.
+	 * @requires geoFeature != null && out != null && 0 <= origHeading < 360 &&
+	 *           turn, name and length are the turn string, name and length
+	 *           of geoFeature.
+	 * @modifies out
+	 * @effects appends computeLine(geoFeature, origHeading) to out.
+	 */
+	@Override
+	protected void computeLine(GeoFeature geoFeature, double origHeading, String turn, String name, double length,
+			StringBuilder out)
+	{
+		out.append(this.line(geoFeature, origHeading, turn, name, length));
+	}
+
+
+	/**
+	 * Computes directions to turn based on the heading change, as the other
+	 * formatter does.
+	 * @requires 0 <= origHeading < 360 && 0 <= newHeading < 360
+	 * @return formatter.getTurnString(origHeading, newHeading)
+	 */
+	@Override
+	protected String getTurnString(double origHeading, double newHeading)
+	{
+		return this.formatter.getTurnString(origHeading, newHeading);
+	}
+
+
+	@Override
+	boolean hasOwnTurnString()
+	{
+		return this.formatter.hasOwnTurnString();
+	}
+
+
+	/**
+	 * Returns the number of lines found in the cache.
+	 * @return the number of lines computed by this that were cached.
+	 */
+	public long getHits()
+	{
+		return this.hits.sum();
+	}
+
+
+	/**
+	 * Returns the number of lines not found in the cache.
+	 * @return the number of lines computed by this that weren't cached,
+	 *         and were computed by formatter.
+	 */
+	public long getMisses()
+	{
+		return this.misses.sum();
+	}
+
+
+	/**
+	 * Returns the number of lines evicted from the cache.
+	 * @return the number of lines this evicted to make room for others.
+	 */
+	public long getEvictions()
+	{
+		return this.evictions.sum();
+	}
+
+
+	/**
+	 * Returns the number of cached lines.
+	 * @return the number of lines in the cache.
+	 */
+	public int size()
+	{
+		int size = 0;
+		for (Stripe stripe : this.stripes)
+		{
+			synchronized (stripe)
+			{
+				size += stripe.size();
+			}
+		}
+		return size;
+	}
+
+
+	/**
+	 * Returns the maximal number of cached lines.
+	 * @return this.capacity
+	 */
+	public int getCapacity()
+	{
+		return this.stripes.length * this.stripes[0].capacity;
+	}
+
+
+	/**
+	 * Empties the cache.
+	 * @modifies this
+	 * @effects removes all the cached lines; the counters are unchanged.
+	 */
+	public void clear()
+	{
+		for (Stripe stripe : this.stripes)
+		{
+			synchronized (stripe)
+			{
+				stripe.clear();
+			}
+		}
+	}
+
+
+	// Returns the line of a feature entered with a turn, from the cache or from this.formatter. The line is computed
+	// with the metrics when name isn't null.
+	private String line(GeoFeature geoFeature, double origHeading, String turn, String name, double length)
+	{
+		Key key = new Key(this.byMetrics ? null : geoFeature, turn, (name == null) ? geoFeature.getName() : name,
+				(name == null) ? geoFeature.getLength() : length);
+		// The stripe is chosen by the high bits of the mixed hash code, since the low bits choose the bucket within
+		// the stripe.
+		Stripe stripe = this.stripes[(int) ((key.hash * 0x9E3779B97F4A7C15L) >>> 32 >>> this.stripeShift)];
+		String line;
+		synchronized (stripe)
+		{
+			line = stripe.get(key);
+		}
+		if (line != null)
+		{
+			this.hits.increment();
+			return line;
+		}
+		this.misses.increment();
+		StringBuilder sb = new StringBuilder();
+		if (name == null)
+			this.formatter.computeLine(geoFeature, origHeading, sb);
+		else
+			this.formatter.computeLine(geoFeature, origHeading, turn, name, length, sb);
+		line = sb.toString();
+		synchronized (stripe)
+		{
+			// Another thread may have cached the same line meanwhile.
+			stripe.putIfAbsent(key, line);
+		}
+		return line;
+	}
+
+
+	private void checkRep()
+	{
+		assert this.formatter != null : "CachingRouteFormatter: formatter is null";
+		assert Integer.bitCount(this.stripes.length) == 1 : "CachingRouteFormatter: stripes not a power of 2";
+		assert this.stripes.length == 1L << (32 - this.stripeShift) : "CachingRouteFormatter: bad stripe shift";
+	}
+
+
+	// A feature, or null if only its metrics matter, the turn it's entered with, and its name and length.
+	private static final class Key {
+
+		private final GeoFeature geoFeature;
+		private final String turn;
+		private final String name;
+		private final double length;
+		private final int hash;
+
+		private Key(GeoFeature geoFeature, String turn, String name, double length)
+		{
+			this.geoFeature = geoFeature;
+			this.turn = turn;
+			this.name = name;
+			this.length = length;
+			// The hash code of a GeoFeature is computed when it's constructed.
+			int metrics = (geoFeature != null) ? geoFeature.hashCode() : 31 * name.hashCode() + Double.hashCode(length);
+			this.hash = 31 * metrics + turn.hashCode();
+		}
+
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Key))
+				return false;
+			Key key = (Key) o;
+			// The metrics and the turn are compared first, so the segments of features are only compared when the
+			// features are different objects that are likely to be equal.
+			return this.hash == key.hash && this.length == key.length && this.turn.equals(key.turn)
+					&& this.name.equals(key.name) && (this.geoFeature == key.geoFeature
+							|| (this.geoFeature != null && this.geoFeature.equals(key.geoFeature)));
+		}
+
+
+		@Override
+		public int hashCode()
+		{
+			return this.hash;
+		}
+	}
+
+
+	// The lines of a stripe, in access order, the least recently used first.
+	private static final class Stripe extends LinkedHashMap<Key, String> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int capacity;
+		private final LongAdder evictions;
+
+		private Stripe(int capacity, LongAdder evictions)
+		{
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+			this.evictions = evictions;
+		}
+
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, String> eldest)
+		{
+			if (this.size() <= this.capacity)
+				return false;
+			this.evictions.increment();
+			return true;
+		}
+	}
+}
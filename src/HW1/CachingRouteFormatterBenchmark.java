@@ -0,0 +1,136 @@
+package HW1;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Computes the directions of many shortest path Routes of a grid road
+ * network, drawn from a pool of distinct Routes with a skewed popularity,
+ * with BatchDirections on 1 to N threads, once with a formatter itself and
+ * once with CachingRouteFormatters of several capacities, and reports their
+ * throughput, hit rate, evictions, and whether the directions are the same.
+ * <p>
+ * The formatters are one that formats its lines with String.format(), the
+ * kind of expensive formatter the cache is for, keyed by the features, and
+ * the driving and walking formatters, which render their lines from a
+ * template about as fast as they're looked up, keyed by the metrics.
+ * <p>
+ * Usage: <tt>java HW1.CachingRouteFormatterBenchmark [gridSize] [numOfRoutes] [maxThreads]</tt>
+ */
+public class CachingRouteFormatterBenchmark {
+
+	// The number of distinct Routes the requests are drawn from.
+	private static final int poolSize = 5000;
+
+	private final int gridSize;
+	private final int numOfRoutes;
+	private final int maxThreads;
+
+
+	public CachingRouteFormatterBenchmark(int gridSize, int numOfRoutes, int maxThreads) {
+		this.gridSize = gridSize;
+		this.numOfRoutes = numOfRoutes;
+		this.maxThreads = maxThreads;
+	}
+
+
+	// Driving directions formatted with String.format(), as DrivingRouteFormatter formatted them before templates.
+	static class FormattedRouteFormatter extends RouteFormatter {
+		@Override
+		public String computeLine(GeoFeature geoFeature, double origHeading) {
+			return String.format("%s onto %s and go %,.1f kilometers.%n",
+					getTurnString(origHeading, geoFeature.getStartHeading()), geoFeature.getName(),
+					geoFeature.getLength());
+		}
+	}
+
+
+	// Returns numOfRoutes Routes of the pool, the ones at its start more often than the others.
+	Iterator<Route> routes(List<Route> pool, long seed) {
+		Random random = new Random(seed);
+		return new Iterator<Route>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < numOfRoutes;
+			}
+
+			@Override
+			public Route next() {
+				next++;
+				double r = random.nextDouble();
+				return pool.get((int) (pool.size() * r * r * r));
+			}
+		};
+	}
+
+
+	// Runs the formatter over the Routes on 1 to maxThreads threads, and prints the results unless it's a warm-up.
+	void run(RouteFormatter formatter, List<Route> pool, BatchDirectionsBenchmark.HashSink expected, boolean print)
+			throws IOException {
+		CachingRouteFormatter cache = (formatter instanceof CachingRouteFormatter)
+				? (CachingRouteFormatter) formatter : null;
+		if (print)
+			System.out.println((cache == null) ? "Uncached:" : "Capacity " + cache.getCapacity() + ":");
+		for (int numOfThreads = 1; numOfThreads <= maxThreads; numOfThreads *= 2) {
+			long hits = (cache == null) ? 0 : cache.getHits();
+			long misses = (cache == null) ? 0 : cache.getMisses();
+			long evictions = (cache == null) ? 0 : cache.getEvictions();
+			BatchDirectionsBenchmark.HashSink sink = new BatchDirectionsBenchmark.HashSink();
+			long begin = System.nanoTime();
+			new BatchDirections(formatter, numOfThreads).run(routes(pool, 67), sink);
+			double seconds = (System.nanoTime() - begin) / 1e9;
+			if (!print)
+				continue;
+			System.out.printf("  %2d threads: %.2f s, %.0f K routes/s, same directions: %b", numOfThreads, seconds,
+					numOfRoutes / seconds / 1e3, sink.hash == expected.hash && sink.length == expected.length);
+			if (cache != null) {
+				hits = cache.getHits() - hits;
+				misses = cache.getMisses() - misses;
+				System.out.printf(", hit rate %.1f%%, %d evictions", 100.0 * hits / (hits + misses),
+						cache.getEvictions() - evictions);
+			}
+			System.out.println();
+		}
+	}
+
+
+	// Runs the formatter, uncached and cached, over the Routes.
+	void run(RouteFormatter formatter, List<Route> pool) throws IOException {
+		System.out.println(formatter.getClass().getSimpleName() + ":");
+		BatchDirectionsBenchmark.HashSink expected = new BatchDirectionsBenchmark.HashSink();
+		for (Iterator<Route> i = routes(pool, 67); i.hasNext(); ) {
+			Route route = i.next();
+			String directions = formatter.computeDirections(route, route.getStartHeading());
+			expected.add(directions, 0, directions.length());
+		}
+		// A first pass warms up the formatters and the batches.
+		run(formatter, pool, expected, false);
+		run(new CachingRouteFormatter(formatter, 1000), pool, expected, false);
+		run(formatter, pool, expected, true);
+		for (int capacity : new int[] { 100, 1000, 10000, 100000 })
+			run(new CachingRouteFormatter(formatter, capacity), pool, expected, true);
+	}
+
+
+	public void run() throws IOException {
+		List<Route> pool = BatchDirectionsTest.createRoutes(gridSize, poolSize, new Random(67));
+		System.out.printf("%d routes, drawn from %d distinct routes, %d available processors%n", numOfRoutes,
+				poolSize, Runtime.getRuntime().availableProcessors());
+		run(new FormattedRouteFormatter(), pool);
+		run(new DrivingRouteFormatter(), pool);
+		run(new WalkingRouteFormatter(), pool);
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		int gridSize = (args.length > 0) ? Integer.parseInt(args[0]) : 100;
+		int numOfRoutes = (args.length > 1) ? Integer.parseInt(args[1]) : 500000;
+		int maxThreads = (args.length > 2) ? Integer.parseInt(args[2])
+				: Math.max(4, Runtime.getRuntime().availableProcessors());
+		new CachingRouteFormatterBenchmark(gridSize, numOfRoutes, maxThreads).run();
+	}
+}
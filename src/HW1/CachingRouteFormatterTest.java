@@ -0,0 +1,183 @@
+package HW1;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class CachingRouteFormatterTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Returns a GeoFeature equal to gf, made of new GeoSegments and GeoPoints.
+	static GeoFeature copy(GeoFeature gf) {
+		Iterator<GeoSegment> i = gf.getGeoSegments();
+		GeoSegment gs = i.next();
+		GeoPoint p1 = new GeoPoint(gs.getP1().getLatitude(), gs.getP1().getLongitude());
+		GeoPoint p2 = new GeoPoint(gs.getP2().getLatitude(), gs.getP2().getLongitude());
+		GeoFeature copy = new GeoFeature(new GeoSegment(gs.getName(), p1, p2));
+		while (i.hasNext()) {
+			gs = i.next();
+			p1 = p2;
+			p2 = new GeoPoint(gs.getP2().getLatitude(), gs.getP2().getLongitude());
+			copy = copy.addSegment(new GeoSegment(gs.getName(), p1, p2));
+		}
+		return copy;
+	}
+
+
+	// A formatter whose lines also depend on where the feature starts.
+	static class StartRouteFormatter extends RouteFormatter {
+		@Override
+		public String computeLine(GeoFeature geoFeature, double origHeading) {
+			return getTurnString(origHeading, geoFeature.getStartHeading()) + " onto " + geoFeature.getName() + " at "
+				+ geoFeature.getStart().getLatitude() + "," + geoFeature.getStart().getLongitude() + "\n";
+		}
+	}
+
+
+	// Returns the number of GeoFeatures of the Routes.
+	static long numOfFeatures(List<Route> routes) {
+		long n = 0;
+		for (Route route : routes)
+			n += route.getGeoFeaturesSize();
+		return n;
+	}
+
+
+	public void test() throws IOException, InterruptedException {
+		List<Route> routes = BatchDirectionsTest.createRoutes(20, 200, new Random(61));
+		RouteFormatter[] formatters = { new DrivingRouteFormatter(), new WalkingRouteFormatter(),
+			new MultiRouteFormatterTest.SpeedRouteFormatter("ride", 15),
+			new MultiRouteFormatterTest.PlainRouteFormatter() };
+
+		show("Directions");
+		for (RouteFormatter formatter : formatters) {
+			CachingRouteFormatter cache = new CachingRouteFormatter(formatter, 100000);
+			boolean same = true;
+			for (int round = 0; round < 2; round++)
+				for (Route route : routes)
+					same &= cache.computeDirections(route, route.getStartHeading())
+						.equals(formatter.computeDirections(route, route.getStartHeading()));
+			StringWriter out = new StringWriter();
+			cache.computeDirections(routes.get(0), 90, out);
+			same &= out.toString().equals(formatter.computeDirections(routes.get(0), 90));
+			show("The directions of " + formatter.getClass().getSimpleName() + " are unchanged", same);
+		}
+		CachingRouteFormatter driving = new CachingRouteFormatter(new DrivingRouteFormatter(), 100000);
+		CachingRouteFormatter walking = new CachingRouteFormatter(new WalkingRouteFormatter(), 100000);
+		MultiRouteFormatter multi = new MultiRouteFormatter(driving, walking);
+		boolean same = true;
+		for (Route route : routes) {
+			String[] directions = multi.computeDirections(route, 0);
+			same &= directions[0].equals(formatters[0].computeDirections(route, 0))
+				&& directions[1].equals(formatters[1].computeDirections(route, 0));
+		}
+		show("Caches in a MultiRouteFormatter compute the same directions", same);
+
+		show("Hits and misses");
+		CachingRouteFormatter cache = new CachingRouteFormatter(new DrivingRouteFormatter(), 100000);
+		Route route = routes.get(0);
+		cache.computeDirections(route, route.getStartHeading());
+		long lines = route.getGeoFeaturesSize();
+		show("A first pass misses every feature", cache.getHits() == 0 && cache.getMisses() == lines
+			&& cache.size() == lines);
+		cache.computeDirections(route, route.getStartHeading());
+		show("A second pass hits every feature", cache.getHits() == lines && cache.getMisses() == lines);
+		GeoFeature gf = route.getGeoFeatures().next();
+		double heading = gf.getStartHeading();
+		cache = new CachingRouteFormatter(new DrivingRouteFormatter(), 100);
+		String line = cache.computeLine(gf, heading);
+		show("An equal feature made of other segments hits", cache.computeLine(copy(gf), heading) == line
+			&& cache.getHits() == 1);
+		show("A heading with the same turn hits", cache.computeLine(gf, (heading + 1) % 360) == line
+			&& cache.getHits() == 2 && cache.getMisses() == 1);
+		String uTurn = cache.computeLine(gf, (heading + 180) % 360);
+		show("A heading with another turn misses", uTurn.startsWith("U-turn") && cache.getMisses() == 2);
+		cache.clear();
+		show("clear() empties the cache and keeps the counters", cache.size() == 0 && cache.getHits() == 2);
+		cache.computeLine(gf, heading);
+		show("A cleared line misses", cache.getMisses() == 3);
+
+		show("Keys");
+		GeoFeature here = new GeoFeature(new GeoSegment("Alpha", new GeoPoint(32000000, 35000000),
+			new GeoPoint(32001000, 35001000)));
+		GeoFeature there = new GeoFeature(new GeoSegment("Alpha", new GeoPoint(32000000, 35005000),
+			new GeoPoint(32001000, 35006000)));
+		RouteFormatter start = new StartRouteFormatter();
+		cache = new CachingRouteFormatter(start, 100);
+		show("Features of the same name and length have lines of their own",
+			here.getLength() == there.getLength() && cache.computeLine(here, 0).equals(start.computeLine(here, 0))
+			&& cache.computeLine(there, 0).equals(start.computeLine(there, 0)) && cache.getMisses() == 2);
+		cache = new CachingRouteFormatter(new DrivingRouteFormatter(), 100);
+		cache.computeLine(here, 0);
+		show("A formatter that renders from the metrics shares them",
+			cache.computeLine(there, 0).equals(formatters[0].computeLine(there, 0)) && cache.getHits() == 1);
+
+		show("Eviction");
+		List<GeoFeature> features = new ArrayList<GeoFeature>();
+		for (Iterator<GeoFeature> i = routes.get(1).getGeoFeatures(); features.size() < 3; )
+			features.add(i.next());
+		cache = new CachingRouteFormatter(new DrivingRouteFormatter(), 2, 1);
+		cache.computeLine(features.get(0), 0);
+		cache.computeLine(features.get(1), 0);
+		cache.computeLine(features.get(0), 0);
+		cache.computeLine(features.get(2), 0);
+		show("A full cache evicts a line", cache.size() == 2 && cache.getEvictions() == 1);
+		cache.computeLine(features.get(0), 0);
+		show("The recently used line is kept", cache.getHits() == 2 && cache.getMisses() == 3);
+		cache.computeLine(features.get(1), 0);
+		show("The least recently used line is evicted", cache.getMisses() == 4 && cache.getEvictions() == 2);
+		cache = new CachingRouteFormatter(new DrivingRouteFormatter(), 100);
+		for (Route r : routes)
+			cache.computeDirections(r, 0);
+		show("The cache holds up to its capacity", cache.getCapacity() == 112 && cache.size() <= 112
+			&& cache.getEvictions() == cache.getMisses() - cache.size());
+
+		show("Concurrency");
+		CachingRouteFormatter shared = new CachingRouteFormatter(new WalkingRouteFormatter(), 64);
+		AtomicBoolean ok = new AtomicBoolean(true);
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			int offset = t;
+			threads[t] = new Thread(() -> {
+				for (int round = 0; round < 3; round++)
+					for (int j = 0; j < routes.size(); j++) {
+						Route r = routes.get((j + 50 * offset) % routes.size());
+						if (!shared.computeDirections(r, 0).equals(formatters[1].computeDirections(r, 0)))
+							ok.set(false);
+					}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		show("Threads sharing a cache compute the same directions", ok.get());
+		show("Every line is a hit or a miss", shared.getHits() + shared.getMisses()
+			== threads.length * 3 * numOfFeatures(routes));
+		show("The shared cache holds up to its capacity", shared.size() <= shared.getCapacity()
+			&& shared.getEvictions() > 0);
+	}
+
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		CachingRouteFormatterTest cachingTest = new CachingRouteFormatterTest();
+		cachingTest.test();
+	}
+}
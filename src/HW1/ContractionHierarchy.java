@@ -0,0 +1,940 @@
+package HW1;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A ContractionHierarchy is a preprocessed RoadGraph that answers shortest
+ * path queries much faster than searching the graph itself.
+ * <p>
+ * Preprocessing contracts the nodes of the graph one by one, from the least
+ * to the most important. Contracting a node removes it, and adds a shortcut
+ * edge between two of its neighbors wherever the shortest path between
+ * them went through it. Every shortcut remembers the two edges it stands
+ * for, which may be shortcuts themselves, so a shortcut can be unpacked
+ * back into the chain of segments of the graph. The order in which the
+ * nodes are contracted is their rank.
+ * <p>
+ * A query runs a Dijkstra search from the source and a backward one from
+ * the target at the same time, both only along edges to nodes of a higher
+ * rank, and meets at the highest ranked node of the shortest path. Since a
+ * hierarchy has few edges going up from any node, a query settles a few
+ * hundred nodes even on a graph with millions.
+ * <p>
+ * Preprocessing runs in parallel: in every round, the nodes whose priority
+ * is the lowest among the nodes up to two hops away are contracted at once,
+ * and the searches for their shortcuts are spread over several threads.
+ * These searches avoid all the nodes of the round, so the shortcuts of one
+ * node never rely on a path through another node removed with it.
+ * <p>
+ * ContractionHierarchies are immutable, hence safe for use by multiple
+ * threads. Queries are run by Query objects, one per thread.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   graph : RoadGraph        // the graph this hierarchy was built for
+ *   rank : sequence          // the position of every node of graph in the contraction order
+ * </pre>
+ */
+public class ContractionHierarchy {
+
+	// Witness searches give up after settling this many nodes, and the shortcut is added.
+	private static final int witnessSettleLimit = 500;
+
+	// A node is contracted in a round only if its priority is the lowest within this many hops.
+	private static final int selectionHops = 2;
+
+	// Nodes are handed to the preprocessing threads in blocks of this size.
+	private static final int blockSize = 256;
+
+	private final RoadGraph graph;
+	private final int numOfNodes;
+	private final int numOfOriginalEdges;
+	private final int[] ranks;
+
+	// All the edges: the first numOfOriginalEdges are the edges of this.graph, with the same ids.
+	private final int[] edgeSources;
+	private final int[] edgeTargets;
+	private final double[] edgeWeights;
+	private final int[] firstChildren;
+	private final int[] secondChildren;
+
+	// The upward edges leaving each node, and the downward edges entering it, in compressed sparse row form.
+	private final int[] upOffsets;
+	private final int[] upEdges;
+	private final int[] upTargets;
+	private final double[] upWeights;
+	private final int[] downOffsets;
+	private final int[] downEdges;
+	private final int[] downSources;
+	private final double[] downWeights;
+
+	private final long preprocessingNanos;
+
+	// Rep. Inv.:
+	// this.ranks is a permutation of 0..this.numOfNodes-1.
+	// for every edge e < this.numOfOriginalEdges: e is the edge of this.graph with the same id and its children are -1.
+	// for every shortcut e >= this.numOfOriginalEdges: this.firstChildren[e] and this.secondChildren[e] are edges
+	//     from this.edgeSources[e] to a node v and from v to this.edgeTargets[e], with ids smaller than e, whose
+	//     weights add up to this.edgeWeights[e], and v has a lower rank than both endpoints of e.
+	// every edge in the upward range of node n leaves n to a node of a higher rank, and every edge in the downward
+	//     range of n enters n from a node of a higher rank.
+
+	// Abstraction Function:
+	// rank[n] = this.ranks[n], and the hierarchy is the graph this.graph with the shortcuts added.
+
+	private ContractionHierarchy(Contractor contractor, long preprocessingNanos)
+	{
+		this.graph = contractor.graph;
+		this.numOfNodes = contractor.numOfNodes;
+		this.numOfOriginalEdges = this.graph.numOfEdges();
+		this.ranks = contractor.ranks;
+		int numOfEdges = contractor.numOfEdges;
+		this.edgeSources = Arrays.copyOf(contractor.edgeSources, numOfEdges);
+		this.edgeTargets = Arrays.copyOf(contractor.edgeTargets, numOfEdges);
+		this.edgeWeights = Arrays.copyOf(contractor.edgeWeights, numOfEdges);
+		this.firstChildren = Arrays.copyOf(contractor.firstChildren, numOfEdges);
+		this.secondChildren = Arrays.copyOf(contractor.secondChildren, numOfEdges);
+
+		this.upOffsets = offsets(contractor.ups);
+		this.upEdges = flatten(contractor.ups, this.upOffsets);
+		this.upTargets = new int[this.upEdges.length];
+		this.upWeights = new double[this.upEdges.length];
+		for (int i = 0; i < this.upEdges.length; i++)
+		{
+			this.upTargets[i] = this.edgeTargets[this.upEdges[i]];
+			this.upWeights[i] = this.edgeWeights[this.upEdges[i]];
+		}
+		this.downOffsets = offsets(contractor.downs);
+		this.downEdges = flatten(contractor.downs, this.downOffsets);
+		this.downSources = new int[this.downEdges.length];
+		this.downWeights = new double[this.downEdges.length];
+		for (int i = 0; i < this.downEdges.length; i++)
+		{
+			this.downSources[i] = this.edgeSources[this.downEdges[i]];
+			this.downWeights[i] = this.edgeWeights[this.downEdges[i]];
+		}
+		this.preprocessingNanos = preprocessingNanos;
+		this.checkRep();
+	}
+
+
+	/**
+	 * Builds the hierarchy of a graph using all the available processors.
+	 * @requires graph != null
+	 * @return a new ContractionHierarchy of graph.
+	 */
+	public static ContractionHierarchy build(RoadGraph graph)
+	{
+		return build(graph, Runtime.getRuntime().availableProcessors());
+	}
+
+
+	/**
+	 * Builds the hierarchy of a graph.
+	 * @requires graph != null && numOfThreads > 0
+	 * @return a new ContractionHierarchy of graph, preprocessed by
+	 *         numOfThreads threads.
+	 */
+	public static ContractionHierarchy build(RoadGraph graph, int numOfThreads)
+	{
+		assert graph != null && numOfThreads > 0 : "ContractionHierarchy: bad arguments";
+		long begin = System.nanoTime();
+		Contractor contractor = new Contractor(graph, numOfThreads);
+		contractor.contractAll();
+		return new ContractionHierarchy(contractor, System.nanoTime() - begin);
+	}
+
+
+	/**
+	 * Returns the graph of this hierarchy.
+	 * @return this.graph
+	 */
+	public RoadGraph getGraph()
+	{
+		return this.graph;
+	}
+
+
+	/**
+	 * Returns the rank of a node.
+	 * @requires 0 <= n < this.graph.numOfNodes()
+	 * @return this.rank[n]
+	 */
+	public int getRank(int n)
+	{
+		return this.ranks[n];
+	}
+
+
+	/**
+	 * Returns the number of shortcuts.
+	 * @return the number of edges preprocessing added to this.graph.
+	 */
+	public int numOfShortcuts()
+	{
+		return this.edgeSources.length - this.numOfOriginalEdges;
+	}
+
+
+	/**
+	 * Returns the time preprocessing took.
+	 * @return the number of nanoseconds it took to build this hierarchy.
+	 */
+	public long getPreprocessingNanos()
+	{
+		return this.preprocessingNanos;
+	}
+
+
+	/**
+	 * Returns a new Query of this hierarchy.
+	 * @return a new Query of this hierarchy with an empty path.
+	 */
+	public Query newQuery()
+	{
+		return new Query();
+	}
+
+
+	/**
+	 * Returns a string representation of this.
+	 * @return a string representation of this.
+	 */
+	@Override
+	public String toString()
+	{
+		return "ContractionHierarchy: " + this.numOfNodes + " nodes, " + this.numOfOriginalEdges + " edges, "
+				+ this.numOfShortcuts() + " shortcuts";
+	}
+
+
+	// Returns the offsets of the rows of a jagged array in its flattened form.
+	private static int[] offsets(int[][] rows)
+	{
+		int[] offsets = new int[rows.length + 1];
+		for (int i = 0; i < rows.length; i++)
+			offsets[i + 1] = offsets[i] + rows[i].length;
+		return offsets;
+	}
+
+
+	private static int[] flatten(int[][] rows, int[] offsets)
+	{
+		int[] flat = new int[offsets[rows.length]];
+		for (int i = 0; i < rows.length; i++)
+			System.arraycopy(rows[i], 0, flat, offsets[i], rows[i].length);
+		return flat;
+	}
+
+
+	private void checkRep()
+	{
+		assert this.ranks.length == this.numOfNodes : "ContractionHierarchy: bad ranks";
+		assert this.upOffsets.length == this.numOfNodes + 1 && this.downOffsets.length == this.numOfNodes + 1
+				: "ContractionHierarchy: bad offsets";
+		assert this.edgeTargets.length == this.edgeSources.length && this.edgeWeights.length == this.edgeSources.length
+				: "ContractionHierarchy: bad edge arrays";
+	}
+
+
+	/**
+	 * A Query finds shortest paths in a ContractionHierarchy. A Query holds
+	 * the state of its last search, in arrays it reuses across searches, so
+	 * it isn't safe for use by multiple threads.
+	 * <p>
+	 * <b>The following fields are used in the specification:</b>
+	 * <pre>
+	 *   path : sequence      // the edges of the graph along the path found by the last search
+	 *   distance : real      // the length of path, in kilometers
+	 *   settled : integer    // the number of nodes the last search settled, in both directions
+	 * </pre>
+	 */
+	public final class Query {
+
+		private final IntMinHeap forwardHeap = new IntMinHeap(numOfNodes);
+		private final IntMinHeap backwardHeap = new IntMinHeap(numOfNodes);
+		private final double[] forwardDistances = new double[numOfNodes];
+		private final double[] backwardDistances = new double[numOfNodes];
+		private final int[] forwardEdges = new int[numOfNodes];
+		private final int[] backwardEdges = new int[numOfNodes];
+		private final int[] forwardStamps = new int[numOfNodes];
+		private final int[] backwardStamps = new int[numOfNodes];
+		private int generation = 0;
+
+		private int source;
+		private int target;
+		private int meeting = -1;
+		private double distance;
+		private int settled;
+
+		private Query()
+		{
+		}
+
+
+		/**
+		 * Finds a shortest path between two nodes.
+		 * @requires 0 <= source, target < graph.numOfNodes()
+		 * @modifies this
+		 * @effects sets this.path to a shortest path from source to target,
+		 *          which is empty if source = target or if target can't be
+		 *          reached from source, and this.distance to its length.
+		 * @return true iff target can be reached from source.
+		 */
+		public boolean search(int source, int target)
+		{
+			assert 0 <= source && source < numOfNodes && 0 <= target && target < numOfNodes
+					: "ContractionHierarchy.Query: node out of range";
+			if (this.generation == Integer.MAX_VALUE)
+			{
+				Arrays.fill(this.forwardStamps, 0);
+				Arrays.fill(this.backwardStamps, 0);
+				this.generation = 0;
+			}
+			int generation = ++this.generation;
+			this.source = source;
+			this.target = target;
+			this.meeting = -1;
+			this.distance = Double.POSITIVE_INFINITY;
+			this.settled = 0;
+
+			this.forwardStamps[source] = generation;
+			this.forwardDistances[source] = 0;
+			this.forwardEdges[source] = -1;
+			this.forwardHeap.offer(source, 0);
+			this.backwardStamps[target] = generation;
+			this.backwardDistances[target] = 0;
+			this.backwardEdges[target] = -1;
+			this.backwardHeap.offer(target, 0);
+			if (source == target)
+			{
+				this.meeting = source;
+				this.distance = 0;
+			}
+
+			boolean forward = true;
+			while (!this.forwardHeap.isEmpty() || !this.backwardHeap.isEmpty())
+			{
+				// Alternating between the directions, each one stops once it can't improve the best path.
+				if (this.forwardHeap.isEmpty())
+					forward = false;
+				else if (this.backwardHeap.isEmpty())
+					forward = true;
+				IntMinHeap heap = forward ? this.forwardHeap : this.backwardHeap;
+				if (heap.peekKey() >= this.distance)
+				{
+					heap.clear();
+					forward = !forward;
+					continue;
+				}
+				int n = heap.poll();
+				this.settled++;
+				if (forward)
+					this.relax(n, upOffsets, upTargets, upWeights, upEdges, downOffsets, downSources, downWeights,
+							this.forwardDistances, this.forwardEdges, this.forwardStamps, this.forwardHeap,
+							this.backwardDistances, this.backwardStamps);
+				else
+					this.relax(n, downOffsets, downSources, downWeights, downEdges, upOffsets, upTargets, upWeights,
+							this.backwardDistances, this.backwardEdges, this.backwardStamps, this.backwardHeap,
+							this.forwardDistances, this.forwardStamps);
+				forward = !forward;
+			}
+			return this.meeting >= 0;
+		}
+
+
+		// Relaxes the edges of node n in one direction, updating the best path where it meets the other direction.
+		// The edges are skipped when a higher node reached in the same direction gives a shorter path to n, which
+		// means the path the search found to n isn't a shortest one ("stall on demand").
+		private void relax(int n, int[] offsets, int[] heads, double[] weights, int[] edges, int[] stallOffsets,
+				int[] stallHeads, double[] stallWeights, double[] distances, int[] prevEdges, int[] stamps,
+				IntMinHeap heap, double[] otherDistances, int[] otherStamps)
+		{
+			int generation = this.generation;
+			double distance = distances[n];
+			if (otherStamps[n] == generation && distance + otherDistances[n] < this.distance)
+			{
+				this.distance = distance + otherDistances[n];
+				this.meeting = n;
+			}
+			for (int i = stallOffsets[n]; i < stallOffsets[n + 1]; i++)
+			{
+				int higher = stallHeads[i];
+				if (stamps[higher] == generation && distances[higher] + stallWeights[i] < distance)
+					return;
+			}
+			for (int i = offsets[n]; i < offsets[n + 1]; i++)
+			{
+				int next = heads[i];
+				double nextDistance = distance + weights[i];
+				if (stamps[next] != generation || nextDistance < distances[next])
+				{
+					stamps[next] = generation;
+					distances[next] = nextDistance;
+					prevEdges[next] = edges[i];
+					heap.offer(next, nextDistance);
+					if (otherStamps[next] == generation && nextDistance + otherDistances[next] < this.distance)
+					{
+						this.distance = nextDistance + otherDistances[next];
+						this.meeting = next;
+					}
+				}
+			}
+		}
+
+
+		/**
+		 * Finds a shortest route between two points.
+		 * @requires from != null && to != null
+		 * @modifies this
+		 * @effects sets this.path as search() does, with the nodes of from
+		 *          and to.
+		 * @return a new Route along this.path that starts at the GeoPoint
+		 *         object from, or null if from or to isn't a node of
+		 *         graph, if from = to, or if there is no path from from to
+		 *         to.
+		 */
+		public Route route(GeoPoint from, GeoPoint to)
+		{
+			assert from != null && to != null : "ContractionHierarchy.Query: null point";
+			int source = graph.nodeOf(from);
+			int target = graph.nodeOf(to);
+			if (source < 0 || target < 0 || source == target || !this.search(source, target))
+				return null;
+			return graph.toRoute(this.getPathEdges(), from);
+		}
+
+
+		/**
+		 * Returns the length of the path found by the last search.
+		 * @requires the last search found a path.
+		 * @return this.distance
+		 */
+		public double getDistance()
+		{
+			assert this.meeting >= 0 : "ContractionHierarchy.Query: no path";
+			return this.distance;
+		}
+
+
+		/**
+		 * Returns the path found by the last search, with its shortcuts
+		 * unpacked.
+		 * @return a new array of the ids of the edges of graph along
+		 *         this.path, in order.
+		 */
+		public int[] getPathEdges()
+		{
+			if (this.meeting < 0)
+				return new int[0];
+
+			// The hierarchy edges from the source up to the meeting node, and down from it to the target.
+			int count = 0;
+			for (int n = this.meeting; n != this.source; n = edgeSources[this.forwardEdges[n]])
+				count++;
+			int up = count;
+			for (int n = this.meeting; n != this.target; n = edgeTargets[this.backwardEdges[n]])
+				count++;
+			int[] edges = new int[count];
+			int i = up;
+			for (int n = this.meeting; n != this.source; n = edgeSources[this.forwardEdges[n]])
+				edges[--i] = this.forwardEdges[n];
+			i = up;
+			for (int n = this.meeting; n != this.target; n = edgeTargets[this.backwardEdges[n]])
+				edges[i++] = this.backwardEdges[n];
+
+			// Unpacking the shortcuts, each into the two edges it stands for, until only graph edges are left.
+			int[] path = new int[2 * count];
+			int length = 0;
+			int[] stack = new int[16];
+			for (int e : edges)
+			{
+				int top = 0;
+				stack[top++] = e;
+				while (top > 0)
+				{
+					int edge = stack[--top];
+					if (edge < numOfOriginalEdges)
+					{
+						if (length == path.length)
+							path = Arrays.copyOf(path, 2 * path.length);
+						path[length++] = edge;
+					}
+					else
+					{
+						if (top + 2 > stack.length)
+							stack = Arrays.copyOf(stack, 2 * stack.length);
+						stack[top++] = secondChildren[edge];
+						stack[top++] = firstChildren[edge];
+					}
+				}
+			}
+			return Arrays.copyOf(path, length);
+		}
+
+
+		/**
+		 * Returns the number of nodes the last search settled.
+		 * @return this.settled
+		 */
+		public int getSettledCount()
+		{
+			return this.settled;
+		}
+	}
+
+
+	// The state of the preprocessing: the graph of the nodes not contracted yet, with the shortcuts added so far.
+	private static final class Contractor {
+
+		private final RoadGraph graph;
+		private final int numOfNodes;
+		private final int numOfThreads;
+
+		private int numOfEdges;
+		private int[] edgeSources;
+		private int[] edgeTargets;
+		private double[] edgeWeights;
+		private int[] firstChildren;
+		private int[] secondChildren;
+
+		// The edges between nodes not contracted yet, leaving and entering each node.
+		private final int[][] outs;
+		private final int[] outSizes;
+		private final int[][] ins;
+		private final int[] inSizes;
+
+		private final int[] ranks;
+		private final int[][] ups;
+		private final int[][] downs;
+		private final int[] priorities;
+		private final int[] contractedNeighbors;
+		private final boolean[] dirty;
+		private final boolean[] contracting;
+
+		private Contractor(RoadGraph graph, int numOfThreads)
+		{
+			this.graph = graph;
+			this.numOfNodes = graph.numOfNodes();
+			this.numOfThreads = numOfThreads;
+			int capacity = Math.max(16, 2 * graph.numOfEdges());
+			this.edgeSources = new int[capacity];
+			this.edgeTargets = new int[capacity];
+			this.edgeWeights = new double[capacity];
+			this.firstChildren = new int[capacity];
+			this.secondChildren = new int[capacity];
+			this.outs = new int[this.numOfNodes][];
+			this.outSizes = new int[this.numOfNodes];
+			this.ins = new int[this.numOfNodes][];
+			this.inSizes = new int[this.numOfNodes];
+			for (int n = 0; n < this.numOfNodes; n++)
+			{
+				this.outs[n] = new int[Math.max(2, graph.outDegree(n))];
+				this.ins[n] = new int[4];
+			}
+			this.ranks = new int[this.numOfNodes];
+			this.ups = new int[this.numOfNodes][];
+			this.downs = new int[this.numOfNodes][];
+			this.priorities = new int[this.numOfNodes];
+			this.contractedNeighbors = new int[this.numOfNodes];
+			this.dirty = new boolean[this.numOfNodes];
+			this.contracting = new boolean[this.numOfNodes];
+
+			// The edges of the graph keep their ids; loops never lie on a shortest path, so they aren't linked.
+			for (int n = 0; n < this.numOfNodes; n++)
+			{
+				for (int e = graph.firstEdge(n); e < graph.endEdge(n); e++)
+				{
+					int id = this.addEdge(n, graph.getEdgeTarget(e), graph.getEdgeLength(e), -1, -1);
+					assert id == e : "ContractionHierarchy: edge ids differ";
+					if (n != graph.getEdgeTarget(e))
+						this.link(id);
+				}
+			}
+		}
+
+
+		// Contracts all the nodes, a round of independent nodes at a time.
+		private void contractAll()
+		{
+			int[] remaining = new int[this.numOfNodes];
+			for (int n = 0; n < this.numOfNodes; n++)
+			{
+				remaining[n] = n;
+				this.dirty[n] = true;
+			}
+			int numOfRemaining = this.numOfNodes;
+			int nextRank = 0;
+			int[] selected = new int[this.numOfNodes];
+			Worker[] workers = new Worker[this.numOfThreads];
+			for (int t = 0; t < this.numOfThreads; t++)
+				workers[t] = new Worker(this.numOfNodes);
+
+			while (numOfRemaining > 0)
+			{
+				// Updating the priorities of the nodes whose neighborhood changed.
+				int numOfDirty = 0;
+				int[] dirtyNodes = selected;
+				for (int i = 0; i < numOfRemaining; i++)
+					if (this.dirty[remaining[i]])
+						dirtyNodes[numOfDirty++] = remaining[i];
+				this.runParallel(workers, dirtyNodes, numOfDirty, false);
+				for (int i = 0; i < numOfDirty; i++)
+					this.dirty[dirtyNodes[i]] = false;
+
+				// Selecting the nodes whose priority is lower than the ones of all the nodes up to selectionHops away.
+				int numOfSelected = 0;
+				for (int i = 0; i < numOfRemaining; i++)
+				{
+					int n = remaining[i];
+					if (this.isLocalMinimum(n, n, selectionHops))
+						selected[numOfSelected++] = n;
+				}
+				for (int i = 0; i < numOfSelected; i++)
+					this.contracting[selected[i]] = true;
+
+				// Finding their shortcuts in parallel, then contracting them.
+				for (Worker worker : workers)
+					worker.shortcuts.clear();
+				this.runParallel(workers, selected, numOfSelected, true);
+				for (int i = 0; i < numOfSelected; i++)
+				{
+					int n = selected[i];
+					this.ranks[n] = nextRank++;
+					this.remove(n);
+					this.contracting[n] = false;
+				}
+				for (Worker worker : workers)
+				{
+					ShortcutList shortcuts = worker.shortcuts;
+					for (int i = 0; i < shortcuts.size; i++)
+						this.addShortcut(shortcuts.sources[i], shortcuts.targets[i], shortcuts.weights[i],
+								shortcuts.firstChildren[i], shortcuts.secondChildren[i]);
+				}
+
+				int kept = 0;
+				for (int i = 0; i < numOfRemaining; i++)
+					if (this.ups[remaining[i]] == null)
+						remaining[kept++] = remaining[i];
+				numOfRemaining = kept;
+			}
+		}
+
+
+		// Returns true iff node n has a lower (priority, id) than all the nodes within the given number of hops.
+		private boolean isLocalMinimum(int n, int center, int hops)
+		{
+			for (int i = 0; i < this.outSizes[n] + this.inSizes[n]; i++)
+			{
+				int m = (i < this.outSizes[n]) ? this.edgeTargets[this.outs[n][i]]
+						: this.edgeSources[this.ins[n][i - this.outSizes[n]]];
+				if (m == center)
+					continue;
+				if (this.priorities[m] < this.priorities[center]
+						|| (this.priorities[m] == this.priorities[center] && scramble(m) < scramble(center)))
+					return false;
+				if (hops > 1 && !this.isLocalMinimum(m, center, hops - 1))
+					return false;
+			}
+			return true;
+		}
+
+
+		// Orders nodes of equal priority pseudo-randomly, so they aren't selected in waves along the node ids.
+		// Multiplying by an odd constant is a bijection of the ints, so no two nodes tie, and two neighbours are
+		// never both local minima.
+		private static int scramble(int n)
+		{
+			return n * 0x9E3779B9;
+		}
+
+
+		// Runs the workers over nodes[0..count): computing priorities, or collecting the shortcuts of contraction.
+		private void runParallel(Worker[] workers, int[] nodes, int count, boolean contract)
+		{
+			AtomicInteger next = new AtomicInteger(0);
+			Thread[] threads = new Thread[workers.length];
+			for (int t = 0; t < workers.length; t++)
+			{
+				Worker worker = workers[t];
+				threads[t] = new Thread(() -> {
+					for (int begin = next.getAndAdd(blockSize); begin < count; begin = next.getAndAdd(blockSize))
+					{
+						int end = Math.min(count, begin + blockSize);
+						for (int i = begin; i < end; i++)
+						{
+							int n = nodes[i];
+							if (contract)
+							{
+								this.findShortcuts(n, worker, worker.shortcuts);
+							}
+							else
+							{
+								int shortcuts = this.findShortcuts(n, worker, null);
+								int degree = this.outSizes[n] + this.inSizes[n];
+								this.priorities[n] = 2 * shortcuts - degree + this.contractedNeighbors[n];
+							}
+						}
+					}
+				});
+			}
+			if (threads.length == 1)
+			{
+				threads[0].run();
+				return;
+			}
+			for (Thread thread : threads)
+				thread.start();
+			for (Thread thread : threads)
+			{
+				try
+				{
+					thread.join();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("ContractionHierarchy: preprocessing was interrupted", e);
+				}
+			}
+		}
+
+
+		// Returns the number of shortcuts contracting node n needs, adding them to list unless it is null.
+		private int findShortcuts(int n, Worker worker, ShortcutList list)
+		{
+			int count = 0;
+			int[] in = this.ins[n];
+			int[] out = this.outs[n];
+			double maxOut = 0;
+			for (int j = 0; j < this.outSizes[n]; j++)
+				maxOut = Math.max(maxOut, this.edgeWeights[out[j]]);
+			for (int i = 0; i < this.inSizes[n]; i++)
+			{
+				int inEdge = in[i];
+				int from = this.edgeSources[inEdge];
+				double inWeight = this.edgeWeights[inEdge];
+				worker.search(this, from, n, inWeight + maxOut);
+				for (int j = 0; j < this.outSizes[n]; j++)
+				{
+					int outEdge = out[j];
+					int to = this.edgeTargets[outEdge];
+					if (to == from)
+						continue;
+					double via = inWeight + this.edgeWeights[outEdge];
+					if (worker.distanceTo(to) <= via)
+						continue;
+					count++;
+					if (list != null)
+						list.add(from, to, via, inEdge, outEdge);
+				}
+			}
+			return count;
+		}
+
+
+		// Removes node n from the graph, keeping its edges as the upward and downward edges of the hierarchy.
+		private void remove(int n)
+		{
+			this.ups[n] = Arrays.copyOf(this.outs[n], this.outSizes[n]);
+			this.downs[n] = Arrays.copyOf(this.ins[n], this.inSizes[n]);
+			for (int e : this.ups[n])
+			{
+				int m = this.edgeTargets[e];
+				removeEdge(this.ins[m], this.inSizes, m, e);
+				this.contractedNeighbors[m]++;
+				this.dirty[m] = true;
+			}
+			for (int e : this.downs[n])
+			{
+				int m = this.edgeSources[e];
+				removeEdge(this.outs[m], this.outSizes, m, e);
+				this.contractedNeighbors[m]++;
+				this.dirty[m] = true;
+			}
+			this.outs[n] = null;
+			this.ins[n] = null;
+			this.outSizes[n] = 0;
+			this.inSizes[n] = 0;
+		}
+
+
+		// Adds a shortcut unless the graph already has an edge as short between its endpoints.
+		private void addShortcut(int from, int to, double weight, int firstChild, int secondChild)
+		{
+			for (int i = 0; i < this.outSizes[from]; i++)
+			{
+				int e = this.outs[from][i];
+				if (this.edgeTargets[e] == to && this.edgeWeights[e] <= weight)
+					return;
+			}
+			this.link(this.addEdge(from, to, weight, firstChild, secondChild));
+		}
+
+
+		private int addEdge(int from, int to, double weight, int firstChild, int secondChild)
+		{
+			if (this.numOfEdges == this.edgeSources.length)
+			{
+				int capacity = 2 * this.numOfEdges;
+				this.edgeSources = Arrays.copyOf(this.edgeSources, capacity);
+				this.edgeTargets = Arrays.copyOf(this.edgeTargets, capacity);
+				this.edgeWeights = Arrays.copyOf(this.edgeWeights, capacity);
+				this.firstChildren = Arrays.copyOf(this.firstChildren, capacity);
+				this.secondChildren = Arrays.copyOf(this.secondChildren, capacity);
+			}
+			int e = this.numOfEdges++;
+			this.edgeSources[e] = from;
+			this.edgeTargets[e] = to;
+			this.edgeWeights[e] = weight;
+			this.firstChildren[e] = firstChild;
+			this.secondChildren[e] = secondChild;
+			return e;
+		}
+
+
+		// Adds edge e to the lists of its endpoints.
+		private void link(int e)
+		{
+			int from = this.edgeSources[e];
+			int to = this.edgeTargets[e];
+			if (this.outSizes[from] == this.outs[from].length)
+				this.outs[from] = Arrays.copyOf(this.outs[from], 2 * this.outs[from].length);
+			this.outs[from][this.outSizes[from]++] = e;
+			if (this.inSizes[to] == this.ins[to].length)
+				this.ins[to] = Arrays.copyOf(this.ins[to], 2 * this.ins[to].length);
+			this.ins[to][this.inSizes[to]++] = e;
+		}
+
+
+		private static void removeEdge(int[] list, int[] sizes, int n, int e)
+		{
+			for (int i = 0; i < sizes[n]; i++)
+			{
+				if (list[i] == e)
+				{
+					list[i] = list[--sizes[n]];
+					return;
+				}
+			}
+		}
+	}
+
+
+	// The search state and the shortcuts found by one preprocessing thread.
+	private static final class Worker {
+
+		private final IntMinHeap heap;
+		private final double[] distances;
+		private final int[] stamps;
+		private final int[] targetStamps;
+		private int generation = 0;
+		private final ShortcutList shortcuts = new ShortcutList();
+
+		private Worker(int numOfNodes)
+		{
+			this.heap = new IntMinHeap(numOfNodes);
+			this.distances = new double[numOfNodes];
+			this.stamps = new int[numOfNodes];
+			this.targetStamps = new int[numOfNodes];
+		}
+
+
+		// Runs a witness search from node from to the other neighbors node via leads to, avoiding via and the
+		// nodes contracted in this round, until they are all settled.
+		private void search(Contractor contractor, int from, int via, double maxDistance)
+		{
+			if (++this.generation == Integer.MAX_VALUE)
+			{
+				Arrays.fill(this.stamps, 0);
+				Arrays.fill(this.targetStamps, 0);
+				this.generation = 1;
+			}
+			int generation = this.generation;
+			int targets = 0;
+			for (int i = 0; i < contractor.outSizes[via]; i++)
+			{
+				int to = contractor.edgeTargets[contractor.outs[via][i]];
+				if (to != from && this.targetStamps[to] != generation)
+				{
+					this.targetStamps[to] = generation;
+					targets++;
+				}
+			}
+			this.stamps[from] = generation;
+			this.distances[from] = 0;
+			this.heap.offer(from, 0);
+			int settled = 0;
+			while (targets > 0 && !this.heap.isEmpty() && this.heap.peekKey() <= maxDistance
+					&& settled < witnessSettleLimit)
+			{
+				int n = this.heap.poll();
+				settled++;
+				if (this.targetStamps[n] == generation)
+					targets--;
+				double distance = this.distances[n];
+				int[] out = contractor.outs[n];
+				for (int i = 0; i < contractor.outSizes[n]; i++)
+				{
+					int e = out[i];
+					int next = contractor.edgeTargets[e];
+					if (next == via || contractor.contracting[next])
+						continue;
+					double nextDistance = distance + contractor.edgeWeights[e];
+					if (this.stamps[next] != generation || nextDistance < this.distances[next])
+					{
+						this.stamps[next] = generation;
+						this.distances[next] = nextDistance;
+						this.heap.offer(next, nextDistance);
+					}
+				}
+			}
+			this.heap.clear();
+		}
+
+
+		// Returns the length of the shortest path the last search found to node n.
+		private double distanceTo(int n)
+		{
+			return (this.stamps[n] == this.generation) ? this.distances[n] : Double.POSITIVE_INFINITY;
+		}
+	}
+
+
+	// A growable list of the shortcuts found by a Worker.
+	private static final class ShortcutList {
+
+		private int size = 0;
+		private int[] sources = new int[16];
+		private int[] targets = new int[16];
+		private double[] weights = new double[16];
+		private int[] firstChildren = new int[16];
+		private int[] secondChildren = new int[16];
+
+		private void add(int from, int to, double weight, int firstChild, int secondChild)
+		{
+			if (this.size == this.sources.length)
+			{
+				int capacity = 2 * this.size;
+				this.sources = Arrays.copyOf(this.sources, capacity);
+				this.targets = Arrays.copyOf(this.targets, capacity);
+				this.weights = Arrays.copyOf(this.weights, capacity);
+				this.firstChildren = Arrays.copyOf(this.firstChildren, capacity);
+				this.secondChildren = Arrays.copyOf(this.secondChildren, capacity);
+			}
+			this.sources[this.size] = from;
+			this.targets[this.size] = to;
+			this.weights[this.size] = weight;
+			this.firstChildren[this.size] = firstChild;
+			this.secondChildren[this.size] = secondChild;
+			this.size++;
+		}
+
+
+		private void clear()
+		{
+			this.size = 0;
+		}
+	}
+}
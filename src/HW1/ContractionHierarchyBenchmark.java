@@ -0,0 +1,104 @@
+package HW1;
+
+import java.util.Random;
+
+/**
+ * Preprocesses a generated street grid into a ContractionHierarchy and
+ * compares the latency of its queries with plain Dijkstra and A* on the
+ * same random pairs of nodes.
+ * <p>
+ * A uniform grid has no natural hierarchy of roads, so it is about the
+ * hardest network to contract: it needs more shortcuts, and preprocessing
+ * takes longer, than a real road network of the same size.
+ * <p>
+ * Usage: <tt>java -Xmx6g HW1.ContractionHierarchyBenchmark [gridSize] [numOfQueries] [numOfThreads]</tt>
+ */
+public class ContractionHierarchyBenchmark {
+
+	private static final double tolerance = 0.0000001;
+
+	private final RoadGraph graph;
+	private final int numOfThreads;
+	private final int[] sources;
+	private final int[] targets;
+
+
+	public ContractionHierarchyBenchmark(int gridSize, int numOfQueries, int numOfThreads) {
+		graph = RoadGraphBenchmark.createGraph(gridSize);
+		this.numOfThreads = numOfThreads;
+		Random random = new Random(13);
+		sources = new int[numOfQueries];
+		targets = new int[numOfQueries];
+		for (int i = 0; i < numOfQueries; i++) {
+			sources[i] = random.nextInt(graph.numOfNodes());
+			targets[i] = random.nextInt(graph.numOfNodes());
+		}
+	}
+
+
+	public void run() {
+		ContractionHierarchy hierarchy = ContractionHierarchy.build(graph, numOfThreads);
+		int n = sources.length;
+		ContractionHierarchy.Query query = hierarchy.newQuery();
+		ShortestPathRouter dijkstra = new ShortestPathRouter(graph, false);
+		ShortestPathRouter aStar = new ShortestPathRouter(graph, true);
+		long[] queryNanos = new long[n];
+		long[] dijkstraNanos = new long[n];
+		long[] aStarNanos = new long[n];
+		long querySettled = 0;
+		long dijkstraSettled = 0;
+		int mismatches = 0;
+		for (int round = 0; round < 2; round++) {
+			querySettled = 0;
+			dijkstraSettled = 0;
+			mismatches = 0;
+			for (int i = 0; i < n; i++) {
+				long begin = System.nanoTime();
+				boolean found = query.search(sources[i], targets[i]);
+				queryNanos[i] = System.nanoTime() - begin;
+				querySettled += query.getSettledCount();
+
+				begin = System.nanoTime();
+				boolean expected = dijkstra.search(sources[i], targets[i]);
+				dijkstraNanos[i] = System.nanoTime() - begin;
+				dijkstraSettled += dijkstra.getSettledCount();
+
+				begin = System.nanoTime();
+				aStar.search(sources[i], targets[i]);
+				aStarNanos[i] = System.nanoTime() - begin;
+
+				if (found != expected || (found && Math.abs(query.getDistance() - dijkstra.getDistance()) > tolerance))
+					mismatches++;
+			}
+		}
+
+		// Unpacking a path into a Route, which the formatters take.
+		long begin = System.nanoTime();
+		int routes = 0;
+		for (int i = 0; i < n; i++)
+			if (query.route(graph.getNodePoint(sources[i]), graph.getNodePoint(targets[i])) != null)
+				routes++;
+		long routeNanos = System.nanoTime() - begin;
+
+		double queryMedian = RoutingBenchmark.medianMillis(queryNanos);
+		double dijkstraMedian = RoutingBenchmark.medianMillis(dijkstraNanos);
+		System.out.println(hierarchy + ", " + numOfThreads + " preprocessing thread(s)");
+		System.out.printf("Preprocessing:        %.1f s%n", hierarchy.getPreprocessingNanos() / 1e9);
+		System.out.printf("Hierarchy query:      median %.3f ms, %d nodes settled on average%n",
+				queryMedian, querySettled / n);
+		System.out.printf("Dijkstra:             median %.3f ms, %d nodes settled on average%n",
+				dijkstraMedian, dijkstraSettled / n);
+		System.out.printf("A*:                   median %.3f ms%n", RoutingBenchmark.medianMillis(aStarNanos));
+		System.out.printf("Speedup over Dijkstra: %.0fx%n", dijkstraMedian / queryMedian);
+		System.out.printf("Query and Route:      %.3f ms on average over %d routes%n", routeNanos / 1e6 / n, routes);
+		System.out.println("Queries with different lengths: " + mismatches);
+	}
+
+
+	public static void main(String[] args) {
+		int gridSize = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+		int numOfQueries = (args.length > 1) ? Integer.parseInt(args[1]) : 100;
+		int numOfThreads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		new ContractionHierarchyBenchmark(gridSize, numOfQueries, numOfThreads).run();
+	}
+}
@@ -0,0 +1,112 @@
+package HW1;
+
+public class ContractionHierarchyTest {
+
+	private static final double tolerance = 0.0000001;
+
+	private final GeoPoint[] points = ExampleGeoSegments.points;
+
+
+	boolean same(double x, double y) {
+		return ((y >= x-tolerance) && (y <= x+tolerance));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Returns true iff edges is a path of graph from source to target of the given length.
+	static boolean isPath(RoadGraph graph, int[] edges, int source, int target, double length) {
+		int node = source;
+		double sum = 0;
+		for (int e : edges) {
+			if (graph.getEdgeSource(e) != node)
+				return false;
+			sum += graph.getEdgeLength(e);
+			node = graph.getEdgeTarget(e);
+		}
+		return node == target && Math.abs(sum - length) < tolerance;
+	}
+
+
+	// Returns true iff the hierarchy finds the same distances as Dijkstra, along paths of graph edges.
+	boolean matchesDijkstra(ContractionHierarchy hierarchy, int step) {
+		RoadGraph graph = hierarchy.getGraph();
+		ShortestPathRouter dijkstra = new ShortestPathRouter(graph, false);
+		ContractionHierarchy.Query query = hierarchy.newQuery();
+		for (int source = 0; source < graph.numOfNodes(); source += step) {
+			for (int target = 0; target < graph.numOfNodes(); target += 7) {
+				boolean expected = dijkstra.search(source, target);
+				if (query.search(source, target) != expected)
+					return false;
+				if (expected && (!same(query.getDistance(), dijkstra.getDistance())
+						|| !isPath(graph, query.getPathEdges(), source, target, query.getDistance())))
+					return false;
+			}
+		}
+		return true;
+	}
+
+
+	public void test() {
+		RoadGraph.Builder builder = new RoadGraph.Builder();
+		for (GeoSegment gs : ExampleGeoSegments.segments)
+			builder.addSegment(gs, gs.getName().equals("Hagalil"));
+		RoadGraph example = builder.build();
+		ContractionHierarchy exampleHierarchy = ContractionHierarchy.build(example, 1);
+
+		show("build()");
+		boolean permutation = true;
+		boolean[] seen = new boolean[example.numOfNodes()];
+		for (int n = 0; n < example.numOfNodes(); n++) {
+			int rank = exampleHierarchy.getRank(n);
+			permutation &= 0 <= rank && rank < seen.length && !seen[rank];
+			if (0 <= rank && rank < seen.length)
+				seen[rank] = true;
+		}
+		show("Ranks are a permutation of the nodes", permutation);
+
+		show("Query.route()");
+		ContractionHierarchy.Query query = exampleHierarchy.newQuery();
+		Route route = query.route(points[0], points[5]);
+		Route expected = new ShortestPathRouter(example).route(points[0], points[5]);
+		show("Route is the shortest one", route != null && route.equals(expected));
+		show("Route groups its unpacked segments into features",
+			route != null && route.getGeoFeaturesSize() == expected.getGeoFeaturesSize()
+				&& new DrivingRouteFormatter().computeDirections(route, 0)
+					.equals(new DrivingRouteFormatter().computeDirections(expected, 0)));
+		show("A point has no route to itself", query.route(points[3], points[3]) == null);
+
+		show("Query.search()");
+		show("Example distances match Dijkstra", matchesDijkstra(exampleHierarchy, 1));
+		RoadGraph grid = RoadGraphBenchmark.createGraph(30);
+		ContractionHierarchy hierarchy = ContractionHierarchy.build(grid, 1);
+		show("Grid distances match Dijkstra", matchesDijkstra(hierarchy, 13));
+		show("Shortcuts are added", hierarchy.numOfShortcuts() > 0);
+		show("Hierarchy built by several threads matches Dijkstra",
+			matchesDijkstra(ContractionHierarchy.build(grid, 4), 17));
+		query = hierarchy.newQuery();
+		query.search(0, grid.numOfNodes() - 1);
+		ShortestPathRouter dijkstra = new ShortestPathRouter(grid, false);
+		dijkstra.search(0, grid.numOfNodes() - 1);
+		show("Query settles fewer nodes than Dijkstra", query.getSettledCount() < dijkstra.getSettledCount());
+	}
+
+
+	public static void main(String[] args) {
+		ContractionHierarchyTest hierarchyTest = new ContractionHierarchyTest();
+		hierarchyTest.test();
+	}
+}
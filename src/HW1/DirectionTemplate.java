@@ -0,0 +1,331 @@
+package HW1;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A DirectionTemplate is a precompiled pattern for a single line of
+ * directions, such as
+ * <tt>"{turn} onto {name} and go {value} kilometers.\n"</tt>.
+ * <p>
+ * The pattern is parsed once, when the template is compiled, and the
+ * locale dependent symbols are looked up once as well. Rendering then only
+ * appends the literal parts and the arguments to a StringBuilder, and
+ * renders the number as fixed-point digits, without creating temporary
+ * objects.
+ * <p>
+ * The number is given as a whole number of units of
+ * 10<sup>-fractionDigits</sup>, e.g. 14 with one fraction digit stands for
+ * 1.4. It is rendered exactly like <tt>String.format</tt> renders the
+ * corresponding value with <tt>"%.Nf"</tt> (or <tt>"%,.Nf"</tt> with
+ * grouping, or <tt>"%d"</tt> with no fraction digits) in the locale of the
+ * template: with the locale's zero digit, decimal separator, grouping
+ * separator and grouping size.
+ * <p>
+ * DirectionTemplates are immutable, hence safe for use by multiple threads.
+ */
+public final class DirectionTemplate {
+
+	/** The placeholder of the turn string in a pattern. **/
+	public static final String TURN = "{turn}";
+
+	/** The placeholder of the feature name in a pattern. **/
+	public static final String NAME = "{name}";
+
+	/** The placeholder of the number in a pattern. **/
+	public static final String VALUE = "{value}";
+
+	// Kinds of the slots between the literal parts.
+	private static final int turnSlot = 0;
+	private static final int nameSlot = 1;
+	private static final int valueSlot = 2;
+
+	// powersOfTen[i] = 10^i, for all the powers a long can hold.
+	private static final long[] powersOfTen = new long[19];
+	static
+	{
+		powersOfTen[0] = 1;
+		for (int i = 1; i < powersOfTen.length; i++)
+			powersOfTen[i] = powersOfTen[i - 1] * 10;
+	}
+
+	private final String pattern;
+	private final String[] literals;
+	private final int[] slots;
+	private final int fractionDigits;
+	private final boolean grouping;
+	private final Locale locale;
+	private final char zeroDigit;
+	private final char decimalSeparator;
+	private final char groupingSeparator;	// '\0' when the locale doesn't group digits.
+	private final int groupingSize;
+
+	// Rep. Inv.:
+	// this.literals.length == this.slots.length + 1 and every slot is turnSlot, nameSlot or valueSlot.
+	// this.fractionDigits >= 0 && (this.groupingSeparator == '\0' || this.groupingSize > 0).
+
+	// Abstraction Function:
+	// The rendered line is this.literals[0] + arg(this.slots[0]) + this.literals[1] + ... + this.literals[n], where
+	// arg() is the turn, the name or the localized number.
+
+	private DirectionTemplate(String pattern, int fractionDigits, boolean grouping, Locale locale)
+	{
+		this.pattern = pattern;
+		this.fractionDigits = fractionDigits;
+		this.grouping = grouping;
+		this.locale = locale;
+
+		// Splitting the pattern into literals and slots.
+		List<String> literalList = new ArrayList<>();
+		List<Integer> slotList = new ArrayList<>();
+		int from = 0;
+		while (true)
+		{
+			int next = -1;
+			int slot = -1;
+			String[] placeholders = { TURN, NAME, VALUE };
+			for (int kind = 0; kind < placeholders.length; kind++)
+			{
+				int index = pattern.indexOf(placeholders[kind], from);
+				if (index >= 0 && (next < 0 || index < next))
+				{
+					next = index;
+					slot = kind;
+				}
+			}
+			if (next < 0)
+				break;
+			literalList.add(pattern.substring(from, next));
+			slotList.add(slot);
+			from = next + placeholders[slot].length();
+		}
+		literalList.add(pattern.substring(from));
+		this.literals = literalList.toArray(new String[0]);
+		this.slots = new int[slotList.size()];
+		for (int i = 0; i < this.slots.length; i++)
+			this.slots[i] = slotList.get(i);
+
+		// Looking up the symbols the same way java.util.Formatter does.
+		DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+		this.zeroDigit = symbols.getZeroDigit();
+		char groupingSeparator = '\0';
+		int groupingSize = -1;
+		if (grouping)
+		{
+			if (locale.equals(Locale.US))
+			{
+				groupingSeparator = ',';
+				groupingSize = 3;
+			}
+			else
+			{
+				groupingSeparator = symbols.getGroupingSeparator();
+				NumberFormat numberFormat = NumberFormat.getNumberInstance(locale);
+				if (numberFormat instanceof DecimalFormat)
+				{
+					groupingSize = ((DecimalFormat) numberFormat).getGroupingSize();
+					if (!numberFormat.isGroupingUsed() || groupingSize == 0)
+						groupingSeparator = '\0';
+				}
+				else
+				{
+					groupingSize = 3;
+				}
+			}
+		}
+		this.groupingSeparator = groupingSeparator;
+		this.groupingSize = groupingSize;
+		this.decimalSeparator = locale.equals(Locale.US) ? '.' : symbols.getDecimalSeparator();
+		this.checkRep();
+	}
+
+
+	/**
+	 * Compiles a pattern.
+	 * @requires pattern != null && locale != null && fractionDigits >= 0
+	 * @param pattern the line, with the placeholders TURN, NAME and VALUE
+	 *        standing for the arguments of render().
+	 * @param fractionDigits the number of digits after the decimal separator.
+	 * @param grouping true iff the integer digits are grouped.
+	 * @param locale the locale of the rendered numbers.
+	 * @return a new DirectionTemplate of pattern.
+	 */
+	public static DirectionTemplate compile(String pattern, int fractionDigits, boolean grouping, Locale locale)
+	{
+		assert pattern != null && locale != null && fractionDigits >= 0 : "DirectionTemplate: bad arguments";
+		return new DirectionTemplate(pattern, fractionDigits, grouping, locale);
+	}
+
+
+	/**
+	 * Compiles a pattern for the default locale.
+	 * @requires pattern != null && fractionDigits >= 0
+	 * @param pattern the line, with the placeholders TURN, NAME and VALUE
+	 *        standing for the arguments of render().
+	 * @param fractionDigits the number of digits after the decimal separator.
+	 * @param grouping true iff the integer digits are grouped.
+	 * @return a new DefaultLocale holding the template of pattern in the
+	 *         locale String.format() uses.
+	 */
+	public static DefaultLocale forDefaultLocale(String pattern, int fractionDigits, boolean grouping)
+	{
+		return new DefaultLocale(compile(pattern, fractionDigits, grouping, Locale.getDefault(Locale.Category.FORMAT)));
+	}
+
+
+	/**
+	 * Returns this template for another locale.
+	 * @requires locale != null
+	 * @return this if this.locale = locale, otherwise a new DirectionTemplate
+	 *         like this in the given locale.
+	 */
+	public DirectionTemplate withLocale(Locale locale)
+	{
+		return this.locale.equals(locale) ? this
+				: new DirectionTemplate(this.pattern, this.fractionDigits, this.grouping, locale);
+	}
+
+
+	/**
+	 * Returns the locale of this.
+	 * @return the locale of the numbers this template renders.
+	 */
+	public Locale getLocale()
+	{
+		return this.locale;
+	}
+
+
+	/**
+	 * Renders a line.
+	 * @requires turn != null && name != null && out != null
+	 * @param turn the value of the TURN placeholder.
+	 * @param name the value of the NAME placeholder.
+	 * @param units the value of the VALUE placeholder, in units of
+	 *        10<sup>-fractionDigits</sup>.
+	 * @param out the buffer the line is appended to.
+	 * @modifies out
+	 * @effects appends the line to out.
+	 */
+	public void render(String turn, String name, long units, StringBuilder out)
+	{
+		out.append(this.literals[0]);
+		for (int i = 0; i < this.slots.length; i++)
+		{
+			switch (this.slots[i])
+			{
+				case turnSlot:
+					out.append(turn);
+					break;
+				case nameSlot:
+					out.append(name);
+					break;
+				case valueSlot:
+					this.appendNumber(units, out);
+					break;
+			}
+			out.append(this.literals[i + 1]);
+		}
+	}
+
+
+	/**
+	 * Renders a number.
+	 * @requires out != null
+	 * @param units the number, in units of 10<sup>-fractionDigits</sup>.
+	 * @param out the buffer the number is appended to.
+	 * @modifies out
+	 * @effects appends the localized number to out.
+	 */
+	public void appendNumber(long units, StringBuilder out)
+	{
+		assert units != Long.MIN_VALUE : "DirectionTemplate: units out of range";
+		if (units < 0)
+		{
+			out.append('-');
+			units = -units;
+		}
+
+		// Number of digits to render, with at least one integer digit, e.g. 7 units of 0.1 are "0.7".
+		int count = 1;
+		while (count < powersOfTen.length && units >= powersOfTen[count])
+			count++;
+		count = Math.max(count, this.fractionDigits + 1);
+
+		for (int i = count - 1; i >= 0; i--)
+		{
+			long digit = (i < powersOfTen.length) ? (units / powersOfTen[i]) % 10 : 0;
+			out.append((char) (this.zeroDigit + digit));
+
+			// Number of integer digits to the right of this digit.
+			int position = i - this.fractionDigits;
+			if (position == 0 && this.fractionDigits > 0)
+			{
+				out.append(this.decimalSeparator);
+			}
+			else if (position > 0 && this.groupingSeparator != '\0' && (position + 1) % this.groupingSize == 1)
+			{
+				// The condition java.util.Formatter uses for placing grouping separators.
+				out.append(this.groupingSeparator);
+			}
+		}
+	}
+
+
+	/**
+	 * Returns a string representation of this.
+	 * @return a string representation of this.
+	 */
+	@Override
+	public String toString()
+	{
+		return "DirectionTemplate: " + this.pattern.replace("\n", "\\n") + " (" + this.locale + ")";
+	}
+
+
+	/**
+	 * A DefaultLocale holds a DirectionTemplate that follows the default
+	 * FORMAT locale, the one String.format() uses, and compiles it again
+	 * for a new locale the first time it is requested after the default
+	 * locale changes. DefaultLocales are safe for use by multiple threads;
+	 * threads that see a change at once may both compile the template.
+	 */
+	public static final class DefaultLocale {
+
+		private volatile DirectionTemplate template;
+
+		private DefaultLocale(DirectionTemplate template)
+		{
+			this.template = template;
+		}
+
+
+		/**
+		 * Returns the template in the default locale.
+		 * @return the template, with locale the default FORMAT locale.
+		 */
+		public DirectionTemplate get()
+		{
+			DirectionTemplate template = this.template;
+			Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+			if (!template.getLocale().equals(locale))
+			{
+				template = template.withLocale(locale);
+				this.template = template;
+			}
+			return template;
+		}
+	}
+
+
+	private void checkRep()
+	{
+		assert this.literals.length == this.slots.length + 1 : "DirectionTemplate: bad literals";
+		assert this.fractionDigits >= 0 : "DirectionTemplate: bad fraction digits";
+		assert this.groupingSeparator == '\0' || this.groupingSize > 0 : "DirectionTemplate: bad grouping size";
+	}
+}
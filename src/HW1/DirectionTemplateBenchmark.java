@@ -0,0 +1,85 @@
+package HW1;
+
+import java.util.Locale;
+
+/**
+ * Compares the throughput of rendering driving lines with String.format(),
+ * as DrivingRouteFormatter used to, with a shared precompiled
+ * DirectionTemplate, on one thread and on several threads.
+ * <p>
+ * Usage: <tt>java HW1.DirectionTemplateBenchmark [numOfLines] [numOfThreads]</tt>
+ */
+public class DirectionTemplateBenchmark {
+
+	private static final DirectionTemplate template = DirectionTemplate.compile(
+			"{turn} onto {name} and go {value} kilometers.\n", 1, true, Locale.getDefault(Locale.Category.FORMAT));
+
+	private final int numOfLines;
+
+
+	public DirectionTemplateBenchmark(int numOfLines) {
+		this.numOfLines = numOfLines;
+	}
+
+
+	// Renders numOfLines lines with String.format() and returns their total length.
+	long renderFormat() {
+		long chars = 0;
+		for (int i = 0; i < numOfLines; i++) {
+			double fullDistance = i % 100000;
+			String distance = String.format("%,.1f", fullDistance / 10);
+			chars += String.format("%s onto %s and go %s kilometers.\n", "Turn left", "Hagalil", distance).length();
+		}
+		return chars;
+	}
+
+
+	// Renders numOfLines lines with the template into a reused buffer and returns their total length.
+	long renderTemplate() {
+		long chars = 0;
+		StringBuilder line = new StringBuilder();
+		for (int i = 0; i < numOfLines; i++) {
+			line.setLength(0);
+			template.render("Turn left", "Hagalil", i % 100000, line);
+			chars += line.length();
+		}
+		return chars;
+	}
+
+
+	// Returns the number of lines per second rendered by numOfThreads threads.
+	double throughput(final boolean useTemplate, int numOfThreads) throws InterruptedException {
+		Thread[] threads = new Thread[numOfThreads];
+		final long[] chars = new long[numOfThreads];
+		long begin = System.nanoTime();
+		for (int t = 0; t < numOfThreads; t++) {
+			final int index = t;
+			threads[t] = new Thread(() -> chars[index] = useTemplate ? renderTemplate() : renderFormat());
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		long elapsed = System.nanoTime() - begin;
+		if (chars[0] == 0)
+			System.out.println("Unexpected empty output");
+		return (double) numOfLines * numOfThreads / elapsed * 1e9;
+	}
+
+
+	public void run(int numOfThreads) throws InterruptedException {
+		// Warm up both paths.
+		throughput(false, 1);
+		throughput(true, 1);
+		for (int threads = 1; threads <= numOfThreads; threads *= 2) {
+			System.out.printf("%d thread(s): String.format %.2f M lines/s, DirectionTemplate %.2f M lines/s%n",
+					threads, throughput(false, threads) / 1e6, throughput(true, threads) / 1e6);
+		}
+	}
+
+
+	public static void main(String[] args) throws InterruptedException {
+		int numOfLines = (args.length > 0) ? Integer.parseInt(args[0]) : 2000000;
+		int numOfThreads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		new DirectionTemplateBenchmark(numOfLines).run(numOfThreads);
+	}
+}
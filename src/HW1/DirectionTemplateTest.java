@@ -0,0 +1,95 @@
+package HW1;
+
+import java.util.Locale;
+
+public class DirectionTemplateTest {
+
+	// Tenths of kilometers and minutes, around the digit counts where separators appear.
+	private static final long[] values = {
+		0, 1, 7, 9, 10, 14, 99, 100, 999, 1000, 1234, 9999, 10000, 12345, 99999, 100000,
+		123456, 999999, 1000000, 1234567, 12345678, 123456789, 1234567890, 98765432109L
+	};
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Returns the first locale in which template differs from String.format(), or null.
+	String firstMismatch(String pattern, int fractionDigits, boolean grouping, String format) {
+		for (Locale locale : Locale.getAvailableLocales()) {
+			DirectionTemplate template = DirectionTemplate.compile(pattern, fractionDigits, grouping, locale);
+			for (long value : values) {
+				StringBuilder line = new StringBuilder();
+				template.render("Turn left", "Hagalil", value, line);
+				String expected = (fractionDigits == 0)
+						? String.format(locale, format, "Turn left", "Hagalil", value)
+						: String.format(locale, format, "Turn left", "Hagalil", (double) value / 10);
+				if (!line.toString().equals(expected))
+					return locale + ": \"" + line + "\" instead of \"" + expected + "\"";
+			}
+		}
+		return null;
+	}
+
+
+	public void test() {
+		show("render()");
+		String driving = firstMismatch("{turn} onto {name} and go {value} kilometers.\n", 1, true,
+				"%s onto %s and go %,.1f kilometers.\n");
+		show("Driving lines match String.format() in all locales" + (driving == null ? "" : ", " + driving),
+				driving == null);
+		String walking = firstMismatch("{turn} onto {name} and walk for {value} minutes.\n", 0, false,
+				"%s onto %s and walk for %d minutes.\n");
+		show("Walking lines match String.format() in all locales" + (walking == null ? "" : ", " + walking),
+				walking == null);
+
+		show("forDefaultLocale()");
+		Locale defaultLocale = Locale.getDefault(Locale.Category.FORMAT);
+		DirectionTemplate.DefaultLocale holder = DirectionTemplate.forDefaultLocale("{value} km\n", 1, true);
+		DirectionTemplate template = holder.get();
+		show("The template is in the default locale", template.getLocale().equals(defaultLocale)
+				&& holder.get() == template);
+		try {
+			Locale.setDefault(Locale.Category.FORMAT, Locale.GERMANY);
+			DirectionTemplate german = holder.get();
+			StringBuilder sb = new StringBuilder();
+			german.render("", "", 12345, sb);
+			show("A new default locale compiles the template again, once", german.getLocale().equals(Locale.GERMANY)
+					&& holder.get() == german && sb.toString().equals("1.234,5 km\n"));
+		}
+		finally {
+			Locale.setDefault(Locale.Category.FORMAT, defaultLocale);
+		}
+		show("And again when the locale changes back", holder.get().getLocale().equals(defaultLocale));
+
+		show("computeLine()");
+		GeoFeature feature = new GeoFeature(ExampleGeoSegments.segments[3])
+				.addSegment(ExampleGeoSegments.segments[4]);
+		try {
+			Locale.setDefault(Locale.Category.FORMAT, Locale.GERMANY);
+			show("Driving line follows the default locale",
+				new DrivingRouteFormatter().computeLine(feature, 0).equals("Turn slight left onto Hagalil and go 1,4 kilometers.\n"));
+		}
+		finally {
+			Locale.setDefault(Locale.Category.FORMAT, defaultLocale);
+		}
+	}
+
+
+	public static void main(String[] args) {
+		DirectionTemplateTest templateTest = new DirectionTemplateTest();
+		templateTest.test();
+	}
+}
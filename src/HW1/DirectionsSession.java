@@ -0,0 +1,188 @@
+package HW1;
+
+/**
+ * A DirectionsSession keeps the directions of a Route up to date while
+ * the Route grows one segment at a time, such as a live navigation view
+ * receiving GPS updates.
+ * <p>
+ * Every added segment either extends the last geographic feature of the
+ * route, which changes the last line of the directions, or starts a new
+ * feature, which adds a line. addSegment() returns this change as a Delta
+ * holding the new line of each of the session's formatters. Applying the
+ * Deltas in order gives the same text computeDirections() returns for the
+ * whole route, but each update only computes one line per formatter.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   heading : angle            // the initial heading of the directions
+ *   formatters : sequence      // the RouteFormatters the lines are computed with
+ *   route : Route              // the route built so far, or null before the first segment
+ * </pre>
+ */
+public class DirectionsSession {
+
+	/**
+	 * The ways a single segment can change the directions.
+	 */
+	public enum Change { APPEND_LINE, REPLACE_LAST_LINE }
+
+
+	/**
+	 * A Delta is an immutable change to the directions of each formatter of
+	 * a DirectionsSession.
+	 */
+	public static final class Delta {
+
+		private final Change change;
+		private final String[] lines;
+
+		private Delta(Change change, String[] lines)
+		{
+			this.change = change;
+			this.lines = lines;
+		}
+
+
+		/**
+		 * Returns how the directions change.
+		 * @return APPEND_LINE if a line is added to the directions, or
+		 *         REPLACE_LAST_LINE if the last line is replaced.
+		 */
+		public Change getChange()
+		{
+			return this.change;
+		}
+
+
+		/**
+		 * Returns the new line of a formatter.
+		 * @requires 0 <= formatter < the number of formatters of the session
+		 * @return the newline-terminated line computed by
+		 *         formatters[formatter].
+		 */
+		public String getLine(int formatter)
+		{
+			return this.lines[formatter];
+		}
+
+
+		/**
+		 * Returns a string representation of this.
+		 * @return a string representation of this.
+		 */
+		@Override
+		public String toString()
+		{
+			return "Delta: " + this.change + " " + String.join("", this.lines).replace("\n", "\\n ");
+		}
+	}
+
+
+	private final double heading;
+	private final RouteFormatter[] formatters;
+	private Route route;
+
+	// The heading the last feature of this.route is entered with.
+	private double lastFeatureOrigHeading;
+
+	// Rep. Inv.:
+	// 0 <= this.heading < 360 && this.formatters is non empty and contains no null elements.
+	// if this.route has a single feature, this.lastFeatureOrigHeading = this.heading, otherwise it's the end heading
+	// of the feature before the last one.
+
+	// Abstraction Function:
+	// The directions of formatter i are formatters[i].computeDirections(this.route, this.heading), whose last line is
+	// formatters[i].computeLine(this.route.getEndFeature(), this.lastFeatureOrigHeading).
+
+	/**
+	 * Constructs a new DirectionsSession.
+	 * @requires 0 <= heading < 360 && formatters != null && formatters is
+	 *           non empty and contains no null elements.
+	 * @effects Constructs a new DirectionsSession s such that
+	 *          s.heading = heading && s.formatters = formatters &&
+	 *          s.route = null
+	 */
+	public DirectionsSession(double heading, RouteFormatter... formatters)
+	{
+		assert 0 <= heading && heading < 360 : "DirectionsSession: heading is not valid";
+		assert formatters != null && formatters.length > 0 : "DirectionsSession: no formatters";
+		this.heading = heading;
+		this.formatters = formatters.clone();
+		this.route = null;
+		this.lastFeatureOrigHeading = heading;
+		this.checkRep();
+	}
+
+
+	/**
+	 * Adds a segment to the route of this session.
+	 * @requires gs != null && (this.route = null || gs.p1 = this.route.end)
+	 * @modifies this
+	 * @effects this.route = new Route(gs) if this.route was null, otherwise
+	 *          this.route = this.route.addSegment(gs).
+	 * @return the Delta that brings the directions of every formatter from
+	 *         the old route to the new one.
+	 */
+	public Delta addSegment(GeoSegment gs)
+	{
+		assert gs != null : "DirectionsSession: gs is null";
+		this.checkRep();
+
+		Change change;
+		if (this.route == null)
+		{
+			this.route = new Route(gs);
+			change = Change.APPEND_LINE;
+		}
+		else if (this.route.getEndFeature().getName().equals(gs.getName()))
+		{
+			// gs extends the last feature, whose line is computed again with the same heading.
+			this.route = this.route.addSegment(gs);
+			change = Change.REPLACE_LAST_LINE;
+		}
+		else
+		{
+			// A new feature is entered with the heading the previous one ended with.
+			this.lastFeatureOrigHeading = this.route.getEndHeading();
+			this.route = this.route.addSegment(gs);
+			change = Change.APPEND_LINE;
+		}
+
+		GeoFeature lastFeature = this.route.getEndFeature();
+		String[] lines = new String[this.formatters.length];
+		for (int i = 0; i < this.formatters.length; i++)
+			lines[i] = this.formatters[i].computeLine(lastFeature, this.lastFeatureOrigHeading);
+
+		this.checkRep();
+		return new Delta(change, lines);
+	}
+
+
+	/**
+	 * Returns the route of this session.
+	 * @return this.route
+	 */
+	public Route getRoute()
+	{
+		return this.route;
+	}
+
+
+	/**
+	 * Returns the number of formatters.
+	 * @return the length of this.formatters.
+	 */
+	public int numOfFormatters()
+	{
+		return this.formatters.length;
+	}
+
+
+	private void checkRep()
+	{
+		assert 0 <= this.heading && this.heading < 360 : "DirectionsSession: this.heading is not valid";
+		assert 0 <= this.lastFeatureOrigHeading && this.lastFeatureOrigHeading < 360
+				: "DirectionsSession: this.lastFeatureOrigHeading is not valid";
+		assert this.formatters.length > 0 : "DirectionsSession: no formatters";
+	}
+}
@@ -0,0 +1,70 @@
+package HW1;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DirectionsSessionTest {
+
+	// A walk around the Technion that enters some features more than once.
+	private static final int[] walk = { 0, 1, 2, 3, 4, 5, 7, 8, 9, 10, 11, 13, 14, 15, 0 };
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Applies delta to the lines of formatter.
+	static void apply(DirectionsSession.Delta delta, int formatter, List<String> lines) {
+		if (delta.getChange() == DirectionsSession.Change.REPLACE_LAST_LINE)
+			lines.set(lines.size() - 1, delta.getLine(formatter));
+		else
+			lines.add(delta.getLine(formatter));
+	}
+
+
+	public void test() {
+		RouteFormatter walking = new WalkingRouteFormatter();
+		RouteFormatter driving = new DrivingRouteFormatter();
+		DirectionsSession session = new DirectionsSession(0, walking, driving);
+		List<String> walkingLines = new ArrayList<>();
+		List<String> drivingLines = new ArrayList<>();
+
+		boolean walkingSame = true;
+		boolean drivingSame = true;
+		boolean changesMatch = true;
+		for (int i = 0; i < walk.length; i++) {
+			GeoSegment gs = ExampleGeoSegments.segments[walk[i]];
+			DirectionsSession.Delta delta = session.addSegment(gs);
+			apply(delta, 0, walkingLines);
+			apply(delta, 1, drivingLines);
+
+			Route route = session.getRoute();
+			walkingSame &= String.join("", walkingLines).equals(walking.computeDirections(route, 0));
+			drivingSame &= String.join("", drivingLines).equals(driving.computeDirections(route, 0));
+			boolean extendsLast = i > 0 && ExampleGeoSegments.segments[walk[i - 1]].getName().equals(gs.getName());
+			changesMatch &= (delta.getChange() == DirectionsSession.Change.REPLACE_LAST_LINE) == extendsLast;
+		}
+
+		show("addSegment()");
+		show("Walking deltas rebuild computeDirections() after every segment", walkingSame);
+		show("Driving deltas rebuild computeDirections() after every segment", drivingSame);
+		show("Lines are replaced exactly when a segment extends the last feature", changesMatch);
+	}
+
+
+	public static void main(String[] args) {
+		DirectionsSessionTest sessionTest = new DirectionsSessionTest();
+		sessionTest.test();
+	}
+}
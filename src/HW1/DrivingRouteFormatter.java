@@ -1,7 +1,5 @@
 package HW1;
 
-import java.text.DecimalFormat;
-
 /**
  * The DrivingDirections class creates a textual description of directions
  * for traversing a route that are suitable for a driver of a vehicle.
@@ -24,6 +22,11 @@ import java.text.DecimalFormat;
  * should include no extra spaces other than those shown above.
  */
 public class DrivingRouteFormatter extends RouteFormatter {
+
+	// The template of a line, compiled once and shared by all the DrivingRouteFormatters.
+	private static final DirectionTemplate.DefaultLocale lineTemplate = DirectionTemplate.forDefaultLocale(
+			DirectionTemplate.TURN + " onto " + DirectionTemplate.NAME + " and go " + DirectionTemplate.VALUE
+					+ " kilometers.\n", 1, true);
   
   	/**
      * Computes a single line of a multi-line directions String that
@@ -59,13 +62,58 @@ public class DrivingRouteFormatter extends RouteFormatter {
   		// and at:
   		// http://docs.oracle.com/javase/8/docs/api/java/text/DecimalFormat.html
 
-		assert (geoFeature != null) : "WalkingRouteFormatter assert: geoFeature is null";
-		assert (0 <= origHeading && origHeading < 360) : "WalkingRouteFormatter assert: origHeading bad value";
-		String heading = this.getTurnString(origHeading, geoFeature.getStartHeading());
-		String gfName = geoFeature.getName();
-		double fullDistance =  Math.round(geoFeature.getLength() * 10);
-		String distance = String.format("%,.1f", fullDistance / 10);
-		return String.format("%s onto %s and go %s kilometers.\n", heading, gfName, distance);
+		StringBuilder line = new StringBuilder();
+		this.computeLine(geoFeature, origHeading, line);
+		return line.toString();
+  	}
+
+
+  	/**
+     * Computes a single line of a multi-line directions String, as
+     * computeLine(geoFeature, origHeading) does, and appends it to out.
+     * @requires geoFeature != null && out != null && 0 <= origHeading < 360
+     * @param geoFeature the geographical feature to traverse.
+     * @param origHeading the initial heading.
+     * @param out the buffer the line is appended to.
+     * @modifies out
+     * @effects appends computeLine(geoFeature, origHeading) to out.
+     **/
+  	@Override
+  	public void computeLine(GeoFeature geoFeature, double origHeading, StringBuilder out) {
+		assert (geoFeature != null) : "DrivingRouteFormatter assert: geoFeature is null";
+		assert (0 <= origHeading && origHeading < 360) : "DrivingRouteFormatter assert: origHeading bad value";
+		this.computeLine(geoFeature, origHeading, this.getTurnString(origHeading, geoFeature.getStartHeading()),
+				geoFeature.getName(), geoFeature.getLength(), out);
+  	}
+
+
+  	/**
+     * Computes a single line of a multi-line directions String, as
+     * computeLine(geoFeature, origHeading) does, from the turn string and
+     * the metrics of the feature, and appends it to out.
+     * @requires geoFeature != null && out != null && 0 <= origHeading < 360 &&
+     *           turn, name and length are the turn string, name and length
+     *           of geoFeature.
+     * @modifies out
+     * @effects appends computeLine(geoFeature, origHeading) to out.
+     **/
+  	@Override
+  	protected void computeLine(GeoFeature geoFeature, double origHeading, String turn, String name, double length,
+  			StringBuilder out) {
+		// The distance in tenths of kilometers, rendered as "%,.1f" would render it.
+		long fullDistance = Math.round(length * 10);
+		lineTemplate.get().render(turn, name, fullDistance, out);
+  	}
+
+
+  	/**
+     * Returns whether the lines of this formatter depend only on the turn
+     * string and the name and length of the feature.
+     * @return true
+     **/
+  	@Override
+  	protected boolean rendersFromMetrics() {
+		return true;
   	}
 
 }
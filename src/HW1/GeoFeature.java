@@ -1,9 +1,6 @@
 package HW1;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
-import java.util.List;
 
 /**
  * A GeoFeature represents a route from one location to another along a
@@ -50,11 +47,15 @@ public class GeoFeature {
 	
 	private final GeoPoint start;
 	private final GeoPoint end;
-	private final Double startHeading;
-	private final Double endHeading;
-	private final List<GeoSegment> geoSegments;
+	private final double startHeading;
+	private final double endHeading;
+	private final PersistentVector<GeoSegment> geoSegments;
 	private final String name;
-	private final Double length;
+	private final double length;
+	private final int hash;
+
+	// Controls how often checkRep() validates the Rep. Inv.
+	private static final RepValidation repValidation = RepValidation.forClass(GeoFeature.class);
 
 	// Representation invariant:
 	// GeoFeature is a sequence of GeoSegments such that for all integers i
@@ -64,6 +65,7 @@ public class GeoFeature {
 	// this.geoSegments is not empty and all segments have the same name.
 	// this.name is a non empty string of letters.
 	// this.length >= 0.
+	// this.geoSegments is shared with the GeoFeatures this one was extended from and to, hence it's never modified.
 
 	// Abstraction Function:
 	// A GeoFeature with a name, this.name, that has a starting point, this.start, and an ending point, this.end,
@@ -89,53 +91,48 @@ public class GeoFeature {
 		this.endHeading = gs.getHeading();
 
 		// Add the GeoSegment to the list
-		this.geoSegments = new ArrayList<>();
-		this.geoSegments.add(gs);
+		this.geoSegments = PersistentVector.<GeoSegment>empty().append(gs);
 
 		// This is the c'tor of GeoFeature hence it's name is first defined here.
 		this.name = gs.getName();
   		this.length = gs.getLength();
-		this.checkRep();
+		// The hash code of a single element List, so it can be extended like List.hashCode().
+		this.hash = 31 + gs.hashCode();
+		this.checkRep(true);
 	}
 
-//
-// Constructs a new GeoFeature with an existing geoSegments list.
-// @requires geoSegments != null && !geoSegments.isEmpty().
-// @effects Constructs a new GeoFeature, r, such that
-//		r.name = all of the GeoSegments name &&
-//	 	r.startHeading = geoSegments[0].heading &&
-//	 	r.endHeading = geoSegments[geoSegments.size() - 1].heading &&
-// 		r.start = geoSegments[0].p1 &&
-//	 	r.end = geoSegments[geoSegments.size() - 1].p2
-	private GeoFeature(List<GeoSegment> geoSegments)
+	//
+	// Constructs a new GeoFeature which extends prevFeature with gs.
+	// @requires prevFeature != null && gs != null && gs.p1 = prevFeature.end && gs.name = prevFeature.name
+	// @effects Constructs a new GeoFeature, r, such that
+	//		r.name = prevFeature.name &&
+	//	 	r.startHeading = prevFeature.startHeading &&
+	//	 	r.endHeading = gs.heading &&
+	// 		r.start = prevFeature.start &&
+	//	 	r.end = gs.p2 &&
+	//		r.length = prevFeature.length + gs.length
+	private GeoFeature(GeoFeature prevFeature, GeoSegment gs)
 	{
-		assert (geoSegments != null); // Don't want to end with a statement so we don't cause Rep. exposure.
+		assert prevFeature != null && gs != null;
 
-		// Get the name of the GeoFeature which is the name of the geoSegments.
-		this.name = geoSegments.get(0).getName();
+		// The name, start point and start heading are carried over from prevFeature.
+		this.name = prevFeature.name;
+		this.start = prevFeature.start;
+		this.startHeading = prevFeature.startHeading;
 
-		// Copying all the geoSegments in the new GeoFeature we are producing.
-		this.geoSegments = new ArrayList<GeoSegment>(geoSegments);
+		// The end point and heading are the ones of the appended segment.
+		this.end = gs.getP2();
+		this.endHeading = gs.getHeading();
 
-		// initializing the start point and heading according to the first segment and initializing the end point
-		// and heading according to the last segment in geoSegments.
-		GeoSegment startSegment = this.geoSegments.get(0);
-		this.start = startSegment.getP1();
-		this.startHeading = startSegment.getHeading();
+		// Sharing the segments of prevFeature, only the path to the appended segment is copied.
+		this.geoSegments = prevFeature.geoSegments.append(gs);
 
-		GeoSegment endSegment = this.geoSegments.get(geoSegments.size() - 1);
-		this.end  = endSegment.getP2();
-		this.endHeading = endSegment.getHeading();
+		// The accumulated length is carried forward, so the segments are not summed again.
+		this.length = prevFeature.length + gs.getLength();
 
-		// Calculating the length of the newly created GeoFeature.
-		Iterator<GeoSegment> iter = this.geoSegments.iterator(); // Returns an iterator over the elements in this list in proper sequence.
-		Double tmpLength = 0.0;
-		while (iter.hasNext()) // True if the iteration has more elements
-		{
-			tmpLength += iter.next().getLength(); // At the beginning the iterator will point to the index before the first element.
-		}
-		this.length = tmpLength;
-		checkRep();
+		// The hash code is extended in the same way as List.hashCode(), without walking the segments again.
+		this.hash = 31 * prevFeature.hash + gs.hashCode();
+		checkRep(true);
 	}
 
 
@@ -233,13 +230,9 @@ public class GeoFeature {
 		assert this.name.equals(gs.getName()) : "GeoSegment doesn't have the GeoFeature's name";
 		assert this.end == gs.getP1() : "GeoSegment doesn't start where original GeoFeature started";
 
-		// Constructing a new GeoSegment list with all the previous GeoFeature this.geoSegments and with
-		// the new GeoSegment appended to end of the list.
-		List<GeoSegment> newGeoSegmentsList = new ArrayList<GeoSegment>(this.geoSegments); // Using an ArrayList producer method.
-		newGeoSegmentsList.add(gs);
-
-		// Creating the new immutable GeoFeature using the private constructor method.
-		GeoFeature newGeoFeature = new GeoFeature(newGeoSegmentsList);
+		// Creating the new immutable GeoFeature using the private constructor method, which shares this
+		// GeoFeature's segments and carries forward its length.
+		GeoFeature newGeoFeature = new GeoFeature(this, gs);
 		checkRep();
 		return newGeoFeature;
     }
@@ -265,11 +258,9 @@ public class GeoFeature {
      */
   	public Iterator<GeoSegment> getGeoSegments()
 	{
-		// GeoFeature is immutable so we can't return an iterator to our geoSegments ArrayList.
-		// We use an immutable wrapper method unmodifiableList in Collections interface
+		// GeoFeature is immutable, the iterator of the persistent segments vector doesn't support removal.
 		checkRep();
-		List<GeoSegment> immutableGeoSegmentsList  = Collections.unmodifiableList(this.geoSegments);
-		return immutableGeoSegmentsList.iterator();
+		return this.geoSegments.iterator();
   	}
 
 
@@ -285,17 +276,19 @@ public class GeoFeature {
 	{
 		this.checkRep();
 
+		if (this == o) // Same GeoFeature, no need to compare the segments.
+			return true;
 		if (!(o instanceof GeoFeature)) // No need to check for null, this condition covers it.
 			return false;
 
 		GeoFeature geoFeature = (GeoFeature) o;
 
 		// Check for equal GeoSegments in this.geoSegments and o.geoSegments.
-		if (this.geoSegments.size() != geoFeature.geoSegments.size())
+		if (this.hash != geoFeature.hash || this.geoSegments.size() != geoFeature.geoSegments.size())
 			return false;
 
 		Iterator<GeoSegment> iter = geoFeature.getGeoSegments();
-		Iterator<GeoSegment> thisIter = geoFeature.getGeoSegments();
+		Iterator<GeoSegment> thisIter = this.getGeoSegments();
 		while (thisIter.hasNext()) // True if the iteration has more elements
 		{
 			if (!thisIter.next().equals(iter.next()))
@@ -311,11 +304,10 @@ public class GeoFeature {
 		 * Returns a hash code for this.
 		 * @return a hash code for this.
 		 **/
+		@Override
 		public int hashCode ()
 		{
-		// This implementation will work, but you may want to modify it
-		// improved performance.
-			return 1;
+			return this.hash;
 		}
 
 
@@ -345,12 +337,21 @@ public class GeoFeature {
 	// connected to this.end with a heading equal to this.endHeading.
 	private void checkRep()
 	{
+		this.checkRep(false);
+	}
+
+	// Validates the Rep. Inv. according to the checkRep policy of GeoFeature, see RepValidation.
+	private void checkRep(boolean constructing)
+	{
+		if (!repValidation.shouldCheck(constructing))
+			return;
+		long begin = System.nanoTime();
 		assert this.name != null && !this.name.isEmpty() : "this.name is not valid";
 		assert this.start != null : "this.start is not a GeoPoint in GeoFeature";
 		assert this.end != null : "this.end is not a GeoPoint in GeoFeature";
 		assert 0 <= this.startHeading && this.startHeading < 360 : "this.startHeading is not valid";
 		assert 0 <= this.endHeading && this.endHeading < 360 : "this.endHeading is not valid";
-		assert 	this.geoSegments != null && !this.geoSegments.isEmpty() : "this.geoSegments is not valid";
+		assert 	this.geoSegments != null && this.geoSegments.size() > 0 : "this.geoSegments is not valid";
 		assert this.length >= 0 : "this.length is not valid";
 
 		// Now checking geoSegments Rep. Inv.:
@@ -373,5 +374,6 @@ public class GeoFeature {
 				currSeg = nextGeoSegment;
 			}
 		}
+		repValidation.record(System.nanoTime() - begin);
 	}
 }
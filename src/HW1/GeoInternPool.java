@@ -0,0 +1,119 @@
+package HW1;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A GeoInternPool keeps one canonical instance of every distinct GeoPoint
+ * and GeoSegment interned into it, in the spirit of String.intern().
+ * <p>
+ * Interning is optional. Equal objects interned into the same pool are the
+ * same object, so they take memory only once, and equals() succeeds on its
+ * reference comparison without comparing fields. Interned segments also
+ * share their endpoint objects, which is what GeoFeature expects from
+ * consecutive segments.
+ * <p>
+ * GeoInternPool objects are safe for use by multiple threads.
+ */
+public class GeoInternPool {
+
+	private final ConcurrentMap<GeoPoint, GeoPoint> points = new ConcurrentHashMap<>();
+	private final ConcurrentMap<GeoSegment, GeoSegment> segments = new ConcurrentHashMap<>();
+
+	// Rep. Inv.:
+	// for each key k in this.points (resp. this.segments): this.points.get(k) == k.
+	// for each segment gs in this.segments: gs.p1 and gs.p2 are in this.points.
+
+	// Abstraction Function:
+	// The canonical GeoPoints are the keys of this.points and the canonical GeoSegments are the keys of
+	// this.segments.
+
+	/**
+	 * Returns the canonical instance of a GeoPoint.
+	 * @requires gp != null
+	 * @modifies this
+	 * @effects adds gp to the pool if no GeoPoint equal to it is there.
+	 * @return the GeoPoint in the pool that equals gp.
+	 */
+	public GeoPoint intern(GeoPoint gp)
+	{
+		assert gp != null : "GeoInternPool: gp is null";
+		GeoPoint canonical = this.points.putIfAbsent(gp, gp);
+		return (canonical != null) ? canonical : gp;
+	}
+
+
+	/**
+	 * Returns the canonical instance of a GeoPoint with the given coordinates.
+	 * @requires the coordinates are valid as defined by the GeoPoint constructor.
+	 * @modifies this
+	 * @effects adds new GeoPoint(latitude, longitude) to the pool if no equal
+	 *          GeoPoint is there.
+	 * @return the GeoPoint in the pool that equals
+	 *         new GeoPoint(latitude, longitude).
+	 */
+	public GeoPoint point(int latitude, int longitude)
+	{
+		return this.intern(new GeoPoint(latitude, longitude));
+	}
+
+
+	/**
+	 * Returns the canonical instance of a GeoSegment.
+	 * @requires gs != null
+	 * @modifies this
+	 * @effects adds a GeoSegment equal to gs, whose endpoints are the
+	 *          canonical GeoPoints, to the pool if no equal GeoSegment is
+	 *          there.
+	 * @return the GeoSegment in the pool that equals gs.
+	 */
+	public GeoSegment intern(GeoSegment gs)
+	{
+		assert gs != null : "GeoInternPool: gs is null";
+		GeoSegment canonical = this.segments.get(gs);
+		if (canonical != null)
+			return canonical;
+
+		// The pooled segment must refer to the canonical endpoints.
+		GeoPoint p1 = this.intern(gs.getP1());
+		GeoPoint p2 = this.intern(gs.getP2());
+		if (p1 != gs.getP1() || p2 != gs.getP2())
+			gs = new GeoSegment(gs.getName(), p1, p2);
+
+		canonical = this.segments.putIfAbsent(gs, gs);
+		return (canonical != null) ? canonical : gs;
+	}
+
+
+	/**
+	 * Returns the number of canonical GeoPoints.
+	 * @return the number of distinct GeoPoints in this pool.
+	 */
+	public int numOfPoints()
+	{
+		return this.points.size();
+	}
+
+
+	/**
+	 * Returns the number of canonical GeoSegments.
+	 * @return the number of distinct GeoSegments in this pool.
+	 */
+	public int numOfSegments()
+	{
+		return this.segments.size();
+	}
+
+
+	/**
+	 * Removes all the objects from this pool.
+	 * @modifies this
+	 * @effects this pool is empty. Objects that were interned before stay
+	 *          valid, but aren't canonical anymore.
+	 */
+	public void clear()
+	{
+		this.segments.clear();
+		this.points.clear();
+	}
+}
@@ -0,0 +1,57 @@
+package HW1;
+
+public class GeoInternPoolTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	public void test() {
+		GeoSegment[] chain = RouteAppendBenchmark.createSegments(10);
+
+		show("Segments");
+		GeoInternPool pool = new GeoInternPool();
+		GeoPoint p1 = chain[5].getP1();
+		GeoPoint p2 = chain[5].getP2();
+		GeoPoint corner = pool.point(p2.getLatitude(), p2.getLongitude());
+		GeoSegment first = pool.intern(chain[5]);
+		show("A segment is pooled with the canonical GeoPoints", first.equals(chain[5]) && first.getP1() == p1
+			&& first.getP2() == corner && corner != p2);
+		GeoSegment equalSegment = new GeoSegment(chain[5].getName(), new GeoPoint(p1.getLatitude(), p1.getLongitude()),
+			new GeoPoint(p2.getLatitude(), p2.getLongitude()));
+		show("An equal segment interned later is the first one", pool.intern(equalSegment) == first
+			&& pool.intern(chain[5]) == first);
+		show("A different segment is pooled apart", pool.intern(chain[6]) != first
+			&& pool.intern(chain[6]).getP1() == corner && pool.numOfSegments() == 2 && pool.numOfPoints() == 3);
+
+		show("Points");
+		show("point() returns the canonical GeoPoint", pool.point(p1.getLatitude(), p1.getLongitude()) == p1
+			&& pool.point(p2.getLatitude(), p2.getLongitude()) == corner);
+		show("intern() returns the canonical GeoPoint",
+			pool.intern(new GeoPoint(p2.getLatitude(), p2.getLongitude())) == corner && pool.intern(p1) == p1);
+		show("Equal objects are pooled once", pool.numOfPoints() == 3 && pool.numOfSegments() == 2);
+
+		show("clear()");
+		pool.clear();
+		show("A cleared pool is empty", pool.numOfPoints() == 0 && pool.numOfSegments() == 0);
+		show("Interning after clear() pools new objects", pool.intern(equalSegment) == equalSegment
+			&& pool.intern(chain[5]) == equalSegment);
+	}
+
+
+	public static void main(String[] args) {
+		GeoInternPoolTest poolTest = new GeoInternPoolTest();
+		poolTest.test();
+	}
+}
@@ -0,0 +1,148 @@
+package HW1;
+
+/**
+ * GeoKernels computes distances and headings for whole arrays of
+ * coordinates at once: from one point to N points, and pairwise over
+ * parallel arrays.
+ * <p>
+ * The kernels work on coordinate columns in millionths of degrees, such as
+ * the ones of GeoSegmentTable, or on points packed by GeoPointCodec. Their
+ * loops are free of calls and branches, so the JIT compiler can unroll and
+ * vectorize the distance kernels.
+ * <p>
+ * <b>Tolerance</b>: the distance kernels square with a multiplication
+ * instead of <tt>Math.pow(x, 2)</tt>, hence they may differ from
+ * GeoPoint.distanceTo() by at most 1 ulp (on HotSpot both are the same
+ * multiplication, so the results are identical). The heading kernels use
+ * the same computation as GeoPoint.headingTo() and give identical results,
+ * except that the heading between two equal points is defined as 0.
+ */
+public final class GeoKernels {
+
+	// Degrees to kilometers, applied to millionths of degrees the same way GeoPoint does.
+	private static final double millionth = 1000000;
+	private static final double kmPerDegreeLatitude = GeoPoint.KM_PER_DEGREE_LATITUDE;
+	private static final double kmPerDegreeLongitude = GeoPoint.KM_PER_DEGREE_LONGITUDE;
+
+	private GeoKernels()
+	{
+	}
+
+
+	/**
+	 * Computes the distances from one point to many points.
+	 * @requires latitudes, longitudes and distances != null and
+	 *           latitudes.length = longitudes.length <= distances.length
+	 * @modifies distances
+	 * @effects for all 0 <= i < latitudes.length: distances[i] is the
+	 *          distance from (latitude, longitude) to
+	 *          (latitudes[i], longitudes[i]), in kilometers.
+	 */
+	public static void distancesFrom(int latitude, int longitude, int[] latitudes, int[] longitudes,
+									 double[] distances)
+	{
+		assert latitudes.length == longitudes.length && latitudes.length <= distances.length
+				: "GeoKernels: arrays of different lengths";
+		for (int i = 0; i < latitudes.length; i++)
+		{
+			double latitudeDelta = (double)(latitude - latitudes[i]) / millionth * kmPerDegreeLatitude;
+			double longitudeDelta = (double)(longitude - longitudes[i]) / millionth * kmPerDegreeLongitude;
+			distances[i] = Math.sqrt(latitudeDelta * latitudeDelta + longitudeDelta * longitudeDelta);
+		}
+	}
+
+
+	/**
+	 * Computes the pairwise distances of two arrays of points.
+	 * @requires all arrays != null and latitudes1.length = longitudes1.length
+	 *           = latitudes2.length = longitudes2.length <= distances.length
+	 * @modifies distances
+	 * @effects for all 0 <= i < latitudes1.length: distances[i] is the
+	 *          distance from (latitudes1[i], longitudes1[i]) to
+	 *          (latitudes2[i], longitudes2[i]), in kilometers.
+	 */
+	public static void distances(int[] latitudes1, int[] longitudes1, int[] latitudes2, int[] longitudes2,
+								 double[] distances)
+	{
+		assert latitudes1.length == longitudes1.length && latitudes1.length == latitudes2.length
+				&& latitudes1.length == longitudes2.length && latitudes1.length <= distances.length
+				: "GeoKernels: arrays of different lengths";
+		for (int i = 0; i < latitudes1.length; i++)
+		{
+			double latitudeDelta = (double)(latitudes1[i] - latitudes2[i]) / millionth * kmPerDegreeLatitude;
+			double longitudeDelta = (double)(longitudes1[i] - longitudes2[i]) / millionth * kmPerDegreeLongitude;
+			distances[i] = Math.sqrt(latitudeDelta * latitudeDelta + longitudeDelta * longitudeDelta);
+		}
+	}
+
+
+	/**
+	 * Computes the distances from one packed point to many packed points.
+	 * @requires points != null && distances != null &&
+	 *           points.length <= distances.length
+	 * @modifies distances
+	 * @effects for all 0 <= i < points.length: distances[i] =
+	 *          GeoPointCodec.distance(from, points[i]).
+	 */
+	public static void distancesFrom(long from, long[] points, double[] distances)
+	{
+		assert points.length <= distances.length : "GeoKernels: distances is too short";
+		int latitude = GeoPointCodec.latitude(from);
+		int longitude = GeoPointCodec.longitude(from);
+		for (int i = 0; i < points.length; i++)
+		{
+			double latitudeDelta = (double)(latitude - (int) (points[i] >> 32)) / millionth * kmPerDegreeLatitude;
+			double longitudeDelta = (double)(longitude - (int) points[i]) / millionth * kmPerDegreeLongitude;
+			distances[i] = Math.sqrt(latitudeDelta * latitudeDelta + longitudeDelta * longitudeDelta);
+		}
+	}
+
+
+	/**
+	 * Computes the compass headings from one point to many points.
+	 * @requires latitudes, longitudes and headings != null and
+	 *           latitudes.length = longitudes.length <= headings.length
+	 * @modifies headings
+	 * @effects for all 0 <= i < latitudes.length: headings[i] is the compass
+	 *          heading from (latitude, longitude) to
+	 *          (latitudes[i], longitudes[i]), or 0 if both are the same point.
+	 */
+	public static void headingsFrom(int latitude, int longitude, int[] latitudes, int[] longitudes,
+									double[] headings)
+	{
+		assert latitudes.length == longitudes.length && latitudes.length <= headings.length
+				: "GeoKernels: arrays of different lengths";
+		for (int i = 0; i < latitudes.length; i++)
+			headings[i] = heading(latitude, longitude, latitudes[i], longitudes[i]);
+	}
+
+
+	/**
+	 * Computes the pairwise compass headings of two arrays of points.
+	 * @requires all arrays != null and latitudes1.length = longitudes1.length
+	 *           = latitudes2.length = longitudes2.length <= headings.length
+	 * @modifies headings
+	 * @effects for all 0 <= i < latitudes1.length: headings[i] is the compass
+	 *          heading from (latitudes1[i], longitudes1[i]) to
+	 *          (latitudes2[i], longitudes2[i]), or 0 if both are the same point.
+	 */
+	public static void headings(int[] latitudes1, int[] longitudes1, int[] latitudes2, int[] longitudes2,
+								double[] headings)
+	{
+		assert latitudes1.length == longitudes1.length && latitudes1.length == latitudes2.length
+				&& latitudes1.length == longitudes2.length && latitudes1.length <= headings.length
+				: "GeoKernels: arrays of different lengths";
+		for (int i = 0; i < latitudes1.length; i++)
+			headings[i] = heading(latitudes1[i], longitudes1[i], latitudes2[i], longitudes2[i]);
+	}
+
+
+	// The computation of GeoPointCodec.heading(), with a heading of 0 between equal points.
+	private static double heading(int fromLatitude, int fromLongitude, int toLatitude, int toLongitude)
+	{
+		double latitudeDelta = (toLatitude - fromLatitude) * kmPerDegreeLatitude;
+		double longitudeDelta = (toLongitude - fromLongitude) * kmPerDegreeLongitude;
+		double thetaInDegrees = Math.toDegrees(Math.atan2(longitudeDelta, latitudeDelta));
+		return (thetaInDegrees < 0) ? thetaInDegrees + 360 : thetaInDegrees;
+	}
+}
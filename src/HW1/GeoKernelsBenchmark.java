@@ -0,0 +1,98 @@
+package HW1;
+
+import java.util.Random;
+
+/**
+ * Compares the GeoKernels batch distance and heading kernels with calling
+ * GeoPoint.distanceTo() and GeoPoint.headingTo() once per pair, and checks
+ * the kernels stay within their documented tolerance.
+ * <p>
+ * Usage: <tt>java HW1.GeoKernelsBenchmark [numOfPoints]</tt>
+ */
+public class GeoKernelsBenchmark {
+
+	private final GeoPoint origin = new GeoPoint(32783098, 35014528);
+	private final GeoPoint[] points;
+	private final int[] latitudes;
+	private final int[] longitudes;
+	private final double[] out;
+
+
+	public GeoKernelsBenchmark(int numOfPoints) {
+		Random random = new Random(7);
+		points = new GeoPoint[numOfPoints];
+		latitudes = new int[numOfPoints];
+		longitudes = new int[numOfPoints];
+		out = new double[numOfPoints];
+		for (int i = 0; i < numOfPoints; i++) {
+			latitudes[i] = 32700000 + random.nextInt(200000);
+			longitudes[i] = 34900000 + random.nextInt(200000);
+			points[i] = new GeoPoint(latitudes[i], longitudes[i]);
+		}
+	}
+
+
+	// Returns the largest difference, in ulps, between the kernel results and GeoPoint.
+	double maxUlps(boolean headings) {
+		double max = 0;
+		for (int i = 0; i < points.length; i++) {
+			if (headings && points[i].equals(origin))
+				continue;
+			double expected = headings ? origin.headingTo(points[i]) : origin.distanceTo(points[i]);
+			max = Math.max(max, Math.abs(out[i] - expected) / Math.ulp(expected));
+		}
+		return max;
+	}
+
+
+	public void run(int rounds) {
+		long bestScalarDistance = Long.MAX_VALUE;
+		long bestBatchDistance = Long.MAX_VALUE;
+		long bestScalarHeading = Long.MAX_VALUE;
+		long bestBatchHeading = Long.MAX_VALUE;
+		double sum = 0;
+		for (int r = 0; r < rounds; r++) {
+			long begin = System.nanoTime();
+			for (int i = 0; i < points.length; i++)
+				out[i] = origin.distanceTo(points[i]);
+			bestScalarDistance = Math.min(bestScalarDistance, System.nanoTime() - begin);
+			sum += out[r];
+
+			begin = System.nanoTime();
+			GeoKernels.distancesFrom(origin.getLatitude(), origin.getLongitude(), latitudes, longitudes, out);
+			bestBatchDistance = Math.min(bestBatchDistance, System.nanoTime() - begin);
+			sum += out[r];
+
+			begin = System.nanoTime();
+			for (int i = 0; i < points.length; i++)
+				out[i] = origin.headingTo(points[i]);
+			bestScalarHeading = Math.min(bestScalarHeading, System.nanoTime() - begin);
+			sum += out[r];
+
+			begin = System.nanoTime();
+			GeoKernels.headingsFrom(origin.getLatitude(), origin.getLongitude(), latitudes, longitudes, out);
+			bestBatchHeading = Math.min(bestBatchHeading, System.nanoTime() - begin);
+			sum += out[r];
+		}
+		double headingUlps = maxUlps(true);
+		GeoKernels.distancesFrom(origin.getLatitude(), origin.getLongitude(), latitudes, longitudes, out);
+		double distanceUlps = maxUlps(false);
+
+		int n = points.length;
+		System.out.println("Points:                  " + n + " (checksum " + (long) sum + ")");
+		System.out.printf("GeoPoint.distanceTo():   %.2f ns per pair (%.1f M pairs/s)%n",
+				(double) bestScalarDistance / n, n * 1e3 / bestScalarDistance);
+		System.out.printf("distancesFrom():         %.2f ns per pair (%.1f M pairs/s), max error %.0f ulp%n",
+				(double) bestBatchDistance / n, n * 1e3 / bestBatchDistance, distanceUlps);
+		System.out.printf("GeoPoint.headingTo():    %.2f ns per pair (%.1f M pairs/s)%n",
+				(double) bestScalarHeading / n, n * 1e3 / bestScalarHeading);
+		System.out.printf("headingsFrom():          %.2f ns per pair (%.1f M pairs/s), max error %.0f ulp%n",
+				(double) bestBatchHeading / n, n * 1e3 / bestBatchHeading, headingUlps);
+	}
+
+
+	public static void main(String[] args) {
+		int numOfPoints = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+		new GeoKernelsBenchmark(numOfPoints).run(10);
+	}
+}
@@ -0,0 +1,134 @@
+package HW1;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class GeoKernelsTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Returns true iff every distance is within 1 ulp of GeoPoint.distanceTo() of its pair.
+	static boolean distancesWithinUlp(int[] latitudes1, int[] longitudes1, int[] latitudes2, int[] longitudes2,
+			double[] distances) {
+		boolean ok = true;
+		for (int i = 0; i < latitudes1.length; i++) {
+			double expected = new GeoPoint(latitudes1[i], longitudes1[i])
+				.distanceTo(new GeoPoint(latitudes2[i], longitudes2[i]));
+			ok &= Math.abs(distances[i] - expected) <= Math.ulp(expected);
+		}
+		return ok;
+	}
+
+
+	// Returns true iff every heading is the one of GeoPoint.headingTo() of its pair, or 0 between equal points.
+	static boolean sameHeadings(int[] latitudes1, int[] longitudes1, int[] latitudes2, int[] longitudes2,
+			double[] headings) {
+		boolean ok = true;
+		for (int i = 0; i < latitudes1.length; i++) {
+			GeoPoint from = new GeoPoint(latitudes1[i], longitudes1[i]);
+			GeoPoint to = new GeoPoint(latitudes2[i], longitudes2[i]);
+			ok &= headings[i] == (from.equals(to) ? 0 : from.headingTo(to)) && 0 <= headings[i] && headings[i] < 360;
+		}
+		return ok;
+	}
+
+
+	// Runs all the kernels over the pairs, and checks them against GeoPoint.
+	void check(String what, int[] latitudes1, int[] longitudes1, int[] latitudes2, int[] longitudes2) {
+		int n = latitudes1.length;
+		double[] out = new double[n];
+		GeoKernels.distances(latitudes1, longitudes1, latitudes2, longitudes2, out);
+		boolean distances = distancesWithinUlp(latitudes1, longitudes1, latitudes2, longitudes2, out);
+		GeoKernels.headings(latitudes1, longitudes1, latitudes2, longitudes2, out);
+		boolean headings = sameHeadings(latitudes1, longitudes1, latitudes2, longitudes2, out);
+
+		// The kernels from one point, from each first point to all the second points.
+		boolean from = true;
+		long[] packed = new long[n];
+		for (int i = 0; i < n; i++)
+			packed[i] = GeoPointCodec.pack(latitudes2[i], longitudes2[i]);
+		for (int s = 0; s < n; s++) {
+			int[] lat = new int[n];
+			int[] lon = new int[n];
+			Arrays.fill(lat, latitudes1[s]);
+			Arrays.fill(lon, longitudes1[s]);
+			GeoKernels.distancesFrom(latitudes1[s], longitudes1[s], latitudes2, longitudes2, out);
+			from &= distancesWithinUlp(lat, lon, latitudes2, longitudes2, out);
+			GeoKernels.distancesFrom(GeoPointCodec.pack(latitudes1[s], longitudes1[s]), packed, out);
+			from &= distancesWithinUlp(lat, lon, latitudes2, longitudes2, out);
+			GeoKernels.headingsFrom(latitudes1[s], longitudes1[s], latitudes2, longitudes2, out);
+			from &= sameHeadings(lat, lon, latitudes2, longitudes2, out);
+		}
+		show(what + ": distances are within 1 ulp of distanceTo()", distances);
+		show(what + ": headings are the ones of headingTo()", headings);
+		show(what + ": kernels from one point, also packed, agree", from);
+	}
+
+
+	public void test() {
+		int min = GeoPoint.MIN_LATITUDE;
+		int max = GeoPoint.MAX_LATITUDE;
+		int west = GeoPoint.MIN_LONGITUDE;
+		int east = GeoPoint.MAX_LONGITUDE;
+
+		show("Edges");
+		double[] out = new double[4];
+		int[] lat = { 32000000, 32000000, 32000000, 32000000 };
+		int[] lon = { 35000000, 35000000, 35000000, 35000000 };
+		GeoKernels.distancesFrom(32000000, 35000000, lat, lon, out);
+		show("Identical points are 0 apart", out[0] == 0 && out[3] == 0);
+		GeoKernels.headingsFrom(32000000, 35000000, lat, lon, out);
+		show("The heading between identical points is 0", out[0] == 0 && out[3] == 0);
+		int[] compassLat = { 32001000, 31999000, 32000000, 32000000 };
+		int[] compassLon = { 35000000, 35000000, 35001000, 34999000 };
+		GeoKernels.headingsFrom(32000000, 35000000, compassLat, compassLon, out);
+		show("Due north, south, east and west are 0, 180, 90 and 270",
+			out[0] == 0 && out[1] == 180 && out[2] == 90 && out[3] == 270);
+		GeoKernels.distancesFrom(32000000, 35000000, compassLat, compassLon, out);
+		show("Points as far north and south, and east and west, are as far", out[0] == out[1] && out[2] == out[3]
+			&& out[0] > 0 && out[2] > 0);
+		check("Compass", new int[] { 0, 0, 0, 0, 0 }, new int[] { 0, 0, 0, 0, 0 },
+			new int[] { 0, 1, -1, 0, 0 }, new int[] { 0, 0, 0, 1, -1 });
+		check("Limits", new int[] { min, max, min, max, 0, 0, min, max },
+			new int[] { west, east, east, west, west, east, 0, 0 },
+			new int[] { max, min, max, min, 0, 0, max, min },
+			new int[] { east, west, west, east, east, west, 0, 0 });
+
+		show("Random points");
+		Random random = new Random(71);
+		int n = 500;
+		int[][] world = new int[4][n];
+		int[][] local = new int[4][n];
+		for (int i = 0; i < n; i++) {
+			world[0][i] = min + random.nextInt(max - min + 1);
+			world[1][i] = west + (int) (random.nextDouble() * ((long) east - west + 1));
+			world[2][i] = min + random.nextInt(max - min + 1);
+			world[3][i] = west + (int) (random.nextDouble() * ((long) east - west + 1));
+			local[0][i] = 32700000 + random.nextInt(200000);
+			local[1][i] = 34900000 + random.nextInt(200000);
+			local[2][i] = (i % 10 == 0) ? local[0][i] : 32700000 + random.nextInt(200000);
+			local[3][i] = (i % 10 == 0) ? local[1][i] : 34900000 + random.nextInt(200000);
+		}
+		check("World", world[0], world[1], world[2], world[3]);
+		check("Near the Technion", local[0], local[1], local[2], local[3]);
+	}
+
+
+	public static void main(String[] args) {
+		GeoKernelsTest kernelsTest = new GeoKernelsTest();
+		kernelsTest.test();
+	}
+}
@@ -1,6 +1,5 @@
 package HW1;
 
-import java.lang.Math;
 /**
  * A GeoPoint is a point on the earth. GeoPoints are immutable.
  * <p>
@@ -61,8 +60,11 @@ public class GeoPoint {
     // The object's longitude.
     private final int longitude;
 
-    // The millionth of a degree
-    private final int millionth = 1000000;
+    // The cached hash code of the object, see GeoPoint.hash().
+    private final int hash;
+
+    // Controls how often checkRep() validates the Rep. Inv.
+    private static final RepValidation repValidation = RepValidation.forClass(GeoPoint.class);
 
     // Representation invariant for each GeoPoint gp:
     // (MIN_LATITUDE <= gp.latitude  && gp.latitude<= MAX_LATITUDE)
@@ -85,7 +87,8 @@ public class GeoPoint {
 	{
   		this.latitude = latitude;
   		this.longitude = longitude;
-		this.checkRep();
+  		this.hash = hash(latitude, longitude);
+		this.checkRep(true);
   	}
 
   	 
@@ -122,20 +125,8 @@ public class GeoPoint {
 
 		checkRep();
 
-		// Calculates latitude distance in meters.
-		double latitudeDelta = (double)(this.latitude - gp.getLatitude());
-        latitudeDelta /= millionth; // from millionth of deg to deg.
-        latitudeDelta = Math.pow(latitudeDelta * KM_PER_DEGREE_LATITUDE,2);
-
-        // Calculates longitude distance in meters.
-		double longitudeDelta = (double)(this.longitude - gp.getLongitude());
-        longitudeDelta /= millionth; // from millionth of deg to deg.
-        longitudeDelta = Math.pow(longitudeDelta * KM_PER_DEGREE_LONGITUDE,2);
-
-        checkRep();
-
-		// Ocleadean distance between two points.
-		return Math.sqrt(latitudeDelta + longitudeDelta);
+		// The computation is shared with GeoPointCodec, so both give bit-identical results.
+		return GeoPointCodec.distance(this.latitude, this.longitude, gp.latitude, gp.longitude);
   	}
 
 
@@ -154,21 +145,8 @@ public class GeoPoint {
 
         this.checkRep();
 
-        double latitudeDelta = (gp.latitude - this.latitude)  * KM_PER_DEGREE_LATITUDE;
-        double longitudeDelta = (gp.longitude - this.longitude)  * KM_PER_DEGREE_LONGITUDE;
-
-        // The calculation is based on how we want to place our coordinate system:
-		// We want the angle to increase in range of [0,360) going from north and in a clockwise direction
-		// (east ==> south ==> west ==> north). So we place the x axis to point north which is equivalent to latitude
-		// positive direction and place the y axis to point east which is equivalent to the longitude
-		// positive direction.
-        double thetaInDegrees = Math.toDegrees(Math.atan2(longitudeDelta,latitudeDelta));
-
-        if(thetaInDegrees < 0)
-        { // A positive representation of the heading.
-            thetaInDegrees += 360;
-        }
-        return thetaInDegrees;
+        // The computation is shared with GeoPointCodec, so both give bit-identical results.
+        return GeoPointCodec.heading(this.latitude, this.longitude, gp.latitude, gp.longitude);
   	}
 
 
@@ -182,6 +160,8 @@ public class GeoPoint {
     {
         this.checkRep();
 
+        if (this == gp) // Interned points are compared by reference.
+            return true;
         if (!(gp instanceof GeoPoint))
             return false;
         GeoPoint geoPoint = (GeoPoint)gp;
@@ -198,10 +178,21 @@ public class GeoPoint {
   	@Override
   	public int hashCode()
     {
-    	// This implementation will work, but you may want to modify it
-    	// for improved performance.
+    	return this.hash;
+  	}
+
 
-    	return 1;
+  	/**
+     * Returns the hash code of the GeoPoint with the given coordinates.
+     * @return the hash code new GeoPoint(latitude, longitude) would have.
+   	 **/
+  	static int hash(int latitude, int longitude)
+    {
+        // Multiplying both coordinates, packed into a long, by a large odd constant and folding the high bits
+        // mixes nearby points, which only differ in their low bits, into the whole hash code.
+        long packed = GeoPointCodec.pack(latitude, longitude);
+        packed *= 0x9E3779B97F4A7C15L;
+        return (int) (packed ^ (packed >>> 32));
   	}
 
 
@@ -218,9 +209,19 @@ public class GeoPoint {
 
   	private void checkRep()
     {
+        this.checkRep(false);
+    }
+
+    // Validates the Rep. Inv. according to the checkRep policy of GeoPoint, see RepValidation.
+    private void checkRep(boolean constructing)
+    {
+        if (!repValidation.shouldCheck(constructing))
+            return;
+        long begin = System.nanoTime();
         assert (MIN_LATITUDE <= this.latitude  && this.latitude<= MAX_LATITUDE)
                 && (MIN_LONGITUDE <= this.longitude &&  this.longitude <= MAX_LONGITUDE)
                 : "Violated Rep. Inv";
+        repValidation.record(System.nanoTime() - begin);
     }
 
 
@@ -0,0 +1,161 @@
+package HW1;
+
+/**
+ * GeoPointCodec packs the coordinates of a GeoPoint into a single
+ * <tt>long</tt> and computes distances and headings directly on packed
+ * points or on raw coordinates, so loops over millions of coordinates
+ * don't have to allocate GeoPoint objects.
+ * <p>
+ * The latitude is kept in the high 32 bits and the longitude in the low 32
+ * bits, both in millionths of degrees, so packing is lossless. The distance
+ * and heading computations are the ones GeoPoint.distanceTo() and
+ * GeoPoint.headingTo() use, hence their results are bit-identical.
+ */
+public final class GeoPointCodec {
+
+	// The millionth of a degree
+	private static final int millionth = 1000000;
+
+	private GeoPointCodec()
+	{
+	}
+
+
+	/**
+	 * Packs a latitude and longitude into a long.
+	 * @requires the point given by (latitude, longitude) is valid as defined
+	 *           by the GeoPoint constructor.
+	 * @return the packed point of (latitude, longitude).
+	 */
+	public static long pack(int latitude, int longitude)
+	{
+		return ((long) latitude << 32) | (longitude & 0xFFFFFFFFL);
+	}
+
+
+	/**
+	 * Packs a GeoPoint into a long.
+	 * @requires gp != null
+	 * @return the packed point of gp.
+	 */
+	public static long pack(GeoPoint gp)
+	{
+		assert gp != null : "GeoPointCodec: gp is null";
+		return pack(gp.getLatitude(), gp.getLongitude());
+	}
+
+
+	/**
+	 * Returns the latitude of a packed point.
+	 * @return the latitude of packed, in millionths of degrees.
+	 */
+	public static int latitude(long packed)
+	{
+		return (int) (packed >> 32);
+	}
+
+
+	/**
+	 * Returns the longitude of a packed point.
+	 * @return the longitude of packed, in millionths of degrees.
+	 */
+	public static int longitude(long packed)
+	{
+		return (int) packed;
+	}
+
+
+	/**
+	 * Unpacks a packed point into a GeoPoint.
+	 * @requires packed was returned by pack()
+	 * @return a new GeoPoint gp such that pack(gp) = packed.
+	 */
+	public static GeoPoint toGeoPoint(long packed)
+	{
+		return new GeoPoint(latitude(packed), longitude(packed));
+	}
+
+
+	/**
+	 * Compares two packed points for equality.
+	 * @return true iff toGeoPoint(a).equals(toGeoPoint(b)).
+	 */
+	public static boolean equals(long a, long b)
+	{
+		return a == b;
+	}
+
+
+	/**
+	 * Computes the distance between two packed points.
+	 * @return toGeoPoint(from).distanceTo(toGeoPoint(to)).
+	 */
+	public static double distance(long from, long to)
+	{
+		return distance(latitude(from), longitude(from), latitude(to), longitude(to));
+	}
+
+
+	/**
+	 * Computes the compass heading between two packed points.
+	 * @requires from != to
+	 * @return toGeoPoint(from).headingTo(toGeoPoint(to)).
+	 */
+	public static double heading(long from, long to)
+	{
+		return heading(latitude(from), longitude(from), latitude(to), longitude(to));
+	}
+
+
+	/**
+	 * Computes the distance between two points given by their coordinates.
+	 * @return the distance from (fromLatitude, fromLongitude) to
+	 *         (toLatitude, toLongitude), using the flat-surface, near the
+	 *         Technion approximation, in kilometers.
+	 */
+	public static double distance(int fromLatitude, int fromLongitude, int toLatitude, int toLongitude)
+	{
+		// Calculates latitude distance in meters.
+		double latitudeDelta = (double)(fromLatitude - toLatitude);
+		latitudeDelta /= millionth; // from millionth of deg to deg.
+		latitudeDelta = Math.pow(latitudeDelta * GeoPoint.KM_PER_DEGREE_LATITUDE,2);
+
+		// Calculates longitude distance in meters.
+		double longitudeDelta = (double)(fromLongitude - toLongitude);
+		longitudeDelta /= millionth; // from millionth of deg to deg.
+		longitudeDelta = Math.pow(longitudeDelta * GeoPoint.KM_PER_DEGREE_LONGITUDE,2);
+
+		// Ocleadean distance between two points.
+		return Math.sqrt(latitudeDelta + longitudeDelta);
+	}
+
+
+	/**
+	 * Computes the compass heading between two points given by their
+	 * coordinates.
+	 * @requires (fromLatitude, fromLongitude) != (toLatitude, toLongitude)
+	 * @return the compass heading h from (fromLatitude, fromLongitude) to
+	 *         (toLatitude, toLongitude), in degrees, using the flat-surface,
+	 *         near the Technion approximation, such that 0 <= h < 360.
+	 */
+	public static double heading(int fromLatitude, int fromLongitude, int toLatitude, int toLongitude)
+	{
+		assert fromLatitude != toLatitude || fromLongitude != toLongitude : "Same GeoPoint";
+
+		double latitudeDelta = (toLatitude - fromLatitude)  * GeoPoint.KM_PER_DEGREE_LATITUDE;
+		double longitudeDelta = (toLongitude - fromLongitude)  * GeoPoint.KM_PER_DEGREE_LONGITUDE;
+
+		// The calculation is based on how we want to place our coordinate system:
+		// We want the angle to increase in range of [0,360) going from north and in a clockwise direction
+		// (east ==> south ==> west ==> north). So we place the x axis to point north which is equivalent to latitude
+		// positive direction and place the y axis to point east which is equivalent to the longitude
+		// positive direction.
+		double thetaInDegrees = Math.toDegrees(Math.atan2(longitudeDelta,latitudeDelta));
+
+		if(thetaInDegrees < 0)
+		{ // A positive representation of the heading.
+			thetaInDegrees += 360;
+		}
+		return thetaInDegrees;
+	}
+}
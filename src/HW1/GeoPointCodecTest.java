@@ -0,0 +1,109 @@
+package HW1;
+
+import java.util.Random;
+
+public class GeoPointCodecTest {
+
+	private static final int numOfPoints = 100000;
+
+	private final int[] latitudes = new int[numOfPoints];
+	private final int[] longitudes = new int[numOfPoints];
+
+
+	public GeoPointCodecTest() {
+		Random random = new Random(1);
+		for (int i = 0; i < numOfPoints; i++) {
+			latitudes[i] = 32700000 + random.nextInt(200000);
+			longitudes[i] = 34900000 + random.nextInt(200000);
+		}
+		// A few points on the limits of the valid range.
+		latitudes[0] = GeoPoint.MIN_LATITUDE;
+		longitudes[0] = GeoPoint.MIN_LONGITUDE;
+		latitudes[1] = GeoPoint.MAX_LATITUDE;
+		longitudes[1] = GeoPoint.MAX_LONGITUDE;
+		latitudes[2] = -1;
+		longitudes[2] = -1;
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// The distance as GeoPoint.distanceTo() computed it before GeoPointCodec existed.
+	static double referenceDistance(GeoPoint from, GeoPoint to) {
+		double latitudeDelta = (double)(from.getLatitude() - to.getLatitude());
+		latitudeDelta /= 1000000;
+		latitudeDelta = Math.pow(latitudeDelta * GeoPoint.KM_PER_DEGREE_LATITUDE,2);
+		double longitudeDelta = (double)(from.getLongitude() - to.getLongitude());
+		longitudeDelta /= 1000000;
+		longitudeDelta = Math.pow(longitudeDelta * GeoPoint.KM_PER_DEGREE_LONGITUDE,2);
+		return Math.sqrt(latitudeDelta + longitudeDelta);
+	}
+
+
+	// The heading as GeoPoint.headingTo() computed it before GeoPointCodec existed.
+	static double referenceHeading(GeoPoint from, GeoPoint to) {
+		double latitudeDelta = (to.getLatitude() - from.getLatitude()) * GeoPoint.KM_PER_DEGREE_LATITUDE;
+		double longitudeDelta = (to.getLongitude() - from.getLongitude()) * GeoPoint.KM_PER_DEGREE_LONGITUDE;
+		double thetaInDegrees = Math.toDegrees(Math.atan2(longitudeDelta,latitudeDelta));
+		if (thetaInDegrees < 0)
+			thetaInDegrees += 360;
+		return thetaInDegrees;
+	}
+
+
+	public void test() {
+		boolean roundTrip = true;
+		boolean equalsAgree = true;
+		boolean distanceIdentical = true;
+		boolean headingIdentical = true;
+		for (int i = 0; i < numOfPoints; i++) {
+			int j = (i * 7919 + 1) % numOfPoints;
+			GeoPoint gp1 = new GeoPoint(latitudes[i], longitudes[i]);
+			GeoPoint gp2 = new GeoPoint(latitudes[j], longitudes[j]);
+			long packed1 = GeoPointCodec.pack(gp1);
+			long packed2 = GeoPointCodec.pack(latitudes[j], longitudes[j]);
+
+			roundTrip &= GeoPointCodec.latitude(packed1) == latitudes[i]
+					&& GeoPointCodec.longitude(packed1) == longitudes[i]
+					&& GeoPointCodec.toGeoPoint(packed1).equals(gp1);
+			equalsAgree &= GeoPointCodec.equals(packed1, packed2) == gp1.equals(gp2);
+
+			double distance = referenceDistance(gp1, gp2);
+			distanceIdentical &= Double.doubleToRawLongBits(GeoPointCodec.distance(packed1, packed2))
+					== Double.doubleToRawLongBits(distance)
+					&& Double.doubleToRawLongBits(gp1.distanceTo(gp2)) == Double.doubleToRawLongBits(distance);
+			if (!gp1.equals(gp2)) {
+				double heading = referenceHeading(gp1, gp2);
+				headingIdentical &= Double.doubleToRawLongBits(GeoPointCodec.heading(packed1, packed2))
+						== Double.doubleToRawLongBits(heading)
+						&& Double.doubleToRawLongBits(gp1.headingTo(gp2)) == Double.doubleToRawLongBits(heading);
+			}
+		}
+
+		show("pack() & unpack");
+		show("Packed points unpack to the same coordinates", roundTrip);
+		show("equals() of packed points agrees with GeoPoint.equals()", equalsAgree);
+		show("distance() & heading()");
+		show("distance() is bit-identical to GeoPoint.distanceTo()", distanceIdentical);
+		show("heading() is bit-identical to GeoPoint.headingTo()", headingIdentical);
+	}
+
+
+	public static void main(String[] args) {
+		GeoPointCodecTest codecTest = new GeoPointCodecTest();
+		codecTest.test();
+	}
+}
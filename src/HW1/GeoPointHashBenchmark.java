@@ -0,0 +1,98 @@
+package HW1;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures HashMap lookups keyed by GeoPoint, with equal but distinct keys,
+ * with interned keys, and, on a small sample, with the constant hash code
+ * GeoPoint used to have.
+ * <p>
+ * Usage: <tt>java -Xmx4g HW1.GeoPointHashBenchmark [numOfPoints]</tt>
+ */
+public class GeoPointHashBenchmark {
+
+	// Number of points in every row of the generated grid.
+	private static final int rowLength = 4000;
+
+	// Number of points used for the constant hash code, which is quadratic.
+	private static final int constantHashPoints = 20000;
+
+	private final int numOfPoints;
+
+
+	public GeoPointHashBenchmark(int numOfPoints) {
+		this.numOfPoints = numOfPoints;
+	}
+
+
+	// A grid of points with 10 millionths of a degree between neighbours.
+	static GeoPoint gridPoint(int i) {
+		return new GeoPoint(32700000 + (i / rowLength) * 10, 35000000 + (i % rowLength) * 10);
+	}
+
+
+	// A GeoPoint key with the hash code GeoPoint used to have.
+	private static class ConstantHashKey {
+		private final GeoPoint gp;
+
+		ConstantHashKey(GeoPoint gp) {
+			this.gp = gp;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return (o instanceof ConstantHashKey) && gp.equals(((ConstantHashKey) o).gp);
+		}
+
+		@Override
+		public int hashCode() {
+			return 1;
+		}
+	}
+
+
+	public void run() {
+		GeoInternPool pool = new GeoInternPool();
+		Map<GeoPoint, Integer> map = new HashMap<>(numOfPoints * 2);
+		long begin = System.nanoTime();
+		for (int i = 0; i < numOfPoints; i++)
+			map.put(pool.intern(gridPoint(i)), i);
+		long insertNanos = System.nanoTime() - begin;
+
+		// Equal keys which are different objects, so equals() compares the fields.
+		begin = System.nanoTime();
+		long found = 0;
+		for (int i = 0; i < numOfPoints; i++)
+			found += (map.get(gridPoint(i)) != null) ? 1 : 0;
+		long lookupNanos = System.nanoTime() - begin;
+
+		// Canonical keys, so equals() succeeds on reference equality.
+		begin = System.nanoTime();
+		for (int i = 0; i < numOfPoints; i++)
+			found += (map.get(pool.point(32700000 + (i / rowLength) * 10, 35000000 + (i % rowLength) * 10)) != null) ? 1 : 0;
+		long internedNanos = System.nanoTime() - begin;
+
+		int sample = Math.min(numOfPoints, constantHashPoints);
+		Map<ConstantHashKey, Integer> constantMap = new HashMap<>();
+		begin = System.nanoTime();
+		for (int i = 0; i < sample; i++)
+			constantMap.put(new ConstantHashKey(gridPoint(i)), i);
+		for (int i = 0; i < sample; i++)
+			found += (constantMap.get(new ConstantHashKey(gridPoint(i))) != null) ? 1 : 0;
+		long constantNanos = System.nanoTime() - begin;
+
+		System.out.println("Points:                      " + numOfPoints + " (" + found + " found)");
+		System.out.printf("Insert (interned):           %.1f ns per point%n", (double) insertNanos / numOfPoints);
+		System.out.printf("Lookup (equal keys):         %.1f ns per lookup%n", (double) lookupNanos / numOfPoints);
+		System.out.printf("Lookup (intern + lookup):    %.1f ns per lookup%n", (double) internedNanos / numOfPoints);
+		System.out.printf("Constant hash, %d points: %.1f ns per insert and lookup%n",
+				sample, (double) constantNanos / (2 * sample));
+	}
+
+
+	public static void main(String[] args) {
+		int numOfPoints = (args.length > 0) ? Integer.parseInt(args[0]) : 10000000;
+		new GeoPointHashBenchmark(numOfPoints).run();
+	}
+}
@@ -47,6 +47,10 @@ public class GeoSegment  {
 	private final GeoPoint p2;
 	private final Double length;
 	private final Double heading;
+	private final int hash;
+
+	// Controls how often checkRep() validates the Rep. Inv.
+	private static final RepValidation repValidation = RepValidation.forClass(GeoSegment.class);
 
 	// Rep. Inv. for each GeoSegment:
 	// this.name is a non empty string of letters.
@@ -78,7 +82,9 @@ public class GeoSegment  {
 		{
 			//this.heading = null;
 		}
-  		this.checkRep();
+		// GeoSegments are immutable, so the hash code is computed once.
+		this.hash = 31 * (31 * name.hashCode() + p1.hashCode()) + p2.hashCode();
+  		this.checkRep(true);
   	}
 
 
@@ -165,9 +171,13 @@ public class GeoSegment  {
   	public boolean equals(Object gs)
 	{
 		this.checkRep();
+		if (this == gs) // Interned segments are compared by reference.
+			return true;
 		if (!(gs instanceof GeoSegment)) // No need to check for null. this condition covers it.
 			return false;
 		GeoSegment geoSegment = (GeoSegment) gs; // Copy value equality.
+		if (this.hash != geoSegment.hash) // Different hash codes can't be equal, no need to compare the fields.
+			return false;
 		boolean p1Equals = this.p1.equals(geoSegment.getP1());
 		boolean p2Equals = this.p2.equals(geoSegment.getP2());
 		boolean nameEquals = this.name.equals(geoSegment.getName()); // The last method is a String method.
@@ -179,12 +189,10 @@ public class GeoSegment  {
   	 * Returns a hash code value for this.
      * @return a hash code value for this.
      **/
+  	@Override
   	public int hashCode()
     {
-    	// This implementation will work, but you may want to modify it 
-    	// for improved performance. 
-
-    	return 1;
+    	return this.hash;
   	}
 
 
@@ -204,10 +212,20 @@ public class GeoSegment  {
 
     private void checkRep()
     {
+        this.checkRep(false);
+    }
+
+    // Validates the Rep. Inv. according to the checkRep policy of GeoSegment, see RepValidation.
+    private void checkRep(boolean constructing)
+    {
+        if (!repValidation.shouldCheck(constructing))
+            return;
+        long begin = System.nanoTime();
         assert this.name != null && this.p1 != null && this.p2 != null && this.length != null && this.heading != null;
         assert !this.name.isEmpty();
         assert this.length >= 0;
         assert this.heading >= 0 && this.heading < 360;
+        repValidation.record(System.nanoTime() - begin);
     }
 }
 
@@ -0,0 +1,594 @@
+package HW1;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A GeoSegmentTable is an immutable, column oriented store of GeoSegments.
+ * <p>
+ * Instead of one GeoSegment object per segment, which holds two GeoPoint
+ * objects, a name and boxed length and heading, the table keeps every
+ * field of all of its segments in a primitive array: the endpoints in
+ * <tt>int</tt> latitude and longitude columns, the length and heading in
+ * <tt>double</tt> columns, and the names as ids into a dictionary of
+ * distinct names. This takes a fraction of the memory and lets scans run
+ * over contiguous arrays.
+ * <p>
+ * Segments are read through the primitive getters, through a reusable
+ * View that has the getters of GeoSegment, or converted into GeoSegment
+ * and Route objects where those are needed.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   segments : sequence    // the segments of the table, indexed from 0
+ *   names : sequence       // the distinct names of the segments, indexed by name id
+ * </pre>
+ */
+public class GeoSegmentTable {
+
+	private final int size;
+	private final int[] latitudes1;
+	private final int[] longitudes1;
+	private final int[] latitudes2;
+	private final int[] longitudes2;
+	private final double[] lengths;
+	private final double[] headings;
+	private final int[] nameIds;
+	private final String[] names;
+
+	// Rep. Inv.:
+	// all the column arrays have exactly this.size elements.
+	// for all 0 <= i < this.size: 0 <= this.nameIds[i] < this.names.length and
+	//     this.lengths[i], this.headings[i] are the length and heading of a GeoSegment with the same endpoints.
+	// the elements of this.names are distinct, non empty Strings.
+
+	// Abstraction Function:
+	// segments[i] is the GeoSegment named this.names[this.nameIds[i]] from
+	// (this.latitudes1[i], this.longitudes1[i]) to (this.latitudes2[i], this.longitudes2[i]).
+
+	/**
+	 * Constructs a new GeoSegmentTable.
+	 * @requires geoSegments != null and contains no null elements.
+	 * @effects Constructs a new GeoSegmentTable t such that
+	 *          t.segments are equal to geoSegments, in iteration order.
+	 */
+	public GeoSegmentTable(Collection<GeoSegment> geoSegments)
+	{
+		this(fill(new Builder(), geoSegments));
+	}
+
+
+	// Constructs a table from the columns filled by a Builder.
+	private GeoSegmentTable(Builder builder)
+	{
+		this.size = builder.size;
+		this.latitudes1 = Arrays.copyOf(builder.latitudes1, builder.size);
+		this.longitudes1 = Arrays.copyOf(builder.longitudes1, builder.size);
+		this.latitudes2 = Arrays.copyOf(builder.latitudes2, builder.size);
+		this.longitudes2 = Arrays.copyOf(builder.longitudes2, builder.size);
+		this.lengths = Arrays.copyOf(builder.lengths, builder.size);
+		this.headings = Arrays.copyOf(builder.headings, builder.size);
+		this.nameIds = Arrays.copyOf(builder.nameIds, builder.size);
+		this.names = Arrays.copyOf(builder.names, builder.numOfNames);
+	}
+
+
+	// Constructs a table from columns of size elements, which it takes over, such as those a SegmentFileLoader
+	// parses.
+	GeoSegmentTable(int[] latitudes1, int[] longitudes1, int[] latitudes2, int[] longitudes2, double[] lengths,
+			double[] headings, int[] nameIds, String[] names)
+	{
+		this.size = nameIds.length;
+		this.latitudes1 = latitudes1;
+		this.longitudes1 = longitudes1;
+		this.latitudes2 = latitudes2;
+		this.longitudes2 = longitudes2;
+		this.lengths = lengths;
+		this.headings = headings;
+		this.nameIds = nameIds;
+		this.names = names;
+		assert latitudes1.length == this.size && longitudes1.length == this.size && latitudes2.length == this.size
+				&& longitudes2.length == this.size && lengths.length == this.size && headings.length == this.size
+				: "GeoSegmentTable: columns of different sizes";
+	}
+
+
+	// Returns the heading of a segment, as GeoSegment.getHeading() does.
+	static double heading(int latitude1, int longitude1, int latitude2, int longitude2)
+	{
+		// A GeoSegment with identical endpoints has a heading of 0.
+		return (latitude1 == latitude2 && longitude1 == longitude2)
+				? 0 : GeoPointCodec.heading(latitude1, longitude1, latitude2, longitude2);
+	}
+
+
+	private static Builder fill(Builder builder, Collection<GeoSegment> geoSegments)
+	{
+		assert geoSegments != null : "GeoSegmentTable: geoSegments is null";
+		for (GeoSegment gs : geoSegments)
+			builder.add(gs);
+		return builder;
+	}
+
+
+	/**
+	 * Returns the number of segments.
+	 * @return the length of this.segments.
+	 */
+	public int size()
+	{
+		return this.size;
+	}
+
+
+	/**
+	 * Returns the number of distinct names.
+	 * @return the length of this.names.
+	 */
+	public int numOfNames()
+	{
+		return this.names.length;
+	}
+
+
+	/**
+	 * Returns a name of the dictionary.
+	 * @requires 0 <= nameId < this.numOfNames()
+	 * @return this.names[nameId]
+	 */
+	public String getNameById(int nameId)
+	{
+		return this.names[nameId];
+	}
+
+
+	/**
+	 * Returns the name id of a segment.
+	 * @requires 0 <= i < this.size()
+	 * @return the id n such that this.names[n] = this.segments[i].name
+	 */
+	public int getNameId(int i)
+	{
+		return this.nameIds[i];
+	}
+
+
+	/**
+	 * Returns the name of a segment.
+	 * @requires 0 <= i < this.size()
+	 * @return this.segments[i].name
+	 */
+	public String getName(int i)
+	{
+		return this.names[this.nameIds[i]];
+	}
+
+
+	/**
+	 * Returns the latitude of the first endpoint of a segment.
+	 * @requires 0 <= i < this.size()
+	 * @return this.segments[i].p1.latitude
+	 */
+	public int getLatitude1(int i)
+	{
+		return this.latitudes1[i];
+	}
+
+
+	/**
+	 * Returns the longitude of the first endpoint of a segment.
+	 * @requires 0 <= i < this.size()
+	 * @return this.segments[i].p1.longitude
+	 */
+	public int getLongitude1(int i)
+	{
+		return this.longitudes1[i];
+	}
+
+
+	/**
+	 * Returns the latitude of the second endpoint of a segment.
+	 * @requires 0 <= i < this.size()
+	 * @return this.segments[i].p2.latitude
+	 */
+	public int getLatitude2(int i)
+	{
+		return this.latitudes2[i];
+	}
+
+
+	/**
+	 * Returns the longitude of the second endpoint of a segment.
+	 * @requires 0 <= i < this.size()
+	 * @return this.segments[i].p2.longitude
+	 */
+	public int getLongitude2(int i)
+	{
+		return this.longitudes2[i];
+	}
+
+
+	/**
+	 * Returns the length of a segment.
+	 * @requires 0 <= i < this.size()
+	 * @return this.segments[i].length
+	 */
+	public double getLength(int i)
+	{
+		return this.lengths[i];
+	}
+
+
+	/**
+	 * Returns the heading of a segment.
+	 * @requires 0 <= i < this.size()
+	 * @return this.segments[i].heading
+	 */
+	public double getHeading(int i)
+	{
+		return this.headings[i];
+	}
+
+
+	/**
+	 * Returns a segment as a GeoSegment object.
+	 * @requires 0 <= i < this.size()
+	 * @return a new GeoSegment equal to this.segments[i].
+	 */
+	public GeoSegment getGeoSegment(int i)
+	{
+		return this.getGeoSegment(i, new GeoPoint(this.latitudes1[i], this.longitudes1[i]));
+	}
+
+
+	/**
+	 * Returns a segment as a GeoSegment object that starts at a given
+	 * GeoPoint object, so it can be appended to a Route or GeoFeature
+	 * ending at p1.
+	 * @requires 0 <= i < this.size() && p1 != null && p1 = this.segments[i].p1
+	 * @return a new GeoSegment gs equal to this.segments[i] such that
+	 *         gs.getP1() == p1.
+	 */
+	public GeoSegment getGeoSegment(int i, GeoPoint p1)
+	{
+		assert p1 != null && p1.getLatitude() == this.latitudes1[i] && p1.getLongitude() == this.longitudes1[i]
+				: "GeoSegmentTable: p1 is not the first endpoint of segment " + i;
+		return new GeoSegment(this.getName(i), p1, new GeoPoint(this.latitudes2[i], this.longitudes2[i]));
+	}
+
+
+	/**
+	 * Returns a Route made of consecutive segments of this.
+	 * @requires 0 <= first <= last < this.size() and for all first <= i < last:
+	 *           this.segments[i].p2 = this.segments[i+1].p1
+	 * @return a new Route whose segments are this.segments[first..last].
+	 */
+	public Route toRoute(int first, int last)
+	{
+		assert 0 <= first && first <= last && last < this.size : "GeoSegmentTable: bad range";
+		GeoSegment gs = this.getGeoSegment(first);
+		Route route = new Route(gs);
+		for (int i = first + 1; i <= last; i++)
+		{
+			// Consecutive segments share their GeoPoint objects, as GeoFeature requires.
+			gs = this.getGeoSegment(i, gs.getP2());
+			route = route.addSegment(gs);
+		}
+		return route;
+	}
+
+
+	/**
+	 * Returns a new View of this table.
+	 * @return a new View v of this such that v.index = 0.
+	 */
+	public View view()
+	{
+		return new View();
+	}
+
+
+	/**
+	 * Returns an approximation of the memory used by this table.
+	 * @return the number of bytes taken by the columns of this table, not
+	 *         including the characters of the names.
+	 */
+	public long estimateMemoryBytes()
+	{
+		// 4 int columns of 4 bytes, 2 double columns of 8 bytes and the name id column.
+		return (long) this.size * (4 * 4 + 2 * 8 + 4) + (long) this.names.length * 8;
+	}
+
+
+	/**
+	 * A View is a light-weight, reusable window on a single segment of a
+	 * GeoSegmentTable, with the getters of GeoSegment. Moving a View to
+	 * another segment doesn't allocate, so a single View can scan a whole
+	 * table. Views aren't safe for use by multiple threads, but any number
+	 * of Views can read the same table concurrently.
+	 * <p>
+	 * <b>The following fields are used in the specification:</b>
+	 * <pre>
+	 *   index : integer    // the index of the segment this View shows
+	 * </pre>
+	 */
+	public final class View {
+
+		private int index;
+
+		private View()
+		{
+			this.index = 0;
+		}
+
+
+		/**
+		 * Moves this to another segment.
+		 * @requires 0 <= i < size()
+		 * @modifies this
+		 * @effects this.index = i
+		 * @return this
+		 */
+		public View moveTo(int i)
+		{
+			assert 0 <= i && i < GeoSegmentTable.this.size : "GeoSegmentTable.View: index out of range " + i;
+			this.index = i;
+			return this;
+		}
+
+
+		/**
+		 * Returns the index of the segment this shows.
+		 * @return this.index
+		 */
+		public int getIndex()
+		{
+			return this.index;
+		}
+
+
+		/**
+		 * Returns the name of the segment.
+		 * @return segments[this.index].name
+		 */
+		public String getName()
+		{
+			return GeoSegmentTable.this.getName(this.index);
+		}
+
+
+		/**
+		 * Returns the first endpoint of the segment.
+		 * @return a new GeoPoint equal to segments[this.index].p1
+		 */
+		public GeoPoint getP1()
+		{
+			return new GeoPoint(latitudes1[this.index], longitudes1[this.index]);
+		}
+
+
+		/**
+		 * Returns the second endpoint of the segment.
+		 * @return a new GeoPoint equal to segments[this.index].p2
+		 */
+		public GeoPoint getP2()
+		{
+			return new GeoPoint(latitudes2[this.index], longitudes2[this.index]);
+		}
+
+
+		/**
+		 * Returns the latitude of the first endpoint of the segment.
+		 * @return segments[this.index].p1.latitude
+		 */
+		public int getLatitude1()
+		{
+			return latitudes1[this.index];
+		}
+
+
+		/**
+		 * Returns the longitude of the first endpoint of the segment.
+		 * @return segments[this.index].p1.longitude
+		 */
+		public int getLongitude1()
+		{
+			return longitudes1[this.index];
+		}
+
+
+		/**
+		 * Returns the latitude of the second endpoint of the segment.
+		 * @return segments[this.index].p2.latitude
+		 */
+		public int getLatitude2()
+		{
+			return latitudes2[this.index];
+		}
+
+
+		/**
+		 * Returns the longitude of the second endpoint of the segment.
+		 * @return segments[this.index].p2.longitude
+		 */
+		public int getLongitude2()
+		{
+			return longitudes2[this.index];
+		}
+
+
+		/**
+		 * Returns the length of the segment.
+		 * @return segments[this.index].length
+		 */
+		public double getLength()
+		{
+			return lengths[this.index];
+		}
+
+
+		/**
+		 * Returns the compass heading of the segment.
+		 * @return segments[this.index].heading
+		 */
+		public double getHeading()
+		{
+			return headings[this.index];
+		}
+
+
+		/**
+		 * Returns the segment as a GeoSegment object.
+		 * @return a new GeoSegment equal to segments[this.index].
+		 */
+		public GeoSegment toGeoSegment()
+		{
+			return GeoSegmentTable.this.getGeoSegment(this.index);
+		}
+
+
+		/**
+		 * Returns a string representation of this.
+		 * @return a string representation of this.
+		 */
+		@Override
+		public String toString()
+		{
+			return "GeoSegmentTable.View: " + this.index + " " + this.getName();
+		}
+	}
+
+
+	/**
+	 * A Builder collects segments and builds an immutable GeoSegmentTable
+	 * from them. Builders aren't safe for use by multiple threads.
+	 */
+	public static class Builder {
+
+		private static final int initialCapacity = 16;
+
+		private int size = 0;
+		private int[] latitudes1 = new int[initialCapacity];
+		private int[] longitudes1 = new int[initialCapacity];
+		private int[] latitudes2 = new int[initialCapacity];
+		private int[] longitudes2 = new int[initialCapacity];
+		private double[] lengths = new double[initialCapacity];
+		private double[] headings = new double[initialCapacity];
+		private int[] nameIds = new int[initialCapacity];
+
+		private int numOfNames = 0;
+		private String[] names = new String[initialCapacity];
+		private final Map<String, Integer> nameIdsByName = new HashMap<>();
+
+
+		/**
+		 * Returns the id of a name, adding it to the dictionary if needed.
+		 * @requires name != null && !name.isEmpty()
+		 * @modifies this
+		 * @return the name id of name in the table being built.
+		 */
+		public int nameId(String name)
+		{
+			assert name != null && !name.isEmpty() : "GeoSegmentTable.Builder: bad name";
+			Integer id = this.nameIdsByName.get(name);
+			if (id != null)
+				return id;
+			if (this.numOfNames == this.names.length)
+				this.names = Arrays.copyOf(this.names, this.numOfNames * 2);
+			this.names[this.numOfNames] = name;
+			this.nameIdsByName.put(name, this.numOfNames);
+			return this.numOfNames++;
+		}
+
+
+		/**
+		 * Adds a segment.
+		 * @requires gs != null
+		 * @modifies this
+		 * @effects appends gs to the segments of the table being built.
+		 */
+		public void add(GeoSegment gs)
+		{
+			assert gs != null : "GeoSegmentTable.Builder: gs is null";
+			this.add(this.nameId(gs.getName()), gs.getP1().getLatitude(), gs.getP1().getLongitude(),
+					gs.getP2().getLatitude(), gs.getP2().getLongitude());
+		}
+
+
+		/**
+		 * Adds a segment given by its name and the coordinates of its
+		 * endpoints.
+		 * @requires name != null && !name.isEmpty() and the coordinates are
+		 *           valid as defined by the GeoPoint constructor.
+		 * @modifies this
+		 * @effects appends the segment named name from (latitude1, longitude1)
+		 *          to (latitude2, longitude2) to the table being built.
+		 */
+		public void add(String name, int latitude1, int longitude1, int latitude2, int longitude2)
+		{
+			this.add(this.nameId(name), latitude1, longitude1, latitude2, longitude2);
+		}
+
+
+		/**
+		 * Adds a segment given by its name id and the coordinates of its
+		 * endpoints.
+		 * @requires nameId was returned by this.nameId() and the coordinates
+		 *           are valid as defined by the GeoPoint constructor.
+		 * @modifies this
+		 * @effects appends the segment with name id nameId from
+		 *          (latitude1, longitude1) to (latitude2, longitude2) to the
+		 *          table being built.
+		 */
+		public void add(int nameId, int latitude1, int longitude1, int latitude2, int longitude2)
+		{
+			assert 0 <= nameId && nameId < this.numOfNames : "GeoSegmentTable.Builder: unknown name id " + nameId;
+			if (this.size == this.nameIds.length)
+				this.grow();
+			int i = this.size++;
+			this.latitudes1[i] = latitude1;
+			this.longitudes1[i] = longitude1;
+			this.latitudes2[i] = latitude2;
+			this.longitudes2[i] = longitude2;
+			this.lengths[i] = GeoPointCodec.distance(latitude1, longitude1, latitude2, longitude2);
+			this.headings[i] = heading(latitude1, longitude1, latitude2, longitude2);
+			this.nameIds[i] = nameId;
+		}
+
+
+		/**
+		 * Returns the number of segments added so far.
+		 * @return the number of segments added to this.
+		 */
+		public int size()
+		{
+			return this.size;
+		}
+
+
+		/**
+		 * Builds the table.
+		 * @return a new GeoSegmentTable with the segments added to this, in
+		 *         the order they were added.
+		 */
+		public GeoSegmentTable build()
+		{
+			return new GeoSegmentTable(this);
+		}
+
+
+		private void grow()
+		{
+			int capacity = this.nameIds.length * 2;
+			this.latitudes1 = Arrays.copyOf(this.latitudes1, capacity);
+			this.longitudes1 = Arrays.copyOf(this.longitudes1, capacity);
+			this.latitudes2 = Arrays.copyOf(this.latitudes2, capacity);
+			this.longitudes2 = Arrays.copyOf(this.longitudes2, capacity);
+			this.lengths = Arrays.copyOf(this.lengths, capacity);
+			this.headings = Arrays.copyOf(this.headings, capacity);
+			this.nameIds = Arrays.copyOf(this.nameIds, capacity);
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package HW1;
+
+/**
+ * Compares the memory footprint and the scan speed of a GeoSegment[] with
+ * the ones of a GeoSegmentTable holding the same segments.
+ * <p>
+ * Usage: <tt>java -Xmx4g HW1.GeoSegmentTableBenchmark [numOfSegments]</tt>
+ */
+public class GeoSegmentTableBenchmark {
+
+	// Number of distinct road names.
+	private static final int numOfNames = 5000;
+
+	private final int numOfSegments;
+
+
+	public GeoSegmentTableBenchmark(int numOfSegments) {
+		this.numOfSegments = numOfSegments;
+	}
+
+
+	static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+
+	// Creates numOfSegments short segments on a grid near the Technion.
+	static GeoSegment[] createSegments(int numOfSegments) {
+		String[] names = new String[numOfNames];
+		for (int i = 0; i < numOfNames; i++)
+			names[i] = "Road " + i;
+		GeoSegment[] segments = new GeoSegment[numOfSegments];
+		for (int i = 0; i < numOfSegments; i++) {
+			int latitude = 32700000 + (i / 2000) * 20;
+			int longitude = 35000000 + (i % 2000) * 20;
+			segments[i] = new GeoSegment(names[i % numOfNames],
+					new GeoPoint(latitude, longitude), new GeoPoint(latitude + 15, longitude + 10));
+		}
+		return segments;
+	}
+
+
+	public void run() {
+		long before = usedMemory();
+		GeoSegment[] segments = createSegments(numOfSegments);
+		long objectsBytes = usedMemory() - before;
+
+		before = usedMemory();
+		GeoSegmentTable.Builder builder = new GeoSegmentTable.Builder();
+		for (GeoSegment gs : segments)
+			builder.add(gs);
+		GeoSegmentTable table = builder.build();
+		builder = null;
+		long tableBytes = usedMemory() - before;
+
+		double sum = 0;
+		long bestObjects = Long.MAX_VALUE;
+		long bestColumns = Long.MAX_VALUE;
+		long bestView = Long.MAX_VALUE;
+		for (int round = 0; round < 5; round++) {
+			long begin = System.nanoTime();
+			for (GeoSegment gs : segments)
+				sum += gs.getLength() + gs.getP1().getLatitude();
+			bestObjects = Math.min(bestObjects, System.nanoTime() - begin);
+
+			begin = System.nanoTime();
+			for (int i = 0; i < table.size(); i++)
+				sum += table.getLength(i) + table.getLatitude1(i);
+			bestColumns = Math.min(bestColumns, System.nanoTime() - begin);
+
+			begin = System.nanoTime();
+			GeoSegmentTable.View view = table.view();
+			for (int i = 0; i < table.size(); i++)
+				sum += view.moveTo(i).getLength() + view.getLatitude1();
+			bestView = Math.min(bestView, System.nanoTime() - begin);
+		}
+
+		System.out.println("Segments:             " + numOfSegments + " (checksum " + (long) sum + ")");
+		System.out.printf("GeoSegment[] memory:  %.1f MB (%.1f bytes per segment)%n",
+				objectsBytes / 1e6, (double) objectsBytes / numOfSegments);
+		System.out.printf("Table memory:         %.1f MB (%.1f bytes per segment)%n",
+				tableBytes / 1e6, (double) tableBytes / numOfSegments);
+		System.out.printf("GeoSegment[] scan:    %.2f ns per segment%n", (double) bestObjects / numOfSegments);
+		System.out.printf("Table column scan:    %.2f ns per segment%n", (double) bestColumns / numOfSegments);
+		System.out.printf("Table view scan:      %.2f ns per segment%n", (double) bestView / numOfSegments);
+		if (segments.length != table.size())
+			System.out.println("Unexpected table size");
+	}
+
+
+	public static void main(String[] args) {
+		int numOfSegments = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+		new GeoSegmentTableBenchmark(numOfSegments).run();
+	}
+}
@@ -0,0 +1,124 @@
+package HW1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class GeoSegmentTableTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Returns true iff segment i of the table has the fields of gs.
+	static boolean sameAsSegment(GeoSegmentTable table, int i, GeoSegment gs) {
+		return table.getName(i).equals(gs.getName()) && table.getLatitude1(i) == gs.getP1().getLatitude()
+			&& table.getLongitude1(i) == gs.getP1().getLongitude() && table.getLatitude2(i) == gs.getP2().getLatitude()
+			&& table.getLongitude2(i) == gs.getP2().getLongitude() && table.getLength(i) == gs.getLength()
+			&& table.getHeading(i) == gs.getHeading();
+	}
+
+
+	// Returns true iff the View, moved to segment i, has the fields of gs.
+	static boolean sameAsSegment(GeoSegmentTable.View view, int i, GeoSegment gs) {
+		return view.getIndex() == i && view.getName().equals(gs.getName()) && view.getP1().equals(gs.getP1())
+			&& view.getP2().equals(gs.getP2()) && view.getLatitude1() == gs.getP1().getLatitude()
+			&& view.getLongitude1() == gs.getP1().getLongitude() && view.getLatitude2() == gs.getP2().getLatitude()
+			&& view.getLongitude2() == gs.getP2().getLongitude() && view.getLength() == gs.getLength()
+			&& view.getHeading() == gs.getHeading();
+	}
+
+
+	public void test() {
+		GeoSegment[] chain = RouteAppendBenchmark.createSegments(50);
+		List<GeoSegment> segments = new ArrayList<GeoSegment>(Arrays.asList(ExampleGeoSegments.segments));
+		segments.addAll(Arrays.asList(chain));
+		GeoSegmentTable table = new GeoSegmentTable(segments);
+
+		show("Getters");
+		show("The table has all the segments", table.size() == segments.size());
+		boolean same = true;
+		for (int i = 0; i < segments.size(); i++)
+			same &= sameAsSegment(table, i, segments.get(i));
+		show("The getters return the fields of the GeoSegments", same);
+		same = true;
+		for (int i = 0; i < segments.size(); i++)
+			same &= table.getGeoSegment(i).equals(segments.get(i));
+		show("getGeoSegment() equals the GeoSegment", same);
+		GeoPoint p1 = new GeoPoint(chain[3].getP1().getLatitude(), chain[3].getP1().getLongitude());
+		int third = ExampleGeoSegments.segments.length + 3;
+		GeoSegment gs = table.getGeoSegment(third, p1);
+		show("getGeoSegment() starts at a given GeoPoint", gs.getP1() == p1 && gs.equals(chain[3]));
+
+		show("View");
+		GeoSegmentTable.View view = table.view();
+		show("A new View is at the first segment", sameAsSegment(view, 0, segments.get(0)));
+		same = true;
+		for (int i = segments.size() - 1; i >= 0; i--)
+			same &= sameAsSegment(view.moveTo(i), i, segments.get(i)) && view.toGeoSegment().equals(segments.get(i));
+		show("A View has the fields of each segment it is moved to", same);
+
+		show("Names");
+		Set<String> names = new HashSet<String>();
+		for (GeoSegment segment : segments)
+			names.add(segment.getName());
+		show("Every distinct name is stored once", table.numOfNames() == names.size());
+		boolean shared = true;
+		for (int i = 0; i < segments.size(); i++)
+			for (int j = 0; j < segments.size(); j++)
+				shared &= (table.getNameId(i) == table.getNameId(j))
+					== segments.get(i).getName().equals(segments.get(j).getName());
+		show("Segments share a name id iff they have the same name", shared);
+		same = true;
+		for (int i = 0; i < segments.size(); i++)
+			same &= table.getNameById(table.getNameId(i)) == table.getName(i);
+		show("getNameById() is the name of the segments with that id", same);
+
+		show("Builder");
+		GeoSegmentTable.Builder builder = new GeoSegmentTable.Builder();
+		int road = builder.nameId("Road");
+		show("nameId() returns the same id for the same name", builder.nameId("Road") == road
+			&& builder.nameId("Street") != road);
+		builder.add(chain[0]);
+		builder.add(road, 32000000, 35000000, 32000000, 35000000);
+		builder.add("Street", 32000000, 35000000, 32001000, 35000000);
+		GeoSegmentTable built = builder.build();
+		show("Segments added by name, name id and GeoSegment are in order", builder.size() == 3
+			&& built.size() == 3 && sameAsSegment(built, 0, chain[0]) && built.getName(1).equals("Road")
+			&& built.getNameId(1) == road && built.getName(2).equals("Street") && built.numOfNames() == 3);
+		show("A segment with identical endpoints has length 0 and heading 0",
+			built.getLength(1) == 0 && built.getHeading(1) == 0);
+		show("A segment due north has heading 0 and a positive length",
+			built.getHeading(2) == 0 && built.getLength(2) > 0);
+
+		show("toRoute()");
+		Route expected = new Route(chain[0]);
+		for (int i = 1; i < chain.length; i++)
+			expected = expected.addSegment(chain[i]);
+		int first = ExampleGeoSegments.segments.length;
+		Route route = table.toRoute(first, first + chain.length - 1);
+		show("toRoute() equals the Route built with addSegment()", route.equals(expected)
+			&& RouteCodecTest.sameFeatures(route, expected) && route.getLength().equals(expected.getLength()));
+		Route single = table.toRoute(first + 7, first + 7);
+		show("A Route of a single segment", single.equals(new Route(chain[7])));
+	}
+
+
+	public static void main(String[] args) {
+		GeoSegmentTableTest tableTest = new GeoSegmentTableTest();
+		tableTest.test();
+	}
+}
@@ -0,0 +1,252 @@
+package HW1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * GeoSimplifier reduces the number of segments of GeoFeatures and Routes
+ * whose shape needs fewer of them, such as recorded GPS traces, with the
+ * Douglas-Peucker algorithm.
+ * <p>
+ * Douglas-Peucker keeps the two ends of a run of points, finds the point
+ * farthest from the segment between them, and if it's farther than the
+ * tolerance, keeps it and does the same for the runs on either side of
+ * it; the points of runs without such a point are dropped. Distances are
+ * measured with the flat-surface, near the Technion approximation of
+ * GeoPoint.distanceTo(), in kilometers, from a point to the nearest point
+ * of the segment. The runs are kept on an explicit stack rather than by
+ * recursion, so features of millions of points don't overflow the stack
+ * of the thread.
+ * <p>
+ * Simplified GeoFeatures keep their name, their first and last segments,
+ * and hence their start, end and headings, and only the GeoPoints of the
+ * original GeoFeature. Simplified Routes keep the boundaries of their
+ * features, and a feature is only simplified when the directions line the
+ * given RouteFormatters compute for it doesn't change, so the directions
+ * of the simplified Route are the ones of the original. Since dropping
+ * points shortens a feature, and the lines give its length, a feature
+ * whose line would change is simplified again with half the tolerance,
+ * a few times, before it's kept as it is.
+ */
+public final class GeoSimplifier {
+
+	// Degrees to kilometers, applied to millionths of degrees the same way GeoPoint does.
+	private static final double kmPerMillionthLatitude = GeoPoint.KM_PER_DEGREE_LATITUDE / 1000000;
+	private static final double kmPerMillionthLongitude = GeoPoint.KM_PER_DEGREE_LONGITUDE / 1000000;
+	// The number of times the tolerance is halved for a feature whose directions line changes.
+	private static final int maxRetries = 4;
+
+	private GeoSimplifier()
+	{
+	}
+
+
+	/**
+	 * Simplifies a run of points given by their coordinates.
+	 * @requires latitudes, longitudes and keep != null and
+	 *           0 <= from <= to < latitudes.length = longitudes.length <= keep.length
+	 *           and tolerance >= 0
+	 * @modifies keep
+	 * @effects sets keep[from] and keep[to], and keep[i] for every point i
+	 *          in between that Douglas-Peucker keeps within tolerance
+	 *          kilometers; the other elements of keep are unchanged.
+	 * @return the number of points between from and to, inclusive, that
+	 *         Douglas-Peucker keeps.
+	 */
+	public static int simplify(int[] latitudes, int[] longitudes, int from, int to, double tolerance, boolean[] keep)
+	{
+		assert latitudes != null && longitudes != null && keep != null : "GeoSimplifier: null array";
+		assert 0 <= from && from <= to && to < latitudes.length && latitudes.length == longitudes.length
+				&& longitudes.length <= keep.length : "GeoSimplifier: bad run of points";
+		assert tolerance >= 0 : "GeoSimplifier: negative tolerance";
+
+		double squaredTolerance = tolerance * tolerance;
+		keep[from] = true;
+		keep[to] = true;
+		int kept = (from == to) ? 1 : 2;
+		// The runs left to simplify, as pairs of their first and last points.
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = from;
+		stack[top++] = to;
+		while (top > 0)
+		{
+			int last = stack[--top];
+			int first = stack[--top];
+			int farthest = -1;
+			double farthestDistance = squaredTolerance;
+			for (int i = first + 1; i < last; i++)
+			{
+				double distance = squaredDistance(latitudes, longitudes, i, first, last);
+				if (distance > farthestDistance)
+				{
+					farthest = i;
+					farthestDistance = distance;
+				}
+			}
+			if (farthest < 0)
+				continue;
+			keep[farthest] = true;
+			kept++;
+			if (top + 4 > stack.length)
+				stack = Arrays.copyOf(stack, 2 * stack.length);
+			if (farthest - first > 1)
+			{
+				stack[top++] = first;
+				stack[top++] = farthest;
+			}
+			if (last - farthest > 1)
+			{
+				stack[top++] = farthest;
+				stack[top++] = last;
+			}
+		}
+		return kept;
+	}
+
+
+	/**
+	 * Simplifies a GeoFeature.
+	 * @requires gf != null and tolerance >= 0
+	 * @return a GeoFeature with the name, the first and the last segments of
+	 *         gf, and between them, segments between the points of gf that
+	 *         Douglas-Peucker keeps within tolerance kilometers, or gf itself
+	 *         if it keeps them all.
+	 */
+	public static GeoFeature simplify(GeoFeature gf, double tolerance)
+	{
+		assert gf != null : "GeoSimplifier: gf is null";
+		List<GeoPoint> points = new ArrayList<>();
+		points.add(gf.getStart());
+		for (Iterator<GeoSegment> segments = gf.getGeoSegments(); segments.hasNext(); )
+			points.add(segments.next().getP2());
+		int n = points.size();
+		// A feature of 3 segments or less has nothing to drop between its first and last segments.
+		if (n <= 4)
+			return gf;
+		int[] latitudes = new int[n];
+		int[] longitudes = new int[n];
+		for (int i = 0; i < n; i++)
+		{
+			latitudes[i] = points.get(i).getLatitude();
+			longitudes[i] = points.get(i).getLongitude();
+		}
+		boolean[] keep = new boolean[n];
+		keep[0] = true;
+		keep[n - 1] = true;
+		if (simplify(latitudes, longitudes, 1, n - 2, tolerance, keep) == n - 2)
+			return gf;
+
+		String name = gf.getName();
+		GeoFeature simplified = new GeoFeature(new GeoSegment(name, points.get(0), points.get(1)));
+		GeoPoint end = points.get(1);
+		for (int i = 2; i < n; i++)
+		{
+			if (keep[i])
+			{
+				simplified = simplified.addSegment(new GeoSegment(name, end, points.get(i)));
+				end = points.get(i);
+			}
+		}
+		return simplified;
+	}
+
+
+	/**
+	 * Simplifies a Route, keeping its driving and walking directions.
+	 * @requires route != null and tolerance >= 0
+	 * @return simplify(route, tolerance, new DrivingRouteFormatter(),
+	 *         new WalkingRouteFormatter())
+	 */
+	public static Route simplify(Route route, double tolerance)
+	{
+		return simplify(route, tolerance, new DrivingRouteFormatter(), new WalkingRouteFormatter());
+	}
+
+
+	/**
+	 * Simplifies a Route, keeping its directions.
+	 * @requires route != null and tolerance >= 0 and formatters != null
+	 * @return a Route whose features have the names of the features of
+	 *         route, each feature f being simplify(f, t) for the largest t
+	 *         of tolerance, tolerance / 2, ..., tolerance / 16 for which
+	 *         every formatter computes the same line for both, or f if there
+	 *         is none; or route itself if no feature is simplified.
+	 */
+	public static Route simplify(Route route, double tolerance, RouteFormatter... formatters)
+	{
+		assert route != null && formatters != null : "GeoSimplifier: null argument";
+		List<GeoFeature> features = new ArrayList<>(route.getGeoFeaturesSize());
+		boolean changed = false;
+		StringBuilder line = new StringBuilder();
+		StringBuilder simplifiedLine = new StringBuilder();
+		double heading = route.getStartHeading();
+		for (Iterator<GeoFeature> i = route.getGeoFeatures(); i.hasNext(); )
+		{
+			GeoFeature gf = i.next();
+			GeoFeature simplified = gf;
+			// Every halving of the tolerance shortens the feature less.
+			for (int retry = 0; retry <= maxRetries; retry++)
+			{
+				GeoFeature candidate = simplify(gf, tolerance / (1 << retry));
+				if (candidate == gf)
+					break;
+				if (sameLines(formatters, gf, candidate, heading, line, simplifiedLine))
+				{
+					simplified = candidate;
+					break;
+				}
+			}
+			changed |= simplified != gf;
+			features.add(simplified);
+			heading = gf.getEndHeading();
+		}
+		if (!changed)
+			return route;
+
+		Route simplified = null;
+		for (GeoFeature gf : features)
+		{
+			for (Iterator<GeoSegment> segments = gf.getGeoSegments(); segments.hasNext(); )
+			{
+				GeoSegment gs = segments.next();
+				simplified = (simplified == null) ? new Route(gs) : simplified.addSegment(gs);
+			}
+		}
+		return simplified;
+	}
+
+
+	// Returns true iff every formatter computes the same line for both features, using the two buffers.
+	private static boolean sameLines(RouteFormatter[] formatters, GeoFeature gf, GeoFeature simplified,
+			double heading, StringBuilder line, StringBuilder simplifiedLine)
+	{
+		for (RouteFormatter formatter : formatters)
+		{
+			line.setLength(0);
+			simplifiedLine.setLength(0);
+			formatter.computeLine(gf, heading, line);
+			formatter.computeLine(simplified, heading, simplifiedLine);
+			if (!line.toString().contentEquals(simplifiedLine))
+				return false;
+		}
+		return true;
+	}
+
+
+	// Returns the squared distance in kilometers from point i to the segment from point a to point b.
+	private static double squaredDistance(int[] latitudes, int[] longitudes, int i, int a, int b)
+	{
+		double bx = (latitudes[b] - latitudes[a]) * kmPerMillionthLatitude;
+		double by = (longitudes[b] - longitudes[a]) * kmPerMillionthLongitude;
+		double px = (latitudes[i] - latitudes[a]) * kmPerMillionthLatitude;
+		double py = (longitudes[i] - longitudes[a]) * kmPerMillionthLongitude;
+		double squaredLength = bx * bx + by * by;
+		double t = (squaredLength == 0) ? 0 : Math.max(0, Math.min(1, (px * bx + py * by) / squaredLength));
+		double dx = px - t * bx;
+		double dy = py - t * by;
+		return dx * dx + dy * dy;
+	}
+}
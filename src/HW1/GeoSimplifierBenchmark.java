@@ -0,0 +1,114 @@
+package HW1;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Simulates a recorded GPS trace, a point every 10 meters along a
+ * wandering road with a meter or two of noise, and simplifies it with
+ * GeoSimplifier at several tolerances: first a single run of a million
+ * points, then a Route of about as many segments, in features of 20 to 300
+ * segments. Reports the reduction ratio, the time, and whether the
+ * directions of the Route are unchanged.
+ * <p>
+ * Usage: <tt>java -Xmx3g HW1.GeoSimplifierBenchmark [numOfPoints]</tt>
+ */
+public class GeoSimplifierBenchmark {
+
+	private static final double[] tolerances = { 0.001, 0.005, 0.01, 0.02 };
+
+	// The range of the number of segments of the features of the Route, roads of 0.2 to 3 kilometers.
+	private static final int minFeatureSize = 20;
+	private static final int maxFeatureSize = 300;
+
+	private final int numOfPoints;
+
+
+	public GeoSimplifierBenchmark(int numOfPoints) {
+		this.numOfPoints = numOfPoints;
+	}
+
+
+	// Fills the coordinates with a trace from (latitude, longitude) whose heading drifts slowly.
+	static void createTrace(int[] latitudes, int[] longitudes, int latitude, int longitude, Random random) {
+		double heading = random.nextDouble() * 2 * Math.PI;
+		double x = latitude;
+		double y = longitude;
+		for (int i = 0; i < latitudes.length; i++) {
+			latitudes[i] = (int) Math.round(x + random.nextGaussian() * 10);
+			longitudes[i] = (int) Math.round(y + random.nextGaussian() * 10);
+			heading += random.nextGaussian() * 0.05;
+			// 10 meters a step.
+			x += 90 * Math.cos(heading);
+			y += 107 * Math.sin(heading);
+		}
+	}
+
+
+	public void run() {
+		Random random = new Random(41);
+		int[] latitudes = new int[numOfPoints];
+		int[] longitudes = new int[numOfPoints];
+		createTrace(latitudes, longitudes, 32000000, 35000000, random);
+		System.out.printf("Trace of %d points:%n", numOfPoints);
+		for (double tolerance : tolerances) {
+			boolean[] keep = new boolean[numOfPoints];
+			GeoSimplifier.simplify(latitudes, longitudes, 0, numOfPoints - 1, tolerance, keep);
+			keep = new boolean[numOfPoints];
+			long begin = System.nanoTime();
+			int kept = GeoSimplifier.simplify(latitudes, longitudes, 0, numOfPoints - 1, tolerance, keep);
+			double seconds = (System.nanoTime() - begin) / 1e9;
+			System.out.printf("  %4.0f m: %7d points kept, %5.1fx fewer, %.3f s, %.1f M points/s%n",
+					tolerance * 1000, kept, (double) numOfPoints / kept, seconds, numOfPoints / seconds / 1e6);
+		}
+
+		long before = GeoSegmentTableBenchmark.usedMemory();
+		List<GeoFeature> features = new ArrayList<>();
+		GeoPoint end = new GeoPoint(32000000, 35000000);
+		int[] featureLatitudes = new int[maxFeatureSize + 1];
+		int[] featureLongitudes = new int[maxFeatureSize + 1];
+		int numOfSegments = 0;
+		while (numOfSegments < numOfPoints) {
+			int featureSize = minFeatureSize + random.nextInt(maxFeatureSize - minFeatureSize + 1);
+			createTrace(featureLatitudes, featureLongitudes, end.getLatitude(), end.getLongitude(), random);
+			GeoFeature gf = null;
+			for (int i = 1; i <= featureSize; i++) {
+				GeoPoint next = new GeoPoint(featureLatitudes[i], featureLongitudes[i]);
+				GeoSegment gs = new GeoSegment("Road " + features.size(), end, next);
+				gf = (gf == null) ? new GeoFeature(gs) : gf.addSegment(gs);
+				end = next;
+			}
+			features.add(gf);
+			numOfSegments += featureSize;
+		}
+		Route route = GeoSimplifierTest.toRoute(features.toArray(new GeoFeature[0]));
+		int numOfFeatures = features.size();
+		features = null;
+		long routeMemory = GeoSegmentTableBenchmark.usedMemory() - before;
+		String driving = new DrivingRouteFormatter().computeDirections(route, 0);
+		String walking = new WalkingRouteFormatter().computeDirections(route, 0);
+		System.out.printf("Route of %d features, %d segments, %.0f MB:%n", numOfFeatures, numOfSegments,
+				routeMemory / 1e6);
+		for (double tolerance : tolerances) {
+			long begin = System.nanoTime();
+			Route simplified = GeoSimplifier.simplify(route, tolerance);
+			double seconds = (System.nanoTime() - begin) / 1e9;
+			int kept = 0;
+			for (Iterator<GeoSegment> segments = simplified.getGeoSegments(); segments.hasNext(); segments.next())
+				kept++;
+			boolean same = new DrivingRouteFormatter().computeDirections(simplified, 0).equals(driving)
+					&& new WalkingRouteFormatter().computeDirections(simplified, 0).equals(walking);
+			System.out.printf("  %4.0f m: %7d segments kept, %5.1fx fewer, %.2f s, same directions: %b%n",
+					tolerance * 1000, kept, (double) numOfSegments / kept, seconds, same);
+			simplified = null;
+		}
+	}
+
+
+	public static void main(String[] args) {
+		int numOfPoints = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+		new GeoSimplifierBenchmark(numOfPoints).run();
+	}
+}
@@ -0,0 +1,153 @@
+package HW1;
+
+import java.util.Iterator;
+import java.util.Random;
+
+public class GeoSimplifierTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Returns a GeoFeature of numOfSegments segments heading east from start, each 10 meters long, whose points
+	// are up to noise millionths of degrees north or south of the line.
+	static GeoFeature createTrace(String name, GeoPoint start, int numOfSegments, int noise, Random random) {
+		GeoPoint end = start;
+		GeoFeature gf = null;
+		for (int i = 1; i <= numOfSegments; i++) {
+			int latitude = start.getLatitude() + ((i == numOfSegments) ? 0 : random.nextInt(2 * noise + 1) - noise);
+			GeoPoint next = new GeoPoint(latitude, start.getLongitude() + 107 * i);
+			GeoSegment gs = new GeoSegment(name, end, next);
+			gf = (gf == null) ? new GeoFeature(gs) : gf.addSegment(gs);
+			end = next;
+		}
+		return gf;
+	}
+
+
+	// Returns the number of segments of the GeoFeature.
+	static int numOfSegments(GeoFeature gf) {
+		int count = 0;
+		for (Iterator<GeoSegment> segments = gf.getGeoSegments(); segments.hasNext(); segments.next())
+			count++;
+		return count;
+	}
+
+
+	// Returns a Route of the segments of the GeoFeatures.
+	static Route toRoute(GeoFeature... features) {
+		Route route = null;
+		for (GeoFeature gf : features)
+			for (Iterator<GeoSegment> segments = gf.getGeoSegments(); segments.hasNext(); ) {
+				GeoSegment gs = segments.next();
+				route = (route == null) ? new Route(gs) : route.addSegment(gs);
+			}
+		return route;
+	}
+
+
+	public void test() {
+		Random random = new Random(37);
+
+		show("Runs of points");
+		int[] latitudes = new int[10];
+		int[] longitudes = new int[10];
+		for (int i = 0; i < 10; i++) {
+			latitudes[i] = 32000000 + 100 * i;
+			longitudes[i] = 35000000 + 50 * i;
+		}
+		boolean[] keep = new boolean[10];
+		show("A straight line keeps its ends", GeoSimplifier.simplify(latitudes, longitudes, 0, 9, 1e-6, keep) == 2
+			&& keep[0] && keep[9] && !keep[5]);
+		for (int i = 0; i < 10; i++)
+			latitudes[i] = 32000000 + ((i % 2 == 0) ? 0 : 9);
+		// 9 millionths of a degree of latitude are 1 meter.
+		keep = new boolean[10];
+		show("A zig-zag within the tolerance keeps its ends",
+			GeoSimplifier.simplify(latitudes, longitudes, 0, 8, 0.0011, keep) == 2);
+		keep = new boolean[10];
+		show("A zig-zag beyond the tolerance keeps its peaks",
+			GeoSimplifier.simplify(latitudes, longitudes, 0, 8, 0.0009, keep) > 2 && keep[1]);
+		keep = new boolean[10];
+		show("Only the run is simplified", GeoSimplifier.simplify(latitudes, longitudes, 2, 5, 1, keep) == 2
+			&& keep[2] && keep[5] && !keep[0] && !keep[9]);
+		int n = 1000000;
+		latitudes = new int[n];
+		longitudes = new int[n];
+		for (int i = 0; i < n; i++) {
+			latitudes[i] = 32000000 + (int) (20000 * Math.sin(i / 20000.0)) + random.nextInt(11) - 5;
+			longitudes[i] = 35000000 + i;
+		}
+		int kept = GeoSimplifier.simplify(latitudes, longitudes, 0, n - 1, 0.005, new boolean[n]);
+		show("A million point trace is simplified without recursion", 2 < kept && kept < n / 100);
+
+		show("GeoFeatures");
+		GeoFeature trace = createTrace("Hagalil", new GeoPoint(32000000, 35000000), 1000, 20, random);
+		GeoFeature simplified = GeoSimplifier.simplify(trace, 0.005);
+		show("A noisy trace has fewer segments", numOfSegments(simplified) < numOfSegments(trace) / 10);
+		Iterator<GeoSegment> i = trace.getGeoSegments();
+		Iterator<GeoSegment> j = simplified.getGeoSegments();
+		GeoSegment firstSegment = i.next();
+		show("The name, start and end are kept", simplified.getName().equals(trace.getName())
+			&& simplified.getStart() == trace.getStart() && simplified.getEnd() == trace.getEnd());
+		show("The first and last segments are kept", j.next().equals(firstSegment)
+			&& simplified.getStartHeading() == trace.getStartHeading()
+			&& simplified.getEndHeading() == trace.getEndHeading());
+		show("The length is no longer than the trace's", simplified.getLength() <= trace.getLength());
+		GeoFeature tight = GeoSimplifier.simplify(trace, 0);
+		show("A zero tolerance keeps every point that isn't on a line", numOfSegments(tight) > 900);
+		GeoFeature shortFeature = createTrace("Hanita", new GeoPoint(32000000, 35000000), 3, 20, random);
+		show("A GeoFeature of 3 segments is kept", GeoSimplifier.simplify(shortFeature, 1) == shortFeature);
+
+		show("Routes");
+		GeoFeature first = createTrace("Hankin Road", new GeoPoint(32000000, 35000000), 500, 3, random);
+		GeoFeature second = createTrace("Trumpeldor Avenue", first.getEnd(), 300, 3, random);
+		GeoFeature third = createTrace("Hagalil", second.getEnd(), 5, 3, random);
+		Route route = toRoute(first, second, third);
+		Route simplerRoute = GeoSimplifier.simplify(route, 0.005);
+		int before = 0;
+		int after = 0;
+		for (Iterator<GeoSegment> segments = route.getGeoSegments(); segments.hasNext(); segments.next())
+			before++;
+		for (Iterator<GeoSegment> segments = simplerRoute.getGeoSegments(); segments.hasNext(); segments.next())
+			after++;
+		show("A Route has fewer segments", after < before / 10);
+		Iterator<GeoFeature> features = route.getGeoFeatures();
+		Iterator<GeoFeature> simplerFeatures = simplerRoute.getGeoFeatures();
+		boolean names = route.getGeoFeaturesSize() == simplerRoute.getGeoFeaturesSize();
+		while (features.hasNext() && simplerFeatures.hasNext()) {
+			GeoFeature gf = features.next();
+			GeoFeature sf = simplerFeatures.next();
+			names &= gf.getName().equals(sf.getName()) && gf.getStart().equals(sf.getStart())
+				&& gf.getEnd().equals(sf.getEnd());
+		}
+		show("Features keep their names and boundaries", names);
+		RouteFormatter driving = new DrivingRouteFormatter();
+		RouteFormatter walking = new WalkingRouteFormatter();
+		show("The directions are the same", driving.computeDirections(route, 90).equals(
+			driving.computeDirections(simplerRoute, 90))
+			&& walking.computeDirections(route, 90).equals(walking.computeDirections(simplerRoute, 90)));
+		GeoFeature zigzag = createTrace("Hanita", new GeoPoint(32000000, 35000000), 1000, 2000, random);
+		Route zigzagRoute = toRoute(zigzag);
+		show("A feature whose directions would change is kept",
+			GeoSimplifier.simplify(zigzagRoute, 1) == zigzagRoute
+			&& GeoSimplifier.simplify(zigzagRoute, 1, new RouteFormatter[0]) != zigzagRoute);
+	}
+
+
+	public static void main(String[] args) {
+		GeoSimplifierTest simplifierTest = new GeoSimplifierTest();
+		simplifierTest.test();
+	}
+}
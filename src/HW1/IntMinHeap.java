@@ -0,0 +1,188 @@
+package HW1;
+
+import java.util.Arrays;
+
+/**
+ * An IntMinHeap is an indexed binary min-heap of the integers 0 to
+ * capacity - 1, ordered by a <tt>double</tt> key per integer, such as the
+ * nodes of a RoadGraph ordered by their tentative distance.
+ * <p>
+ * The heap, the keys and the position of every item in the heap are
+ * primitive arrays allocated once, so adding an item, decreasing its key
+ * and removing the minimum don't allocate. IntMinHeaps aren't safe for use
+ * by multiple threads.
+ */
+final class IntMinHeap {
+
+	private final int[] heap;
+	private final double[] keys;
+	private final int[] positions;		// -1 for items not in the heap.
+	private int size;
+
+	// Rep. Inv.:
+	// this.heap[0..this.size) are distinct items, and this.positions[this.heap[i]] = i for all 0 <= i < this.size.
+	// this.positions[item] = -1 for every other item.
+	// for all 0 < i < this.size: this.keys[this.heap[(i-1)/2]] <= this.keys[this.heap[i]].
+
+	// Abstraction Function:
+	// The heap holds the items this.heap[0..this.size), item i with the key this.keys[i].
+
+	/**
+	 * Constructs a new, empty IntMinHeap.
+	 * @requires capacity >= 0
+	 * @effects Constructs an empty heap of the items 0 to capacity - 1.
+	 */
+	IntMinHeap(int capacity)
+	{
+		this.heap = new int[capacity];
+		this.keys = new double[capacity];
+		this.positions = new int[capacity];
+		Arrays.fill(this.positions, -1);
+		this.size = 0;
+	}
+
+
+	/**
+	 * Returns whether the heap is empty.
+	 * @return true iff the heap holds no items.
+	 */
+	boolean isEmpty()
+	{
+		return this.size == 0;
+	}
+
+
+	/**
+	 * Returns the number of items in the heap.
+	 * @return the number of items in the heap.
+	 */
+	int size()
+	{
+		return this.size;
+	}
+
+
+	/**
+	 * Returns whether an item is in the heap.
+	 * @requires 0 <= item < capacity
+	 * @return true iff item is in the heap.
+	 */
+	boolean contains(int item)
+	{
+		return this.positions[item] >= 0;
+	}
+
+
+	/**
+	 * Returns the smallest key.
+	 * @requires !this.isEmpty()
+	 * @return the key of the item poll() would remove.
+	 */
+	double peekKey()
+	{
+		return this.keys[this.heap[0]];
+	}
+
+
+	/**
+	 * Adds an item, or lowers its key if it is already in the heap.
+	 * @requires 0 <= item < capacity
+	 * @modifies this
+	 * @effects adds item with the given key if it isn't in the heap,
+	 *          otherwise sets its key to the given one if that is smaller.
+	 * @return true iff the heap changed.
+	 */
+	boolean offer(int item, double key)
+	{
+		int i = this.positions[item];
+		if (i < 0)
+		{
+			i = this.size++;
+		}
+		else if (key >= this.keys[item])
+		{
+			return false;
+		}
+		this.keys[item] = key;
+		this.siftUp(i, item);
+		return true;
+	}
+
+
+	/**
+	 * Removes the item with the smallest key.
+	 * @requires !this.isEmpty()
+	 * @modifies this
+	 * @effects removes the item with the smallest key from the heap.
+	 * @return the removed item.
+	 */
+	int poll()
+	{
+		assert this.size > 0 : "IntMinHeap: the heap is empty";
+		int min = this.heap[0];
+		this.positions[min] = -1;
+		int last = this.heap[--this.size];
+		if (this.size > 0)
+			this.siftDown(0, last);
+		return min;
+	}
+
+
+	/**
+	 * Removes all the items.
+	 * @modifies this
+	 * @effects makes the heap empty, in time proportional to the number of
+	 *          items it held.
+	 */
+	void clear()
+	{
+		for (int i = 0; i < this.size; i++)
+			this.positions[this.heap[i]] = -1;
+		this.size = 0;
+	}
+
+
+	// Moves item up from slot i to its place.
+	private void siftUp(int i, int item)
+	{
+		double key = this.keys[item];
+		while (i > 0)
+		{
+			int parent = (i - 1) >>> 1;
+			int parentItem = this.heap[parent];
+			if (this.keys[parentItem] <= key)
+				break;
+			this.heap[i] = parentItem;
+			this.positions[parentItem] = i;
+			i = parent;
+		}
+		this.heap[i] = item;
+		this.positions[item] = i;
+	}
+
+
+	// Moves item down from slot i to its place.
+	private void siftDown(int i, int item)
+	{
+		double key = this.keys[item];
+		int half = this.size >>> 1;
+		while (i < half)
+		{
+			int child = 2 * i + 1;
+			int childItem = this.heap[child];
+			int right = child + 1;
+			if (right < this.size && this.keys[this.heap[right]] < this.keys[childItem])
+			{
+				child = right;
+				childItem = this.heap[right];
+			}
+			if (key <= this.keys[childItem])
+				break;
+			this.heap[i] = childItem;
+			this.positions[childItem] = i;
+			i = child;
+		}
+		this.heap[i] = item;
+		this.positions[item] = i;
+	}
+}
@@ -0,0 +1,104 @@
+package HW1;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * Builds a LandmarkTable of a generated street grid, saves and loads it,
+ * and compares the number of nodes settled per query, and the query
+ * latency, of Dijkstra, straight line A* and ALT.
+ * <p>
+ * Usage: <tt>java -Xmx4g HW1.LandmarkBenchmark [gridSize] [numOfLandmarks] [numOfQueries]</tt>
+ */
+public class LandmarkBenchmark {
+
+	private static final double tolerance = 0.0000001;
+
+	private final RoadGraph graph;
+	private final int numOfLandmarks;
+	private final int[] sources;
+	private final int[] targets;
+
+
+	public LandmarkBenchmark(int gridSize, int numOfLandmarks, int numOfQueries) {
+		graph = RoadGraphBenchmark.createGraph(gridSize);
+		this.numOfLandmarks = numOfLandmarks;
+		Random random = new Random(17);
+		sources = new int[numOfQueries];
+		targets = new int[numOfQueries];
+		for (int i = 0; i < numOfQueries; i++) {
+			sources[i] = random.nextInt(graph.numOfNodes());
+			targets[i] = random.nextInt(graph.numOfNodes());
+		}
+	}
+
+
+	// Runs all the queries with router, returning their total settled nodes and filling their times and distances.
+	long runQueries(ShortestPathRouter router, long[] nanos, double[] distances) {
+		long settled = 0;
+		for (int i = 0; i < sources.length; i++) {
+			long begin = System.nanoTime();
+			boolean found = router.search(sources[i], targets[i]);
+			nanos[i] = System.nanoTime() - begin;
+			distances[i] = found ? router.getDistance() : -1;
+			settled += router.getSettledCount();
+		}
+		return settled;
+	}
+
+
+	public void run() throws IOException {
+		LandmarkTable table = LandmarkTable.build(graph, numOfLandmarks);
+		File file = File.createTempFile("landmarks", ".alt");
+		file.deleteOnExit();
+		long begin = System.nanoTime();
+		try (OutputStream out = new FileOutputStream(file)) {
+			table.save(out);
+		}
+		long saveNanos = System.nanoTime() - begin;
+		LandmarkTable loaded;
+		try (InputStream in = new FileInputStream(file)) {
+			loaded = LandmarkTable.load(in, graph);
+		}
+
+		int n = sources.length;
+		String[] names = { "Dijkstra", "A*", "ALT" };
+		ShortestPathRouter[] routers = {
+			new ShortestPathRouter(graph, false), new ShortestPathRouter(graph, true), new ShortestPathRouter(loaded)
+		};
+		long[][] nanos = new long[routers.length][n];
+		double[][] distances = new double[routers.length][n];
+		long[] settled = new long[routers.length];
+		for (int round = 0; round < 2; round++)
+			for (int r = 0; r < routers.length; r++)
+				settled[r] = runQueries(routers[r], nanos[r], distances[r]);
+
+		int mismatches = 0;
+		for (int i = 0; i < n; i++)
+			if (Math.abs(distances[2][i] - distances[0][i]) > tolerance)
+				mismatches++;
+
+		System.out.println(graph + ", " + table);
+		System.out.printf("Build:  %.2f s, %.1f MB, saved in %.2f s to %.1f MB, loaded in %.2f s%n",
+				table.getBuildNanos() / 1e9, table.estimateMemoryBytes() / 1e6, saveNanos / 1e9,
+				file.length() / 1e6, loaded.getBuildNanos() / 1e9);
+		for (int r = 0; r < routers.length; r++)
+			System.out.printf("%-8s median %.2f ms, %d nodes settled on average (%.1f%% of Dijkstra)%n",
+					names[r] + ":", RoutingBenchmark.medianMillis(nanos[r]), settled[r] / n,
+					100.0 * settled[r] / settled[0]);
+		System.out.println("ALT queries with different lengths: " + mismatches);
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		int gridSize = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+		int numOfLandmarks = (args.length > 1) ? Integer.parseInt(args[1]) : 16;
+		int numOfQueries = (args.length > 2) ? Integer.parseInt(args[2]) : 100;
+		new LandmarkBenchmark(gridSize, numOfLandmarks, numOfQueries).run();
+	}
+}
@@ -0,0 +1,443 @@
+package HW1;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A LandmarkTable holds the shortest path distances between a few
+ * landmark nodes of a RoadGraph and all its nodes, and uses them to bound
+ * the distance between any two nodes from below, for A* search (ALT: A*,
+ * landmarks and the triangle inequality).
+ * <p>
+ * For a landmark L, the triangle inequality gives
+ * d(v,t) &gt;= d(L,t) - d(L,v) and d(v,t) &gt;= d(v,L) - d(t,L). The lower
+ * bound of a table is the largest of these over all its landmarks. Unlike
+ * the straight line distance, it follows the roads, so it stays tight
+ * where the roads go around rivers or follow highways.
+ * <p>
+ * The landmarks are picked by farthest-point selection: every landmark is
+ * the node farthest from the ones picked before it, so they end up spread
+ * around the edges of the network. The distances are kept as <tt>int</tt>
+ * multiples of a resolution, rounded down, with the distances of each node
+ * to all the landmarks next to each other. The bounds take the rounding
+ * into account, so they never overestimate.
+ * <p>
+ * A table can be saved and loaded, so it is computed once per graph.
+ * LandmarkTables are immutable, hence safe for use by multiple threads.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   graph : RoadGraph          // the graph of the table
+ *   landmarks : sequence       // the landmark nodes
+ *   resolution : real          // the unit of the stored distances, in kilometers
+ * </pre>
+ */
+public class LandmarkTable {
+
+	/** The default resolution of the distances: a meter. **/
+	public static final double DEFAULT_RESOLUTION = 0.001;
+
+	// The stored value of the distance to or from a node that can't be reached.
+	private static final int unreachable = Integer.MAX_VALUE;
+
+	// Identifies a saved table.
+	private static final int magic = 0x414C5431;	// "ALT1"
+
+	private final RoadGraph graph;
+	private final int[] landmarks;
+	private final double resolution;
+	private final int[] fromLandmarks;	// [n * k + i]: d(landmarks[i], n) in units of resolution.
+	private final int[] toLandmarks;	// [n * k + i]: d(n, landmarks[i]) in units of resolution.
+	private final long buildNanos;
+
+	// Rep. Inv.:
+	// this.landmarks are distinct nodes of this.graph and this.resolution > 0.
+	// both tables have this.graph.numOfNodes() * this.landmarks.length elements, each either unreachable or
+	//     floor(d / this.resolution) of the distance d it stands for.
+
+	// Abstraction Function:
+	// The distance from landmarks[i] to node n is in [fromLandmarks[n*k+i], fromLandmarks[n*k+i] + 1) * resolution,
+	// and the distance from n to landmarks[i] in [toLandmarks[n*k+i], toLandmarks[n*k+i] + 1) * resolution.
+
+	private LandmarkTable(RoadGraph graph, int[] landmarks, double resolution, int[] fromLandmarks, int[] toLandmarks,
+			long buildNanos)
+	{
+		this.graph = graph;
+		this.landmarks = landmarks;
+		this.resolution = resolution;
+		this.fromLandmarks = fromLandmarks;
+		this.toLandmarks = toLandmarks;
+		this.buildNanos = buildNanos;
+		this.checkRep();
+	}
+
+
+	/**
+	 * Builds the table of a graph, using all the available processors.
+	 * @requires graph != null && 0 < numOfLandmarks <= graph.numOfNodes()
+	 * @return a new LandmarkTable of graph with numOfLandmarks landmarks
+	 *         and the DEFAULT_RESOLUTION.
+	 */
+	public static LandmarkTable build(RoadGraph graph, int numOfLandmarks)
+	{
+		return build(graph, numOfLandmarks, DEFAULT_RESOLUTION, Runtime.getRuntime().availableProcessors());
+	}
+
+
+	/**
+	 * Builds the table of a graph.
+	 * @requires graph != null && 0 < numOfLandmarks <= graph.numOfNodes()
+	 *           && resolution > 0 && numOfThreads > 0
+	 * @return a new LandmarkTable of graph with numOfLandmarks landmarks and
+	 *         the given resolution, whose distances are computed by
+	 *         numOfThreads threads.
+	 * @throws IllegalArgumentException if a table of numOfLandmarks
+	 *         distances for every node of graph is too large for an array.
+	 */
+	public static LandmarkTable build(RoadGraph graph, int numOfLandmarks, double resolution, int numOfThreads)
+	{
+		assert graph != null && 0 < numOfLandmarks && numOfLandmarks <= graph.numOfNodes() && resolution > 0
+				&& numOfThreads > 0 : "LandmarkTable: bad arguments";
+		long begin = System.nanoTime();
+		int numOfNodes = graph.numOfNodes();
+		ReverseGraph reverse = new ReverseGraph(graph);
+		int[] landmarks = new int[numOfLandmarks];
+		int size = tableSize(numOfNodes, numOfLandmarks);
+		int[] fromLandmarks = new int[size];
+		int[] toLandmarks = new int[size];
+
+		// Farthest-point selection, starting from the node farthest from node 0. The search from each landmark
+		// fills its column of fromLandmarks too.
+		Search search = new Search(graph, reverse);
+		double[] nearest = new double[numOfNodes];
+		search.run(0, false);
+		int next = farthest(search.distances, null);
+		Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+		for (int i = 0; i < numOfLandmarks; i++)
+		{
+			landmarks[i] = next;
+			search.run(next, false);
+			store(search.distances, fromLandmarks, i, numOfLandmarks, resolution);
+			for (int n = 0; n < numOfNodes; n++)
+				nearest[n] = Math.min(nearest[n], search.distances[n]);
+			if (i + 1 < numOfLandmarks)
+				next = farthest(nearest, landmarks);
+		}
+
+		// The searches to each landmark over the reversed edges, in parallel.
+		AtomicInteger nextLandmark = new AtomicInteger(0);
+		Runnable task = () -> {
+			Search backward = new Search(graph, reverse);
+			for (int i = nextLandmark.getAndIncrement(); i < numOfLandmarks; i = nextLandmark.getAndIncrement())
+			{
+				backward.run(landmarks[i], true);
+				store(backward.distances, toLandmarks, i, numOfLandmarks, resolution);
+			}
+		};
+		ParallelTasks.run(task, Math.min(numOfThreads, numOfLandmarks), "LandmarkTable", "building");
+		return new LandmarkTable(graph, landmarks, resolution, fromLandmarks, toLandmarks, System.nanoTime() - begin);
+	}
+
+
+	/**
+	 * Loads a table saved by save().
+	 * @requires in != null && graph != null
+	 * @return a new LandmarkTable of graph with the landmarks and distances
+	 *         read from in.
+	 * @throws IOException if in can't be read, or doesn't hold a table of a
+	 *         graph with the size of graph.
+	 * @throws IllegalArgumentException if the table read is too large for
+	 *         an array.
+	 */
+	public static LandmarkTable load(InputStream in, RoadGraph graph) throws IOException
+	{
+		assert in != null && graph != null : "LandmarkTable: bad arguments";
+		long begin = System.nanoTime();
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		if (data.readInt() != magic)
+			throw new IOException("LandmarkTable: not a landmark table");
+		int numOfNodes = data.readInt();
+		int numOfEdges = data.readInt();
+		if (numOfNodes != graph.numOfNodes() || numOfEdges != graph.numOfEdges())
+			throw new IOException("LandmarkTable: the table is of another graph");
+		double resolution = data.readDouble();
+		int numOfLandmarks = data.readInt();
+		if (!(resolution > 0) || numOfLandmarks <= 0 || numOfLandmarks > numOfNodes)
+			throw new IOException("LandmarkTable: bad header");
+		int[] landmarks = new int[numOfLandmarks];
+		for (int i = 0; i < numOfLandmarks; i++)
+		{
+			landmarks[i] = data.readInt();
+			if (landmarks[i] < 0 || landmarks[i] >= numOfNodes)
+				throw new IOException("LandmarkTable: bad landmark " + landmarks[i]);
+		}
+		int size = tableSize(numOfNodes, numOfLandmarks);
+		int[] fromLandmarks = new int[size];
+		int[] toLandmarks = new int[size];
+		for (int i = 0; i < fromLandmarks.length; i++)
+			fromLandmarks[i] = data.readInt();
+		for (int i = 0; i < toLandmarks.length; i++)
+			toLandmarks[i] = data.readInt();
+		return new LandmarkTable(graph, landmarks, resolution, fromLandmarks, toLandmarks, System.nanoTime() - begin);
+	}
+
+
+	/**
+	 * Saves this table.
+	 * @requires out != null
+	 * @modifies out
+	 * @effects writes this table to out, in a form load() reads. out is
+	 *          flushed but not closed.
+	 * @throws IOException if out can't be written.
+	 */
+	public void save(OutputStream out) throws IOException
+	{
+		assert out != null : "LandmarkTable: out is null";
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(magic);
+		data.writeInt(this.graph.numOfNodes());
+		data.writeInt(this.graph.numOfEdges());
+		data.writeDouble(this.resolution);
+		data.writeInt(this.landmarks.length);
+		for (int landmark : this.landmarks)
+			data.writeInt(landmark);
+		for (int value : this.fromLandmarks)
+			data.writeInt(value);
+		for (int value : this.toLandmarks)
+			data.writeInt(value);
+		data.flush();
+	}
+
+
+	/**
+	 * Returns the graph of this table.
+	 * @return this.graph
+	 */
+	public RoadGraph getGraph()
+	{
+		return this.graph;
+	}
+
+
+	/**
+	 * Returns the number of landmarks.
+	 * @return the length of this.landmarks.
+	 */
+	public int numOfLandmarks()
+	{
+		return this.landmarks.length;
+	}
+
+
+	/**
+	 * Returns a landmark.
+	 * @requires 0 <= i < this.numOfLandmarks()
+	 * @return this.landmarks[i]
+	 */
+	public int getLandmark(int i)
+	{
+		return this.landmarks[i];
+	}
+
+
+	/**
+	 * Bounds the distance between two nodes from below.
+	 * @requires 0 <= from, to < this.graph.numOfNodes()
+	 * @return a number of kilometers that is at most the length of the
+	 *         shortest path from from to to in this.graph.
+	 */
+	public double lowerBound(int from, int to)
+	{
+		int k = this.landmarks.length;
+		int fromRow = from * k;
+		int toRow = to * k;
+		long best = 0;
+		for (int i = 0; i < k; i++)
+		{
+			// d(from,to) >= d(L,to) - d(L,from), less one unit for rounding d(L,from) down.
+			int landmarkToTarget = this.fromLandmarks[toRow + i];
+			int landmarkToNode = this.fromLandmarks[fromRow + i];
+			if (landmarkToTarget != unreachable && landmarkToNode != unreachable)
+				best = Math.max(best, (long) landmarkToTarget - landmarkToNode - 1);
+
+			// d(from,to) >= d(from,L) - d(to,L), less one unit for rounding d(from,L) down.
+			int nodeToLandmark = this.toLandmarks[fromRow + i];
+			int targetToLandmark = this.toLandmarks[toRow + i];
+			if (nodeToLandmark != unreachable && targetToLandmark != unreachable)
+				best = Math.max(best, (long) nodeToLandmark - targetToLandmark - 1);
+		}
+		return best * this.resolution;
+	}
+
+
+	/**
+	 * Returns the time it took to build or load this table.
+	 * @return the number of nanoseconds build() or load() took.
+	 */
+	public long getBuildNanos()
+	{
+		return this.buildNanos;
+	}
+
+
+	/**
+	 * Returns an approximation of the memory used by this table.
+	 * @return the number of bytes taken by the distances of this table.
+	 */
+	public long estimateMemoryBytes()
+	{
+		return 4L * (this.fromLandmarks.length + this.toLandmarks.length);
+	}
+
+
+	/**
+	 * Returns a string representation of this.
+	 * @return a string representation of this.
+	 */
+	@Override
+	public String toString()
+	{
+		return "LandmarkTable: " + this.landmarks.length + " landmarks " + Arrays.toString(this.landmarks);
+	}
+
+
+	// Returns the node with the largest finite distance, other than the given landmarks.
+	private static int farthest(double[] distances, int[] landmarks)
+	{
+		int farthest = 0;
+		double max = -1;
+		for (int n = 0; n < distances.length; n++)
+		{
+			if (distances[n] != Double.POSITIVE_INFINITY && distances[n] > max)
+			{
+				max = distances[n];
+				farthest = n;
+			}
+		}
+		if (landmarks != null)
+		{
+			// When every node is at distance 0 from a landmark, any other node will do.
+			for (int n = 0; max <= 0 && n < distances.length; n++)
+			{
+				boolean isLandmark = false;
+				for (int landmark : landmarks)
+					isLandmark |= landmark == n;
+				if (!isLandmark)
+					return n;
+			}
+		}
+		return farthest;
+	}
+
+
+	// Returns the number of elements of a table of k landmarks for numOfNodes nodes.
+	static int tableSize(int numOfNodes, int k)
+	{
+		long size = (long) numOfNodes * k;
+		if (size > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("LandmarkTable: " + numOfNodes + " nodes and " + k
+					+ " landmarks are too many for a table");
+		return (int) size;
+	}
+
+
+	// Stores the distances of a search as column i of a table.
+	private static void store(double[] distances, int[] table, int i, int k, double resolution)
+	{
+		for (int n = 0; n < distances.length; n++)
+		{
+			double units = Math.floor(distances[n] / resolution);
+			table[n * k + i] = (units >= unreachable) ? unreachable : (int) units;
+		}
+	}
+
+
+	private void checkRep()
+	{
+		assert this.resolution > 0 : "LandmarkTable: bad resolution";
+		assert this.fromLandmarks.length == this.graph.numOfNodes() * this.landmarks.length
+				&& this.toLandmarks.length == this.fromLandmarks.length : "LandmarkTable: bad tables";
+	}
+
+
+	// The edges of a RoadGraph grouped by the node they enter, in compressed sparse row form.
+	private static final class ReverseGraph {
+
+		private final int[] offsets;
+		private final int[] sources;
+		private final double[] lengths;
+
+		private ReverseGraph(RoadGraph graph)
+		{
+			int numOfNodes = graph.numOfNodes();
+			this.offsets = new int[numOfNodes + 1];
+			this.sources = new int[graph.numOfEdges()];
+			this.lengths = new double[graph.numOfEdges()];
+			for (int e = 0; e < graph.numOfEdges(); e++)
+				this.offsets[graph.getEdgeTarget(e) + 1]++;
+			for (int n = 0; n < numOfNodes; n++)
+				this.offsets[n + 1] += this.offsets[n];
+			int[] next = Arrays.copyOf(this.offsets, numOfNodes);
+			for (int n = 0; n < numOfNodes; n++)
+			{
+				for (int e = graph.firstEdge(n); e < graph.endEdge(n); e++)
+				{
+					int i = next[graph.getEdgeTarget(e)]++;
+					this.sources[i] = n;
+					this.lengths[i] = graph.getEdgeLength(e);
+				}
+			}
+		}
+	}
+
+
+	// A full Dijkstra search from, or over the reversed edges to, one node.
+	private static final class Search {
+
+		private final RoadGraph graph;
+		private final ReverseGraph reverse;
+		private final IntMinHeap heap;
+		private final double[] distances;
+
+		private Search(RoadGraph graph, ReverseGraph reverse)
+		{
+			this.graph = graph;
+			this.reverse = reverse;
+			this.heap = new IntMinHeap(graph.numOfNodes());
+			this.distances = new double[graph.numOfNodes()];
+		}
+
+
+		// Sets this.distances to the distances from node start, or to it if backward is true.
+		private void run(int start, boolean backward)
+		{
+			Arrays.fill(this.distances, Double.POSITIVE_INFINITY);
+			this.distances[start] = 0;
+			this.heap.offer(start, 0);
+			while (!this.heap.isEmpty())
+			{
+				int n = this.heap.poll();
+				double distance = this.distances[n];
+				int first = backward ? this.reverse.offsets[n] : this.graph.firstEdge(n);
+				int end = backward ? this.reverse.offsets[n + 1] : this.graph.endEdge(n);
+				for (int i = first; i < end; i++)
+				{
+					int next = backward ? this.reverse.sources[i] : this.graph.getEdgeTarget(i);
+					double nextDistance = distance + (backward ? this.reverse.lengths[i] : this.graph.getEdgeLength(i));
+					if (nextDistance < this.distances[next])
+					{
+						this.distances[next] = nextDistance;
+						this.heap.offer(next, nextDistance);
+					}
+				}
+			}
+		}
+	}
+}
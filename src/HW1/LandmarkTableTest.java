@@ -0,0 +1,113 @@
+package HW1;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+public class LandmarkTableTest {
+
+	private static final double tolerance = 0.0000001;
+
+
+	boolean same(double x, double y) {
+		return ((y >= x-tolerance) && (y <= x+tolerance));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	public void test() throws IOException {
+		RoadGraph grid = RoadGraphBenchmark.createGraph(30);
+		LandmarkTable table = LandmarkTable.build(grid, 4, LandmarkTable.DEFAULT_RESOLUTION, 2);
+
+		show("build()");
+		boolean distinct = true;
+		for (int i = 0; i < table.numOfLandmarks(); i++)
+			for (int j = 0; j < i; j++)
+				distinct &= table.getLandmark(i) != table.getLandmark(j);
+		show("Landmarks are distinct nodes", distinct);
+
+		show("lowerBound()");
+		ShortestPathRouter dijkstra = new ShortestPathRouter(grid, false);
+		ShortestPathRouter alt = new ShortestPathRouter(table);
+		ShortestPathRouter aStar = new ShortestPathRouter(grid, true);
+		long altSettled = 0;
+		long aStarSettled = 0;
+		boolean bounded = true;
+		boolean shortest = true;
+		boolean tight = false;
+		for (int from = 0; from < grid.numOfNodes(); from += 29) {
+			for (int to = 0; to < grid.numOfNodes(); to += 13) {
+				boolean found = dijkstra.search(from, to);
+				if (alt.search(from, to) != found) {
+					shortest = false;
+					continue;
+				}
+				if (!found)
+					continue;
+				double distance = dijkstra.getDistance();
+				double bound = table.lowerBound(from, to);
+				bounded &= bound <= distance + tolerance;
+				tight |= bound > 0.9 * distance && distance > 1;
+				shortest &= same(alt.getDistance(), distance);
+				aStar.search(from, to);
+				altSettled += alt.getSettledCount();
+				aStarSettled += aStar.getSettledCount();
+			}
+		}
+		show("Bounds never overestimate", bounded);
+		show("Some bounds are tight", tight);
+		show("ALT finds the shortest distances", shortest);
+		show("ALT settles fewer nodes than straight line A*", altSettled < aStarSettled);
+
+		show("save() & load()");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		table.save(out);
+		LandmarkTable loaded = LandmarkTable.load(new ByteArrayInputStream(out.toByteArray()), grid);
+		boolean equal = loaded.numOfLandmarks() == table.numOfLandmarks();
+		for (int from = 0; from < grid.numOfNodes(); from += 7)
+			for (int to = 0; to < grid.numOfNodes(); to += 11)
+				equal &= loaded.lowerBound(from, to) == table.lowerBound(from, to);
+		show("Loaded table has the same bounds", equal);
+		boolean rejected = false;
+		try {
+			LandmarkTable.load(new ByteArrayInputStream(out.toByteArray()), RoadGraphBenchmark.createGraph(20));
+		}
+		catch (IOException e) {
+			rejected = true;
+		}
+		show("Table of another graph is rejected", rejected);
+
+		show("Sizes");
+		show("A table has a distance of every landmark for every node",
+			LandmarkTable.tableSize(grid.numOfNodes(), 16) == grid.numOfNodes() * 16);
+		boolean tooLarge = false;
+		try {
+			LandmarkTable.tableSize(50000000, 64);
+		}
+		catch (IllegalArgumentException e) {
+			tooLarge = e.getMessage().contains("too many");
+		}
+		show("A table too large for an array is rejected, not overflowed", tooLarge);
+		show("The largest table is allowed", LandmarkTable.tableSize((Integer.MAX_VALUE - 8) / 8, 8) > 0);
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		LandmarkTableTest tableTest = new LandmarkTableTest();
+		tableTest.test();
+	}
+}
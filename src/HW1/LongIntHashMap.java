@@ -0,0 +1,146 @@
+package HW1;
+
+import java.util.Arrays;
+
+/**
+ * A LongIntHashMap maps <tt>long</tt> keys to non-negative <tt>int</tt>
+ * values, such as packed GeoPoints to node ids, without boxing either.
+ * <p>
+ * The keys and values are kept in two parallel arrays with open
+ * addressing and linear probing, so a lookup touches a couple of adjacent
+ * array elements and never allocates. Entries can't be removed.
+ * LongIntHashMaps aren't safe for concurrent modification, but any number
+ * of threads may read a map no thread modifies.
+ */
+final class LongIntHashMap {
+
+	/** The value get() returns for a missing key. **/
+	static final int MISSING = -1;
+
+	private static final int minCapacity = 16;
+
+	private long[] keys;
+	private int[] values;		// MISSING in empty slots.
+	private int size;
+	private int mask;
+
+	// Rep. Inv.:
+	// this.keys.length == this.values.length is a power of 2 and this.mask == this.keys.length - 1.
+	// this.size is the number of slots whose value isn't MISSING, and this.size <= this.keys.length / 2.
+	// every key is stored in the first empty slot at or after slot(key), cyclically, when it was added.
+
+	// Abstraction Function:
+	// The map holds the entry (this.keys[i], this.values[i]) for every slot i with this.values[i] != MISSING.
+
+	/**
+	 * Constructs a new, empty LongIntHashMap.
+	 * @requires expectedSize >= 0
+	 * @effects Constructs an empty map with room for expectedSize entries
+	 *          before it needs to grow.
+	 */
+	LongIntHashMap(int expectedSize)
+	{
+		assert expectedSize >= 0 : "LongIntHashMap: negative size";
+		int capacity = minCapacity;
+		while (capacity < 2L * expectedSize)
+			capacity *= 2;
+		this.allocate(capacity);
+	}
+
+
+	/**
+	 * Returns the number of entries.
+	 * @return the number of keys in this map.
+	 */
+	int size()
+	{
+		return this.size;
+	}
+
+
+	/**
+	 * Returns the value of a key.
+	 * @return the value mapped to key, or MISSING if there is none.
+	 */
+	int get(long key)
+	{
+		for (int i = this.slot(key); ; i = (i + 1) & this.mask)
+		{
+			int value = this.values[i];
+			if (value == MISSING || this.keys[i] == key)
+				return value;
+		}
+	}
+
+
+	/**
+	 * Maps a key to a value unless it already has one.
+	 * @requires value >= 0
+	 * @modifies this
+	 * @effects maps key to value if key had no value.
+	 * @return the value key had before, or value if it had none.
+	 */
+	int putIfAbsent(long key, int value)
+	{
+		assert value >= 0 : "LongIntHashMap: negative value";
+		int i = this.slot(key);
+		while (this.values[i] != MISSING)
+		{
+			if (this.keys[i] == key)
+				return this.values[i];
+			i = (i + 1) & this.mask;
+		}
+		this.keys[i] = key;
+		this.values[i] = value;
+		if (++this.size > this.keys.length / 2)
+			this.rehash(this.keys.length * 2);
+		return value;
+	}
+
+
+	/**
+	 * Returns an approximation of the memory used by this map.
+	 * @return the number of bytes taken by the arrays of this map.
+	 */
+	long estimateMemoryBytes()
+	{
+		return (long) this.keys.length * (8 + 4);
+	}
+
+
+	// Returns the home slot of key, mixing the high and low halves so packed coordinates spread evenly.
+	private int slot(long key)
+	{
+		long mixed = key * 0x9E3779B97F4A7C15L;
+		return (int) (mixed ^ (mixed >>> 32)) & this.mask;
+	}
+
+
+	private void allocate(int capacity)
+	{
+		this.keys = new long[capacity];
+		this.values = new int[capacity];
+		Arrays.fill(this.values, MISSING);
+		this.mask = capacity - 1;
+		this.size = 0;
+	}
+
+
+	private void rehash(int capacity)
+	{
+		long[] oldKeys = this.keys;
+		int[] oldValues = this.values;
+		this.allocate(capacity);
+		for (int j = 0; j < oldKeys.length; j++)
+		{
+			if (oldValues[j] == MISSING)
+				continue;
+			int i = this.slot(oldKeys[j]);
+			while (this.values[i] != MISSING)
+				i = (i + 1) & this.mask;
+			this.keys[i] = oldKeys[j];
+			this.values[i] = oldValues[j];
+			this.size++;
+		}
+	}
+}
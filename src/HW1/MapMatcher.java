@@ -0,0 +1,554 @@
+package HW1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A MapMatcher turns a stream of noisy GPS fixes into the Route of edges of
+ * a RoadGraph that the vehicle most likely drove along.
+ * <p>
+ * The matcher is a hidden Markov model, after Newson and Krumm. The
+ * candidates of a fix are the edges within a search radius of it, found in
+ * a SegmentRTree of the edges. A candidate is as likely as its distance
+ * from the fix is under Gaussian GPS noise. Going from a candidate of one
+ * fix to a candidate of the next is as likely as the length of the drive
+ * between them along the roads is close to the straight line distance
+ * between the fixes, with exponentially distributed differences. Drives
+ * longer than a vehicle could make between the timestamps of the fixes are
+ * impossible. The road distances come from a bounded Dijkstra search from
+ * every candidate, run by a ShortestPathRouter.
+ * <p>
+ * The most likely sequence of candidates is found by an online Viterbi
+ * search, over a sliding window of the last fixes. Once the most likely
+ * sequences ending at all the candidates of the newest fix go through the
+ * same candidate of an older fix, that candidate and the ones before it
+ * are final, and their edges are added to the Route. When the window is
+ * full, the oldest fix is decided by the most likely sequence so far.
+ * Hence the memory a MapMatcher takes is bounded by its window, not by
+ * the length of the trace, and the Route grows as the fixes come in.
+ * <p>
+ * Fixes closer than two standard deviations of the GPS noise to the last
+ * used one, and fixes with no edge within the search radius, are skipped.
+ * When no candidate of a fix can be reached from the candidates of the
+ * one before it, the sequence so far is decided, and a new one starts at
+ * the fix. If the graph has no path between the two, a new Route begins.
+ * <p>
+ * A MapMatcher matches a single trace at a time, and isn't safe for use by
+ * multiple threads. Several MapMatchers can share a SegmentRTree.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   graph : RoadGraph      // the graph the fixes are matched to
+ *   routes : sequence      // the Routes of the fixes matched so far, the last one still growing
+ * </pre>
+ */
+public class MapMatcher {
+
+	/** The default standard deviation of the GPS noise, in kilometers. **/
+	public static final double DEFAULT_SIGMA = 0.005;
+
+	/** The default mean difference between road and straight line distances, in kilometers. **/
+	public static final double DEFAULT_BETA = 0.01;
+
+	/** The default distance within which edges are candidates of a fix, in kilometers. **/
+	public static final double DEFAULT_SEARCH_RADIUS = 0.05;
+
+	/** The default number of fixes in the window. **/
+	public static final int DEFAULT_WINDOW_SIZE = 32;
+
+	// The largest number of candidates of a fix.
+	private static final int maxCandidates = 8;
+
+	// Drives faster than this many kilometers per hour between two fixes are impossible.
+	private static final double maxSpeed = 200;
+
+	// Drives longer than this many times the straight line distance between two fixes are impossible.
+	private static final double maxDetour = 4;
+
+	// A fix this many standard deviations of the GPS noise behind the one before it on the same edge is taken to
+	// stay where that one was, rather than to go around the block.
+	private static final double maxBacktrack = 4;
+
+	// The millionth of a degree
+	private static final int millionth = 1000000;
+
+	private static final double millisPerHour = 3600 * 1000;
+
+	private final RoadGraph graph;
+	private final SegmentRTree.Query query;
+	private final ShortestPathRouter router;
+	private final double sigma;
+	private final double beta;
+	private final double searchRadius;
+	private final int windowSize;
+
+	// The candidates of the fixes in the window: fix number s is in slot s % windowSize.
+	private final int[] counts;
+	private final int[][] edges;
+	private final double[][] fractions;		// how far along its edge the candidate is, from 0 to 1.
+	private final double[][] scores;		// the log likelihood of the best sequence ending at the candidate.
+	private final int[][] previous;			// the candidate of the fix before it on that sequence, or -1.
+	private int first;						// the oldest fix of the window that isn't decided.
+	private int next;						// the number of fixes the window has seen.
+
+	private final int[] chain;
+	private final int[] at;
+	private final double[] bestScores;
+	private final int[] sources;
+	private final double[] sourceDistances;
+
+	private boolean started;
+	private int lastLatitude;
+	private int lastLongitude;
+	private long lastTime;
+	private int numOfFixes;
+	private int numOfSkippedFixes;
+
+	private final List<Route> routes;
+	private Route route;
+	private GeoPoint end;					// the GeoPoint object this.route ends at.
+	private int lastEdge;
+	private double lastFraction;
+
+	// Rep. Inv.:
+	// 0 <= this.next - this.first <= this.windowSize, and for every fix s in [this.first, this.next):
+	//     0 < this.counts[s % this.windowSize] <= maxCandidates and its candidates are edges of this.graph, at least
+	//     one with a finite score. If s > this.first, the previous candidate of each candidate with a finite score
+	//     is a candidate of s - 1 with a finite score.
+	// this.route is null iff no fix was decided since the last finish(), and then this.lastEdge = -1; otherwise
+	//     this.lastEdge is the last edge of this.route.
+
+	// Abstraction Function:
+	// routes = this.routes followed by this.route, if it isn't null. The candidates of the fixes in the window are
+	// the part of the trace not decided yet.
+
+	/**
+	 * Constructs a new MapMatcher with the default parameters.
+	 * @requires graph != null && edgeIndex != null && edgeIndex is the
+	 *           SegmentRTree of graph.toGeoSegmentTable()
+	 * @effects Constructs a new MapMatcher m such that m.graph = graph and
+	 *          m.routes is empty.
+	 */
+	public MapMatcher(RoadGraph graph, SegmentRTree edgeIndex)
+	{
+		this(graph, edgeIndex, DEFAULT_SIGMA, DEFAULT_BETA, DEFAULT_SEARCH_RADIUS, DEFAULT_WINDOW_SIZE);
+	}
+
+
+	/**
+	 * Constructs a new MapMatcher.
+	 * @requires graph != null && edgeIndex != null && edgeIndex is the
+	 *           SegmentRTree of graph.toGeoSegmentTable() && sigma > 0 &&
+	 *           beta > 0 && searchRadius > 0 && windowSize > 1
+	 * @effects Constructs a new MapMatcher m such that m.graph = graph and
+	 *          m.routes is empty, which assumes GPS noise with standard
+	 *          deviation sigma and differences of beta on average between
+	 *          road and straight line distances, takes the edges within
+	 *          searchRadius of a fix as its candidates, and decides a fix
+	 *          at the latest windowSize fixes after it.
+	 */
+	public MapMatcher(RoadGraph graph, SegmentRTree edgeIndex, double sigma, double beta, double searchRadius,
+			int windowSize)
+	{
+		assert graph != null && edgeIndex != null && edgeIndex.size() == graph.numOfEdges()
+				: "MapMatcher: the index isn't of the edges of graph";
+		assert sigma > 0 && beta > 0 && searchRadius > 0 && windowSize > 1 : "MapMatcher: bad parameters";
+		this.graph = graph;
+		this.query = edgeIndex.newQuery();
+		this.router = new ShortestPathRouter(graph);
+		this.sigma = sigma;
+		this.beta = beta;
+		this.searchRadius = searchRadius;
+		this.windowSize = windowSize;
+		this.counts = new int[windowSize];
+		this.edges = new int[windowSize][maxCandidates];
+		this.fractions = new double[windowSize][maxCandidates];
+		this.scores = new double[windowSize][maxCandidates];
+		this.previous = new int[windowSize][maxCandidates];
+		this.chain = new int[windowSize];
+		this.at = new int[maxCandidates];
+		this.bestScores = new double[maxCandidates];
+		this.sources = new int[maxCandidates];
+		this.sourceDistances = new double[maxCandidates * maxCandidates];
+		this.routes = new ArrayList<>();
+		this.reset();
+		this.checkRep();
+	}
+
+
+	/**
+	 * Builds the index of the edges of a graph that a MapMatcher needs.
+	 * @requires graph != null
+	 * @return a new SegmentRTree of graph.toGeoSegmentTable().
+	 */
+	public static SegmentRTree indexEdges(RoadGraph graph)
+	{
+		assert graph != null : "MapMatcher: graph is null";
+		return SegmentRTree.build(graph.toGeoSegmentTable());
+	}
+
+
+	/**
+	 * Adds a fix.
+	 * @requires p != null and time is not before the time of the last fix
+	 *           added since the last finish().
+	 * @modifies this
+	 * @effects adds the fix at p, taken at time, to the trace, and appends
+	 *          the edges of the fixes this decides to this.routes.
+	 */
+	public void addFix(GeoPoint p, long timeMillis)
+	{
+		assert p != null : "MapMatcher: p is null";
+		this.addFix(p.getLatitude(), p.getLongitude(), timeMillis);
+	}
+
+
+	/**
+	 * Adds a fix given by its coordinates.
+	 * @requires (latitude, longitude) is valid as defined by the GeoPoint
+	 *           constructor, and time is not before the time of the last
+	 *           fix added since the last finish().
+	 * @modifies this
+	 * @effects adds the fix at (latitude, longitude), taken at time, to the
+	 *          trace, and appends the edges of the fixes this decides to
+	 *          this.routes.
+	 */
+	public void addFix(int latitude, int longitude, long timeMillis)
+	{
+		assert !this.started || timeMillis >= this.lastTime : "MapMatcher: fixes out of order";
+		this.numOfFixes++;
+		double straight = this.started
+				? GeoPointCodec.distance(this.lastLatitude, this.lastLongitude, latitude, longitude) : 0;
+		if (this.started && straight < 2 * this.sigma)
+		{
+			this.numOfSkippedFixes++;
+			return;
+		}
+
+		int slot = this.next % this.windowSize;
+		int count = this.query.nearest(latitude, longitude, maxCandidates);
+		int candidates = 0;
+		for (int i = 0; i < count && this.query.getDistance(i) <= this.searchRadius; i++)
+		{
+			int e = this.query.getId(i);
+			this.edges[slot][candidates] = e;
+			this.fractions[slot][candidates] = fraction(this.graph, e, latitude, longitude);
+			double z = this.query.getDistance(i) / this.sigma;
+			this.scores[slot][candidates] = -0.5 * z * z;
+			this.previous[slot][candidates] = -1;
+			candidates++;
+		}
+		if (candidates == 0)
+		{
+			this.numOfSkippedFixes++;
+			return;
+		}
+		this.counts[slot] = candidates;
+
+		if (this.next > this.first && !this.transition(slot, straight, timeMillis - this.lastTime))
+		{
+			// No candidate can be reached from the fix before: decide the sequence so far, and start a new one.
+			int last = (this.next - 1) % this.windowSize;
+			this.decide(this.next - 1, this.best(last));
+			this.first = this.next;
+		}
+		this.next++;
+		this.started = true;
+		this.lastLatitude = latitude;
+		this.lastLongitude = longitude;
+		this.lastTime = timeMillis;
+
+		this.decideConverged();
+		if (this.next - this.first == this.windowSize)
+			this.decideOldest();
+		this.checkRep();
+	}
+
+
+	/**
+	 * Ends the trace.
+	 * @modifies this
+	 * @effects decides all the fixes left by their most likely sequence,
+	 *          appends their edges to this.routes, and makes this.routes
+	 *          empty to start a new trace.
+	 * @return the Routes of the trace, in order, which are empty if no fix
+	 *         was matched.
+	 */
+	public List<Route> finish()
+	{
+		if (this.next > this.first)
+			this.decide(this.next - 1, this.best((this.next - 1) % this.windowSize));
+		List<Route> result = new ArrayList<>(this.routes);
+		if (this.route != null)
+			result.add(this.route);
+		this.reset();
+		this.checkRep();
+		return result;
+	}
+
+
+	/**
+	 * Returns the Route matched so far.
+	 * @return the last Route of this.routes, or null if this.routes is empty.
+	 */
+	public Route getRoute()
+	{
+		return this.route;
+	}
+
+
+	/**
+	 * Returns the number of fixes added since the last finish().
+	 * @return the number of fixes added since the last finish().
+	 */
+	public int getNumOfFixes()
+	{
+		return this.numOfFixes;
+	}
+
+
+	/**
+	 * Returns the number of fixes skipped since the last finish().
+	 * @return the number of fixes added since the last finish() that were
+	 *         too close to the fix before them, or too far from every edge.
+	 */
+	public int getNumOfSkippedFixes()
+	{
+		return this.numOfSkippedFixes;
+	}
+
+
+	// Scores the candidates of the fix in slot by the best sequences reaching them from the fix before, and
+	// returns true iff any of them can be reached.
+	private boolean transition(int slot, double straight, long elapsedMillis)
+	{
+		int before = (this.next - 1) % this.windowSize;
+		double maxDrive = Math.min(maxDetour * straight, maxSpeed * elapsedMillis / millisPerHour)
+				+ 2 * this.searchRadius;
+		int numOfSources = 0;
+		double[] best = this.bestScores;
+		Arrays.fill(best, Double.NEGATIVE_INFINITY);
+		for (int a = 0; a < this.counts[before]; a++)
+		{
+			if (this.scores[before][a] == Double.NEGATIVE_INFINITY)
+				continue;
+			int fromEdge = this.edges[before][a];
+			double rest = (1 - this.fractions[before][a]) * this.graph.getEdgeLength(fromEdge);
+			int from = this.graph.getEdgeTarget(fromEdge);
+
+			// One search per node the candidates before leave from, with its distances to all the new candidates.
+			int s = 0;
+			while (s < numOfSources && this.sources[s] != from)
+				s++;
+			if (s == numOfSources)
+			{
+				this.router.searchWithin(from, Math.max(0, maxDrive - rest));
+				for (int b = 0; b < this.counts[slot]; b++)
+					this.sourceDistances[s * maxCandidates + b] =
+							this.router.getDistanceTo(this.graph.getEdgeSource(this.edges[slot][b]));
+				this.sources[numOfSources++] = from;
+			}
+
+			for (int b = 0; b < this.counts[slot]; b++)
+			{
+				int toEdge = this.edges[slot][b];
+				double along = (this.fractions[slot][b] - this.fractions[before][a]) * this.graph.getEdgeLength(toEdge);
+				double drive = (toEdge == fromEdge && along >= -maxBacktrack * this.sigma)
+						? Math.max(0, along)
+						: rest + this.sourceDistances[s * maxCandidates + b]
+							+ this.fractions[slot][b] * this.graph.getEdgeLength(toEdge);
+				if (drive > maxDrive)
+					continue;
+				double score = this.scores[before][a] - Math.abs(drive - straight) / this.beta;
+				if (score > best[b])
+				{
+					best[b] = score;
+					this.previous[slot][b] = a;
+				}
+			}
+		}
+		boolean reachable = false;
+		for (int b = 0; b < this.counts[slot]; b++)
+			reachable |= best[b] != Double.NEGATIVE_INFINITY;
+		// Otherwise the candidates start a new sequence, and their scores are their own likelihoods.
+		for (int b = 0; reachable && b < this.counts[slot]; b++)
+			this.scores[slot][b] += best[b];
+		return reachable;
+	}
+
+
+	// Decides the fixes up to the newest one that the best sequences ending at all the candidates of the newest
+	// fix go through.
+	private void decideConverged()
+	{
+		int last = this.next - 1;
+		int slot = last % this.windowSize;
+		int alive = 0;
+		for (int b = 0; b < this.counts[slot]; b++)
+			if (this.scores[slot][b] != Double.NEGATIVE_INFINITY)
+				this.at[alive++] = b;
+		// Follows the sequences back one fix at a time until they meet. The newest fix itself is kept in the
+		// window, since the next fix is scored from it.
+		for (int s = last; ; s--)
+		{
+			boolean met = true;
+			for (int i = 1; i < alive; i++)
+				met &= this.at[i] == this.at[0];
+			if (met)
+			{
+				if (s < last)
+				{
+					this.decide(s, this.at[0]);
+					this.first = s + 1;
+				}
+				return;
+			}
+			if (s == this.first)
+				return;
+			int[] back = this.previous[s % this.windowSize];
+			for (int i = 0; i < alive; i++)
+				this.at[i] = back[this.at[i]];
+		}
+	}
+
+
+	// Decides the oldest fix by the best sequence so far, and drops the candidates of the newer fixes that don't
+	// continue it.
+	private void decideOldest()
+	{
+		int last = this.next - 1;
+		int c = this.best(last % this.windowSize);
+		for (int s = last; s > this.first; s--)
+			c = this.previous[s % this.windowSize][c];
+		this.decide(this.first, c);
+		this.first++;
+		for (int s = this.first; s <= last; s++)
+		{
+			int slot = s % this.windowSize;
+			int before = (s - 1) % this.windowSize;
+			for (int b = 0; b < this.counts[slot]; b++)
+			{
+				if (this.scores[slot][b] == Double.NEGATIVE_INFINITY)
+					continue;
+				int a = this.previous[slot][b];
+				if (s == this.first ? a != c : this.scores[before][a] == Double.NEGATIVE_INFINITY)
+					this.scores[slot][b] = Double.NEGATIVE_INFINITY;
+			}
+		}
+	}
+
+
+	// Decides the fixes from this.first to last, along the best sequence that ends at the candidate c of last.
+	private void decide(int last, int c)
+	{
+		for (int s = last; s >= this.first; s--)
+		{
+			this.chain[s - this.first] = c;
+			if (s > this.first)
+				c = this.previous[s % this.windowSize][c];
+		}
+		for (int s = this.first; s <= last; s++)
+		{
+			int slot = s % this.windowSize;
+			int candidate = this.chain[s - this.first];
+			this.append(this.edges[slot][candidate], this.fractions[slot][candidate]);
+		}
+	}
+
+
+	// Appends an edge a decided fix is on, and the edges that lead to it from the last edge, to the Route.
+	private void append(int e, double fraction)
+	{
+		if (this.route != null && e == this.lastEdge
+				&& (fraction - this.lastFraction) * this.graph.getEdgeLength(e) >= -maxBacktrack * this.sigma)
+		{
+			this.lastFraction = Math.max(this.lastFraction, fraction);
+			return;
+		}
+		if (this.route != null)
+		{
+			int from = this.graph.getEdgeTarget(this.lastEdge);
+			int to = this.graph.getEdgeSource(e);
+			if (from == to || this.router.search(from, to))
+			{
+				if (from != to)
+					for (int pathEdge : this.router.getPathEdges())
+						this.extend(pathEdge);
+				this.extend(e);
+				this.lastFraction = fraction;
+				return;
+			}
+			// The graph has no path from the last edge to this one.
+			this.routes.add(this.route);
+		}
+		GeoSegment gs = this.graph.getGeoSegment(e, this.graph.getNodePoint(this.graph.getEdgeSource(e)));
+		this.route = new Route(gs);
+		this.end = gs.getP2();
+		this.lastEdge = e;
+		this.lastFraction = fraction;
+	}
+
+
+	// Appends an edge that leaves the end of the Route to it.
+	private void extend(int e)
+	{
+		// Consecutive segments share their GeoPoint objects, as GeoFeature requires.
+		GeoSegment gs = this.graph.getGeoSegment(e, this.end);
+		this.route = this.route.addSegment(gs);
+		this.end = gs.getP2();
+		this.lastEdge = e;
+	}
+
+
+	// Returns the candidate with the highest score of the fix in slot.
+	private int best(int slot)
+	{
+		int best = 0;
+		for (int b = 1; b < this.counts[slot]; b++)
+			if (this.scores[slot][b] > this.scores[slot][best])
+				best = b;
+		return best;
+	}
+
+
+	// Returns how far along an edge, from 0 to 1, the point of it nearest to a point is.
+	private static double fraction(RoadGraph graph, int e, int latitude, int longitude)
+	{
+		int source = graph.getEdgeSource(e);
+		int target = graph.getEdgeTarget(e);
+		int latitude1 = graph.getNodeLatitude(source);
+		int longitude1 = graph.getNodeLongitude(source);
+		double edgeY = (double) (graph.getNodeLatitude(target) - latitude1) / millionth * GeoPoint.KM_PER_DEGREE_LATITUDE;
+		double edgeX = (double) (graph.getNodeLongitude(target) - longitude1) / millionth
+				* GeoPoint.KM_PER_DEGREE_LONGITUDE;
+		double pointY = (double) (latitude - latitude1) / millionth * GeoPoint.KM_PER_DEGREE_LATITUDE;
+		double pointX = (double) (longitude - longitude1) / millionth * GeoPoint.KM_PER_DEGREE_LONGITUDE;
+		double squaredLength = edgeY * edgeY + edgeX * edgeX;
+		if (squaredLength == 0)
+			return 0;
+		return Math.max(0, Math.min(1, (pointY * edgeY + pointX * edgeX) / squaredLength));
+	}
+
+
+	private void reset()
+	{
+		this.first = 0;
+		this.next = 0;
+		this.started = false;
+		this.numOfFixes = 0;
+		this.numOfSkippedFixes = 0;
+		this.routes.clear();
+		this.route = null;
+		this.end = null;
+		this.lastEdge = -1;
+		this.lastFraction = 0;
+	}
+
+
+	private void checkRep()
+	{
+		assert 0 <= this.next - this.first && this.next - this.first <= this.windowSize : "MapMatcher: bad window";
+		assert (this.route == null) == (this.lastEdge == -1) : "MapMatcher: bad last edge";
+	}
+}
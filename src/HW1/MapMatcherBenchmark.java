@@ -0,0 +1,110 @@
+package HW1;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Matches noisy traces along random shortest paths of a grid road network,
+ * and reports how many fixes per second a MapMatcher matches on one thread,
+ * and on all the available processors with a MapMatcher per thread sharing
+ * one SegmentRTree of the edges.
+ * <p>
+ * Usage: <tt>java -Xmx2g HW1.MapMatcherBenchmark [gridSize] [numOfTraces]</tt>
+ */
+public class MapMatcherBenchmark {
+
+	// Fixes are this many kilometers apart along the path, one second apart: 54 km/h.
+	private static final double step = 0.015;
+
+	// The standard deviation of the noise added to the fixes, in kilometers.
+	private static final double noise = 0.005;
+
+	private final int gridSize;
+	private final int numOfTraces;
+
+
+	public MapMatcherBenchmark(int gridSize, int numOfTraces) {
+		this.gridSize = gridSize;
+		this.numOfTraces = numOfTraces;
+	}
+
+
+	// Matches the traces of one thread, returning the number of traces matched to their paths exactly.
+	static int runTraces(RoadGraph graph, SegmentRTree index, long[][] traces, Route[] expected,
+			int thread, int numOfThreads) {
+		MapMatcher matcher = new MapMatcher(graph, index);
+		int exact = 0;
+		for (int i = thread; i < traces.length; i += numOfThreads) {
+			List<Route> routes = MapMatcherTest.match(matcher, traces[i]);
+			if (routes.size() == 1 && MapMatcherTest.sameSegments(routes.get(0), expected[i]))
+				exact++;
+		}
+		return exact;
+	}
+
+
+	// Matches all the traces on numOfThreads threads, returning the number of fixes per second.
+	static double throughput(RoadGraph graph, SegmentRTree index, long[][] traces, Route[] expected, long numOfFixes,
+			int numOfThreads) throws InterruptedException {
+		Thread[] threads = new Thread[numOfThreads];
+		long begin = System.nanoTime();
+		for (int t = 0; t < numOfThreads; t++) {
+			final int thread = t;
+			threads[t] = new Thread(() -> runTraces(graph, index, traces, expected, thread, numOfThreads));
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		return numOfFixes / ((System.nanoTime() - begin) / 1e9);
+	}
+
+
+	public void run() throws InterruptedException {
+		RoadGraph graph = RoadGraphBenchmark.createGraph(gridSize);
+		long begin = System.nanoTime();
+		SegmentRTree index = MapMatcher.indexEdges(graph);
+		double indexMillis = (System.nanoTime() - begin) / 1e6;
+
+		// Traces between random nodes up to 30 blocks, about 3 km, apart.
+		Random random = new Random(17);
+		ShortestPathRouter router = new ShortestPathRouter(graph);
+		long[][] traces = new long[numOfTraces][];
+		Route[] expected = new Route[numOfTraces];
+		long numOfFixes = 0;
+		for (int i = 0; i < numOfTraces; i++) {
+			int row = random.nextInt(gridSize - 30);
+			int column = random.nextInt(gridSize - 30);
+			int source = graph.nodeOf(32700000 + row * 1000, 34900000 + column * 1000);
+			int target = graph.nodeOf(32700000 + (row + 5 + random.nextInt(25)) * 1000,
+					34900000 + (column + 5 + random.nextInt(25)) * 1000);
+			router.search(source, target);
+			int[] path = router.getPathEdges();
+			traces[i] = MapMatcherTest.createTrace(graph, path, step, 0.03, noise, random);
+			expected[i] = graph.toRoute(path, graph.getNodePoint(source));
+			numOfFixes += traces[i].length;
+		}
+
+		// Warm up on a tenth of the traces, then match them all.
+		runTraces(graph, index, traces, expected, 0, 10);
+		begin = System.nanoTime();
+		int exact = runTraces(graph, index, traces, expected, 0, 1);
+		double singleThroughput = numOfFixes / ((System.nanoTime() - begin) / 1e9);
+		int numOfThreads = Runtime.getRuntime().availableProcessors();
+		double parallelThroughput = throughput(graph, index, traces, expected, numOfFixes, numOfThreads);
+
+		System.out.println(graph);
+		System.out.printf("Edge index:  %.0f ms, %.1f MB%n", indexMillis, index.estimateMemoryBytes() / 1e6);
+		System.out.printf("Traces:      %d, %d fixes, %.0f m apart, noise %.0f m%n",
+				numOfTraces, numOfFixes, step * 1000, noise * 1000);
+		System.out.printf("Throughput:  %.0f fixes/s on 1 thread, %.0f on %d threads (%.0f per thread)%n",
+				singleThroughput, parallelThroughput, numOfThreads, parallelThroughput / numOfThreads);
+		System.out.printf("Exact paths: %d of %d traces (%.1f%%)%n", exact, numOfTraces, 100.0 * exact / numOfTraces);
+	}
+
+
+	public static void main(String[] args) throws InterruptedException {
+		int gridSize = (args.length > 0) ? Integer.parseInt(args[0]) : 300;
+		int numOfTraces = (args.length > 1) ? Integer.parseInt(args[1]) : 2000;
+		new MapMatcherBenchmark(gridSize, numOfTraces).run();
+	}
+}
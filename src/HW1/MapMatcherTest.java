@@ -0,0 +1,160 @@
+package HW1;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+public class MapMatcherTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Returns fixes every step kilometers along a path of edges, from margin after its start to margin before its
+	// end, moved by Gaussian noise with a standard deviation of sigma kilometers, packed as GeoPointCodec packs them.
+	static long[] createTrace(RoadGraph graph, int[] path, double step, double margin, double sigma, Random random) {
+		double length = 0;
+		for (int e : path)
+			length += graph.getEdgeLength(e);
+		List<Long> fixes = new ArrayList<>();
+		int i = 0;
+		double edgeStart = 0;
+		for (double at = margin; at <= length - margin; at += step) {
+			while (at > edgeStart + graph.getEdgeLength(path[i])) {
+				edgeStart += graph.getEdgeLength(path[i]);
+				i++;
+			}
+			int source = graph.getEdgeSource(path[i]);
+			int target = graph.getEdgeTarget(path[i]);
+			double t = (at - edgeStart) / graph.getEdgeLength(path[i]);
+			double latitude = graph.getNodeLatitude(source) + t * (graph.getNodeLatitude(target) - graph.getNodeLatitude(source))
+					+ random.nextGaussian() * sigma / GeoPoint.KM_PER_DEGREE_LATITUDE * 1000000;
+			double longitude = graph.getNodeLongitude(source) + t * (graph.getNodeLongitude(target) - graph.getNodeLongitude(source))
+					+ random.nextGaussian() * sigma / GeoPoint.KM_PER_DEGREE_LONGITUDE * 1000000;
+			fixes.add(GeoPointCodec.pack((int) Math.round(latitude), (int) Math.round(longitude)));
+		}
+		long[] trace = new long[fixes.size()];
+		for (int j = 0; j < trace.length; j++)
+			trace[j] = fixes.get(j);
+		return trace;
+	}
+
+
+	// Adds the fixes of a trace, one second apart, and returns the Routes.
+	static List<Route> match(MapMatcher matcher, long[] trace) {
+		for (int i = 0; i < trace.length; i++)
+			matcher.addFix(GeoPointCodec.latitude(trace[i]), GeoPointCodec.longitude(trace[i]), 1000L * i);
+		return matcher.finish();
+	}
+
+
+	// Returns true iff both routes have equal segments.
+	static boolean sameSegments(Route a, Route b) {
+		Iterator<GeoSegment> i = a.getGeoSegments();
+		Iterator<GeoSegment> j = b.getGeoSegments();
+		while (i.hasNext() && j.hasNext())
+			if (!i.next().equals(j.next()))
+				return false;
+		return !i.hasNext() && !j.hasNext();
+	}
+
+
+	public void test() {
+		RoadGraph grid = RoadGraphBenchmark.createGraph(20);
+		SegmentRTree index = MapMatcher.indexEdges(grid);
+		ShortestPathRouter router = new ShortestPathRouter(grid);
+		Random random = new Random(23);
+
+		show("indexEdges()");
+		GeoSegmentTable table = grid.toGeoSegmentTable();
+		boolean edges = table.size() == grid.numOfEdges();
+		for (int e = 0; e < grid.numOfEdges(); e += 7)
+			edges &= table.getGeoSegment(e).equals(grid.getGeoSegment(e, grid.getNodePoint(grid.getEdgeSource(e))));
+		show("Segment i of the table is edge i", edges);
+		show("Index has all the edges", index.size() == grid.numOfEdges());
+
+		show("addFix() & finish()");
+		router.search(21, 398);
+		int[] path = router.getPathEdges();
+		Route expected = grid.toRoute(path, grid.getNodePoint(21));
+		MapMatcher matcher = new MapMatcher(grid, index);
+		List<Route> exact = match(matcher, createTrace(grid, path, 0.02, 0.01, 0, random));
+		show("Fixes on the roads match the path", exact.size() == 1 && sameSegments(exact.get(0), expected));
+		boolean noisy = true;
+		for (int round = 0; round < 10; round++) {
+			List<Route> routes = match(matcher, createTrace(grid, path, 0.02, 0.03, 0.005, random));
+			noisy &= routes.size() == 1 && sameSegments(routes.get(0), expected);
+		}
+		show("Noisy fixes match the path", noisy);
+
+		router.search(0, 399);
+		int[] diagonal = router.getPathEdges();
+		long[] trace = createTrace(grid, diagonal, 0.02, 0.03, 0.005, random);
+		MapMatcher small = new MapMatcher(grid, index, MapMatcher.DEFAULT_SIGMA, MapMatcher.DEFAULT_BETA,
+				MapMatcher.DEFAULT_SEARCH_RADIUS, 4);
+		boolean growing = true;
+		for (int i = 0; i < trace.length; i++) {
+			small.addFix(GeoPointCodec.latitude(trace[i]), GeoPointCodec.longitude(trace[i]), 1000L * i);
+			if (i == trace.length / 2)
+				growing &= small.getRoute() != null && small.getRoute().getLength() > 0.5;
+		}
+		List<Route> routes = small.finish();
+		show("Route grows while fixes come in", growing);
+		show("Small window matches the path",
+			routes.size() == 1 && sameSegments(routes.get(0), grid.toRoute(diagonal, grid.getNodePoint(0))));
+		show("finish() starts a new trace", small.getRoute() == null && small.getNumOfFixes() == 0);
+
+		show("Skipped fixes");
+		matcher.addFix(grid.getNodeLatitude(21), grid.getNodeLongitude(21) + 300, 0);
+		matcher.addFix(grid.getNodeLatitude(21), grid.getNodeLongitude(21) + 310, 1000);
+		matcher.addFix(grid.getNodeLatitude(21) - 3000, grid.getNodeLongitude(21), 2000);
+		show("Fixes too close to the last one, or far from the roads, are skipped",
+			matcher.getNumOfFixes() == 3 && matcher.getNumOfSkippedFixes() == 2);
+		show("A single fix matches its edge", matcher.finish().get(0).getLength() > 0);
+		show("No fixes match nothing", matcher.finish().isEmpty());
+
+		show("Breaks");
+		RoadGraph.Builder builder = new RoadGraph.Builder();
+		for (GeoSegment gs : RoadGraphBenchmark.createGrid(5))
+			builder.addSegment(gs, false);
+		for (GeoSegment gs : RoadGraphBenchmark.createGrid(5))
+			builder.addSegment(gs.getName() + " East", gs.getP1().getLatitude(), gs.getP1().getLongitude() + 100000,
+					gs.getP2().getLatitude(), gs.getP2().getLongitude() + 100000, false);
+		RoadGraph islands = builder.build();
+		MapMatcher islandMatcher = new MapMatcher(islands, MapMatcher.indexEdges(islands));
+		ShortestPathRouter islandRouter = new ShortestPathRouter(islands);
+		int west = islands.nodeOf(32700000, 34900000);
+		int east = islands.nodeOf(32700000, 35000000);
+		islandRouter.search(west, islands.nodeOf(32704000, 34904000));
+		long[] westTrace = createTrace(islands, islandRouter.getPathEdges(), 0.02, 0.01, 0, random);
+		islandRouter.search(east, islands.nodeOf(32704000, 35004000));
+		long[] eastTrace = createTrace(islands, islandRouter.getPathEdges(), 0.02, 0.01, 0, random);
+		for (int i = 0; i < westTrace.length; i++)
+			islandMatcher.addFix(GeoPointCodec.latitude(westTrace[i]), GeoPointCodec.longitude(westTrace[i]), 1000L * i);
+		for (int i = 0; i < eastTrace.length; i++)
+			islandMatcher.addFix(GeoPointCodec.latitude(eastTrace[i]), GeoPointCodec.longitude(eastTrace[i]),
+					1000L * (westTrace.length + i));
+		List<Route> islandRoutes = islandMatcher.finish();
+		show("Trace across unconnected roads makes a Route per part", islandRoutes.size() == 2
+			&& islandRoutes.get(0).getStart().getLongitude() < 35000000
+			&& islandRoutes.get(1).getStart().getLongitude() >= 35000000);
+	}
+
+
+	public static void main(String[] args) {
+		MapMatcherTest matcherTest = new MapMatcherTest();
+		matcherTest.test();
+	}
+}
@@ -0,0 +1,190 @@
+package HW1;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+
+/**
+ * A MultiRouteFormatter computes the directions of a Route for several
+ * RouteFormatters at once, such as the walking and driving directions, in
+ * a single pass over the features of the Route.
+ * <p>
+ * For every feature, the turn string and the name and length of the
+ * feature are computed once, and then passed to every formatter, which
+ * renders its line from them with
+ * <tt>computeLine(geoFeature, origHeading, turn, name, length, out)</tt>.
+ * Formatters that override getTurnString() are passed a turn string of
+ * their own, so the directions of every formatter are the ones its
+ * computeDirections() computes.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   formatters : sequence   // the RouteFormatters the directions are computed with
+ * </pre>
+ */
+public class MultiRouteFormatter {
+
+	private final RouteFormatter[] formatters;
+	// Whether each formatter computes turn strings of its own.
+	private final boolean[] ownTurns;
+
+	// Rep. Inv.:
+	// this.formatters is non empty and contains no null elements.
+	// this.ownTurns[i] = this.formatters[i].hasOwnTurnString() for all i.
+
+	// Abstraction Function:
+	// formatters = this.formatters
+
+
+	/**
+	 * Constructs a new MultiRouteFormatter.
+	 * @requires formatters != null && formatters is non empty and contains
+	 *           no null elements.
+	 * @effects Constructs a new MultiRouteFormatter m such that
+	 *          m.formatters = formatters
+	 */
+	public MultiRouteFormatter(RouteFormatter... formatters)
+	{
+		assert formatters != null : "MultiRouteFormatter: formatters is null";
+		this.formatters = formatters.clone();
+		this.ownTurns = new boolean[this.formatters.length];
+		for (int i = 0; i < this.formatters.length; i++)
+			this.ownTurns[i] = this.formatters[i] != null && this.formatters[i].hasOwnTurnString();
+		this.checkRep();
+	}
+
+
+	/**
+	 * Returns the number of formatters.
+	 * @return the length of this.formatters
+	 */
+	public int numOfFormatters()
+	{
+		return this.formatters.length;
+	}
+
+
+	/**
+	 * Gives directions for following a Route with every formatter, starting
+	 * at its start point and facing in the specified heading.
+	 * @requires route != null && 0 <= heading < 360
+	 * @param route the route for which to print directions.
+	 * @param heading the initial heading.
+	 * @return an array d such that for all i, d[i] is
+	 *         formatters[i].computeDirections(route, heading).
+	 */
+	public String[] computeDirections(Route route, double heading)
+	{
+		StringBuilder[] directions = new StringBuilder[this.formatters.length];
+		for (int i = 0; i < directions.length; i++)
+			directions[i] = new StringBuilder();
+		this.computeDirections(route, heading, directions);
+		String[] strings = new String[directions.length];
+		for (int i = 0; i < strings.length; i++)
+			strings[i] = directions[i].toString();
+		return strings;
+	}
+
+
+	/**
+	 * Appends the directions for following a Route with every formatter,
+	 * starting at its start point and facing in the specified heading, to a
+	 * buffer per formatter.
+	 * @requires route != null && 0 <= heading < 360 && outs != null &&
+	 *           outs.length = the length of this.formatters and contains no
+	 *           null elements.
+	 * @param route the route for which to print directions.
+	 * @param heading the initial heading.
+	 * @param outs the buffers the directions are appended to.
+	 * @modifies outs
+	 * @effects appends formatters[i].computeDirections(route, heading) to
+	 *          outs[i], for all i.
+	 */
+	public void computeDirections(Route route, double heading, StringBuilder[] outs)
+	{
+		assert route != null : "MultiRouteFormatter: route is null";
+		assert outs != null && outs.length == this.formatters.length : "MultiRouteFormatter: bad buffers";
+		assert 0 <= heading && heading < 360 : "MultiRouteFormatter: heading is not valid";
+
+		double currHeading = heading;
+		for (Iterator<GeoFeature> i = route.getGeoFeatures(); i.hasNext(); )
+		{
+			GeoFeature gf = i.next();
+			String turn = RouteFormatter.turnString(currHeading, gf.getStartHeading());
+			String name = gf.getName();
+			double length = gf.getLength();
+			for (int f = 0; f < this.formatters.length; f++)
+				this.formatters[f].computeLine(gf, currHeading, this.turn(f, turn, currHeading, gf), name, length,
+						outs[f]);
+			currHeading = gf.getEndHeading();
+		}
+	}
+
+
+	/**
+	 * Writes the directions for following a Route with every formatter,
+	 * starting at its start point and facing in the specified heading, into
+	 * an Appendable per formatter, such as a Writer, line by line.
+	 * @requires route != null && 0 <= heading < 360 && outs != null &&
+	 *           outs.length = the length of this.formatters and contains no
+	 *           null elements.
+	 * @param route the route for which to print directions.
+	 * @param heading the initial heading.
+	 * @param outs the destinations of the directions.
+	 * @modifies outs
+	 * @effects appends formatters[i].computeDirections(route, heading) to
+	 *          outs[i], for all i, a line of every formatter at a time.
+	 * @throws IOException if any of outs fails to append.
+	 */
+	public void computeDirections(Route route, double heading, Appendable[] outs) throws IOException
+	{
+		assert route != null : "MultiRouteFormatter: route is null";
+		assert outs != null && outs.length == this.formatters.length : "MultiRouteFormatter: bad destinations";
+		assert 0 <= heading && heading < 360 : "MultiRouteFormatter: heading is not valid";
+
+		// Each line is rendered into a reused buffer and then copied to its destination.
+		StringBuilder line = new StringBuilder();
+		char[] chars = new char[128];
+		double currHeading = heading;
+		for (Iterator<GeoFeature> i = route.getGeoFeatures(); i.hasNext(); )
+		{
+			GeoFeature gf = i.next();
+			String turn = RouteFormatter.turnString(currHeading, gf.getStartHeading());
+			String name = gf.getName();
+			double length = gf.getLength();
+			for (int f = 0; f < this.formatters.length; f++)
+			{
+				line.setLength(0);
+				this.formatters[f].computeLine(gf, currHeading, this.turn(f, turn, currHeading, gf), name, length,
+						line);
+				if (outs[f] instanceof Writer)
+				{
+					if (chars.length < line.length())
+						chars = new char[2 * line.length()];
+					line.getChars(0, line.length(), chars, 0);
+					((Writer) outs[f]).write(chars, 0, line.length());
+				}
+				else
+				{
+					outs[f].append(line);
+				}
+			}
+			currHeading = gf.getEndHeading();
+		}
+	}
+
+
+	// Returns the turn string of formatter f to a feature, given the one of RouteFormatter.turnString().
+	private String turn(int f, String turn, double origHeading, GeoFeature gf)
+	{
+		return this.ownTurns[f] ? this.formatters[f].getTurnString(origHeading, gf.getStartHeading()) : turn;
+	}
+
+
+	private void checkRep()
+	{
+		assert this.formatters.length > 0 : "MultiRouteFormatter: no formatters";
+		for (RouteFormatter formatter : this.formatters)
+			assert formatter != null : "MultiRouteFormatter: null formatter";
+	}
+}
@@ -0,0 +1,104 @@
+package HW1;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Computes the directions of shortest path Routes of a grid road network
+ * in two modes of travel (driving and walking) and in five (adding riding,
+ * running and a wheelchair), once with each RouteFormatter separately and
+ * once with a MultiRouteFormatter, into reused buffers, and compares their
+ * throughput.
+ * <p>
+ * Usage: <tt>java HW1.MultiRouteFormatterBenchmark [gridSize] [numOfRoutes] [numOfRounds]</tt>
+ */
+public class MultiRouteFormatterBenchmark {
+
+	private final int gridSize;
+	private final int numOfRoutes;
+	private final int numOfRounds;
+
+
+	public MultiRouteFormatterBenchmark(int gridSize, int numOfRoutes, int numOfRounds) {
+		this.gridSize = gridSize;
+		this.numOfRoutes = numOfRoutes;
+		this.numOfRounds = numOfRounds;
+	}
+
+
+	// Returns the best time of numOfRounds passes over the Routes with each formatter separately, in seconds.
+	double separate(List<Route> routes, RouteFormatter[] formatters, StringBuilder[] buffers) throws IOException {
+		long best = Long.MAX_VALUE;
+		for (int round = 0; round < numOfRounds; round++) {
+			long begin = System.nanoTime();
+			for (Route route : routes) {
+				for (int f = 0; f < formatters.length; f++) {
+					buffers[f].setLength(0);
+					formatters[f].computeDirections(route, route.getStartHeading(), buffers[f]);
+				}
+			}
+			best = Math.min(best, System.nanoTime() - begin);
+		}
+		return best / 1e9;
+	}
+
+
+	// Returns the best time of numOfRounds passes over the Routes with a MultiRouteFormatter, in seconds.
+	double fused(List<Route> routes, MultiRouteFormatter multi, StringBuilder[] buffers) {
+		long best = Long.MAX_VALUE;
+		for (int round = 0; round < numOfRounds; round++) {
+			long begin = System.nanoTime();
+			for (Route route : routes) {
+				for (StringBuilder buffer : buffers)
+					buffer.setLength(0);
+				multi.computeDirections(route, route.getStartHeading(), buffers);
+			}
+			best = Math.min(best, System.nanoTime() - begin);
+		}
+		return best / 1e9;
+	}
+
+
+	// Runs the formatters over the Routes both ways, and prints the results unless it's a warm-up.
+	void run(List<Route> routes, boolean print, RouteFormatter... formatters) throws IOException {
+		MultiRouteFormatter multi = new MultiRouteFormatter(formatters);
+		StringBuilder[] buffers = new StringBuilder[formatters.length];
+		for (int f = 0; f < formatters.length; f++)
+			buffers[f] = new StringBuilder();
+		boolean same = true;
+		for (Route route : routes) {
+			String[] directions = multi.computeDirections(route, route.getStartHeading());
+			for (int f = 0; f < formatters.length; f++)
+				same &= directions[f].equals(formatters[f].computeDirections(route, route.getStartHeading()));
+		}
+		double separate = separate(routes, formatters, buffers);
+		double fused = fused(routes, multi, buffers);
+		if (print)
+			System.out.printf("%d modes: separately %.0f K routes/s, fused %.0f K routes/s, %.2fx, same directions: %b%n",
+					formatters.length, routes.size() / separate / 1e3, routes.size() / fused / 1e3, separate / fused,
+					same);
+	}
+
+
+	public void run() throws IOException {
+		List<Route> routes = BatchDirectionsTest.createRoutes(gridSize, numOfRoutes, new Random(59));
+		System.out.printf("%d routes, best of %d rounds%n", numOfRoutes, numOfRounds);
+		RouteFormatter driving = new DrivingRouteFormatter();
+		RouteFormatter walking = new WalkingRouteFormatter();
+		// A first pass warms up both ways.
+		run(routes, false, driving, walking);
+		run(routes, true, driving, walking);
+		run(routes, true, driving, walking, new MultiRouteFormatterTest.SpeedRouteFormatter("ride", 15),
+				new MultiRouteFormatterTest.SpeedRouteFormatter("run", 10),
+				new MultiRouteFormatterTest.SpeedRouteFormatter("roll", 4));
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		int gridSize = (args.length > 0) ? Integer.parseInt(args[0]) : 100;
+		int numOfRoutes = (args.length > 1) ? Integer.parseInt(args[1]) : 10000;
+		int numOfRounds = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+		new MultiRouteFormatterBenchmark(gridSize, numOfRoutes, numOfRounds).run();
+	}
+}
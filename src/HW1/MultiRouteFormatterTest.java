@@ -0,0 +1,148 @@
+package HW1;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class MultiRouteFormatterTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Directions of a mode of travel at a constant speed, in minutes, such as "Turn left onto Hagalil and ride for
+	// 4 minutes.". Renders its lines from the turn and metrics computed in advance.
+	static class SpeedRouteFormatter extends RouteFormatter {
+		private final String verb;
+		private final double minutesPerKilometer;
+
+		SpeedRouteFormatter(String verb, double kilometersPerHour) {
+			this.verb = verb;
+			this.minutesPerKilometer = 60 / kilometersPerHour;
+		}
+
+		@Override
+		public String computeLine(GeoFeature geoFeature, double origHeading) {
+			StringBuilder line = new StringBuilder();
+			this.computeLine(geoFeature, origHeading, line);
+			return line.toString();
+		}
+
+		@Override
+		public void computeLine(GeoFeature geoFeature, double origHeading, StringBuilder out) {
+			this.computeLine(geoFeature, origHeading, this.getTurnString(origHeading, geoFeature.getStartHeading()),
+				geoFeature.getName(), geoFeature.getLength(), out);
+		}
+
+		@Override
+		protected void computeLine(GeoFeature geoFeature, double origHeading, String turn, String name,
+				double length, StringBuilder out) {
+			out.append(turn).append(" onto ").append(name).append(" and ").append(verb).append(" for ")
+				.append(Math.round(length * minutesPerKilometer)).append(" minutes.\n");
+		}
+	}
+
+
+	// A formatter that only implements computeLine(geoFeature, origHeading).
+	static class PlainRouteFormatter extends RouteFormatter {
+		@Override
+		public String computeLine(GeoFeature geoFeature, double origHeading) {
+			return getTurnString(origHeading, geoFeature.getStartHeading()) + " to " + geoFeature.getName() + "\n";
+		}
+	}
+
+
+	// Driving directions with turn strings of their own.
+	static class ShoutingRouteFormatter extends DrivingRouteFormatter {
+		@Override
+		protected String getTurnString(double origHeading, double newHeading) {
+			return super.getTurnString(origHeading, newHeading).toUpperCase();
+		}
+	}
+
+
+	public void test() throws IOException {
+		List<Route> routes = BatchDirectionsTest.createRoutes(20, 200, new Random(53));
+		routes.add(RouteCodecTest.toRoute(Arrays.copyOfRange(ExampleGeoSegments.segments, 0, 5)));
+		RouteFormatter[] formatters = { new DrivingRouteFormatter(), new WalkingRouteFormatter(),
+			new SpeedRouteFormatter("ride", 15), new PlainRouteFormatter(), new DrivingRouteFormatter() };
+		MultiRouteFormatter multi = new MultiRouteFormatter(formatters);
+
+		show("Directions");
+		show("numOfFormatters() is the number of formatters", multi.numOfFormatters() == formatters.length);
+		boolean same = true;
+		for (Route route : routes)
+			for (double heading : new double[] { 0, route.getStartHeading(), 359.5 }) {
+				String[] directions = multi.computeDirections(route, heading);
+				for (int f = 0; f < formatters.length; f++)
+					same &= directions[f].equals(formatters[f].computeDirections(route, heading));
+			}
+		show("The directions of every formatter are the ones it computes alone", same);
+		Route example = routes.get(routes.size() - 1);
+		String[] exampleDirections = new MultiRouteFormatter(new DrivingRouteFormatter(),
+			new WalkingRouteFormatter()).computeDirections(example, 180);
+		show("Driving and walking directions of the example",
+			exampleDirections[0].startsWith("Turn sharp left onto Hankin Road and go 0.1 kilometers.\n")
+			&& exampleDirections[1].endsWith(" onto Hagalil and walk for 27 minutes.\n"));
+		show("A single formatter", new MultiRouteFormatter(formatters[2]).computeDirections(example, 90)[0]
+			.equals(formatters[2].computeDirections(example, 90)));
+
+		show("Buffers and streams");
+		StringBuilder[] buffers = new StringBuilder[formatters.length];
+		for (int f = 0; f < formatters.length; f++)
+			buffers[f] = new StringBuilder("> ");
+		multi.computeDirections(example, 90, buffers);
+		same = true;
+		for (int f = 0; f < formatters.length; f++)
+			same &= buffers[f].toString().equals("> " + formatters[f].computeDirections(example, 90));
+		show("Directions are appended to the buffers", same);
+		Appendable[] outs = { new StringWriter(), new StringBuilder(), new StringWriter(), new StringBuilder(),
+			new StringWriter() };
+		multi.computeDirections(example, 90, outs);
+		same = true;
+		for (int f = 0; f < formatters.length; f++)
+			same &= outs[f].toString().equals(formatters[f].computeDirections(example, 90));
+		show("Directions are written to Writers and other Appendables", same);
+
+		show("Turn strings of their own");
+		RouteFormatter shouting = new ShoutingRouteFormatter();
+		RouteFormatter[] turning = { new DrivingRouteFormatter(), shouting,
+			new CachingRouteFormatter(new ShoutingRouteFormatter(), 1000), new WalkingRouteFormatter() };
+		MultiRouteFormatter turningMulti = new MultiRouteFormatter(turning);
+		same = true;
+		for (Route route : routes) {
+			String[] directions = turningMulti.computeDirections(route, 90);
+			for (int f = 0; f < turning.length; f++)
+				same &= directions[f].equals(turning[f].computeDirections(route, 90));
+		}
+		show("A formatter that overrides getTurnString() computes its own turns", same
+			&& turningMulti.computeDirections(example, 180)[1].startsWith("TURN SHARP LEFT onto Hankin Road"));
+		show("So does a cache of one", turningMulti.computeDirections(example, 180)[2]
+			.equals(shouting.computeDirections(example, 180)));
+		outs = new Appendable[] { new StringWriter(), new StringWriter(), new StringBuilder(), new StringBuilder() };
+		turningMulti.computeDirections(example, 90, outs);
+		same = true;
+		for (int f = 0; f < turning.length; f++)
+			same &= outs[f].toString().equals(turning[f].computeDirections(example, 90));
+		show("And writes them to Appendables", same);
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		MultiRouteFormatterTest multiTest = new MultiRouteFormatterTest();
+		multiTest.test();
+	}
+}
@@ -0,0 +1,51 @@
+package HW1;
+
+/**
+ * ParallelTasks runs a task on several threads at once, such as a loop
+ * that takes chunks of work from a shared counter until none are left,
+ * and waits for all of them to finish.
+ */
+final class ParallelTasks {
+
+	private ParallelTasks()
+	{
+	}
+
+
+	/**
+	 * Runs a task on a number of threads.
+	 * @requires task != null && numOfThreads > 0 && owner != null
+	 * @effects runs task on numOfThreads new threads, or on the calling
+	 *          thread if numOfThreads is 1, and returns when all of them
+	 *          are done.
+	 * @throws IllegalStateException if the calling thread is interrupted
+	 *         while it waits; its message is owner + ": " + what +
+	 *         " was interrupted".
+	 */
+	static void run(Runnable task, int numOfThreads, String owner, String what)
+	{
+		if (numOfThreads <= 1)
+		{
+			task.run();
+			return;
+		}
+		Thread[] threads = new Thread[numOfThreads];
+		for (int t = 0; t < numOfThreads; t++)
+		{
+			threads[t] = new Thread(task);
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+		{
+			try
+			{
+				thread.join();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(owner + ": " + what + " was interrupted", e);
+			}
+		}
+	}
+}
@@ -0,0 +1,234 @@
+package HW1;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A PersistentVector is an immutable indexed sequence. PersistentVectors are
+ * immutable: appending an element or replacing the last element returns a
+ * new PersistentVector that shares almost all of its structure with the
+ * original one, which stays unchanged.
+ * <p>
+ * The elements are stored in a 32-way trie plus a "tail" array holding the
+ * last 1 to 32 elements, so appending and replacing the last element cost
+ * O(log32 n) (effectively constant) time and memory, instead of the O(n) copy
+ * an ArrayList based implementation needs.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   elements : sequence    // the elements of the vector, in order
+ *   size : integer         // the number of elements in the vector
+ * </pre>
+ **/
+final class PersistentVector<E> implements Iterable<E> {
+
+    // Number of bits of an index consumed by each level of the trie.
+    private static final int BITS = 5;
+
+    // Number of children of every internal node, and capacity of every leaf.
+    private static final int WIDTH = 1 << BITS;
+
+    // Mask used to extract a child index from an element index.
+    private static final int MASK = WIDTH - 1;
+
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+
+    private static final PersistentVector<?> EMPTY =
+            new PersistentVector<Object>(0, BITS, EMPTY_NODE, new Object[0]);
+
+    private final int size;
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+
+    // Representation invariant for each PersistentVector:
+    // this.size >= 0 && this.root != null && this.tail != null.
+    // this.tail.length == this.size - this.tailOffset() and 0 < this.tail.length <= WIDTH if this.size > 0.
+    // this.shift is a non-zero multiple of BITS.
+    // The arrays reachable from this.root and this.tail are never modified after construction.
+
+    // Abstraction Function:
+    // The elements with indexes 0 <= i < this.tailOffset() are the leaves of the trie rooted at this.root, in order,
+    // where the child of an internal node at level this.shift is chosen by bits (i >>> level) & MASK.
+    // The elements with indexes this.tailOffset() <= i < this.size are this.tail[i - this.tailOffset()].
+
+    private PersistentVector(int size, int shift, Object[] root, Object[] tail)
+    {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * Returns an empty PersistentVector.
+     * @return a PersistentVector v such that v.size = 0.
+     **/
+    @SuppressWarnings("unchecked")
+    static <E> PersistentVector<E> empty()
+    {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    /**
+     * Returns the number of elements in this.
+     * @return this.size
+     **/
+    int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * Returns the element at the given index.
+     * @requires 0 <= index < this.size
+     * @return this.elements[index]
+     **/
+    @SuppressWarnings("unchecked")
+    E get(int index)
+    {
+        assert 0 <= index && index < this.size : "PersistentVector: index out of range " + index;
+        return (E) this.leafFor(index)[index & MASK];
+    }
+
+    /**
+     * Returns the last element of this.
+     * @requires this.size > 0
+     * @return this.elements[this.size - 1]
+     **/
+    @SuppressWarnings("unchecked")
+    E last()
+    {
+        assert this.size > 0 : "PersistentVector: empty vector has no last element";
+        return (E) this.tail[this.tail.length - 1];
+    }
+
+    /**
+     * Creates a new PersistentVector that is equal to this one with e
+     * appended to its end.
+     * @return a new PersistentVector v such that v.size = this.size + 1 &&
+     *         v.elements = this.elements + [e]
+     **/
+    PersistentVector<E> append(E e)
+    {
+        // Room left in the tail, copy only the tail.
+        if (this.tail.length < WIDTH)
+        {
+            Object[] newTail = new Object[this.tail.length + 1];
+            System.arraycopy(this.tail, 0, newTail, 0, this.tail.length);
+            newTail[this.tail.length] = e;
+            return new PersistentVector<E>(this.size + 1, this.shift, this.root, newTail);
+        }
+
+        // The tail is full, push it into the trie and start a new tail.
+        Object[] newRoot;
+        int newShift = this.shift;
+        if ((this.size >>> BITS) > (1 << this.shift))
+        {
+            // The trie is full, add a level on top of it.
+            newRoot = new Object[WIDTH];
+            newRoot[0] = this.root;
+            newRoot[1] = newPath(this.shift, this.tail);
+            newShift += BITS;
+        }
+        else
+        {
+            newRoot = this.pushTail(this.shift, this.root, this.tail);
+        }
+        return new PersistentVector<E>(this.size + 1, newShift, newRoot, new Object[] { e });
+    }
+
+    /**
+     * Creates a new PersistentVector that is equal to this one with its last
+     * element replaced by e.
+     * @requires this.size > 0
+     * @return a new PersistentVector v such that v.size = this.size &&
+     *         v.elements[this.size - 1] = e && v.elements[i] = this.elements[i]
+     *         for all 0 <= i < this.size - 1
+     **/
+    PersistentVector<E> withLast(E e)
+    {
+        assert this.size > 0 : "PersistentVector: empty vector has no last element";
+        Object[] newTail = this.tail.clone();
+        newTail[newTail.length - 1] = e;
+        return new PersistentVector<E>(this.size, this.shift, this.root, newTail);
+    }
+
+    /**
+     * Returns an Iterator over the elements of this, in order. The Iterator
+     * does not support removal.
+     * @return an Iterator over this.elements.
+     **/
+    @Override
+    public Iterator<E> iterator()
+    {
+        return new Iterator<E>()
+        {
+            private int index = 0;
+            private Object[] leaf = null;
+
+            @Override
+            public boolean hasNext()
+            {
+                return this.index < PersistentVector.this.size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next()
+            {
+                if (this.index >= PersistentVector.this.size)
+                    throw new NoSuchElementException();
+                // Only walk down the trie once per leaf.
+                if ((this.index & MASK) == 0 || this.leaf == null)
+                    this.leaf = PersistentVector.this.leafFor(this.index);
+                return (E) this.leaf[this.index++ & MASK];
+            }
+        };
+    }
+
+    // Returns the index of the first element stored in the tail.
+    private int tailOffset()
+    {
+        return this.size < WIDTH ? 0 : ((this.size - 1) >>> BITS) << BITS;
+    }
+
+    // Returns the leaf array holding the element at index.
+    private Object[] leafFor(int index)
+    {
+        if (index >= this.tailOffset())
+            return this.tail;
+        Object[] node = this.root;
+        for (int level = this.shift; level > 0; level -= BITS)
+            node = (Object[]) node[(index >>> level) & MASK];
+        return node;
+    }
+
+    // Returns a copy of node, at the given level, with leaf inserted as the right-most leaf.
+    private Object[] pushTail(int level, Object[] node, Object[] leaf)
+    {
+        int childIndex = ((this.size - 1) >>> level) & MASK;
+        Object[] newNode = node.clone();
+        if (level == BITS)
+        {
+            newNode[childIndex] = leaf;
+        }
+        else
+        {
+            Object[] child = (Object[]) node[childIndex];
+            newNode[childIndex] = (child != null) ? this.pushTail(level - BITS, child, leaf)
+                                                  : newPath(level - BITS, leaf);
+        }
+        return newNode;
+    }
+
+    // Returns a chain of single-child nodes of the given height ending with leaf.
+    private static Object[] newPath(int level, Object[] leaf)
+    {
+        if (level == 0)
+            return leaf;
+        Object[] node = new Object[WIDTH];
+        node[0] = newPath(level - BITS, leaf);
+        return node;
+    }
+}
@@ -0,0 +1,256 @@
+package HW1;
+
+import java.util.Iterator;
+
+/**
+ * PolylineCodec encodes the points of Routes and GeoFeatures as encoded
+ * polylines, the text format of the Google Maps APIs, and decodes them
+ * back.
+ * <p>
+ * A polyline is the sequence of points of a path: the start, then the
+ * second endpoint of every segment. Every coordinate is rounded to
+ * <tt>precision</tt> decimal digits of a degree, and written as its
+ * difference from the same coordinate of the point before it, in chunks
+ * of 5 bits, each a printable ASCII character. Precision 5 is the one of
+ * the Google Maps APIs, and rounds the millionths of degrees of GeoPoints
+ * to tens; precision 6 keeps them as they are, so a path decoded at
+ * precision 6 equals the one encoded.
+ * <p>
+ * The encoders write every point, so a point that rounds to the same
+ * point as the one before it, such as the end of a segment shorter than
+ * 5 millionths of a degree at precision 5, is written as a difference of
+ * 0. A segment can't start and end at the same GeoPoint, so the decoders
+ * skip a point that repeats the one before it, whether it collapsed when
+ * it was rounded or was repeated by the writer of the polyline; the path
+ * decoded then has fewer segments than the one encoded.
+ * <p>
+ * A polyline has no names. Routes are decoded with a name track, the
+ * names of the features of the Route and the number of segments in each,
+ * in order. The encoders append to a StringBuilder, and the decoders read
+ * the characters of a CharSequence, so neither builds lists of GeoPoints.
+ */
+public final class PolylineCodec {
+
+	// The printable character of a chunk of 0.
+	private static final int offset = 63;
+	// The bit of a chunk that tells that another chunk follows it.
+	private static final int more = 0x20;
+
+	private PolylineCodec()
+	{
+	}
+
+
+	/**
+	 * Encodes the points of a Route.
+	 * @requires route != null and sb != null and precision is 5 or 6.
+	 * @modifies sb
+	 * @effects appends the polyline of the start of route and of the
+	 *          second endpoint of every segment of route, rounded to
+	 *          precision decimal digits, to sb.
+	 * @return sb
+	 */
+	public static StringBuilder encode(Route route, int precision, StringBuilder sb)
+	{
+		assert route != null : "PolylineCodec: route is null";
+		return encode(route.getStart(), route.getGeoSegments(), precision, sb);
+	}
+
+
+	/**
+	 * Encodes the points of a GeoFeature.
+	 * @requires gf != null and sb != null and precision is 5 or 6.
+	 * @modifies sb
+	 * @effects appends the polyline of the start of gf and of the second
+	 *          endpoint of every segment of gf, rounded to precision decimal
+	 *          digits, to sb.
+	 * @return sb
+	 */
+	public static StringBuilder encode(GeoFeature gf, int precision, StringBuilder sb)
+	{
+		assert gf != null : "PolylineCodec: gf is null";
+		return encode(gf.getStart(), gf.getGeoSegments(), precision, sb);
+	}
+
+
+	/**
+	 * Decodes the points of a GeoFeature.
+	 * @requires polyline != null and name != null and precision is 5 or 6.
+	 * @return a new GeoFeature named name, of the segments between
+	 *         consecutive distinct points of polyline.
+	 * @throws IllegalArgumentException if polyline isn't a polyline of at
+	 *         least two distinct valid GeoPoints at precision.
+	 */
+	public static GeoFeature decodeGeoFeature(CharSequence polyline, int precision, String name)
+	{
+		assert name != null : "PolylineCodec: name is null";
+		Decoder decoder = new Decoder(polyline, precision);
+		GeoFeature gf = null;
+		while (decoder.hasNext())
+		{
+			GeoSegment gs = decoder.next(name);
+			if (gs != null)
+				gf = (gf == null) ? new GeoFeature(gs) : gf.addSegment(gs);
+		}
+		if (gf == null)
+			throw new IllegalArgumentException("PolylineCodec: a polyline of a single distinct point");
+		return gf;
+	}
+
+
+	/**
+	 * Decodes the points of a Route.
+	 * @requires polyline != null and names != null and numOfSegments != null
+	 *           and names.length = numOfSegments.length > 0 and every
+	 *           element of names is non null and every element of
+	 *           numOfSegments is positive, and precision is 5 or 6.
+	 * @return a new Route of the segments between consecutive points of
+	 *         polyline, the first numOfSegments[0] of them named names[0],
+	 *         the next numOfSegments[1] named names[1], and so on, without
+	 *         the segments whose points are the same.
+	 * @throws IllegalArgumentException if polyline isn't a polyline of
+	 *         valid GeoPoints at precision, or its number of points isn't
+	 *         the total of numOfSegments plus 1, or its points are all the
+	 *         same.
+	 */
+	public static Route decodeRoute(CharSequence polyline, int precision, String[] names, int[] numOfSegments)
+	{
+		assert names != null && numOfSegments != null && names.length == numOfSegments.length && names.length > 0
+				: "PolylineCodec: bad name track";
+		Decoder decoder = new Decoder(polyline, precision);
+		Route route = null;
+		for (int f = 0; f < names.length; f++)
+		{
+			assert names[f] != null && numOfSegments[f] > 0 : "PolylineCodec: bad name track";
+			for (int i = 0; i < numOfSegments[f]; i++)
+			{
+				if (!decoder.hasNext())
+					throw new IllegalArgumentException("PolylineCodec: fewer points than the name track");
+				GeoSegment gs = decoder.next(names[f]);
+				if (gs != null)
+					route = (route == null) ? new Route(gs) : route.addSegment(gs);
+			}
+		}
+		if (decoder.hasNext())
+			throw new IllegalArgumentException("PolylineCodec: more points than the name track");
+		if (route == null)
+			throw new IllegalArgumentException("PolylineCodec: a polyline of a single distinct point");
+		return route;
+	}
+
+
+	private static StringBuilder encode(GeoPoint start, Iterator<GeoSegment> segments, int precision,
+			StringBuilder sb)
+	{
+		assert sb != null : "PolylineCodec: sb is null";
+		assert precision == 5 || precision == 6 : "PolylineCodec: precision must be 5 or 6";
+		int latitude = round(start.getLatitude(), precision);
+		int longitude = round(start.getLongitude(), precision);
+		append(latitude, sb);
+		append(longitude, sb);
+		while (segments.hasNext())
+		{
+			GeoPoint p2 = segments.next().getP2();
+			int nextLatitude = round(p2.getLatitude(), precision);
+			int nextLongitude = round(p2.getLongitude(), precision);
+			append(nextLatitude - latitude, sb);
+			append(nextLongitude - longitude, sb);
+			latitude = nextLatitude;
+			longitude = nextLongitude;
+		}
+		return sb;
+	}
+
+
+	// Rounds millionths of degrees to the units of precision, halves up.
+	private static int round(int coordinate, int precision)
+	{
+		return (precision == 6) ? coordinate : Math.floorDiv(coordinate + 5, 10);
+	}
+
+
+	// Appends a signed value as its zig-zag chunks, low bits first.
+	private static void append(int value, StringBuilder sb)
+	{
+		int bits = (value << 1) ^ (value >> 31);
+		while (bits >= more)
+		{
+			sb.append((char) (((bits & 0x1F) | more) + offset));
+			bits >>>= 5;
+		}
+		sb.append((char) (bits + offset));
+	}
+
+
+	// Reads the points of a polyline as segments, sharing the GeoPoint between consecutive segments.
+	private static final class Decoder {
+
+		private final CharSequence polyline;
+		private final int scale;
+		private int position = 0;
+		private long latitude;
+		private long longitude;
+		private GeoPoint end;
+
+		private Decoder(CharSequence polyline, int precision)
+		{
+			assert polyline != null : "PolylineCodec: polyline is null";
+			assert precision == 5 || precision == 6 : "PolylineCodec: precision must be 5 or 6";
+			this.polyline = polyline;
+			this.scale = (precision == 6) ? 1 : 10;
+			if (!this.hasNext())
+				throw new IllegalArgumentException("PolylineCodec: empty polyline");
+			this.end = this.point();
+			if (!this.hasNext())
+				throw new IllegalArgumentException("PolylineCodec: a polyline of a single point");
+		}
+
+
+		private boolean hasNext()
+		{
+			return this.position < this.polyline.length();
+		}
+
+
+		// Returns the segment to the next point, or null if the point is the same as the one before it.
+		private GeoSegment next(String name)
+		{
+			GeoPoint p2 = this.point();
+			if (p2.equals(this.end))
+				return null;
+			GeoSegment gs = new GeoSegment(name, this.end, p2);
+			this.end = p2;
+			return gs;
+		}
+
+
+		private GeoPoint point()
+		{
+			this.latitude += this.value();
+			this.longitude += this.value();
+			long latitude = this.latitude * this.scale;
+			long longitude = this.longitude * this.scale;
+			if (latitude < GeoPoint.MIN_LATITUDE || latitude > GeoPoint.MAX_LATITUDE
+					|| longitude < GeoPoint.MIN_LONGITUDE || longitude > GeoPoint.MAX_LONGITUDE)
+				throw new IllegalArgumentException("PolylineCodec: point out of range at " + this.position);
+			return new GeoPoint((int) latitude, (int) longitude);
+		}
+
+
+		private long value()
+		{
+			long bits = 0;
+			for (int shift = 0; ; shift += 5)
+			{
+				if (!this.hasNext())
+					throw new IllegalArgumentException("PolylineCodec: truncated polyline");
+				int chunk = this.polyline.charAt(this.position++) - offset;
+				if (chunk < 0 || chunk >= 2 * more || shift > 30)
+					throw new IllegalArgumentException("PolylineCodec: bad character at " + (this.position - 1));
+				bits |= (long) (chunk & 0x1F) << shift;
+				if (chunk < more)
+					return (bits >>> 1) ^ -(bits & 1);
+			}
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package HW1;
+
+import java.util.Iterator;
+
+/**
+ * Encodes a long Route as polylines of precision 5 and 6 into a reused
+ * StringBuilder, and decodes them back, and compares the encoding with
+ * appending the toString() of every segment, in segments per second and
+ * characters per segment.
+ * <p>
+ * Usage: <tt>java HW1.PolylineCodecBenchmark [numOfSegments] [numOfRounds]</tt>
+ */
+public class PolylineCodecBenchmark {
+
+	private final int numOfSegments;
+	private final int numOfRounds;
+
+
+	public PolylineCodecBenchmark(int numOfSegments, int numOfRounds) {
+		this.numOfSegments = numOfSegments;
+		this.numOfRounds = numOfRounds;
+	}
+
+
+	// Appends the toString() of every segment of the route.
+	static StringBuilder dump(Route route, StringBuilder sb) {
+		for (Iterator<GeoSegment> segments = route.getGeoSegments(); segments.hasNext(); )
+			sb.append(segments.next()).append('\n');
+		return sb;
+	}
+
+
+	// Returns the best time of encoding the route numOfRounds times into sb, in seconds per encoding.
+	double encode(Route route, int precision, StringBuilder sb) {
+		long best = Long.MAX_VALUE;
+		for (int round = 0; round < numOfRounds; round++) {
+			sb.setLength(0);
+			long begin = System.nanoTime();
+			if (precision == 0)
+				dump(route, sb);
+			else
+				PolylineCodec.encode(route, precision, sb);
+			best = Math.min(best, System.nanoTime() - begin);
+		}
+		return best / 1e9;
+	}
+
+
+	// Returns the best time of decoding the polyline numOfRounds times, in seconds per decoding.
+	double decode(CharSequence polyline, int precision, String[] names, int[] numOfSegments) {
+		long best = Long.MAX_VALUE;
+		for (int round = 0; round < numOfRounds; round++) {
+			long begin = System.nanoTime();
+			PolylineCodec.decodeRoute(polyline, precision, names, numOfSegments);
+			best = Math.min(best, System.nanoTime() - begin);
+		}
+		return best / 1e9;
+	}
+
+
+	public void run() {
+		Route route = RouteCodecTest.toRoute(RouteAppendBenchmark.createSegments(numOfSegments));
+		String[] names = new String[route.getGeoFeaturesSize()];
+		int[] featureSizes = PolylineCodecTest.nameTrack(route, names);
+		StringBuilder sb = new StringBuilder();
+
+		double dump = encode(route, 0, sb);
+		int dumpLength = sb.length();
+		System.out.printf("Route:         %d segments, %d features%n", numOfSegments, names.length);
+		System.out.printf("toString():    %.1f M segments/s, %.1f chars/segment%n",
+				numOfSegments / dump / 1e6, (double) dumpLength / numOfSegments);
+		for (int precision = 5; precision <= 6; precision++) {
+			double encode = encode(route, precision, sb);
+			String polyline = sb.toString();
+			long allocated = RouteArchiveBenchmark.allocatedBytes();
+			sb.setLength(0);
+			PolylineCodec.encode(route, precision, sb);
+			allocated = RouteArchiveBenchmark.allocatedBytes() - allocated;
+			double decode = decode(polyline, precision, names, featureSizes);
+			boolean same = PolylineCodec.decodeRoute(polyline, precision, names, featureSizes).equals(route);
+			System.out.printf("Precision %d:   encode %.1f M segments/s (%.0f M chars/s), %.1f chars/segment, "
+					+ "%d bytes allocated%n", precision, numOfSegments / encode / 1e6,
+					polyline.length() / encode / 1e6, (double) polyline.length() / numOfSegments, allocated);
+			System.out.printf("               decode %.1f M segments/s, lossless: %b%n",
+					numOfSegments / decode / 1e6, same);
+		}
+	}
+
+
+	public static void main(String[] args) {
+		int numOfSegments = (args.length > 0) ? Integer.parseInt(args[0]) : 100000;
+		int numOfRounds = (args.length > 1) ? Integer.parseInt(args[1]) : 50;
+		new PolylineCodecBenchmark(numOfSegments, numOfRounds).run();
+	}
+}
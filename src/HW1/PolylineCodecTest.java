@@ -0,0 +1,177 @@
+package HW1;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+public class PolylineCodecTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// The example of the documentation of the format: (38.5, -120.2), (40.7, -120.95), (43.252, -126.453).
+	static final String documentedExample = "_p~iF~ps|U_ulLnnqC_mqNvxq`@";
+
+
+	// Returns the name track of a Route: the names of its features in names, and their numbers of segments.
+	static int[] nameTrack(Route route, String[] names) {
+		int[] numOfSegments = new int[route.getGeoFeaturesSize()];
+		int f = 0;
+		for (Iterator<GeoFeature> features = route.getGeoFeatures(); features.hasNext(); f++) {
+			GeoFeature gf = features.next();
+			names[f] = gf.getName();
+			for (Iterator<GeoSegment> segments = gf.getGeoSegments(); segments.hasNext(); segments.next())
+				numOfSegments[f]++;
+		}
+		return numOfSegments;
+	}
+
+
+	// Returns the number of segments an Iterator returns.
+	static int numOfSegments(Iterator<GeoSegment> segments) {
+		int n = 0;
+		for (; segments.hasNext(); segments.next())
+			n++;
+		return n;
+	}
+
+
+	// Returns true iff decoding the polyline fails with an IllegalArgumentException.
+	static boolean fails(String polyline, String[] names, int[] numOfSegments) {
+		try {
+			PolylineCodec.decodeRoute(polyline, 5, names, numOfSegments);
+			return false;
+		}
+		catch (IllegalArgumentException e) {
+			return true;
+		}
+	}
+
+
+	public void test() {
+		GeoSegment[] chain = RouteAppendBenchmark.createSegments(3000);
+		Route longRoute = RouteCodecTest.toRoute(chain);
+		Route example = RouteCodecTest.toRoute(Arrays.copyOfRange(ExampleGeoSegments.segments, 0, 5));
+		GeoPoint[] corners = { new GeoPoint(GeoPoint.MIN_LATITUDE, GeoPoint.MIN_LONGITUDE),
+			new GeoPoint(GeoPoint.MAX_LATITUDE, GeoPoint.MAX_LONGITUDE), new GeoPoint(-1, 1) };
+		Route extreme = new Route(new GeoSegment("Jump", corners[0], corners[1]))
+			.addSegment(new GeoSegment("Jump", corners[1], corners[2]));
+
+		show("Format");
+		GeoFeature documented = PolylineCodec.decodeGeoFeature(documentedExample, 5, "Example");
+		Iterator<GeoSegment> segments = documented.getGeoSegments();
+		GeoSegment first = segments.next();
+		GeoSegment second = segments.next();
+		show("Decodes the documented example", first.getP1().equals(new GeoPoint(38500000, -120200000))
+			&& first.getP2().equals(new GeoPoint(40700000, -120950000))
+			&& second.getP2().equals(new GeoPoint(43252000, -126453000)) && !segments.hasNext());
+		show("Encodes the documented example",
+			PolylineCodec.encode(documented, 5, new StringBuilder()).toString().equals(documentedExample));
+		show("Precision 5 rounds to tens of millionths", PolylineCodec.encode(new GeoFeature(new GeoSegment("Round",
+			new GeoPoint(38499995, -120200005), new GeoPoint(40700004, -120949996))), 5, new StringBuilder())
+			.toString().equals(documentedExample.substring(0, 18)));
+
+		show("Routes");
+		String[] names = new String[longRoute.getGeoFeaturesSize()];
+		int[] numOfSegments = nameTrack(longRoute, names);
+		StringBuilder sb = new StringBuilder();
+		String polyline = PolylineCodec.encode(longRoute, 6, sb).toString();
+		Route copy = PolylineCodec.decodeRoute(polyline, 6, names, numOfSegments);
+		show("A Route decoded at precision 6 equals the one encoded", copy.equals(longRoute)
+			&& RouteCodecTest.sameFeatures(copy, longRoute));
+		copy = PolylineCodec.decodeRoute(PolylineCodec.encode(longRoute, 5, new StringBuilder()), 5, names,
+			numOfSegments);
+		Iterator<GeoSegment> i = copy.getGeoSegments();
+		Iterator<GeoSegment> j = longRoute.getGeoSegments();
+		boolean near = copy.getGeoFeaturesSize() == longRoute.getGeoFeaturesSize();
+		while (i.hasNext() && j.hasNext()) {
+			GeoPoint a = i.next().getP2();
+			GeoPoint b = j.next().getP2();
+			near &= Math.abs(a.getLatitude() - b.getLatitude()) <= 5 && Math.abs(a.getLongitude() - b.getLongitude()) <= 5;
+		}
+		show("Precision 5 moves points by at most 5 millionths", near && !i.hasNext() && !j.hasNext());
+		String[] exampleNames = new String[example.getGeoFeaturesSize()];
+		int[] exampleSegments = nameTrack(example, exampleNames);
+		String examplePolyline = PolylineCodec.encode(example, 6, new StringBuilder()).toString();
+		copy = PolylineCodec.decodeRoute(examplePolyline, 6, exampleNames, exampleSegments);
+		show("Features follow the name track", RouteCodecTest.sameFeatures(copy, example)
+			&& copy.getGeoFeaturesSize() == 3);
+		sb.setLength(0);
+		PolylineCodec.encode(example.getEndFeature(), 6, sb);
+		show("A GeoFeature round trips", PolylineCodec.decodeGeoFeature(sb, 6, "Hagalil")
+			.equals(example.getEndFeature()));
+		String[] extremeNames = { "Jump" };
+		int[] extremeSegments = { 2 };
+		copy = PolylineCodec.decodeRoute(PolylineCodec.encode(extreme, 6, new StringBuilder()), 6, extremeNames,
+			extremeSegments);
+		show("Extreme coordinates survive", copy.equals(extreme));
+		sb.setLength(0);
+		PolylineCodec.encode(example, 6, sb);
+		PolylineCodec.encode(example, 6, sb);
+		show("The encoders append to the buffer", sb.toString().equals(examplePolyline + examplePolyline));
+
+		show("Repeated points");
+		// The middle point is 3 millionths east of the start, so both round to the same point at precision 5.
+		GeoPoint start = new GeoPoint(32000000, 35000000);
+		GeoPoint near3 = new GeoPoint(32000000, 35000003);
+		GeoPoint north = new GeoPoint(32001000, 35000003);
+		Route tiny = new Route(new GeoSegment("A", start, near3)).addSegment(new GeoSegment("A", near3, north));
+		String tinyPolyline = PolylineCodec.encode(tiny, 5, new StringBuilder()).toString();
+		copy = PolylineCodec.decodeRoute(tinyPolyline, 5, new String[] { "A" }, new int[] { 2 });
+		show("A segment that collapses at precision 5 is skipped", numOfSegments(copy.getGeoSegments()) == 1
+			&& copy.getStart().equals(start) && copy.getEnd().equals(new GeoPoint(32001000, 35000000))
+			&& copy.getEndFeature().getName().equals("A"));
+		Route tinyFeature = new Route(new GeoSegment("A", north, start)).addSegment(new GeoSegment("B", start, near3))
+			.addSegment(new GeoSegment("C", near3, north));
+		copy = PolylineCodec.decodeRoute(PolylineCodec.encode(tinyFeature, 5, new StringBuilder()), 5,
+			new String[] { "A", "B", "C" }, new int[] { 1, 1, 1 });
+		show("A feature that collapses at precision 5 is skipped", copy.getGeoFeaturesSize() == 2
+			&& numOfSegments(copy.getGeoSegments()) == 2 && copy.getEndFeature().getName().equals("C"));
+		show("So is a point repeated at precision 6", numOfSegments(PolylineCodec.decodeGeoFeature(
+			PolylineCodec.encode(tiny, 6, new StringBuilder()).append("??"), 6, "A")
+			.getGeoSegments()) == 2);
+		String collapsed = PolylineCodec.encode(new GeoFeature(new GeoSegment("A", start, near3)), 5,
+			new StringBuilder()).toString();
+		boolean single = false;
+		try {
+			PolylineCodec.decodeGeoFeature(collapsed, 5, "A");
+		}
+		catch (IllegalArgumentException e) {
+			single = true;
+		}
+		show("A polyline of a single distinct point fails", single
+			&& fails(collapsed, new String[] { "A" }, new int[] { 1 }));
+
+		show("Bad polylines");
+		String[] exampleName = { "Example" };
+		int[] two = { 2 };
+		show("The documented example decodes with its name track", !fails(documentedExample, exampleName, two));
+		show("Empty and single point polylines fail", fails("", exampleName, two)
+			&& fails(documentedExample.substring(0, 10), exampleName, two));
+		show("Truncated polyline fails",
+			fails(documentedExample.substring(0, documentedExample.length() - 1), exampleName, two));
+		show("Bad characters fail", fails(documentedExample.replace('|', ' '), exampleName, two)
+			&& fails(documentedExample.replace('|', '\u05d0'), exampleName, two));
+		show("A name track of another length fails", fails(documentedExample, exampleName, new int[] { 1 })
+			&& fails(documentedExample, exampleName, new int[] { 3 }));
+		show("Points out of range fail", fails(PolylineCodec.encode(extreme, 6, new StringBuilder()).toString(), extremeNames,
+			extremeSegments));
+	}
+
+
+	public static void main(String[] args) {
+		PolylineCodecTest codecTest = new PolylineCodecTest();
+		codecTest.test();
+	}
+}
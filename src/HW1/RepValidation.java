@@ -0,0 +1,233 @@
+package HW1;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A RepValidation decides how often the checkRep() method of a class
+ * actually validates the representation invariant, and records how much
+ * time the validation consumed.
+ * <p>
+ * The policy of a class is read once, from the system property
+ * <tt>HW1.checkRep.&lt;SimpleClassName&gt;</tt> or, if it isn't set, from
+ * <tt>HW1.checkRep</tt>. The supported values are:
+ * <pre>
+ *   off           // never validate
+ *   construction  // validate once, when an object is constructed
+ *   sampled:N     // validate on every N-th call, constructors included
+ *   full          // validate on every call
+ * </pre>
+ * For example: <tt>-DHW1.checkRep=off -DHW1.checkRep.GeoPoint=sampled:100</tt>.
+ * When no property is set, classes with assertions enabled use
+ * <tt>full</tt> and classes with assertions disabled use <tt>off</tt>, since
+ * the invariant assertions would be skipped anyway.
+ * <p>
+ * RepValidation objects are safe for use by multiple threads.
+ */
+public final class RepValidation {
+
+	/**
+	 * The validation policies a class can use.
+	 */
+	public enum Mode { OFF, CONSTRUCTION, SAMPLED, FULL }
+
+	// The prefix of the system properties controlling the policies.
+	private static final String propertyPrefix = "HW1.checkRep";
+
+	// The sampling period used by "sampled" when no period is given.
+	private static final int defaultSamplePeriod = 1000;
+
+	// One RepValidation per class name, so the counters can be looked up.
+	private static final ConcurrentMap<String, RepValidation> validations = new ConcurrentHashMap<>();
+
+	private final String className;
+	private final Mode mode;
+	private final int samplePeriod;
+	private final LongAdder validationNanos = new LongAdder();
+	private final LongAdder validationCount = new LongAdder();
+
+	// Counts the calls in SAMPLED mode. It isn't synchronized on purpose: a lost
+	// update only shifts the next sample, and it keeps the sampled path free of contention.
+	private int calls;
+
+	// Rep. Inv.:
+	// this.className is not empty && this.mode != null && this.samplePeriod > 0.
+
+	// Abstraction Function:
+	// The validation policy this.mode of the class named this.className, that validates every this.samplePeriod
+	// calls in SAMPLED mode, and that consumed this.validationNanos nanoseconds in this.validationCount validations.
+
+	private RepValidation(String className, Mode mode, int samplePeriod)
+	{
+		this.className = className;
+		this.mode = mode;
+		this.samplePeriod = samplePeriod;
+	}
+
+
+	/**
+	 * Returns the RepValidation of the given class.
+	 * @requires c != null
+	 * @return the RepValidation of c, configured from the system properties
+	 *         the first time it is requested.
+	 */
+	public static RepValidation forClass(Class<?> c)
+	{
+		assert c != null : "RepValidation: class is null";
+		RepValidation validation = validations.get(c.getSimpleName());
+		if (validation == null)
+		{
+			validation = parse(c.getSimpleName(), c.desiredAssertionStatus());
+			RepValidation existing = validations.putIfAbsent(c.getSimpleName(), validation);
+			if (existing != null)
+				validation = existing;
+		}
+		return validation;
+	}
+
+
+	/**
+	 * Returns whether the caller's checkRep() should validate now.
+	 * @param constructing true iff checkRep() is called from a constructor.
+	 * @return true iff the representation invariant should be validated.
+	 */
+	public boolean shouldCheck(boolean constructing)
+	{
+		switch (this.mode)
+		{
+			case FULL:
+				return true;
+			case OFF:
+				return false;
+			case CONSTRUCTION:
+				return constructing;
+			default:
+				int call = this.calls + 1;
+				if (call >= this.samplePeriod)
+					call = 0;
+				this.calls = call;
+				return call == 0;
+		}
+	}
+
+
+	/**
+	 * Records a single validation.
+	 * @modifies this
+	 * @effects adds nanos to the time consumed by validation.
+	 */
+	public void record(long nanos)
+	{
+		this.validationNanos.add(nanos);
+		this.validationCount.increment();
+	}
+
+
+	/**
+	 * Returns the validation policy.
+	 * @return the validation policy of the class.
+	 */
+	public Mode getMode()
+	{
+		return this.mode;
+	}
+
+
+	/**
+	 * Returns the sampling period.
+	 * @return the number of calls between two validations in SAMPLED mode.
+	 */
+	public int getSamplePeriod()
+	{
+		return this.samplePeriod;
+	}
+
+
+	/**
+	 * Returns the time consumed by validation.
+	 * @return the total time, in nanoseconds, spent validating the
+	 *         representation invariant of the class.
+	 */
+	public long getValidationNanos()
+	{
+		return this.validationNanos.sum();
+	}
+
+
+	/**
+	 * Returns the number of validations.
+	 * @return the number of times the representation invariant of the class
+	 *         was validated.
+	 */
+	public long getValidationCount()
+	{
+		return this.validationCount.sum();
+	}
+
+
+	/**
+	 * Clears the time and count of validations.
+	 * @modifies this
+	 * @effects sets the time consumed by validation and the number of
+	 *          validations to 0.
+	 */
+	public void reset()
+	{
+		this.validationNanos.reset();
+		this.validationCount.reset();
+	}
+
+
+	/**
+	 * Returns a string representation of this.
+	 * @return a string representation of this.
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("%s: %s%s, %d validations in %.3f ms", this.className, this.mode,
+				(this.mode == Mode.SAMPLED) ? ":" + this.samplePeriod : "",
+				this.getValidationCount(), this.getValidationNanos() / 1e6);
+	}
+
+
+	// Reads the policy of className from the system properties.
+	private static RepValidation parse(String className, boolean assertionsEnabled)
+	{
+		String value = System.getProperty(propertyPrefix + "." + className, System.getProperty(propertyPrefix));
+		if (value == null)
+			return new RepValidation(className, assertionsEnabled ? Mode.FULL : Mode.OFF, defaultSamplePeriod);
+
+		value = value.trim().toLowerCase(Locale.ROOT);
+		int samplePeriod = defaultSamplePeriod;
+		int colon = value.indexOf(':');
+		if (colon >= 0)
+		{
+			try
+			{
+				samplePeriod = Math.max(1, Integer.parseInt(value.substring(colon + 1).trim()));
+			}
+			catch (NumberFormatException e)
+			{
+				throw new IllegalArgumentException("Bad sampling period for " + className + ": " + value, e);
+			}
+			value = value.substring(0, colon).trim();
+		}
+
+		switch (value)
+		{
+			case "off":
+				return new RepValidation(className, Mode.OFF, samplePeriod);
+			case "construction":
+				return new RepValidation(className, Mode.CONSTRUCTION, samplePeriod);
+			case "sampled":
+				return new RepValidation(className, Mode.SAMPLED, samplePeriod);
+			case "full":
+				return new RepValidation(className, Mode.FULL, samplePeriod);
+			default:
+				throw new IllegalArgumentException("Unknown checkRep policy for " + className + ": " + value);
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package HW1;
+
+import java.util.Locale;
+
+public class RepValidationTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Classes of their own names, since the policy of a class is read once, the first time it's requested.
+	static class Off {}
+	static class Construction {}
+	static class Sampled {}
+	static class SampledEvery3 {}
+	static class Full {}
+	static class Shouting {}
+	static class Global {}
+	static class Overridden {}
+	static class Turkish {}
+	static class BadPeriod {}
+	static class BadPolicy {}
+	static class Counted {}
+
+
+	// Sets the policy of a class, and returns its RepValidation.
+	static RepValidation policy(Class<?> c, String value) {
+		System.setProperty("HW1.checkRep." + c.getSimpleName(), value);
+		return RepValidation.forClass(c);
+	}
+
+
+	// Returns true iff reading the policy of the class fails with an IllegalArgumentException.
+	static boolean fails(Class<?> c, String value) {
+		try {
+			policy(c, value);
+			return false;
+		}
+		catch (IllegalArgumentException e) {
+			return true;
+		}
+	}
+
+
+	// Returns the number of calls out of n that shouldCheck() validates.
+	static int numOfChecks(RepValidation validation, int n, boolean constructing) {
+		int checks = 0;
+		for (int i = 0; i < n; i++)
+			if (validation.shouldCheck(constructing))
+				checks++;
+		return checks;
+	}
+
+
+	public void test() {
+		show("Policies");
+		RepValidation off = policy(Off.class, "off");
+		RepValidation construction = policy(Construction.class, "construction");
+		RepValidation sampled = policy(Sampled.class, "sampled");
+		RepValidation every3 = policy(SampledEvery3.class, " sampled : 3 ");
+		RepValidation full = policy(Full.class, "full");
+		show("off, construction, sampled and full are parsed", off.getMode() == RepValidation.Mode.OFF
+			&& construction.getMode() == RepValidation.Mode.CONSTRUCTION
+			&& sampled.getMode() == RepValidation.Mode.SAMPLED && full.getMode() == RepValidation.Mode.FULL);
+		show("sampled:N is parsed with its period", every3.getMode() == RepValidation.Mode.SAMPLED
+			&& every3.getSamplePeriod() == 3 && sampled.getSamplePeriod() == 1000);
+		show("Policies are case insensitive", policy(Shouting.class, "FULL").getMode() == RepValidation.Mode.FULL);
+		Locale locale = Locale.getDefault();
+		try {
+			Locale.setDefault(new Locale("tr", "TR"));
+			show("Also in a Turkish locale",
+				policy(Turkish.class, "CONSTRUCTION").getMode() == RepValidation.Mode.CONSTRUCTION);
+		}
+		finally {
+			Locale.setDefault(locale);
+		}
+		show("Bad periods and unknown policies fail", fails(BadPeriod.class, "sampled:often")
+			&& fails(BadPolicy.class, "sometimes"));
+		show("The policy of a class is read once", RepValidation.forClass(Off.class) == off
+			&& policy(Off.class, "full").getMode() == RepValidation.Mode.OFF);
+		show("Without a property, classes with assertions validate fully",
+			RepValidation.forClass(RepValidationTest.class).getMode()
+			== (RepValidationTest.class.desiredAssertionStatus() ? RepValidation.Mode.FULL : RepValidation.Mode.OFF));
+		System.setProperty("HW1.checkRep", "construction");
+		try {
+			show("The global property applies to classes without their own",
+				RepValidation.forClass(Global.class).getMode() == RepValidation.Mode.CONSTRUCTION);
+			show("The property of a class takes precedence over the global one",
+				policy(Overridden.class, "sampled:7").getMode() == RepValidation.Mode.SAMPLED);
+		}
+		finally {
+			System.clearProperty("HW1.checkRep");
+		}
+
+		show("shouldCheck()");
+		show("off never validates", numOfChecks(off, 10, true) + numOfChecks(off, 10, false) == 0);
+		show("full always validates", numOfChecks(full, 10, true) + numOfChecks(full, 10, false) == 20);
+		show("construction validates only in constructors", numOfChecks(construction, 10, true) == 10
+			&& numOfChecks(construction, 10, false) == 0);
+		boolean period = numOfChecks(every3, 2, false) == 0 && every3.shouldCheck(true);
+		for (int round = 0; round < 5; round++)
+			period &= numOfChecks(every3, 2, round % 2 == 0) == 0 && every3.shouldCheck(false);
+		show("sampled:3 validates every 3rd call, constructors included", period);
+		show("sampled validates once every 1000 calls", numOfChecks(sampled, 10000, false) == 10);
+
+		show("Counters");
+		RepValidation counted = policy(Counted.class, "full");
+		show("A new policy has no validations", counted.getValidationCount() == 0
+			&& counted.getValidationNanos() == 0);
+		counted.record(5);
+		counted.record(7);
+		show("record() counts validations and adds their time", counted.getValidationCount() == 2
+			&& counted.getValidationNanos() == 12);
+		show("toString() shows the policy and the counters", counted.toString().startsWith("Counted: FULL, 2 validations")
+			&& every3.toString().startsWith("SampledEvery3: SAMPLED:3, 0 validations"));
+		counted.reset();
+		show("reset() clears the counters", counted.getValidationCount() == 0 && counted.getValidationNanos() == 0);
+	}
+
+
+	public static void main(String[] args) {
+		RepValidationTest validationTest = new RepValidationTest();
+		validationTest.test();
+	}
+}
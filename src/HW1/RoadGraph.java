@@ -0,0 +1,575 @@
+package HW1;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A RoadGraph is an immutable directed graph of a road network, built from
+ * GeoSegments.
+ * <p>
+ * Every distinct endpoint of the segments is a node, identified by an id
+ * from 0 to numOfNodes() - 1, and every segment is an edge from the node of
+ * its first endpoint to the node of its second endpoint. A two-way road is
+ * added as a segment and its reverse.
+ * <p>
+ * The graph is kept in compressed sparse row form: the edges leaving node
+ * n are the ids firstEdge(n) up to, but not including, endEdge(n), and the
+ * target, length, heading and name id of every edge are kept in primitive
+ * arrays indexed by edge id. Iterating over the neighbors of a node hence
+ * reads a contiguous range of a few arrays and doesn't allocate:
+ * <pre>
+ *   for (int e = graph.firstEdge(n); e &lt; graph.endEdge(n); e++)
+ *       visit(graph.getEdgeTarget(e), graph.getEdgeLength(e));
+ * </pre>
+ * RoadGraphs are safe for use by multiple threads.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   nodes : sequence    // the distinct endpoints of the segments, indexed by node id
+ *   edges : sequence    // the directed segments, indexed by edge id and grouped by their first node
+ *   names : sequence    // the distinct names of the segments, indexed by name id
+ * </pre>
+ */
+public class RoadGraph {
+
+	private final int numOfNodes;
+	private final int[] nodeLatitudes;
+	private final int[] nodeLongitudes;
+	private final int[] edgeOffsets;
+	private final int[] edgeTargets;
+	private final double[] edgeLengths;
+	private final double[] edgeHeadings;
+	private final int[] edgeNameIds;
+	private final String[] names;
+	private final LongIntHashMap nodeIds;
+	private final long buildNanos;
+
+	// Rep. Inv.:
+	// this.nodeLatitudes and this.nodeLongitudes have this.numOfNodes elements, and no two nodes have the same
+	//     coordinates. this.nodeIds maps GeoPointCodec.pack() of the coordinates of every node to its id.
+	// this.edgeOffsets has this.numOfNodes + 1 elements, this.edgeOffsets[0] = 0, it is non-decreasing and its last
+	//     element is the length of the edge arrays.
+	// for every edge e: 0 <= this.edgeTargets[e] < this.numOfNodes and 0 <= this.edgeNameIds[e] < this.names.length.
+
+	// Abstraction Function:
+	// nodes[n] is the point (this.nodeLatitudes[n], this.nodeLongitudes[n]).
+	// edges[e] is the segment named this.names[this.edgeNameIds[e]] from nodes[n] to nodes[this.edgeTargets[e]],
+	// where n is the node with this.edgeOffsets[n] <= e < this.edgeOffsets[n+1].
+
+	// Constructs a graph from the edges collected by a Builder, grouping them by their source node.
+	private RoadGraph(Builder builder)
+	{
+		long begin = System.nanoTime();
+		int numOfEdges = builder.numOfEdges;
+		this.numOfNodes = builder.nodeIds.size();
+		this.nodeLatitudes = Arrays.copyOf(builder.nodeLatitudes, this.numOfNodes);
+		this.nodeLongitudes = Arrays.copyOf(builder.nodeLongitudes, this.numOfNodes);
+		this.names = Arrays.copyOf(builder.names, builder.numOfNames);
+		this.nodeIds = builder.nodeIds;
+
+		// A counting sort by source node, which keeps the edges of each node in the order they were added.
+		this.edgeOffsets = new int[this.numOfNodes + 1];
+		for (int e = 0; e < numOfEdges; e++)
+			this.edgeOffsets[builder.sources[e] + 1]++;
+		for (int n = 0; n < this.numOfNodes; n++)
+			this.edgeOffsets[n + 1] += this.edgeOffsets[n];
+		int[] next = Arrays.copyOf(this.edgeOffsets, this.numOfNodes);
+		this.edgeTargets = new int[numOfEdges];
+		this.edgeLengths = new double[numOfEdges];
+		this.edgeHeadings = new double[numOfEdges];
+		this.edgeNameIds = new int[numOfEdges];
+		for (int e = 0; e < numOfEdges; e++)
+		{
+			int to = next[builder.sources[e]]++;
+			int target = builder.targets[e];
+			int source = builder.sources[e];
+			this.edgeTargets[to] = target;
+			this.edgeNameIds[to] = builder.nameIds[e];
+			int lat1 = this.nodeLatitudes[source];
+			int lon1 = this.nodeLongitudes[source];
+			int lat2 = this.nodeLatitudes[target];
+			int lon2 = this.nodeLongitudes[target];
+			this.edgeLengths[to] = GeoPointCodec.distance(lat1, lon1, lat2, lon2);
+			// A GeoSegment with identical endpoints has a heading of 0.
+			this.edgeHeadings[to] = (source == target) ? 0 : GeoPointCodec.heading(lat1, lon1, lat2, lon2);
+		}
+		this.buildNanos = builder.addNanos + (System.nanoTime() - begin);
+		this.checkRep();
+	}
+
+
+	/**
+	 * Returns the number of nodes.
+	 * @return the length of this.nodes.
+	 */
+	public int numOfNodes()
+	{
+		return this.numOfNodes;
+	}
+
+
+	/**
+	 * Returns the number of edges.
+	 * @return the length of this.edges.
+	 */
+	public int numOfEdges()
+	{
+		return this.edgeTargets.length;
+	}
+
+
+	/**
+	 * Returns the number of distinct names.
+	 * @return the length of this.names.
+	 */
+	public int numOfNames()
+	{
+		return this.names.length;
+	}
+
+
+	/**
+	 * Returns a name of the dictionary.
+	 * @requires 0 <= nameId < this.numOfNames()
+	 * @return this.names[nameId]
+	 */
+	public String getNameById(int nameId)
+	{
+		return this.names[nameId];
+	}
+
+
+	/**
+	 * Returns the node at a point.
+	 * @return the id n such that this.nodes[n] = (latitude, longitude), or
+	 *         -1 if no segment ends at that point.
+	 */
+	public int nodeOf(int latitude, int longitude)
+	{
+		return this.nodeIds.get(GeoPointCodec.pack(latitude, longitude));
+	}
+
+
+	/**
+	 * Returns the node at a GeoPoint.
+	 * @requires gp != null
+	 * @return the id n such that this.nodes[n] = gp, or -1 if no segment
+	 *         ends at gp.
+	 */
+	public int nodeOf(GeoPoint gp)
+	{
+		return this.nodeOf(gp.getLatitude(), gp.getLongitude());
+	}
+
+
+	/**
+	 * Returns the latitude of a node.
+	 * @requires 0 <= n < this.numOfNodes()
+	 * @return this.nodes[n].latitude
+	 */
+	public int getNodeLatitude(int n)
+	{
+		return this.nodeLatitudes[n];
+	}
+
+
+	/**
+	 * Returns the longitude of a node.
+	 * @requires 0 <= n < this.numOfNodes()
+	 * @return this.nodes[n].longitude
+	 */
+	public int getNodeLongitude(int n)
+	{
+		return this.nodeLongitudes[n];
+	}
+
+
+	/**
+	 * Returns a node as a GeoPoint object.
+	 * @requires 0 <= n < this.numOfNodes()
+	 * @return a new GeoPoint equal to this.nodes[n].
+	 */
+	public GeoPoint getNodePoint(int n)
+	{
+		return new GeoPoint(this.nodeLatitudes[n], this.nodeLongitudes[n]);
+	}
+
+
+	/**
+	 * Returns the first edge leaving a node.
+	 * @requires 0 <= n < this.numOfNodes()
+	 * @return the smallest id of an edge that leaves this.nodes[n], or
+	 *         endEdge(n) if no edge leaves it.
+	 */
+	public int firstEdge(int n)
+	{
+		return this.edgeOffsets[n];
+	}
+
+
+	/**
+	 * Returns the end of the range of edges leaving a node.
+	 * @requires 0 <= n < this.numOfNodes()
+	 * @return one more than the largest id of an edge that leaves
+	 *         this.nodes[n], or firstEdge(n) if no edge leaves it.
+	 */
+	public int endEdge(int n)
+	{
+		return this.edgeOffsets[n + 1];
+	}
+
+
+	/**
+	 * Returns the number of edges leaving a node.
+	 * @requires 0 <= n < this.numOfNodes()
+	 * @return endEdge(n) - firstEdge(n)
+	 */
+	public int outDegree(int n)
+	{
+		return this.edgeOffsets[n + 1] - this.edgeOffsets[n];
+	}
+
+
+	/**
+	 * Returns the node an edge leaves.
+	 * @requires 0 <= e < this.numOfEdges()
+	 * @return the node n such that firstEdge(n) <= e < endEdge(n).
+	 */
+	public int getEdgeSource(int e)
+	{
+		// The last node whose range starts at or before e, which skips the nodes with no edges.
+		int low = 0;
+		int high = this.numOfNodes - 1;
+		while (low < high)
+		{
+			int mid = (low + high + 1) >>> 1;
+			if (this.edgeOffsets[mid] <= e)
+				low = mid;
+			else
+				high = mid - 1;
+		}
+		return low;
+	}
+
+
+	/**
+	 * Returns the node an edge leads to.
+	 * @requires 0 <= e < this.numOfEdges()
+	 * @return the id of the node of this.edges[e].p2
+	 */
+	public int getEdgeTarget(int e)
+	{
+		return this.edgeTargets[e];
+	}
+
+
+	/**
+	 * Returns the length of an edge.
+	 * @requires 0 <= e < this.numOfEdges()
+	 * @return this.edges[e].length
+	 */
+	public double getEdgeLength(int e)
+	{
+		return this.edgeLengths[e];
+	}
+
+
+	/**
+	 * Returns the heading of an edge.
+	 * @requires 0 <= e < this.numOfEdges()
+	 * @return this.edges[e].heading
+	 */
+	public double getEdgeHeading(int e)
+	{
+		return this.edgeHeadings[e];
+	}
+
+
+	/**
+	 * Returns the name id of an edge.
+	 * @requires 0 <= e < this.numOfEdges()
+	 * @return the id i such that this.names[i] = this.edges[e].name
+	 */
+	public int getEdgeNameId(int e)
+	{
+		return this.edgeNameIds[e];
+	}
+
+
+	/**
+	 * Returns the name of an edge.
+	 * @requires 0 <= e < this.numOfEdges()
+	 * @return this.edges[e].name
+	 */
+	public String getEdgeName(int e)
+	{
+		return this.names[this.edgeNameIds[e]];
+	}
+
+
+	/**
+	 * Returns an edge as a GeoSegment object that starts at a given GeoPoint
+	 * object, so it can be appended to a Route or GeoFeature ending at p1.
+	 * @requires 0 <= e < this.numOfEdges() && p1 != null &&
+	 *           p1 = this.edges[e].p1
+	 * @return a new GeoSegment gs equal to this.edges[e] such that
+	 *         gs.getP1() == p1.
+	 */
+	public GeoSegment getGeoSegment(int e, GeoPoint p1)
+	{
+		assert p1 != null && this.nodeOf(p1) == this.getEdgeSource(e)
+				: "RoadGraph: p1 is not the first endpoint of edge " + e;
+		return new GeoSegment(this.getEdgeName(e), p1, this.getNodePoint(this.edgeTargets[e]));
+	}
+
+
+	/**
+	 * Returns a Route along a path of edges.
+	 * @requires edges != null && edges is non empty and every edge of it
+	 *           leaves the node the previous one leads to && start != null
+	 *           && start = this.edges[edges[0]].p1
+	 * @return a new Route whose segments are this.edges[edges[0]],
+	 *         this.edges[edges[1]], ... starting at the GeoPoint object
+	 *         start.
+	 */
+	public Route toRoute(int[] edges, GeoPoint start)
+	{
+		assert edges != null && edges.length > 0 : "RoadGraph: empty path";
+		GeoSegment gs = this.getGeoSegment(edges[0], start);
+		Route route = new Route(gs);
+		for (int i = 1; i < edges.length; i++)
+		{
+			assert this.getEdgeSource(edges[i]) == this.edgeTargets[edges[i - 1]] : "RoadGraph: broken path";
+			// Consecutive segments share their GeoPoint objects, as GeoFeature requires.
+			gs = new GeoSegment(this.getEdgeName(edges[i]), gs.getP2(), this.getNodePoint(this.edgeTargets[edges[i]]));
+			route = route.addSegment(gs);
+		}
+		return route;
+	}
+
+
+	/**
+	 * Returns the edges of this graph as a GeoSegmentTable, for instance to
+	 * index them spatially.
+	 * @return a new GeoSegmentTable whose segment i equals this.edges[i].
+	 */
+	public GeoSegmentTable toGeoSegmentTable()
+	{
+		GeoSegmentTable.Builder builder = new GeoSegmentTable.Builder();
+		int[] nameIds = new int[this.numOfNames()];
+		for (int i = 0; i < nameIds.length; i++)
+			nameIds[i] = builder.nameId(this.getNameById(i));
+		// The edges of each node are consecutive, so going over the nodes in order adds the edges in order.
+		for (int n = 0; n < this.numOfNodes(); n++)
+		{
+			for (int e = this.firstEdge(n); e < this.endEdge(n); e++)
+			{
+				int target = this.edgeTargets[e];
+				builder.add(nameIds[this.getEdgeNameId(e)], this.getNodeLatitude(n), this.getNodeLongitude(n),
+						this.getNodeLatitude(target), this.getNodeLongitude(target));
+			}
+		}
+		return builder.build();
+	}
+
+
+	/**
+	 * Returns the time it took to build this graph.
+	 * @return the number of nanoseconds spent adding the segments to the
+	 *         Builder of this graph and building it.
+	 */
+	public long getBuildNanos()
+	{
+		return this.buildNanos;
+	}
+
+
+	/**
+	 * Returns an approximation of the memory used by this graph.
+	 * @return the number of bytes taken by the arrays of this graph,
+	 *         including the point to node lookup, not including the
+	 *         characters of the names.
+	 */
+	public long estimateMemoryBytes()
+	{
+		// 2 int node columns and the offsets, 2 int and 2 double edge columns.
+		return (long) this.numOfNodes * (2 * 4 + 4) + (long) this.edgeTargets.length * (2 * 4 + 2 * 8)
+				+ this.nodeIds.estimateMemoryBytes() + (long) this.names.length * 8;
+	}
+
+
+	/**
+	 * Returns a string representation of this.
+	 * @return a string representation of this.
+	 */
+	@Override
+	public String toString()
+	{
+		return "RoadGraph: " + this.numOfNodes + " nodes, " + this.numOfEdges() + " edges";
+	}
+
+
+	private void checkRep()
+	{
+		assert this.nodeLatitudes.length == this.numOfNodes && this.nodeLongitudes.length == this.numOfNodes
+				: "RoadGraph: bad node arrays";
+		assert this.nodeIds.size() == this.numOfNodes : "RoadGraph: bad node lookup";
+		assert this.edgeOffsets[0] == 0 && this.edgeOffsets[this.numOfNodes] == this.edgeTargets.length
+				: "RoadGraph: bad edge offsets";
+	}
+
+
+	/**
+	 * A Builder collects directed segments and builds an immutable RoadGraph
+	 * from them. Builders aren't safe for use by multiple threads, and a
+	 * Builder can build a single graph.
+	 */
+	public static class Builder {
+
+		private static final int initialCapacity = 16;
+
+		private final LongIntHashMap nodeIds = new LongIntHashMap(initialCapacity);
+		private int[] nodeLatitudes = new int[initialCapacity];
+		private int[] nodeLongitudes = new int[initialCapacity];
+
+		private int numOfEdges = 0;
+		private int[] sources = new int[initialCapacity];
+		private int[] targets = new int[initialCapacity];
+		private int[] nameIds = new int[initialCapacity];
+
+		private int numOfNames = 0;
+		private String[] names = new String[initialCapacity];
+		private final Map<String, Integer> nameIdsByName = new HashMap<>();
+
+		private long addNanos = 0;
+		private boolean built = false;
+
+
+		/**
+		 * Adds a segment.
+		 * @requires gs != null
+		 * @modifies this
+		 * @effects adds gs as an edge of the graph being built, and
+		 *          gs.reverse() as well unless oneWay is true.
+		 */
+		public void addSegment(GeoSegment gs, boolean oneWay)
+		{
+			assert gs != null : "RoadGraph.Builder: gs is null";
+			this.addSegment(gs.getName(), gs.getP1().getLatitude(), gs.getP1().getLongitude(),
+					gs.getP2().getLatitude(), gs.getP2().getLongitude(), oneWay);
+		}
+
+
+		/**
+		 * Adds a segment given by its name and the coordinates of its
+		 * endpoints.
+		 * @requires name != null && !name.isEmpty() and the coordinates are
+		 *           valid as defined by the GeoPoint constructor.
+		 * @modifies this
+		 * @effects adds the segment named name from (latitude1, longitude1)
+		 *          to (latitude2, longitude2) as an edge of the graph being
+		 *          built, and its reverse as well unless oneWay is true.
+		 */
+		public void addSegment(String name, int latitude1, int longitude1, int latitude2, int longitude2,
+				boolean oneWay)
+		{
+			assert !this.built : "RoadGraph.Builder: the graph was already built";
+			long begin = System.nanoTime();
+			int nameId = this.nameId(name);
+			int node1 = this.node(latitude1, longitude1);
+			int node2 = this.node(latitude2, longitude2);
+			this.addEdge(node1, node2, nameId);
+			if (!oneWay)
+				this.addEdge(node2, node1, nameId);
+			this.addNanos += System.nanoTime() - begin;
+		}
+
+
+		/**
+		 * Returns the number of nodes added so far.
+		 * @return the number of distinct endpoints of the added segments.
+		 */
+		public int numOfNodes()
+		{
+			return this.nodeIds.size();
+		}
+
+
+		/**
+		 * Returns the number of edges added so far.
+		 * @return the number of directed segments added to this.
+		 */
+		public int numOfEdges()
+		{
+			return this.numOfEdges;
+		}
+
+
+		/**
+		 * Builds the graph.
+		 * @requires build() wasn't called before.
+		 * @modifies this
+		 * @return a new RoadGraph with the segments added to this. The nodes
+		 *         are numbered in the order their points were first added,
+		 *         and the edges leaving each node are in the order they were
+		 *         added.
+		 */
+		public RoadGraph build()
+		{
+			assert !this.built : "RoadGraph.Builder: the graph was already built";
+			this.built = true;
+			return new RoadGraph(this);
+		}
+
+
+		// Returns the id of a name, adding it to the dictionary if needed.
+		private int nameId(String name)
+		{
+			assert name != null && !name.isEmpty() : "RoadGraph.Builder: bad name";
+			Integer id = this.nameIdsByName.get(name);
+			if (id != null)
+				return id;
+			if (this.numOfNames == this.names.length)
+				this.names = Arrays.copyOf(this.names, this.numOfNames * 2);
+			this.names[this.numOfNames] = name;
+			this.nameIdsByName.put(name, this.numOfNames);
+			return this.numOfNames++;
+		}
+
+
+		// Returns the id of the node at a point, adding it if needed.
+		private int node(int latitude, int longitude)
+		{
+			int next = this.nodeIds.size();
+			int id = this.nodeIds.putIfAbsent(GeoPointCodec.pack(latitude, longitude), next);
+			if (id == next)
+			{
+				if (next == this.nodeLatitudes.length)
+				{
+					this.nodeLatitudes = Arrays.copyOf(this.nodeLatitudes, next * 2);
+					this.nodeLongitudes = Arrays.copyOf(this.nodeLongitudes, next * 2);
+				}
+				this.nodeLatitudes[next] = latitude;
+				this.nodeLongitudes[next] = longitude;
+			}
+			return id;
+		}
+
+
+		private void addEdge(int source, int target, int nameId)
+		{
+			if (this.numOfEdges == this.sources.length)
+			{
+				int capacity = this.numOfEdges * 2;
+				this.sources = Arrays.copyOf(this.sources, capacity);
+				this.targets = Arrays.copyOf(this.targets, capacity);
+				this.nameIds = Arrays.copyOf(this.nameIds, capacity);
+			}
+			this.sources[this.numOfEdges] = source;
+			this.targets[this.numOfEdges] = target;
+			this.nameIds[this.numOfEdges] = nameId;
+			this.numOfEdges++;
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package HW1;
+
+/**
+ * Builds a RoadGraph of a generated street grid, reports its build time and
+ * memory, and compares iterating over the neighbors of every node with
+ * finding them by scanning all the segments.
+ * <p>
+ * Usage: <tt>java -Xmx4g HW1.RoadGraphBenchmark [gridSize]</tt>
+ */
+public class RoadGraphBenchmark {
+
+	// Distance between neighboring intersections, in millionths of a degree.
+	private static final int spacing = 1000;
+
+	private final int gridSize;
+
+
+	public RoadGraphBenchmark(int gridSize) {
+		this.gridSize = gridSize;
+	}
+
+
+	/**
+	 * Creates the streets of a gridSize x gridSize grid near the Technion,
+	 * one segment per block. Every row is a street named "Row r" and every
+	 * column an avenue named "Column c". The segments of row r and column c
+	 * are one-way iff r or c is divisible by 5.
+	 */
+	static GeoSegment[] createGrid(int gridSize) {
+		GeoPoint[] points = new GeoPoint[gridSize * gridSize];
+		for (int r = 0; r < gridSize; r++)
+			for (int c = 0; c < gridSize; c++)
+				points[r * gridSize + c] = new GeoPoint(32700000 + r * spacing, 34900000 + c * spacing);
+		GeoSegment[] segments = new GeoSegment[2 * gridSize * (gridSize - 1)];
+		int count = 0;
+		// Row by row, so the intersections are first seen, and numbered, in row-major order.
+		for (int r = 0; r < gridSize; r++) {
+			for (int c = 0; c < gridSize; c++) {
+				int i = r * gridSize + c;
+				if (c + 1 < gridSize)
+					segments[count++] = new GeoSegment("Row " + r, points[i], points[i + 1]);
+				if (r + 1 < gridSize)
+					segments[count++] = new GeoSegment("Column " + c, points[i], points[i + gridSize]);
+			}
+		}
+		return segments;
+	}
+
+
+	/**
+	 * Returns true iff a segment of createGrid() is one-way.
+	 */
+	static boolean isOneWay(GeoSegment gs) {
+		String name = gs.getName();
+		return Integer.parseInt(name.substring(name.indexOf(' ') + 1)) % 5 == 0;
+	}
+
+
+	/**
+	 * Builds the graph of createGrid(gridSize).
+	 */
+	static RoadGraph createGraph(int gridSize) {
+		RoadGraph.Builder builder = new RoadGraph.Builder();
+		for (GeoSegment gs : createGrid(gridSize))
+			builder.addSegment(gs, isOneWay(gs));
+		return builder.build();
+	}
+
+
+	public void run() {
+		GeoSegment[] segments = createGrid(gridSize);
+		long before = GeoSegmentTableBenchmark.usedMemory();
+		RoadGraph.Builder builder = new RoadGraph.Builder();
+		for (GeoSegment gs : segments)
+			builder.addSegment(gs, isOneWay(gs));
+		RoadGraph graph = builder.build();
+		builder = null;
+		long graphBytes = GeoSegmentTableBenchmark.usedMemory() - before;
+
+		// Iterating over the edges of every node.
+		double sum = 0;
+		long bestGraph = Long.MAX_VALUE;
+		for (int round = 0; round < 5; round++) {
+			long begin = System.nanoTime();
+			for (int n = 0; n < graph.numOfNodes(); n++)
+				for (int e = graph.firstEdge(n); e < graph.endEdge(n); e++)
+					sum += graph.getEdgeLength(e) + graph.getEdgeTarget(e);
+			bestGraph = Math.min(bestGraph, System.nanoTime() - begin);
+		}
+
+		// Finding the segments that leave a sample of the nodes by scanning all of them.
+		int samples = 100;
+		long begin = System.nanoTime();
+		for (int i = 0; i < samples; i++) {
+			GeoPoint node = graph.getNodePoint((int) ((long) i * graph.numOfNodes() / samples));
+			for (GeoSegment gs : segments) {
+				if (gs.getP1().equals(node) || (!isOneWay(gs) && gs.getP2().equals(node)))
+					sum += gs.getLength();
+			}
+		}
+		long scan = System.nanoTime() - begin;
+
+		System.out.println(graph + " (checksum " + (long) sum + ")");
+		System.out.printf("Build time:            %.1f ms (%.0f ns per segment)%n",
+				graph.getBuildNanos() / 1e6, (double) graph.getBuildNanos() / segments.length);
+		System.out.printf("Memory:                %.1f MB measured, %.1f MB estimated (%.1f bytes per edge)%n",
+				graphBytes / 1e6, graph.estimateMemoryBytes() / 1e6, (double) graphBytes / graph.numOfEdges());
+		System.out.printf("Neighbor iteration:    %.2f ns per edge%n", (double) bestGraph / graph.numOfEdges());
+		System.out.printf("Neighbors by scanning: %.0f us per node%n", scan / 1e3 / samples);
+	}
+
+
+	public static void main(String[] args) {
+		int gridSize = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+		new RoadGraphBenchmark(gridSize).run();
+	}
+}
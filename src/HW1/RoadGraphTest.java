@@ -0,0 +1,86 @@
+package HW1;
+
+public class RoadGraphTest {
+
+	private static final double tolerance = 0.0000001;
+
+	private final GeoSegment[] segments = ExampleGeoSegments.segments;
+	private final GeoPoint[] points = ExampleGeoSegments.points;
+
+
+	boolean same(double x, double y) {
+		return ((y >= x-tolerance) && (y <= x+tolerance));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Returns the edge of graph from p1 to p2, or -1 if there is none.
+	int edge(RoadGraph graph, GeoPoint p1, GeoPoint p2) {
+		int source = graph.nodeOf(p1);
+		int target = graph.nodeOf(p2);
+		for (int e = graph.firstEdge(source); e < graph.endEdge(source); e++)
+			if (graph.getEdgeTarget(e) == target)
+				return e;
+		return -1;
+	}
+
+
+	public void test() {
+		// Hagalil is one-way, the other roads are two-way.
+		RoadGraph.Builder builder = new RoadGraph.Builder();
+		for (GeoSegment gs : segments)
+			builder.addSegment(gs, gs.getName().equals("Hagalil"));
+		RoadGraph graph = builder.build();
+
+		show("build()");
+		show("Every endpoint is a node", graph.numOfNodes() == points.length);
+		show("Two-way segments add an edge in each direction", graph.numOfEdges() == 2 * segments.length - 2);
+		boolean nodesMatch = true;
+		for (GeoPoint gp : points) {
+			int n = graph.nodeOf(gp);
+			nodesMatch &= n >= 0 && graph.getNodePoint(n).equals(gp);
+		}
+		show("Nodes are found by their points", nodesMatch);
+		show("Points that aren't endpoints have no node", graph.nodeOf(32783099, 35014528) == -1);
+
+		show("edges");
+		boolean edgesMatch = true;
+		for (GeoSegment gs : segments) {
+			int e = edge(graph, gs.getP1(), gs.getP2());
+			edgesMatch &= e >= 0 && graph.getEdgeName(e).equals(gs.getName())
+					&& same(graph.getEdgeLength(e), gs.getLength()) && same(graph.getEdgeHeading(e), gs.getHeading())
+					&& graph.getEdgeSource(e) == graph.nodeOf(gs.getP1())
+					&& graph.getGeoSegment(e, gs.getP1()).equals(gs);
+		}
+		show("Every segment is an edge with its name, length and heading", edgesMatch);
+		GeoSegment back = segments[1].reverse();
+		int reverse = edge(graph, back.getP1(), back.getP2());
+		show("Reversed edges match GeoSegment.reverse()",
+			reverse >= 0 && same(graph.getEdgeHeading(reverse), back.getHeading()));
+		show("One-way segments have no reverse edge", edge(graph, points[4], points[3]) == -1);
+		int intersection = graph.nodeOf(points[2]);
+		show("Edges are grouped by node", graph.outDegree(intersection) == 3
+			&& graph.endEdge(intersection) - graph.firstEdge(intersection) == 3);
+		show("Names are shared", graph.numOfNames() == 9);
+	}
+
+
+	public static void main(String[] args) {
+		RoadGraphTest graphTest = new RoadGraphTest();
+		graphTest.test();
+	}
+}
@@ -1,8 +1,6 @@
 package HW1;
 
-import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
 
 /**
  * A Route is a path that traverses arbitrary GeoSegments, regardless
@@ -39,10 +37,14 @@ public class Route {
 	private final GeoPoint endPoint;
 	private final Double startHeading;
     private final Double endHeading;
-    private final List<GeoSegment> geoSegList;
-    private final List<GeoFeature> geoFeatureList;
+    private final PersistentVector<GeoSegment> geoSegList;
+    private final PersistentVector<GeoFeature> geoFeatureList;
     private final Double length;
     private final GeoSegment endingGeoSeg;
+    private final int hash;
+
+    // Controls how often checkRep() validates the Rep. Inv.
+    private static final RepValidation repValidation = RepValidation.forClass(Route.class);
 
     // Representation invariant for each Route:
     // Route is a sequence of GeoSegments (or GeoFeatures) such that for all integers i
@@ -53,6 +55,8 @@ public class Route {
     // geoFeatureList is abstractly comprised of geoSegments such that the names of the geoSegments are in the same order
     //
     // this.length >= 0.
+    // geoSegList and geoFeatureList are persistent vectors which are shared with the Routes this Route was built from
+    // and with the Routes built from this Route, hence they are never modified.
 
     // Abstraction Function:
     // A Geographic point constructed by latitude, gp.latitude, and longitude coordinate, gp.longitude.
@@ -85,13 +89,13 @@ public class Route {
         this.endPoint = gs.getP2();
         this.startHeading = gs.getHeading();
         this.endHeading = gs.getHeading();
-        this.geoSegList = new ArrayList<GeoSegment>();
-        this.geoSegList.add(gs);
-        this.geoFeatureList = new ArrayList<GeoFeature>();
-        this.geoFeatureList.add(new GeoFeature(gs));
+        this.geoSegList = PersistentVector.<GeoSegment>empty().append(gs);
+        this.geoFeatureList = PersistentVector.<GeoFeature>empty().append(new GeoFeature(gs));
         this.length = gs.getLength();
         this.endingGeoSeg = gs;
-        this.checkRep();
+        // The hash code of a single element List, so it can be extended like List.hashCode().
+        this.hash = 31 + gs.hashCode();
+        this.checkRep(true);
     }
 
     /**
@@ -107,33 +111,32 @@ public class Route {
     {
         assert prevRoute != null: "Got a null Route";
         assert gs != null: "Got a null GeoSegment";
-        assert gs.getP1().equals(prevRoute.getEnd()): "prev end != new start";
-        this.startPoint = prevRoute.getStart();
+        assert gs.getP1().equals(prevRoute.endPoint): "prev end != new start";
+        this.startPoint = prevRoute.startPoint;
         this.endPoint = gs.getP2();
-        this.startHeading = prevRoute.getStartHeading();
+        this.startHeading = prevRoute.startHeading;
         this.endHeading = gs.getHeading();
-        this.geoSegList = new ArrayList<>(prevRoute.geoSegList);
-        this.geoSegList.add(gs);
-        this.geoFeatureList = new ArrayList<>(prevRoute.geoFeatureList);
+        // The previous Route's vectors are shared, only the path to their last element is copied.
+        this.geoSegList = prevRoute.geoSegList.append(gs);
         // Get the last feature name from the existing list
-        int lastFeatureSize = prevRoute.geoFeatureList.size();
-        GeoFeature lastFeature = prevRoute.geoFeatureList.get(lastFeatureSize - 1);
+        GeoFeature lastFeature = prevRoute.geoFeatureList.last();
         String lastFeatureName = lastFeature.getName();
         if (lastFeatureName.equals(gs.getName()))
         {
             // The object gs belongs to the last feature. So we need to add it
             GeoFeature newLastFeature = lastFeature.addSegment(gs);
-            // The class geoFeature is immutable. Remove the last object and add the new one
-            this.geoFeatureList.remove(lastFeatureSize - 1);
-            this.geoFeatureList.add(newLastFeature);
+            // The class geoFeature is immutable. Replace the last object with the new one
+            this.geoFeatureList = prevRoute.geoFeatureList.withLast(newLastFeature);
         }
         else
         {
-            this.geoFeatureList.add(new GeoFeature(gs));
+            this.geoFeatureList = prevRoute.geoFeatureList.append(new GeoFeature(gs));
         }
-        this.length = prevRoute.getLength() + gs.getLength();
+        this.length = prevRoute.length + gs.getLength();
         this.endingGeoSeg = gs;
-        this.checkRep();
+        // Equal Routes have equal segment sequences, so the hash code extends the one of prevRoute's segments.
+        this.hash = 31 * prevRoute.hash + gs.hashCode();
+        this.checkRep(true);
     }
 
     /**
@@ -164,8 +167,7 @@ public class Route {
     public GeoFeature getEndFeature()
     {
         this.checkRep();
-        int geoFeaturesListSize = this.geoFeatureList.size();
-        return this.geoFeatureList.get(geoFeaturesListSize - 1);
+        return this.geoFeatureList.last();
     }
 
   	/**
@@ -276,25 +278,22 @@ public class Route {
   	public boolean equals(Object o)
     {
         assert o != null: "Got a null Object";
-  		if (o instanceof Route)
+        this.checkRep();
+        if (this == o)
+            return true;
+  		if (!(o instanceof Route))
+            return false;
+        Route route = (Route) o;
+        if (this.hash != route.hash || this.geoFeatureList.size() != route.geoFeatureList.size())
+            return false;
+        Iterator<GeoFeature> it1 = this.getGeoFeatures();
+        Iterator<GeoFeature> it2 = route.getGeoFeatures();
+        while (it1.hasNext())
         {
-            Iterator<GeoFeature> it1 = this.getGeoFeatures();
-            Iterator<GeoFeature> it2 = ((Route)o).getGeoFeatures();
-            if (this.geoFeatureList.size() == ((Route)o).geoFeatureList.size())
-            {   while (it1.hasNext())
-                {
-                    if (it1.equals(it2))
-                    {
-                        it1.next();
-                        it2.next();
-                    }
-                }
-                this.checkRep();
-                return true;
-            }
+            if (!it1.next().equals(it2.next()))
+                return false;
         }
-        this.checkRep();
-        return false;
+        return true;
   	}
 
 
@@ -302,11 +301,10 @@ public class Route {
      * Returns a hash code for this.
      * @return a hash code for this.
      **/
+  	@Override
   	public int hashCode() {
-    	// This implementation will work, but you may want to modify it
-    	// for improved performance.
         this.checkRep();
-    	return 1;
+    	return this.hash;
   	}
 
 
@@ -332,11 +330,20 @@ public class Route {
 
     private void checkRep()
     {
+        this.checkRep(false);
+    }
+
+    // Validates the Rep. Inv. according to the checkRep policy of Route, see RepValidation.
+    private void checkRep(boolean constructing)
+    {
+        if (!repValidation.shouldCheck(constructing))
+            return;
+        long begin = System.nanoTime();
         assert this.startPoint != null && this.endPoint != null : "Route: one of the points have null";
         assert 0 <= this.startHeading && this.startHeading < 360 : "Route: this.startHeading is not valid";
         assert 0 <= this.endHeading && this.endHeading < 360 : "Route: this.endHeading is not valid";
-        assert this.geoFeatureList != null && !this.geoFeatureList.isEmpty() : "Route: gf list is not valid";
-        assert this.geoSegList != null && !this.geoSegList.isEmpty() : "Route: gs list is not valid";
+        assert this.geoFeatureList != null && this.geoFeatureList.size() > 0 : "Route: gf list is not valid";
+        assert this.geoSegList != null && this.geoSegList.size() > 0 : "Route: gs list is not valid";
         assert this.length >= 0 : "Route: length is not valid";
         assert this.endingGeoSeg != null : "Route: endingGeoSeg is null";
 
@@ -360,6 +367,7 @@ public class Route {
                 assert(isEqual);
             }
         }
+        repValidation.record(System.nanoTime() - begin);
     }
 
     public int getGeoFeaturesSize()
@@ -0,0 +1,105 @@
+package HW1;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the cost of building a Route one segment at a time, and compares
+ * it with the copy-on-append strategy Route used to have, in which every
+ * appended segment copied both the segment list and the feature list.
+ * <p>
+ * Usage: <tt>java HW1.RouteAppendBenchmark [numOfSegments]</tt>
+ * <p>
+ * The checkRep policies can be set with the <tt>HW1.checkRep</tt> system
+ * properties, see RepValidation.
+ */
+public class RouteAppendBenchmark {
+
+	// Number of consecutive segments that share the same name.
+	private static final int segmentsPerFeature = 10;
+
+	private final GeoSegment[] segments;
+
+
+	public RouteAppendBenchmark(int numOfSegments) {
+		segments = createSegments(numOfSegments);
+	}
+
+
+	/**
+	 * Creates a connected chain of segments near the Technion. Consecutive
+	 * segments share their GeoPoint objects, as GeoFeature requires.
+	 */
+	static GeoSegment[] createSegments(int numOfSegments) {
+		GeoSegment[] chain = new GeoSegment[numOfSegments];
+		GeoPoint prev = new GeoPoint(32783098, 35014528);
+		for (int i = 0; i < numOfSegments; i++) {
+			// A zig-zag to the north-east, so no segment has zero length.
+			GeoPoint next = new GeoPoint(prev.getLatitude() + 100, prev.getLongitude() + ((i % 2 == 0) ? 150 : 50));
+			chain[i] = new GeoSegment("Road " + (i / segmentsPerFeature), prev, next);
+			prev = next;
+		}
+		return chain;
+	}
+
+
+	// Builds the Route using Route.addSegment().
+	long buildRoute() {
+		long begin = System.nanoTime();
+		Route route = new Route(segments[0]);
+		for (int i = 1; i < segments.length; i++)
+			route = route.addSegment(segments[i]);
+		long elapsed = System.nanoTime() - begin;
+		if (route.getGeoFeaturesSize() == 0)
+			System.out.println("Unexpected empty route");
+		return elapsed;
+	}
+
+
+	// Replays the copy-on-append strategy: both lists are copied on every append.
+	long buildCopyOnAppend() {
+		long begin = System.nanoTime();
+		List<GeoSegment> segList = new ArrayList<>();
+		List<GeoFeature> featureList = new ArrayList<>();
+		segList.add(segments[0]);
+		featureList.add(new GeoFeature(segments[0]));
+		for (int i = 1; i < segments.length; i++) {
+			GeoSegment gs = segments[i];
+			segList = new ArrayList<>(segList);
+			segList.add(gs);
+			featureList = new ArrayList<>(featureList);
+			GeoFeature last = featureList.get(featureList.size() - 1);
+			if (last.getName().equals(gs.getName()))
+				featureList.set(featureList.size() - 1, last.addSegment(gs));
+			else
+				featureList.add(new GeoFeature(gs));
+		}
+		long elapsed = System.nanoTime() - begin;
+		if (featureList.isEmpty())
+			System.out.println("Unexpected empty route");
+		return elapsed;
+	}
+
+
+	public void run(int rounds) {
+		long bestRoute = Long.MAX_VALUE;
+		long bestCopy = Long.MAX_VALUE;
+		for (int r = 0; r < rounds; r++) {
+			bestRoute = Math.min(bestRoute, buildRoute());
+			bestCopy = Math.min(bestCopy, buildCopyOnAppend());
+		}
+		System.out.println("Segments:              " + segments.length);
+		System.out.printf("Route.addSegment:      %.3f ms (%.1f ns per append)%n",
+				bestRoute / 1e6, (double) bestRoute / segments.length);
+		System.out.printf("Copy-on-append:        %.3f ms (%.1f ns per append)%n",
+				bestCopy / 1e6, (double) bestCopy / segments.length);
+		System.out.println(RepValidation.forClass(Route.class));
+		System.out.println(RepValidation.forClass(GeoFeature.class));
+	}
+
+
+	public static void main(String[] args) {
+		int numOfSegments = (args.length > 0) ? Integer.parseInt(args[0]) : 20000;
+		new RouteAppendBenchmark(numOfSegments).run(5);
+	}
+}
@@ -0,0 +1,875 @@
+package HW1;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A RouteArchive is a read-only, memory mapped archive of Routes, which a
+ * RouteArchive.Writer appends to.
+ * <p>
+ * An archive is a directory of three files:
+ * <ul>
+ * <li><tt>routes.data</tt>, a record per Route: its number of segments and
+ *     of features and its length, then the name id, end and length of
+ *     every feature, then the latitude and longitude of every point, all
+ *     fixed size big-endian fields.
+ * <li><tt>routes.index</tt>, a header and then the offset of the record of
+ *     every Route in <tt>routes.data</tt>, by route id. Route ids are the
+ *     order the Routes were appended in, from 0.
+ * <li><tt>routes.names</tt>, the dictionary of the names of the features,
+ *     by name id.
+ * </ul>
+ * All three only grow. A Route becomes part of the archive when its
+ * offset is written to the index, which a Writer only does when it's
+ * flushed, after its records and new names. Hence the files of a Writer
+ * that didn't finish may end with records, names or a part of an offset
+ * that aren't part of the archive yet: they are ignored by open(), and cut
+ * off by the next Writer.
+ * <p>
+ * The data and index files are mapped a window at a time; a record never
+ * crosses the boundary between two windows, so it is read from a single
+ * buffer. A View moves from Route to Route and reads the fields of the
+ * record straight from the mapped buffer: its length, endpoints, features
+ * and segments, as primitives, without allocating. It also has the
+ * getters of Route, which build GeoPoints, GeoSegments and GeoFeatures,
+ * and toRoute() builds the Route itself.
+ * <p>
+ * An archive holds the Routes that were in the files when it was opened.
+ * RouteArchives are safe for use by multiple threads, each with Views of
+ * its own.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   routes : sequence      // the Routes of the archive, indexed by route id
+ *   names : sequence       // the distinct names of the features, indexed by name id
+ * </pre>
+ */
+public class RouteArchive {
+
+	/** The name of the file of the records of the Routes in an archive. **/
+	public static final String DATA_FILE = "routes.data";
+
+	/** The name of the file of the offsets of the records in an archive. **/
+	public static final String INDEX_FILE = "routes.index";
+
+	/** The name of the file of the names of the features in an archive. **/
+	public static final String NAMES_FILE = "routes.names";
+
+	// The log 2 of the size of the windows the files are mapped in, 1 GB.
+	static final int DEFAULT_WINDOW_SHIFT = 30;
+
+	// The first int of the index file: "HW1A".
+	private static final int magic = 0x48573141;
+	// The index file starts with the magic number and the window shift.
+	private static final int indexHeaderSize = 8;
+	// A record starts with the number of segments and of features, and the length.
+	private static final int recordHeaderSize = 16;
+	// A feature is its name id, the index of the segment after it, and its length.
+	private static final int featureSize = 16;
+	// A point is its latitude and longitude.
+	private static final int pointSize = 8;
+	// The number of Routes a Writer appends before it flushes itself.
+	private static final int maxPending = 1 << 13;
+
+	private final int size;
+	private final String[] names;
+	private final int windowShift;
+	private final MappedByteBuffer[] dataWindows;
+	private final MappedByteBuffer[] indexWindows;
+
+	// Rep. Inv.:
+	// this.size >= 0, and the index windows hold the offsets of this.size records.
+	// every record is within a single data window, and its name ids are in [0, this.names.length).
+	// the elements of this.names are distinct, non empty Strings.
+
+	// Abstraction Function:
+	// routes[i] is the Route of the record at offset o_i of the data file, where o_i is the i-th offset of the
+	// index file: its segments are the consecutive pairs of the points of the record, named after the features
+	// they're in. names[i] is this.names[i].
+
+	private RouteArchive(int size, String[] names, int windowShift, MappedByteBuffer[] dataWindows,
+			MappedByteBuffer[] indexWindows)
+	{
+		this.size = size;
+		this.names = names;
+		this.windowShift = windowShift;
+		this.dataWindows = dataWindows;
+		this.indexWindows = indexWindows;
+		this.checkRep();
+	}
+
+
+	/**
+	 * Opens an archive.
+	 * @requires directory != null
+	 * @return a new RouteArchive of the Routes in the archive in directory.
+	 * @throws IOException if the files of the archive can't be read, or
+	 *         aren't an archive.
+	 */
+	public static RouteArchive open(File directory) throws IOException
+	{
+		assert directory != null : "RouteArchive: directory is null";
+		File indexFile = new File(directory, INDEX_FILE);
+		File dataFile = new File(directory, DATA_FILE);
+		int windowShift;
+		try (DataInputStream in = new DataInputStream(new FileInputStream(indexFile)))
+		{
+			if (in.readInt() != magic)
+				throw new IOException("RouteArchive: not a route archive");
+			windowShift = in.readInt();
+			if (windowShift < 6 || windowShift > 30)
+				throw new IOException("RouteArchive: bad window size");
+		}
+		long indexLength = indexFile.length();
+		long dataLength = dataFile.length();
+		// A part of an offset, written by a Writer that didn't finish flushing, isn't part of the archive.
+		if ((indexLength - indexHeaderSize) / 8 > Integer.MAX_VALUE)
+			throw new IOException("RouteArchive: bad index");
+		int size = (int) ((indexLength - indexHeaderSize) / 8);
+		String[] names = readNames(new File(directory, NAMES_FILE)).toArray(new String[0]);
+		MappedByteBuffer[] indexWindows = map(indexFile, indexLength, windowShift);
+		MappedByteBuffer[] dataWindows = map(dataFile, dataLength, windowShift);
+		if (size > 0)
+		{
+			long last = offset(indexWindows, windowShift, size - 1);
+			if (last < 0 || last + recordHeaderSize > dataLength)
+				throw new IOException("RouteArchive: the index is ahead of the data");
+		}
+		return new RouteArchive(size, names, windowShift, dataWindows, indexWindows);
+	}
+
+
+	/**
+	 * Returns the number of Routes.
+	 * @return the length of this.routes.
+	 */
+	public int size()
+	{
+		return this.size;
+	}
+
+
+	/**
+	 * Returns the number of distinct names.
+	 * @return the length of this.names.
+	 */
+	public int numOfNames()
+	{
+		return this.names.length;
+	}
+
+
+	/**
+	 * Returns a name by its id.
+	 * @requires 0 <= nameId < numOfNames()
+	 * @return names[nameId]
+	 */
+	public String getNameById(int nameId)
+	{
+		assert 0 <= nameId && nameId < this.names.length : "RouteArchive: name id out of range " + nameId;
+		return this.names[nameId];
+	}
+
+
+	/**
+	 * Returns a Route of the archive.
+	 * @requires 0 <= id < size()
+	 * @return a new Route equal to routes[id].
+	 */
+	public Route getRoute(int id)
+	{
+		return this.view().moveTo(id).toRoute();
+	}
+
+
+	/**
+	 * Returns a new View of this archive.
+	 * @requires size() > 0
+	 * @return a new View v of this such that v.id = 0.
+	 */
+	public View view()
+	{
+		return new View();
+	}
+
+
+	// Maps a file in windows of 1 << windowShift bytes.
+	private static MappedByteBuffer[] map(File file, long length, int windowShift) throws IOException
+	{
+		long windowSize = 1L << windowShift;
+		MappedByteBuffer[] windows = new MappedByteBuffer[(int) ((length + windowSize - 1) >> windowShift)];
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel())
+		{
+			for (int w = 0; w < windows.length; w++)
+			{
+				long start = (long) w << windowShift;
+				windows[w] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, length - start));
+			}
+		}
+		return windows;
+	}
+
+
+	// Returns the offset of a record, read from the index.
+	private static long offset(MappedByteBuffer[] indexWindows, int windowShift, int id)
+	{
+		long position = indexHeaderSize + 8L * id;
+		return indexWindows[(int) (position >> windowShift)].getLong((int) (position & ((1L << windowShift) - 1)));
+	}
+
+
+	// Returns the number of offsets at the start of an index file whose records are whole in the data file.
+	private static int numOfWholeRecords(File indexFile, File dataFile) throws IOException
+	{
+		long numOfOffsets = (indexFile.length() - indexHeaderSize) / 8;
+		if (numOfOffsets > Integer.MAX_VALUE)
+			throw new IOException("RouteArchive: bad index");
+		int size = (int) numOfOffsets;
+		// The offsets grow, so the first record from the end that is whole is preceded by whole records.
+		while (size > 0 && recordEnd(indexFile, dataFile, size - 1) > dataFile.length())
+			size--;
+		return size;
+	}
+
+
+	// Returns the offset in the data file after the record of a Route, or Long.MAX_VALUE if its header isn't there.
+	private static long recordEnd(File indexFile, File dataFile, int id) throws IOException
+	{
+		long offset;
+		try (RandomAccessFile index = new RandomAccessFile(indexFile, "r"))
+		{
+			index.seek(indexHeaderSize + 8L * id);
+			offset = index.readLong();
+		}
+		if (offset < 0 || offset + recordHeaderSize > dataFile.length())
+			return Long.MAX_VALUE;
+		try (RandomAccessFile data = new RandomAccessFile(dataFile, "r"))
+		{
+			data.seek(offset);
+			int numOfSegments = data.readInt();
+			int numOfFeatures = data.readInt();
+			if (numOfSegments <= 0 || numOfFeatures <= 0)
+				return Long.MAX_VALUE;
+			return offset + recordHeaderSize + (long) numOfFeatures * featureSize + (numOfSegments + 1L) * pointSize;
+		}
+	}
+
+
+	// Cuts a file, if it exists, down to a length.
+	private static void truncate(File file, long length) throws IOException
+	{
+		if (!file.exists() || file.length() <= length)
+			return;
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+		{
+			raf.setLength(length);
+		}
+	}
+
+
+	// Returns the names of a names file, without a last one that was only partly written.
+	private static List<String> readNames(File file) throws IOException
+	{
+		List<String> names = new ArrayList<>();
+		if (!file.exists())
+			return names;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+		{
+			long remaining = file.length();
+			while (remaining >= 4)
+			{
+				int length = in.readInt();
+				if (length <= 0)
+					throw new IOException("RouteArchive: bad names file");
+				if (length > remaining - 4)
+					break;
+				byte[] bytes = new byte[length];
+				in.readFully(bytes);
+				names.add(new String(bytes, StandardCharsets.UTF_8));
+				remaining -= 4 + length;
+			}
+		}
+		return names;
+	}
+
+
+	private void checkRep()
+	{
+		assert this.size >= 0 && this.names != null : "RouteArchive: bad size";
+		assert (long) this.indexWindows.length << this.windowShift >= indexHeaderSize + 8L * this.size
+				: "RouteArchive: index too short";
+	}
+
+
+	/**
+	 * A View is a light-weight, reusable window on a single Route of a
+	 * RouteArchive. Its primitive getters read the record of the Route from
+	 * the mapped data file, so moving a View from Route to Route, and
+	 * reading lengths, coordinates and names, doesn't allocate. Views
+	 * aren't safe for use by multiple threads, but any number of Views can
+	 * read the same archive concurrently.
+	 * <p>
+	 * A Route is seen as numOfSegments + 1 points, the start and the
+	 * second endpoint of every segment, and numOfFeatures features, each a
+	 * run of segments with the same name.
+	 * <p>
+	 * <b>The following fields are used in the specification:</b>
+	 * <pre>
+	 *   id : integer    // the id of the Route this View shows
+	 * </pre>
+	 */
+	public final class View {
+
+		private int id;
+		// The window of the record, and the positions of the record, its features and its points in it.
+		private MappedByteBuffer buffer;
+		private int record;
+		private int features;
+		private int points;
+		private int numOfSegments;
+		private int numOfFeatures;
+
+		private View()
+		{
+			this.moveTo(0);
+		}
+
+
+		/**
+		 * Moves this to another Route.
+		 * @requires 0 <= id < size()
+		 * @modifies this
+		 * @effects this.id = id
+		 * @return this
+		 */
+		public View moveTo(int id)
+		{
+			assert 0 <= id && id < RouteArchive.this.size : "RouteArchive.View: id out of range " + id;
+			long offset = offset(RouteArchive.this.indexWindows, RouteArchive.this.windowShift, id);
+			this.id = id;
+			this.buffer = RouteArchive.this.dataWindows[(int) (offset >> RouteArchive.this.windowShift)];
+			this.record = (int) (offset & ((1L << RouteArchive.this.windowShift) - 1));
+			this.numOfSegments = this.buffer.getInt(this.record);
+			this.numOfFeatures = this.buffer.getInt(this.record + 4);
+			this.features = this.record + recordHeaderSize;
+			this.points = this.features + this.numOfFeatures * featureSize;
+			return this;
+		}
+
+
+		/**
+		 * Returns the id of the Route this shows.
+		 * @return this.id
+		 */
+		public int getId()
+		{
+			return this.id;
+		}
+
+
+		/**
+		 * Returns the number of segments of the Route.
+		 * @return the length of routes[this.id].geoSegments
+		 */
+		public int getNumOfSegments()
+		{
+			return this.numOfSegments;
+		}
+
+
+		/**
+		 * Returns the number of features of the Route.
+		 * @return the length of routes[this.id].geoFeatures
+		 */
+		public int getNumOfFeatures()
+		{
+			return this.numOfFeatures;
+		}
+
+
+		/**
+		 * Returns the length of the Route.
+		 * @return routes[this.id].length
+		 */
+		public double getLength()
+		{
+			return this.buffer.getDouble(this.record + 8);
+		}
+
+
+		/**
+		 * Returns the latitude of a point of the Route.
+		 * @requires 0 <= i <= getNumOfSegments()
+		 * @return the latitude of routes[this.id].start if i = 0, and of
+		 *         routes[this.id].geoSegments[i - 1].p2 otherwise.
+		 */
+		public int getLatitude(int i)
+		{
+			assert 0 <= i && i <= this.numOfSegments : "RouteArchive.View: point out of range " + i;
+			return this.buffer.getInt(this.points + i * pointSize);
+		}
+
+
+		/**
+		 * Returns the longitude of a point of the Route.
+		 * @requires 0 <= i <= getNumOfSegments()
+		 * @return the longitude of routes[this.id].start if i = 0, and of
+		 *         routes[this.id].geoSegments[i - 1].p2 otherwise.
+		 */
+		public int getLongitude(int i)
+		{
+			assert 0 <= i && i <= this.numOfSegments : "RouteArchive.View: point out of range " + i;
+			return this.buffer.getInt(this.points + i * pointSize + 4);
+		}
+
+
+		/**
+		 * Returns the length of a segment of the Route.
+		 * @requires 0 <= i < getNumOfSegments()
+		 * @return routes[this.id].geoSegments[i].length
+		 */
+		public double getSegmentLength(int i)
+		{
+			return GeoPointCodec.distance(this.getLatitude(i), this.getLongitude(i), this.getLatitude(i + 1),
+					this.getLongitude(i + 1));
+		}
+
+
+		/**
+		 * Returns the compass heading of a segment of the Route.
+		 * @requires 0 <= i < getNumOfSegments()
+		 * @return routes[this.id].geoSegments[i].heading
+		 */
+		public double getSegmentHeading(int i)
+		{
+			return GeoSegmentTable.heading(this.getLatitude(i), this.getLongitude(i), this.getLatitude(i + 1),
+					this.getLongitude(i + 1));
+		}
+
+
+		/**
+		 * Returns the name id of a feature of the Route.
+		 * @requires 0 <= f < getNumOfFeatures()
+		 * @return the id of the name of routes[this.id].geoFeatures[f]
+		 */
+		public int getFeatureNameId(int f)
+		{
+			assert 0 <= f && f < this.numOfFeatures : "RouteArchive.View: feature out of range " + f;
+			return this.buffer.getInt(this.features + f * featureSize);
+		}
+
+
+		/**
+		 * Returns the name of a feature of the Route.
+		 * @requires 0 <= f < getNumOfFeatures()
+		 * @return routes[this.id].geoFeatures[f].name
+		 */
+		public String getFeatureName(int f)
+		{
+			return RouteArchive.this.names[this.getFeatureNameId(f)];
+		}
+
+
+		/**
+		 * Returns the index of the first segment of a feature of the Route.
+		 * @requires 0 <= f < getNumOfFeatures()
+		 * @return the index of the first segment of
+		 *         routes[this.id].geoFeatures[f] in
+		 *         routes[this.id].geoSegments
+		 */
+		public int getFeatureStart(int f)
+		{
+			return (f == 0) ? 0 : this.getFeatureEnd(f - 1);
+		}
+
+
+		/**
+		 * Returns the index of the segment after a feature of the Route.
+		 * @requires 0 <= f < getNumOfFeatures()
+		 * @return the index of the last segment of
+		 *         routes[this.id].geoFeatures[f] in
+		 *         routes[this.id].geoSegments, plus 1.
+		 */
+		public int getFeatureEnd(int f)
+		{
+			assert 0 <= f && f < this.numOfFeatures : "RouteArchive.View: feature out of range " + f;
+			return this.buffer.getInt(this.features + f * featureSize + 4);
+		}
+
+
+		/**
+		 * Returns the length of a feature of the Route.
+		 * @requires 0 <= f < getNumOfFeatures()
+		 * @return routes[this.id].geoFeatures[f].length
+		 */
+		public double getFeatureLength(int f)
+		{
+			assert 0 <= f && f < this.numOfFeatures : "RouteArchive.View: feature out of range " + f;
+			return this.buffer.getDouble(this.features + f * featureSize + 8);
+		}
+
+
+		/**
+		 * Returns the start of the Route.
+		 * @return a new GeoPoint equal to routes[this.id].start
+		 */
+		public GeoPoint getStart()
+		{
+			return new GeoPoint(this.getLatitude(0), this.getLongitude(0));
+		}
+
+
+		/**
+		 * Returns the end of the Route.
+		 * @return a new GeoPoint equal to routes[this.id].end
+		 */
+		public GeoPoint getEnd()
+		{
+			return new GeoPoint(this.getLatitude(this.numOfSegments), this.getLongitude(this.numOfSegments));
+		}
+
+
+		/**
+		 * Returns the direction of travel at the start of the Route.
+		 * @return routes[this.id].startHeading
+		 */
+		public double getStartHeading()
+		{
+			return this.getSegmentHeading(0);
+		}
+
+
+		/**
+		 * Returns the direction of travel at the end of the Route.
+		 * @return routes[this.id].endHeading
+		 */
+		public double getEndHeading()
+		{
+			return this.getSegmentHeading(this.numOfSegments - 1);
+		}
+
+
+		/**
+		 * Returns the GeoSegments of the Route. The View may be moved while
+		 * the Iterator is in use.
+		 * @return an Iterator of new GeoSegments, equal to
+		 *         routes[this.id].geoSegments, in order, in which
+		 *         consecutive segments share their GeoPoint objects.
+		 */
+		public Iterator<GeoSegment> getGeoSegments()
+		{
+			return new Segments(this.id);
+		}
+
+
+		/**
+		 * Returns the GeoFeatures of the Route. The View may be moved while
+		 * the Iterator is in use.
+		 * @return an Iterator of new GeoFeatures, equal to
+		 *         routes[this.id].geoFeatures, in order.
+		 */
+		public Iterator<GeoFeature> getGeoFeatures()
+		{
+			Segments segments = new Segments(this.id);
+			return new Iterator<GeoFeature>() {
+
+				// The next feature.
+				private int feature = 0;
+
+				@Override
+				public boolean hasNext()
+				{
+					return segments.hasNext();
+				}
+
+				@Override
+				public GeoFeature next()
+				{
+					int end = segments.view.getFeatureEnd(this.feature++);
+					GeoFeature gf = new GeoFeature(segments.next());
+					while (segments.next < end)
+						gf = gf.addSegment(segments.next());
+					return gf;
+				}
+			};
+		}
+
+
+		/**
+		 * Returns the Route this shows.
+		 * @return a new Route equal to routes[this.id].
+		 */
+		public Route toRoute()
+		{
+			Iterator<GeoSegment> segments = this.getGeoSegments();
+			Route route = new Route(segments.next());
+			while (segments.hasNext())
+				route = route.addSegment(segments.next());
+			return route;
+		}
+	}
+
+
+	// The segments of a Route, read by a View of their own.
+	private final class Segments implements Iterator<GeoSegment> {
+
+		private final View view = new View();
+		private int next = 0;
+		// The feature of the next segment.
+		private int feature = 0;
+		private GeoPoint end;
+
+		private Segments(int id)
+		{
+			this.view.moveTo(id);
+			this.end = this.view.getStart();
+		}
+
+
+		@Override
+		public boolean hasNext()
+		{
+			return this.next < this.view.getNumOfSegments();
+		}
+
+
+		@Override
+		public GeoSegment next()
+		{
+			if (!this.hasNext())
+				throw new NoSuchElementException();
+			while (this.view.getFeatureEnd(this.feature) <= this.next)
+				this.feature++;
+			this.next++;
+			GeoPoint p2 = new GeoPoint(this.view.getLatitude(this.next), this.view.getLongitude(this.next));
+			GeoSegment gs = new GeoSegment(this.view.getFeatureName(this.feature), this.end, p2);
+			this.end = p2;
+			return gs;
+		}
+	}
+
+
+	/**
+	 * A Writer appends Routes to an archive, creating it if needed. Only
+	 * one Writer may append to an archive at a time, and Writers aren't
+	 * safe for use by multiple threads. A Writer keeps the offsets of the
+	 * Routes it appends until it's flushed, and flushes itself every 8192
+	 * Routes.
+	 */
+	public static final class Writer implements Flushable, Closeable {
+
+		private final DataOutputStream data;
+		private final DataOutputStream index;
+		private final DataOutputStream namesOut;
+		private final Map<String, Integer> nameIds = new HashMap<>();
+		private final long windowSize;
+		private long dataSize;
+		private int size;
+		// The offsets of the records appended since the last flush, which aren't in the index yet.
+		private final long[] pendingOffsets = new long[maxPending];
+		private int numOfPending = 0;
+
+
+		/**
+		 * Constructs a Writer that appends to the archive in a directory.
+		 * @requires directory != null and is an existing directory.
+		 * @effects Constructs a new Writer that appends to the archive in
+		 *          directory, after creating its files if there are none.
+		 * @throws IOException if the files of the archive can't be read or
+		 *         written, or aren't an archive.
+		 */
+		public Writer(File directory) throws IOException
+		{
+			this(directory, DEFAULT_WINDOW_SHIFT);
+		}
+
+
+		// Constructs a Writer that creates an archive with windows of 1 << windowShift bytes.
+		Writer(File directory, int windowShift) throws IOException
+		{
+			assert directory != null && directory.isDirectory() : "RouteArchive.Writer: not a directory";
+			File indexFile = new File(directory, INDEX_FILE);
+			File dataFile = new File(directory, DATA_FILE);
+			File namesFile = new File(directory, NAMES_FILE);
+			boolean exists = indexFile.exists() && indexFile.length() >= indexHeaderSize;
+			if (exists)
+			{
+				try (DataInputStream in = new DataInputStream(new FileInputStream(indexFile)))
+				{
+					if (in.readInt() != magic)
+						throw new IOException("RouteArchive: not a route archive");
+					windowShift = in.readInt();
+				}
+				long namesSize = 0;
+				for (String name : readNames(namesFile))
+				{
+					this.nameIds.put(name, this.nameIds.size());
+					namesSize += 4 + name.getBytes(StandardCharsets.UTF_8).length;
+				}
+				// What a Writer that didn't finish wrote after the last whole Route and name is cut off.
+				this.size = numOfWholeRecords(indexFile, dataFile);
+				this.dataSize = (this.size == 0) ? 0 : recordEnd(indexFile, dataFile, this.size - 1);
+				truncate(indexFile, indexHeaderSize + 8L * this.size);
+				truncate(dataFile, this.dataSize);
+				truncate(namesFile, namesSize);
+			}
+			this.windowSize = 1L << windowShift;
+			this.data = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(dataFile, exists), 1 << 16));
+			this.namesOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(namesFile, exists)));
+			this.index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, exists)));
+			if (!exists)
+			{
+				// The header is written at once, so the new archive can be opened before the first flush.
+				this.index.writeInt(magic);
+				this.index.writeInt(windowShift);
+				this.index.flush();
+			}
+		}
+
+
+		/**
+		 * Appends a Route.
+		 * @requires route != null
+		 * @modifies this
+		 * @effects appends route to the archive.
+		 * @return the id of route in the archive.
+		 * @throws IOException if the archive can't be written, or route is
+		 *         too long to fit in a window.
+		 */
+		public int append(Route route) throws IOException
+		{
+			assert route != null : "RouteArchive.Writer: route is null";
+			int numOfFeatures = route.getGeoFeaturesSize();
+			List<GeoFeature> features = new ArrayList<>(numOfFeatures);
+			int numOfSegments = 0;
+			for (Iterator<GeoFeature> i = route.getGeoFeatures(); i.hasNext(); )
+			{
+				GeoFeature gf = i.next();
+				features.add(gf);
+				for (Iterator<GeoSegment> j = gf.getGeoSegments(); j.hasNext(); j.next())
+					numOfSegments++;
+			}
+			long recordSize = recordHeaderSize + (long) numOfFeatures * featureSize
+					+ (long) (numOfSegments + 1) * pointSize;
+			if (recordSize > this.windowSize)
+				throw new IOException("RouteArchive: route of " + numOfSegments + " segments doesn't fit in a window");
+			// A record that would cross into the next window starts at it instead.
+			long windowEnd = (this.dataSize / this.windowSize + 1) * this.windowSize;
+			if (this.dataSize + recordSize > windowEnd)
+			{
+				for (long pad = this.dataSize; pad < windowEnd; pad++)
+					this.data.write(0);
+				this.dataSize = windowEnd;
+			}
+			long offset = this.dataSize;
+
+			this.data.writeInt(numOfSegments);
+			this.data.writeInt(numOfFeatures);
+			this.data.writeDouble(route.getLength());
+			int end = 0;
+			for (GeoFeature gf : features)
+			{
+				for (Iterator<GeoSegment> j = gf.getGeoSegments(); j.hasNext(); j.next())
+					end++;
+				this.data.writeInt(this.nameId(gf.getName()));
+				this.data.writeInt(end);
+				this.data.writeDouble(gf.getLength());
+			}
+			this.data.writeInt(route.getStart().getLatitude());
+			this.data.writeInt(route.getStart().getLongitude());
+			for (GeoFeature gf : features)
+			{
+				for (Iterator<GeoSegment> j = gf.getGeoSegments(); j.hasNext(); )
+				{
+					GeoPoint p2 = j.next().getP2();
+					this.data.writeInt(p2.getLatitude());
+					this.data.writeInt(p2.getLongitude());
+				}
+			}
+			this.dataSize += recordSize;
+			this.pendingOffsets[this.numOfPending++] = offset;
+			if (this.numOfPending == this.pendingOffsets.length)
+				this.flush();
+			return this.size++;
+		}
+
+
+		/**
+		 * Returns the number of Routes in the archive.
+		 * @return the number of Routes in the archive, including the ones
+		 *         appended by this.
+		 */
+		public int size()
+		{
+			return this.size;
+		}
+
+
+		/**
+		 * Flushes the archive.
+		 * @modifies this
+		 * @effects writes the Routes appended so far to the files of the
+		 *          archive: the records and names before the index, so an
+		 *          archive opened at any time holds whole Routes.
+		 * @throws IOException if the archive can't be written.
+		 */
+		@Override
+		public void flush() throws IOException
+		{
+			this.data.flush();
+			this.namesOut.flush();
+			for (int i = 0; i < this.numOfPending; i++)
+				this.index.writeLong(this.pendingOffsets[i]);
+			this.numOfPending = 0;
+			this.index.flush();
+		}
+
+
+		/**
+		 * Flushes and closes the archive.
+		 * @modifies this
+		 * @effects flushes this, and closes the files of the archive.
+		 * @throws IOException if the archive can't be written.
+		 */
+		@Override
+		public void close() throws IOException
+		{
+			this.flush();
+			this.data.close();
+			this.namesOut.close();
+			this.index.close();
+		}
+
+
+		private int nameId(String name) throws IOException
+		{
+			Integer id = this.nameIds.get(name);
+			if (id != null)
+				return id;
+			id = this.nameIds.size();
+			this.nameIds.put(name, id);
+			byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+			this.namesOut.writeInt(bytes.length);
+			this.namesOut.write(bytes);
+			return id;
+		}
+	}
+}
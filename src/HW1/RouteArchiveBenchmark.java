@@ -0,0 +1,145 @@
+package HW1;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Appends shortest path Routes of a grid road network to a RouteArchive,
+ * then scans the archive with a single View, summing the lengths of the
+ * Routes and of their segments, and measures the time and the bytes the
+ * scan allocates, next to a scan that builds every Route with toRoute().
+ * <p>
+ * Usage: <tt>java -Xmx2g HW1.RouteArchiveBenchmark [gridSize] [numOfRoutes]</tt>
+ */
+public class RouteArchiveBenchmark {
+
+	// The number of distinct Routes, appended over and over.
+	private static final int poolSize = 1000;
+
+	private final int gridSize;
+	private final int numOfRoutes;
+
+
+	public RouteArchiveBenchmark(int gridSize, int numOfRoutes) {
+		this.gridSize = gridSize;
+		this.numOfRoutes = numOfRoutes;
+	}
+
+
+	// Returns the bytes allocated by the current thread so far, or -1 if the JVM doesn't count them.
+	static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		return -1;
+	}
+
+
+	// Returns the total length of the Routes, read with a single View.
+	static double sumLengths(RouteArchive archive) {
+		RouteArchive.View view = archive.view();
+		double total = 0;
+		for (int id = 0; id < archive.size(); id++)
+			total += view.moveTo(id).getLength();
+		return total;
+	}
+
+
+	// Returns the total length of the segments of the Routes, read with a single View.
+	static double sumSegmentLengths(RouteArchive archive) {
+		RouteArchive.View view = archive.view();
+		double total = 0;
+		for (int id = 0; id < archive.size(); id++) {
+			view.moveTo(id);
+			for (int i = 0; i < view.getNumOfSegments(); i++)
+				total += view.getSegmentLength(i);
+		}
+		return total;
+	}
+
+
+	// Returns the total length of the segments of the first numOfRoutes Routes, built with toRoute().
+	static double sumRouteSegmentLengths(RouteArchive archive, int numOfRoutes) {
+		RouteArchive.View view = archive.view();
+		double total = 0;
+		for (int id = 0; id < numOfRoutes; id++)
+			for (Iterator<GeoSegment> segments = view.moveTo(id).toRoute().getGeoSegments(); segments.hasNext(); )
+				total += segments.next().getLength();
+		return total;
+	}
+
+
+	public void run() throws IOException {
+		RoadGraph graph = RoadGraphBenchmark.createGraph(gridSize);
+		ShortestPathRouter router = new ShortestPathRouter(graph);
+		Random random = new Random(31);
+		Route[] pool = new Route[poolSize];
+		for (int i = 0; i < poolSize; i++) {
+			int source = random.nextInt(graph.numOfNodes());
+			int target = random.nextInt(graph.numOfNodes());
+			while (source == target || !router.search(source, target))
+				target = random.nextInt(graph.numOfNodes());
+			pool[i] = graph.toRoute(router.getPathEdges(), graph.getNodePoint(source));
+		}
+
+		File directory = RouteArchiveTest.createDirectory();
+		long begin = System.nanoTime();
+		try (RouteArchive.Writer writer = new RouteArchive.Writer(directory)) {
+			for (int i = 0; i < numOfRoutes; i++)
+				writer.append(pool[i % poolSize]);
+		}
+		double writeSeconds = (System.nanoTime() - begin) / 1e9;
+		long dataSize = new File(directory, RouteArchive.DATA_FILE).length();
+		RouteArchive archive = RouteArchive.open(directory);
+		double expected = 0;
+		long numOfSegments = 0;
+		for (int i = 0; i < numOfRoutes; i++) {
+			expected += pool[i % poolSize].getLength();
+			numOfSegments += archive.view().moveTo(i % poolSize).getNumOfSegments();
+		}
+
+		// A first pass reads the files into the page cache and warms up the scans.
+		sumLengths(archive);
+		sumSegmentLengths(archive);
+		long allocated = allocatedBytes();
+		begin = System.nanoTime();
+		double lengths = sumLengths(archive);
+		double lengthSeconds = (System.nanoTime() - begin) / 1e9;
+		long lengthBytes = allocatedBytes() - allocated;
+		allocated = allocatedBytes();
+		begin = System.nanoTime();
+		double segmentLengths = sumSegmentLengths(archive);
+		double segmentSeconds = (System.nanoTime() - begin) / 1e9;
+		long segmentBytes = allocatedBytes() - allocated;
+		int numOfRouteScans = Math.min(numOfRoutes, 100000);
+		sumRouteSegmentLengths(archive, numOfRouteScans);
+		allocated = allocatedBytes();
+		begin = System.nanoTime();
+		sumRouteSegmentLengths(archive, numOfRouteScans);
+		double routeSeconds = (System.nanoTime() - begin) / 1e9;
+		long routeBytes = allocatedBytes() - allocated;
+		long routeSegments = numOfSegments / numOfRoutes * numOfRouteScans;
+
+		System.out.println(graph);
+		System.out.printf("Archive:        %d routes, %d segments, %.2f GB, written in %.1f s%n",
+				numOfRoutes, numOfSegments, dataSize / 1e9, writeSeconds);
+		System.out.printf("Route lengths:  %.2f s, %.1f M routes/s, %d bytes allocated%n",
+				lengthSeconds, numOfRoutes / lengthSeconds / 1e6, lengthBytes);
+		System.out.printf("Segment scan:   %.2f s, %.1f M segments/s, %d bytes allocated%n",
+				segmentSeconds, numOfSegments / segmentSeconds / 1e6, segmentBytes);
+		System.out.printf("toRoute() scan: %.1f M segments/s, %.0f bytes allocated per segment (%d routes)%n",
+				routeSegments / routeSeconds / 1e6, (double) routeBytes / routeSegments, numOfRouteScans);
+		System.out.println("Total length as appended: " + (Math.abs(lengths - expected) <= 1e-9 * expected)
+				+ ", segments add up to it: " + (Math.abs(segmentLengths - expected) <= 1e-6 * expected));
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		int gridSize = (args.length > 0) ? Integer.parseInt(args[0]) : 30;
+		int numOfRoutes = (args.length > 1) ? Integer.parseInt(args[1]) : 10000000;
+		new RouteArchiveBenchmark(gridSize, numOfRoutes).run();
+	}
+}
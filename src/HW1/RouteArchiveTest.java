@@ -0,0 +1,261 @@
+package HW1;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Iterator;
+
+public class RouteArchiveTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Returns a new empty temporary directory, deleted with its files on exit.
+	static File createDirectory() throws IOException {
+		File directory = Files.createTempDirectory("routes").toFile();
+		directory.deleteOnExit();
+		for (String name : new String[] { RouteArchive.DATA_FILE, RouteArchive.INDEX_FILE, RouteArchive.NAMES_FILE })
+			new File(directory, name).deleteOnExit();
+		return directory;
+	}
+
+
+	// Returns true iff the View shows the same length, points, segments and features as the route.
+	static boolean sameAsView(RouteArchive.View view, Route route) {
+		boolean same = view.getLength() == route.getLength() && view.getStart().equals(route.getStart())
+			&& view.getEnd().equals(route.getEnd()) && view.getStartHeading() == route.getStartHeading()
+			&& view.getEndHeading() == route.getEndHeading()
+			&& view.getNumOfFeatures() == route.getGeoFeaturesSize();
+		int i = 0;
+		for (Iterator<GeoSegment> segments = route.getGeoSegments(); segments.hasNext(); i++) {
+			GeoSegment gs = segments.next();
+			same &= i < view.getNumOfSegments() && view.getLatitude(i + 1) == gs.getP2().getLatitude()
+				&& view.getLongitude(i + 1) == gs.getP2().getLongitude()
+				&& Math.abs(view.getSegmentLength(i) - gs.getLength()) < 1e-12;
+		}
+		int f = 0;
+		for (Iterator<GeoFeature> features = route.getGeoFeatures(); features.hasNext(); f++) {
+			GeoFeature gf = features.next();
+			same &= view.getFeatureName(f).equals(gf.getName()) && view.getFeatureLength(f) == gf.getLength();
+		}
+		return same && i == view.getNumOfSegments();
+	}
+
+
+	// Returns true iff opening the archive fails with an IOException.
+	static boolean fails(File directory) {
+		try {
+			RouteArchive.open(directory);
+			return false;
+		}
+		catch (IOException e) {
+			return true;
+		}
+	}
+
+
+	// Returns true iff the archive opens, holds at most n Routes, and each of them is the one appended with its id.
+	static boolean opensWhole(File directory, Route[] appended, int n) {
+		try {
+			RouteArchive archive = RouteArchive.open(directory);
+			boolean whole = archive.size() <= n;
+			for (int id = 0; whole && id < archive.size(); id++)
+				whole = archive.getRoute(id).equals(appended[id]);
+			return whole;
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+
+
+	public void test() throws IOException {
+		GeoSegment[] chain = RouteAppendBenchmark.createSegments(3000);
+		Route longRoute = RouteCodecTest.toRoute(chain);
+		Route shortRoute = RouteCodecTest.toRoute(Arrays.copyOfRange(chain, 5, 8));
+		Route single = new Route(chain[100]);
+		Route example = RouteCodecTest.toRoute(Arrays.copyOfRange(ExampleGeoSegments.segments, 0, 3));
+		Route[] routes = { longRoute, shortRoute, single, example };
+
+		show("Writer & open");
+		File directory = createDirectory();
+		RouteArchive.Writer writer = new RouteArchive.Writer(directory);
+		boolean ids = true;
+		for (int i = 0; i < routes.length; i++)
+			ids &= writer.append(routes[i]) == i;
+		writer.close();
+		show("append() returns consecutive ids", ids && writer.size() == routes.length);
+		RouteArchive archive = RouteArchive.open(directory);
+		show("The archive has all the Routes", archive.size() == routes.length);
+		boolean equal = true;
+		boolean features = true;
+		for (int i = 0; i < routes.length; i++) {
+			equal &= archive.getRoute(i).equals(routes[i]);
+			features &= RouteCodecTest.sameFeatures(archive.getRoute(i), routes[i]);
+		}
+		show("getRoute() equals the Route appended", equal);
+		show("getRoute() has the same GeoFeatures", features);
+		show("Names are stored once", archive.numOfNames() == 300 + 2);
+
+		show("View");
+		RouteArchive.View view = archive.view();
+		boolean same = true;
+		for (int i = routes.length - 1; i >= 0; i--)
+			same &= sameAsView(view.moveTo(i), routes[i]) && view.getId() == i;
+		show("A View shows each Route it is moved to", same);
+		view.moveTo(3);
+		show("Features of a Route start where the one before ends", view.getNumOfFeatures() == 2
+			&& view.getFeatureStart(1) == 1 && view.getFeatureEnd(1) == 3
+			&& view.getFeatureName(1).equals(ExampleGeoSegments.segments[1].getName()));
+		Iterator<GeoSegment> segments = view.getGeoSegments();
+		view.moveTo(0);
+		GeoSegment previous = segments.next();
+		boolean shared = previous.equals(ExampleGeoSegments.segments[0]);
+		for (int i = 1; segments.hasNext(); i++) {
+			GeoSegment gs = segments.next();
+			shared &= gs.getP1() == previous.getP2() && gs.equals(ExampleGeoSegments.segments[i]);
+			previous = gs;
+		}
+		show("getGeoSegments() doesn't follow the View, and shares GeoPoints", shared);
+		Iterator<GeoFeature> i = view.moveTo(1).getGeoFeatures();
+		Iterator<GeoFeature> j = shortRoute.getGeoFeatures();
+		boolean sameFeatures = true;
+		while (i.hasNext() && j.hasNext())
+			sameFeatures &= i.next().equals(j.next());
+		show("getGeoFeatures() equals the Route's", sameFeatures && !i.hasNext() && !j.hasNext());
+		// Every feature of the long Route has several segments.
+		i = view.moveTo(0).getGeoFeatures();
+		j = longRoute.getGeoFeatures();
+		sameFeatures = true;
+		while (i.hasNext() && j.hasNext())
+			sameFeatures &= i.next().equals(j.next());
+		show("getGeoFeatures() groups the segments of every feature", sameFeatures && !i.hasNext() && !j.hasNext()
+			&& longRoute.getGeoFeaturesSize() > 1);
+
+		show("Appending");
+		writer = new RouteArchive.Writer(directory);
+		show("A Writer of an existing archive continues its ids", writer.append(example) == routes.length);
+		writer.flush();
+		show("An archive opened before doesn't change", archive.size() == routes.length);
+		RouteArchive flushed = RouteArchive.open(directory);
+		show("Flushed Routes can be opened before the Writer is closed", flushed.size() == routes.length + 1
+			&& flushed.getRoute(routes.length).equals(example) && flushed.numOfNames() == archive.numOfNames());
+		writer.close();
+
+		show("Windows");
+		File small = createDirectory();
+		writer = new RouteArchive.Writer(small, 10);
+		boolean tooLong = false;
+		try {
+			writer.append(longRoute);
+		}
+		catch (IOException e) {
+			tooLong = true;
+		}
+		show("A Route larger than a window can't be appended", tooLong);
+		for (int k = 0; k < 100; k++)
+			writer.append((k % 2 == 0) ? shortRoute : example);
+		writer.close();
+		RouteArchive windows = RouteArchive.open(small);
+		equal = windows.size() == 100;
+		view = windows.view();
+		for (int k = 0; k < windows.size(); k++)
+			equal &= sameAsView(view.moveTo(k), (k % 2 == 0) ? shortRoute : example);
+		show("Routes are read across many small windows", equal
+			&& new File(small, RouteArchive.DATA_FILE).length() > 1 << 10);
+
+		show("Bad archives");
+		File empty = createDirectory();
+		new RouteArchive.Writer(empty).close();
+		show("An empty archive has no Routes", RouteArchive.open(empty).size() == 0);
+		show("A directory without an archive fails", fails(createDirectory()));
+		File bad = createDirectory();
+		new RouteArchive.Writer(bad).close();
+		try (RandomAccessFile raf = new RandomAccessFile(new File(bad, RouteArchive.INDEX_FILE), "rw")) {
+			raf.writeInt(0);
+		}
+		show("Other files fail", fails(bad));
+		File truncated = createDirectory();
+		writer = new RouteArchive.Writer(truncated);
+		writer.append(shortRoute);
+		writer.close();
+		try (RandomAccessFile raf = new RandomAccessFile(new File(truncated, RouteArchive.DATA_FILE), "rw")) {
+			raf.setLength(10);
+		}
+		show("An index ahead of the data fails", fails(truncated));
+
+		show("Writers that don't finish");
+		// Single segment Routes with long distinct names, so all the buffers of a Writer fill up between flushes.
+		Route[] many = new Route[3000];
+		for (int k = 0; k < many.length; k++)
+			many[k] = new Route(new GeoSegment("Road number " + k + " of the archive that is never flushed",
+				chain[k].getP1(), chain[k].getP2()));
+		File unflushed = createDirectory();
+		writer = new RouteArchive.Writer(unflushed);
+		boolean whole = opensWhole(unflushed, many, 0);
+		for (int k = 0; k < 2000; k++) {
+			writer.append(many[k]);
+			if (k % 50 == 0)
+				whole &= opensWhole(unflushed, many, 0);
+		}
+		show("An archive opened between appends, before a flush, holds no Routes", whole);
+		writer.flush();
+		whole = opensWhole(unflushed, many, 2000) && RouteArchive.open(unflushed).size() == 2000;
+		for (int k = 2000; k < many.length; k++) {
+			writer.append(many[k]);
+			if (k % 50 == 0)
+				whole &= opensWhole(unflushed, many, 2000);
+		}
+		show("An archive opened between appends holds the flushed Routes", whole);
+		// The Writer is abandoned without a flush, as if its process was killed.
+		writer = new RouteArchive.Writer(unflushed);
+		show("A new Writer continues after the flushed Routes", writer.size() == 2000
+			&& writer.append(example) == 2000);
+		writer.close();
+		RouteArchive recovered = RouteArchive.open(unflushed);
+		// The whole names the abandoned Writer wrote are kept, unused.
+		equal = recovered.size() == 2001 && recovered.getRoute(2000).equals(example)
+			&& recovered.numOfNames() >= 2000 + 2;
+		for (int id = 0; id < 2000; id++)
+			equal &= recovered.getRoute(id).equals(many[id]);
+		show("Its Routes are appended after the flushed ones", equal);
+		try (RandomAccessFile raf = new RandomAccessFile(new File(unflushed, RouteArchive.INDEX_FILE), "rw")) {
+			raf.seek(raf.length());
+			raf.write(new byte[3]);
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(new File(unflushed, RouteArchive.NAMES_FILE), "rw")) {
+			raf.seek(raf.length());
+			raf.writeInt(100);
+			raf.write(new byte[10]);
+		}
+		RouteArchive torn = RouteArchive.open(unflushed);
+		show("A part of an offset and of a name are ignored", torn.size() == 2001
+			&& torn.getRoute(2000).equals(example) && torn.numOfNames() == recovered.numOfNames());
+		writer = new RouteArchive.Writer(truncated);
+		show("A new Writer cuts an index ahead of the data", writer.size() == 0 && writer.append(example) == 0);
+		writer.close();
+		recovered = RouteArchive.open(truncated);
+		show("And writes over the part of the record", recovered.size() == 1
+			&& recovered.getRoute(0).equals(example));
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		RouteArchiveTest archiveTest = new RouteArchiveTest();
+		archiveTest.test();
+	}
+}
@@ -0,0 +1,535 @@
+package HW1;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * RouteCodec writes Routes, GeoFeatures and GeoSegments to a compact
+ * binary stream, and reads them back.
+ * <p>
+ * A stream is a header followed by records, each a tag byte and the
+ * fields of one object, all numbers in it being unsigned LEB128 varints:
+ * <ul>
+ * <li>A name is the id of the name in the dictionary of the stream. The
+ *     first time a name is written, its id is the size of the dictionary,
+ *     and is followed by the length and UTF-8 bytes of the name, which
+ *     then join the dictionary. So the dictionary is built as the stream
+ *     is written and read, and never needs to be known up front.
+ * <li>A point is the difference of its latitude and of its longitude
+ *     from the point written before it, zigzag encoded so small negative
+ *     differences are small too. The first point of a stream is relative
+ *     to (0, 0).
+ * <li>Consecutive segments of a Route or a GeoFeature share their
+ *     endpoints, so only the start point and the second endpoint of every
+ *     segment are written.
+ * <li>A Route is written as its GeoFeatures: for each one its name, its
+ *     number of segments and their endpoints. Reading it back builds the
+ *     same GeoFeatures, and segments that share GeoPoint objects.
+ * </ul>
+ * A segment of a few dozen meters then takes a byte or two per coordinate,
+ * and a name a byte or two after its first use.
+ * <p>
+ * Both the Writer and the Reader stream: they buffer a block of bytes at a
+ * time, and hold nothing else but the dictionary.
+ */
+public final class RouteCodec {
+
+	/** The kind of the next record, as returned by Reader.next(). **/
+	public static final int END = 0, ROUTE = 1, GEO_FEATURE = 2, GEO_SEGMENT = 3;
+
+	// The first bytes of a stream: "HW1R", and the version of the format.
+	private static final int magic = 0x48573152;
+	private static final int version = 1;
+
+	private static final int bufferSize = 1 << 16;
+
+
+	private RouteCodec()
+	{
+	}
+
+
+	/**
+	 * A Writer writes Routes, GeoFeatures and GeoSegments to an output
+	 * stream. Writers aren't safe for use by multiple threads.
+	 */
+	public static final class Writer implements Flushable, Closeable {
+
+		private final OutputStream out;
+		private final byte[] buffer = new byte[bufferSize];
+		private int size = 0;
+		private long bytesWritten = 0;
+		private final Map<String, Integer> nameIds = new HashMap<>();
+		private int lastLatitude = 0;
+		private int lastLongitude = 0;
+
+
+		/**
+		 * Constructs a Writer that writes to out.
+		 * @requires out != null
+		 * @effects Constructs a new Writer, and writes the header of the
+		 *          stream.
+		 * @throws IOException if out can't be written.
+		 */
+		public Writer(OutputStream out) throws IOException
+		{
+			assert out != null : "RouteCodec.Writer: out is null";
+			this.out = out;
+			for (int shift = 24; shift >= 0; shift -= 8)
+				this.writeByte(magic >>> shift);
+			this.writeByte(version);
+		}
+
+
+		/**
+		 * Writes a Route.
+		 * @requires route != null
+		 * @modifies this
+		 * @effects writes route to the stream.
+		 * @throws IOException if the stream can't be written.
+		 */
+		public void writeRoute(Route route) throws IOException
+		{
+			assert route != null : "RouteCodec.Writer: route is null";
+			this.writeByte(ROUTE);
+			this.writeVarint(route.getGeoFeaturesSize());
+			this.writePoint(route.getStart());
+			for (Iterator<GeoFeature> features = route.getGeoFeatures(); features.hasNext(); )
+				this.writeSegments(features.next());
+		}
+
+
+		/**
+		 * Writes a GeoFeature.
+		 * @requires gf != null
+		 * @modifies this
+		 * @effects writes gf to the stream.
+		 * @throws IOException if the stream can't be written.
+		 */
+		public void writeGeoFeature(GeoFeature gf) throws IOException
+		{
+			assert gf != null : "RouteCodec.Writer: gf is null";
+			this.writeByte(GEO_FEATURE);
+			this.writePoint(gf.getStart());
+			this.writeSegments(gf);
+		}
+
+
+		/**
+		 * Writes a GeoSegment.
+		 * @requires gs != null
+		 * @modifies this
+		 * @effects writes gs to the stream.
+		 * @throws IOException if the stream can't be written.
+		 */
+		public void writeGeoSegment(GeoSegment gs) throws IOException
+		{
+			assert gs != null : "RouteCodec.Writer: gs is null";
+			this.writeByte(GEO_SEGMENT);
+			this.writeName(gs.getName());
+			this.writePoint(gs.getP1());
+			this.writePoint(gs.getP2());
+		}
+
+
+		/**
+		 * Returns the number of bytes written so far.
+		 * @return the number of bytes of the stream written by this,
+		 *         including ones not flushed yet.
+		 */
+		public long getBytesWritten()
+		{
+			return this.bytesWritten + this.size;
+		}
+
+
+		/**
+		 * Flushes the stream.
+		 * @modifies this
+		 * @effects writes the buffered bytes to the output stream, and
+		 *          flushes it.
+		 * @throws IOException if the stream can't be written.
+		 */
+		@Override
+		public void flush() throws IOException
+		{
+			this.drain();
+			this.out.flush();
+		}
+
+
+		/**
+		 * Flushes and closes the stream.
+		 * @modifies this
+		 * @effects flushes this, and closes the output stream.
+		 * @throws IOException if the stream can't be written or closed.
+		 */
+		@Override
+		public void close() throws IOException
+		{
+			this.flush();
+			this.out.close();
+		}
+
+
+		// Writes the name, the number of segments and the second endpoints of the segments of a feature.
+		private void writeSegments(GeoFeature gf) throws IOException
+		{
+			this.writeName(gf.getName());
+			int count = 0;
+			for (Iterator<GeoSegment> segments = gf.getGeoSegments(); segments.hasNext(); segments.next())
+				count++;
+			this.writeVarint(count);
+			for (Iterator<GeoSegment> segments = gf.getGeoSegments(); segments.hasNext(); )
+				this.writePoint(segments.next().getP2());
+		}
+
+
+		private void writeName(String name) throws IOException
+		{
+			Integer id = this.nameIds.get(name);
+			if (id != null)
+			{
+				this.writeVarint(id);
+				return;
+			}
+			this.writeVarint(this.nameIds.size());
+			this.nameIds.put(name, this.nameIds.size());
+			byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+			this.writeVarint(bytes.length);
+			for (byte b : bytes)
+				this.writeByte(b);
+		}
+
+
+		private void writePoint(GeoPoint gp) throws IOException
+		{
+			int latitude = gp.getLatitude();
+			int longitude = gp.getLongitude();
+			this.writeVarint(zigzag(latitude - this.lastLatitude));
+			this.writeVarint(zigzag(longitude - this.lastLongitude));
+			this.lastLatitude = latitude;
+			this.lastLongitude = longitude;
+		}
+
+
+		// Writes the bits of value, which is taken as unsigned, 7 at a time, the lowest first, with the high bit of
+		// every byte but the last set.
+		private void writeVarint(int value) throws IOException
+		{
+			if (this.size + 5 > this.buffer.length)
+				this.drain();
+			while ((value & ~0x7F) != 0)
+			{
+				this.buffer[this.size++] = (byte) (value & 0x7F | 0x80);
+				value >>>= 7;
+			}
+			this.buffer[this.size++] = (byte) value;
+		}
+
+
+		private void writeByte(int b) throws IOException
+		{
+			if (this.size == this.buffer.length)
+				this.drain();
+			this.buffer[this.size++] = (byte) b;
+		}
+
+
+		private void drain() throws IOException
+		{
+			this.out.write(this.buffer, 0, this.size);
+			this.bytesWritten += this.size;
+			this.size = 0;
+		}
+	}
+
+
+	/**
+	 * A Reader reads the Routes, GeoFeatures and GeoSegments a Writer
+	 * wrote, in the order they were written. Readers aren't safe for use by
+	 * multiple threads.
+	 */
+	public static final class Reader implements Closeable {
+
+		private final InputStream in;
+		private final byte[] buffer = new byte[bufferSize];
+		private int position = 0;
+		private int limit = 0;
+		private String[] names = new String[16];
+		private int numOfNames = 0;
+		private int lastLatitude = 0;
+		private int lastLongitude = 0;
+		// The GeoPoint of (lastLatitude, lastLongitude), the start of the next segment of a Route or GeoFeature.
+		private GeoPoint lastPoint;
+		// The tag of the next record, read by next(), or -1 if next() hasn't read it yet.
+		private int tag = -1;
+
+
+		/**
+		 * Constructs a Reader that reads from in.
+		 * @requires in != null
+		 * @effects Constructs a new Reader, and reads the header of the
+		 *          stream.
+		 * @throws IOException if in can't be read, or doesn't start with
+		 *         the header a Writer writes.
+		 */
+		public Reader(InputStream in) throws IOException
+		{
+			assert in != null : "RouteCodec.Reader: in is null";
+			this.in = in;
+			int header = 0;
+			for (int i = 0; i < 4; i++)
+				header = header << 8 | this.readByte();
+			if (header != magic)
+				throw new IOException("RouteCodec: not a route stream");
+			int v = this.readByte();
+			if (v != version)
+				throw new IOException("RouteCodec: unknown version " + v);
+		}
+
+
+		/**
+		 * Returns the kind of the next record.
+		 * @return ROUTE, GEO_FEATURE or GEO_SEGMENT, the kind of the next
+		 *         record of the stream, or END if there are no more.
+		 * @throws IOException if the stream can't be read, or the next
+		 *         record is of no kind.
+		 */
+		public int next() throws IOException
+		{
+			if (this.tag < 0)
+			{
+				if (this.position == this.limit && !this.fill())
+					this.tag = END;
+				else
+					this.tag = this.readByte();
+				if (this.tag != END && this.tag != ROUTE && this.tag != GEO_FEATURE && this.tag != GEO_SEGMENT)
+					throw new IOException("RouteCodec: bad record tag " + this.tag);
+			}
+			return this.tag;
+		}
+
+
+		/**
+		 * Reads a Route.
+		 * @modifies this
+		 * @effects moves past the next record.
+		 * @return the Route of the next record, or null if there are no
+		 *         more records.
+		 * @throws IOException if the stream can't be read, or the next
+		 *         record isn't a well formed Route.
+		 */
+		public Route readRoute() throws IOException
+		{
+			if (this.expect(ROUTE))
+				return null;
+			int numOfFeatures = this.readCount();
+			this.readStart();
+			Route route = null;
+			for (int f = 0; f < numOfFeatures; f++)
+			{
+				String name = this.readName();
+				int numOfSegments = this.readCount();
+				for (int s = 0; s < numOfSegments; s++)
+				{
+					GeoSegment gs = this.readSegment(name);
+					route = (route == null) ? new Route(gs) : route.addSegment(gs);
+				}
+			}
+			return route;
+		}
+
+
+		/**
+		 * Reads a GeoFeature.
+		 * @modifies this
+		 * @effects moves past the next record.
+		 * @return the GeoFeature of the next record, or null if there are no
+		 *         more records.
+		 * @throws IOException if the stream can't be read, or the next
+		 *         record isn't a well formed GeoFeature.
+		 */
+		public GeoFeature readGeoFeature() throws IOException
+		{
+			if (this.expect(GEO_FEATURE))
+				return null;
+			this.readStart();
+			String name = this.readName();
+			int numOfSegments = this.readCount();
+			GeoFeature gf = new GeoFeature(this.readSegment(name));
+			for (int s = 1; s < numOfSegments; s++)
+				gf = gf.addSegment(this.readSegment(name));
+			return gf;
+		}
+
+
+		/**
+		 * Reads a GeoSegment.
+		 * @modifies this
+		 * @effects moves past the next record.
+		 * @return the GeoSegment of the next record, or null if there are no
+		 *         more records.
+		 * @throws IOException if the stream can't be read, or the next
+		 *         record isn't a well formed GeoSegment.
+		 */
+		public GeoSegment readGeoSegment() throws IOException
+		{
+			if (this.expect(GEO_SEGMENT))
+				return null;
+			String name = this.readName();
+			this.readStart();
+			return this.readSegment(name);
+		}
+
+
+		/**
+		 * Closes the stream.
+		 * @modifies this
+		 * @effects closes the input stream.
+		 * @throws IOException if the stream can't be closed.
+		 */
+		@Override
+		public void close() throws IOException
+		{
+			this.in.close();
+		}
+
+
+		// Returns true iff there are no more records, and otherwise checks that the next one is of kind, and moves
+		// past its tag.
+		private boolean expect(int kind) throws IOException
+		{
+			int next = this.next();
+			if (next == END)
+				return true;
+			if (next != kind)
+				throw new IOException("RouteCodec: expected a record of kind " + kind + ", not " + next);
+			this.tag = -1;
+			return false;
+		}
+
+
+		// Reads the start point of a record, which the first segment starts at.
+		private void readStart() throws IOException
+		{
+			this.readPoint();
+			this.lastPoint = new GeoPoint(this.lastLatitude, this.lastLongitude);
+		}
+
+
+		// Reads the second endpoint of a segment that starts at this.lastPoint.
+		private GeoSegment readSegment(String name) throws IOException
+		{
+			this.readPoint();
+			if (this.lastLatitude == this.lastPoint.getLatitude() && this.lastLongitude == this.lastPoint.getLongitude())
+				throw new IOException("RouteCodec: a segment of identical endpoints");
+			GeoPoint p2 = new GeoPoint(this.lastLatitude, this.lastLongitude);
+			GeoSegment gs = new GeoSegment(name, this.lastPoint, p2);
+			this.lastPoint = p2;
+			return gs;
+		}
+
+
+		private void readPoint() throws IOException
+		{
+			long latitude = (long) this.lastLatitude + unzigzag(this.readVarint());
+			long longitude = (long) this.lastLongitude + unzigzag(this.readVarint());
+			if (latitude < GeoPoint.MIN_LATITUDE || latitude > GeoPoint.MAX_LATITUDE
+					|| longitude < GeoPoint.MIN_LONGITUDE || longitude > GeoPoint.MAX_LONGITUDE)
+				throw new IOException("RouteCodec: point out of range");
+			this.lastLatitude = (int) latitude;
+			this.lastLongitude = (int) longitude;
+		}
+
+
+		private String readName() throws IOException
+		{
+			int id = this.readVarint();
+			if (id < 0 || id > this.numOfNames)
+				throw new IOException("RouteCodec: unknown name id " + id);
+			if (id < this.numOfNames)
+				return this.names[id];
+			int length = this.readVarint();
+			if (length <= 0)
+				throw new IOException("RouteCodec: bad name length " + length);
+			// The buffer grows with the bytes read, so a corrupt length ends the stream rather than allocating it.
+			byte[] bytes = new byte[Math.min(length, bufferSize)];
+			for (int i = 0; i < length; i++)
+			{
+				if (i == bytes.length)
+					bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * bytes.length));
+				bytes[i] = (byte) this.readByte();
+			}
+			if (this.numOfNames == this.names.length)
+				this.names = Arrays.copyOf(this.names, 2 * this.numOfNames);
+			this.names[this.numOfNames++] = new String(bytes, StandardCharsets.UTF_8);
+			return this.names[id];
+		}
+
+
+		// Reads a number of segments or features, which is positive.
+		private int readCount() throws IOException
+		{
+			int count = this.readVarint();
+			if (count <= 0)
+				throw new IOException("RouteCodec: bad count " + count);
+			return count;
+		}
+
+
+		private int readVarint() throws IOException
+		{
+			int value = 0;
+			for (int shift = 0; shift < 35; shift += 7)
+			{
+				int b = (this.position < this.limit) ? this.buffer[this.position++] : (byte) this.readByte();
+				value |= (b & 0x7F) << shift;
+				if (b >= 0)
+					return value;
+			}
+			throw new IOException("RouteCodec: varint too long");
+		}
+
+
+		private int readByte() throws IOException
+		{
+			if (this.position == this.limit && !this.fill())
+				throw new EOFException("RouteCodec: unexpected end of stream");
+			return this.buffer[this.position++] & 0xFF;
+		}
+
+
+		// Reads the next bytes of the stream into the buffer, returning false at the end of the stream.
+		private boolean fill() throws IOException
+		{
+			int count = this.in.read(this.buffer, 0, this.buffer.length);
+			if (count <= 0)
+				return false;
+			this.position = 0;
+			this.limit = count;
+			return true;
+		}
+	}
+
+
+	private static int zigzag(int value)
+	{
+		return (value << 1) ^ (value >> 31);
+	}
+
+
+	private static int unzigzag(int value)
+	{
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
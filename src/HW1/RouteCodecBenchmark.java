@@ -0,0 +1,163 @@
+package HW1;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Writes and reads back shortest path Routes of a grid road network with
+ * RouteCodec, and with a naive format that writes every segment as its
+ * name and its four coordinates with a DataOutputStream, and compares
+ * their sizes and speeds.
+ * <p>
+ * Usage: <tt>java -Xmx3g HW1.RouteCodecBenchmark [gridSize] [numOfRoutes]</tt>
+ */
+public class RouteCodecBenchmark {
+
+	private final int gridSize;
+	private final int numOfRoutes;
+
+
+	public RouteCodecBenchmark(int gridSize, int numOfRoutes) {
+		this.gridSize = gridSize;
+		this.numOfRoutes = numOfRoutes;
+	}
+
+
+	static byte[] encode(Route[] routes) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		RouteCodec.Writer writer = new RouteCodec.Writer(bytes);
+		for (Route route : routes)
+			writer.writeRoute(route);
+		writer.close();
+		return bytes.toByteArray();
+	}
+
+
+	static Route[] decode(byte[] bytes, int numOfRoutes) throws IOException {
+		RouteCodec.Reader reader = new RouteCodec.Reader(new ByteArrayInputStream(bytes));
+		Route[] routes = new Route[numOfRoutes];
+		for (int i = 0; i < numOfRoutes; i++)
+			routes[i] = reader.readRoute();
+		return routes;
+	}
+
+
+	// The naive format: the number of segments of each Route, and every segment as its name and coordinates.
+	static byte[] encodeNaive(Route[] routes) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for (Route route : routes) {
+			int count = 0;
+			for (Iterator<GeoSegment> segments = route.getGeoSegments(); segments.hasNext(); segments.next())
+				count++;
+			out.writeInt(count);
+			for (Iterator<GeoSegment> segments = route.getGeoSegments(); segments.hasNext(); ) {
+				GeoSegment gs = segments.next();
+				out.writeUTF(gs.getName());
+				out.writeInt(gs.getP1().getLatitude());
+				out.writeInt(gs.getP1().getLongitude());
+				out.writeInt(gs.getP2().getLatitude());
+				out.writeInt(gs.getP2().getLongitude());
+			}
+		}
+		out.close();
+		return bytes.toByteArray();
+	}
+
+
+	static Route[] decodeNaive(byte[] bytes, int numOfRoutes) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		Route[] routes = new Route[numOfRoutes];
+		for (int i = 0; i < numOfRoutes; i++) {
+			int count = in.readInt();
+			Route route = null;
+			GeoPoint end = null;
+			for (int s = 0; s < count; s++) {
+				String name = in.readUTF();
+				GeoPoint p1 = new GeoPoint(in.readInt(), in.readInt());
+				GeoPoint p2 = new GeoPoint(in.readInt(), in.readInt());
+				// GeoFeature needs consecutive segments to share their GeoPoint objects.
+				GeoSegment gs = new GeoSegment(name, (end != null && end.equals(p1)) ? end : p1, p2);
+				route = (route == null) ? new Route(gs) : route.addSegment(gs);
+				end = p2;
+			}
+			routes[i] = route;
+		}
+		return routes;
+	}
+
+
+	// Returns the best time of 3 rounds of a task, in seconds.
+	static double time(Task task) throws IOException {
+		long best = Long.MAX_VALUE;
+		for (int round = 0; round < 3; round++) {
+			long begin = System.nanoTime();
+			task.run();
+			best = Math.min(best, System.nanoTime() - begin);
+		}
+		return best / 1e9;
+	}
+
+
+	interface Task {
+		void run() throws IOException;
+	}
+
+
+	public void run() throws IOException {
+		RoadGraph graph = RoadGraphBenchmark.createGraph(gridSize);
+		ShortestPathRouter router = new ShortestPathRouter(graph);
+		Random random = new Random(29);
+		Route[] routes = new Route[numOfRoutes];
+		long numOfSegments = 0;
+		for (int i = 0; i < numOfRoutes; i++) {
+			int source = random.nextInt(graph.numOfNodes());
+			int target = random.nextInt(graph.numOfNodes());
+			while (source == target || !router.search(source, target))
+				target = random.nextInt(graph.numOfNodes());
+			int[] path = router.getPathEdges();
+			routes[i] = graph.toRoute(path, graph.getNodePoint(source));
+			numOfSegments += path.length;
+		}
+
+		byte[] compact = encode(routes);
+		byte[] naive = encodeNaive(routes);
+		Route[] compactCopies = decode(compact, numOfRoutes);
+		Route[] naiveCopies = decodeNaive(naive, numOfRoutes);
+		boolean same = true;
+		for (int i = 0; i < numOfRoutes; i++)
+			same &= compactCopies[i].equals(routes[i]) && naiveCopies[i].equals(routes[i]);
+		compactCopies = null;
+		naiveCopies = null;
+
+		double encodeCompact = time(() -> encode(routes));
+		double encodeNaive = time(() -> encodeNaive(routes));
+		double decodeCompact = time(() -> decode(compact, numOfRoutes));
+		double decodeNaive = time(() -> decodeNaive(naive, numOfRoutes));
+
+		System.out.println(graph);
+		System.out.printf("Routes:  %d, %d segments%n", numOfRoutes, numOfSegments);
+		System.out.printf("Size:    RouteCodec %.1f MB (%.2f bytes/segment), naive %.1f MB (%.2f bytes/segment), "
+				+ "%.1fx smaller%n", compact.length / 1e6, (double) compact.length / numOfSegments, naive.length / 1e6,
+				(double) naive.length / numOfSegments, (double) naive.length / compact.length);
+		System.out.printf("Encode:  RouteCodec %.1f M segments/s (%.0f MB/s), naive %.1f M segments/s%n",
+				numOfSegments / encodeCompact / 1e6, compact.length / encodeCompact / 1e6,
+				numOfSegments / encodeNaive / 1e6);
+		System.out.printf("Decode:  RouteCodec %.1f M segments/s (%.0f MB/s), naive %.1f M segments/s%n",
+				numOfSegments / decodeCompact / 1e6, compact.length / decodeCompact / 1e6,
+				numOfSegments / decodeNaive / 1e6);
+		System.out.println("Routes read back equal the ones written: " + same);
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		int gridSize = (args.length > 0) ? Integer.parseInt(args[0]) : 300;
+		int numOfRoutes = (args.length > 1) ? Integer.parseInt(args[1]) : 10000;
+		new RouteCodecBenchmark(gridSize, numOfRoutes).run();
+	}
+}
@@ -0,0 +1,167 @@
+package HW1;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+public class RouteCodecTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Returns a Route of the segments.
+	static Route toRoute(GeoSegment[] segments) {
+		Route route = new Route(segments[0]);
+		for (int i = 1; i < segments.length; i++)
+			route = route.addSegment(segments[i]);
+		return route;
+	}
+
+
+	// Returns true iff both routes have GeoFeatures with the same names and segments.
+	static boolean sameFeatures(Route a, Route b) {
+		Iterator<GeoFeature> i = a.getGeoFeatures();
+		Iterator<GeoFeature> j = b.getGeoFeatures();
+		while (i.hasNext() && j.hasNext())
+			if (!i.next().equals(j.next()))
+				return false;
+		return !i.hasNext() && !j.hasNext();
+	}
+
+
+	// Returns true iff reading the bytes fails with an IOException.
+	static boolean fails(byte[] bytes) {
+		try {
+			RouteCodec.Reader reader = new RouteCodec.Reader(new ByteArrayInputStream(bytes));
+			while (reader.next() != RouteCodec.END)
+				reader.readRoute();
+			return false;
+		}
+		catch (IOException e) {
+			return true;
+		}
+	}
+
+
+	public void test() throws IOException {
+		GeoSegment[] chain = RouteAppendBenchmark.createSegments(3000);
+		Route longRoute = toRoute(chain);
+		Route shortRoute = toRoute(Arrays.copyOfRange(chain, 5, 8));
+		Route single = new Route(chain[100]);
+		GeoPoint[] corners = { new GeoPoint(GeoPoint.MIN_LATITUDE, GeoPoint.MIN_LONGITUDE),
+			new GeoPoint(GeoPoint.MAX_LATITUDE, GeoPoint.MAX_LONGITUDE), new GeoPoint(-1, 1),
+			new GeoPoint(GeoPoint.MAX_LATITUDE, GeoPoint.MIN_LONGITUDE) };
+		GeoSegment[] jumps = new GeoSegment[corners.length - 1];
+		for (int i = 0; i < jumps.length; i++)
+			jumps[i] = new GeoSegment((i == 1) ? "\u05d4\u05e8\u05e6\u05dc" : "Jump", corners[i], corners[i + 1]);
+		Route extreme = toRoute(jumps);
+		GeoFeature feature = longRoute.getEndFeature();
+		GeoSegment segment = ExampleGeoSegments.segments[3];
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		RouteCodec.Writer writer = new RouteCodec.Writer(bytes);
+		writer.writeRoute(longRoute);
+		writer.writeRoute(shortRoute);
+		writer.writeGeoFeature(feature);
+		writer.writeRoute(single);
+		writer.writeGeoSegment(segment);
+		writer.writeRoute(extreme);
+		writer.writeRoute(shortRoute);
+		writer.close();
+		byte[] stream = bytes.toByteArray();
+
+		show("Writer & Reader");
+		RouteCodec.Reader reader = new RouteCodec.Reader(new ByteArrayInputStream(stream));
+		boolean kinds = reader.next() == RouteCodec.ROUTE;
+		Route longCopy = reader.readRoute();
+		Route shortCopy = reader.readRoute();
+		kinds &= reader.next() == RouteCodec.GEO_FEATURE;
+		GeoFeature featureCopy = reader.readGeoFeature();
+		Route singleCopy = reader.readRoute();
+		kinds &= reader.next() == RouteCodec.GEO_SEGMENT;
+		GeoSegment segmentCopy = reader.readGeoSegment();
+		Route extremeCopy = reader.readRoute();
+		Route shortAgain = reader.readRoute();
+		kinds &= reader.next() == RouteCodec.END && reader.readRoute() == null;
+		show("Routes read back equal the ones written", longCopy.equals(longRoute) && shortCopy.equals(shortRoute)
+			&& singleCopy.equals(single) && extremeCopy.equals(extreme) && shortAgain.equals(shortRoute));
+		show("Routes read back have the same GeoFeatures", sameFeatures(longCopy, longRoute)
+			&& longCopy.getGeoFeaturesSize() == longRoute.getGeoFeaturesSize() && sameFeatures(extremeCopy, extreme));
+		show("GeoFeature and GeoSegment read back equal the ones written",
+			featureCopy.equals(feature) && segmentCopy.equals(segment));
+		show("Records are of the kinds written, then END", kinds);
+		Iterator<GeoSegment> segments = longCopy.getGeoSegments();
+		GeoSegment previous = segments.next();
+		boolean shared = true;
+		while (segments.hasNext()) {
+			GeoSegment gs = segments.next();
+			shared &= gs.getP1() == previous.getP2();
+			previous = gs;
+		}
+		show("Consecutive segments share their GeoPoints", shared);
+		Iterator<GeoSegment> i = shortCopy.getGeoSegments();
+		Iterator<GeoSegment> j = shortAgain.getGeoSegments();
+		show("Names are shared by the records that use them", i.next().getName() == j.next().getName());
+		show("Extreme coordinates and UTF-8 names survive", extremeCopy.getEnd().equals(corners[3])
+			&& extremeCopy.getGeoFeaturesSize() == 3);
+
+		show("Size");
+		show("getBytesWritten() is the size of the stream", writer.getBytesWritten() == stream.length);
+		ByteArrayOutputStream longBytes = new ByteArrayOutputStream();
+		RouteCodec.Writer longWriter = new RouteCodec.Writer(longBytes);
+		longWriter.writeRoute(longRoute);
+		longWriter.flush();
+		show("Segments of a few meters take under 6 bytes each, names included", longBytes.size() < 6 * 3000);
+
+		show("Bad streams");
+		show("Empty stream has no records", !fails(Arrays.copyOf(stream, 5))
+			&& new RouteCodec.Reader(new ByteArrayInputStream(Arrays.copyOf(stream, 5))).readGeoSegment() == null);
+		byte[] other = stream.clone();
+		other[0] = 'X';
+		show("Other streams fail", fails(other) && fails(new byte[0]));
+		show("Truncated stream fails", fails(Arrays.copyOf(stream, stream.length - 1))
+			&& fails(Arrays.copyOf(stream, 100)));
+		boolean wrongKind = false;
+		try {
+			new RouteCodec.Reader(new ByteArrayInputStream(stream)).readGeoSegment();
+		}
+		catch (IOException e) {
+			wrongKind = true;
+		}
+		show("Reading a record of another kind fails", wrongKind);
+		// A segment record named "a", from (0,0) to (0,0).
+		byte[] point = { 'H', 'W', '1', 'R', 1, RouteCodec.GEO_SEGMENT, 0, 1, 'a', 0, 0, 0, 0, RouteCodec.END };
+		boolean samePoint = false;
+		try {
+			new RouteCodec.Reader(new ByteArrayInputStream(point)).readGeoSegment();
+		}
+		catch (IOException e) {
+			samePoint = true;
+		}
+		show("A segment of identical endpoints fails", samePoint);
+		// A route record whose first name claims to be 2^31 - 1 bytes long.
+		byte[] huge = { 'H', 'W', '1', 'R', 1, RouteCodec.ROUTE, 1, 0, 0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+			(byte) 0xFF, 0x07, 'a' };
+		show("A name longer than the stream fails", fails(huge));
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		RouteCodecTest codecTest = new RouteCodecTest();
+		codecTest.test();
+	}
+}
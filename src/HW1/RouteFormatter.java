@@ -1,6 +1,8 @@
 package HW1;
 
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Iterator;
 
 /**
@@ -22,15 +24,73 @@ public abstract class RouteFormatter {
      **/
   	public String computeDirections(Route route, double heading)
 	{
-  		// Implementation hint:
-		// This method should call computeLine() for each geographic
-		// feature in this route and concatenate the results into a single
-		// String.
 		assert route != null : "Can't compute directions since route is null";
 		assert 0 <= heading && heading < 360 : "Heading is not valid";
 
-		// Initialize the direction message and place an iterator over the route's geoFeatures list.
-		String directions = "";
+		// All the lines are rendered into a single buffer, so the directions are built in linear time.
+		StringBuilder directions = new StringBuilder();
+		this.appendDirections(route, heading, directions);
+		return directions.toString();
+  	}
+
+
+  	/**
+     * Writes directions for following this Route, starting at its start
+     * point and facing in the specified heading, into an Appendable such as
+     * a StringBuilder or a Writer.
+     * @requires route != null && out != null &&
+     * 			0 <= heading < 360
+     * @param route the route for which to print directions.
+   	 * @param heading the initial heading.
+   	 * @param out the destination of the directions.
+   	 * @modifies out
+     * @effects appends to out the directions computeDirections(route, heading)
+     *          returns, line by line, without building them as a single String.
+     * @throws IOException if out fails to append.
+     **/
+  	public void computeDirections(Route route, double heading, Appendable out) throws IOException
+	{
+		assert route != null : "Can't compute directions since route is null";
+		assert out != null : "Can't compute directions since out is null";
+		assert 0 <= heading && heading < 360 : "Heading is not valid";
+
+		if (out instanceof StringBuilder)
+		{
+			// Lines can be rendered directly into the destination.
+			this.appendDirections(route, heading, (StringBuilder) out);
+			return;
+		}
+
+		// Each line is rendered into a reused buffer and then copied to out.
+		StringBuilder line = new StringBuilder();
+		// Copy buffer used for Writers, which would otherwise convert every line to a String.
+		char[] chars = new char[128];
+		Iterator<GeoFeature> geoFeatureIterator = route.getGeoFeatures();
+		double currHeading = heading;
+		while (geoFeatureIterator.hasNext())
+		{
+			GeoFeature currGeoFeature = geoFeatureIterator.next();
+			line.setLength(0);
+			this.computeLine(currGeoFeature, currHeading, line);
+			if (out instanceof Writer)
+			{
+				if (chars.length < line.length())
+					chars = new char[2 * line.length()];
+				line.getChars(0, line.length(), chars, 0);
+				((Writer) out).write(chars, 0, line.length());
+			}
+			else
+			{
+				out.append(line);
+			}
+			currHeading = currGeoFeature.getEndHeading();
+		}
+  	}
+
+
+	// Appends the directions of route, starting with the given heading, to directions. Also used by BatchDirections.
+	void appendDirections(Route route, double heading, StringBuilder directions)
+	{
 		Iterator<GeoFeature> geoFeatureIterator = route.getGeoFeatures();
 		GeoFeature currGeoFeature = null;
 
@@ -43,14 +103,12 @@ public abstract class RouteFormatter {
 			currGeoFeature = geoFeatureIterator.next();
 
 			// Using polymorphism to call the correct computeLine method.
-			directions += computeLine(currGeoFeature, currHeading);
+			this.computeLine(currGeoFeature, currHeading, directions);
 
 			// Getting the new heading to needed to compute next line.
 			currHeading = currGeoFeature.getEndHeading();
 		}
-
-		return directions;
-  	}
+	}
 
 
   	/**
@@ -66,6 +124,51 @@ public abstract class RouteFormatter {
   	public abstract String computeLine(GeoFeature geoFeature, double origHeading);
 
 
+  	/**
+     * Computes a single line of a multi-line directions String, as
+     * computeLine(geoFeature, origHeading) does, and appends it to a caller
+     * supplied buffer. Subclasses should override this method to render the
+     * line without creating a temporary String.
+     * @requires geoFeature != null && out != null
+     * @param geoFeature the geographical feature to traverse.
+   	 * @param origHeading the initial heading.
+   	 * @param out the buffer the line is appended to.
+   	 * @modifies out
+     * @effects appends computeLine(geoFeature, origHeading) to out.
+     */
+  	public void computeLine(GeoFeature geoFeature, double origHeading, StringBuilder out)
+	{
+		out.append(this.computeLine(geoFeature, origHeading));
+	}
+
+
+  	/**
+     * Computes a single line of a multi-line directions String, as
+     * computeLine(geoFeature, origHeading, out) does, from the turn string
+     * and the metrics of the feature, computed in advance.
+     * MultiRouteFormatter calls this method, so the turn and the metrics of
+     * a feature are computed once for all of its formatters. Subclasses
+     * should override this method to render the line from its arguments;
+     * by default, it calls computeLine(geoFeature, origHeading, out).
+     * @requires geoFeature != null && out != null && 0 <= origHeading < 360 &&
+     *           turn = this.getTurnString(origHeading, geoFeature.startHeading)
+     *           && name = geoFeature.name && length = geoFeature.length
+     * @param geoFeature the geographical feature to traverse.
+   	 * @param origHeading the initial heading.
+   	 * @param turn the direction to turn to the feature.
+   	 * @param name the name of the feature.
+   	 * @param length the length of the feature.
+   	 * @param out the buffer the line is appended to.
+   	 * @modifies out
+     * @effects appends computeLine(geoFeature, origHeading) to out.
+     */
+  	protected void computeLine(GeoFeature geoFeature, double origHeading, String turn, String name, double length,
+  			StringBuilder out)
+	{
+		this.computeLine(geoFeature, origHeading, out);
+	}
+
+
   	/**
      * Computes directions to turn based on the heading change.
      * @requires 0 <= oldHeading < 360 &&
@@ -86,6 +189,49 @@ public abstract class RouteFormatter {
      * and likewise for left turns.
      */
   	protected String getTurnString(double origHeading, double newHeading)
+	{
+		return turnString(origHeading, newHeading);
+	}
+
+
+	/**
+	 * Returns whether the lines of this formatter depend only on the turn
+	 * string and the name and length of the feature, and not on its other
+	 * properties, such as its points. A CachingRouteFormatter shares the
+	 * line of such a formatter between all the features of the same name
+	 * and length entered with the same turn. By default, returns false.
+	 * @return true only if computeLine(geoFeature, origHeading) is
+	 *         determined by getTurnString(origHeading,
+	 *         geoFeature.startHeading), geoFeature.name and geoFeature.length.
+	 */
+	protected boolean rendersFromMetrics()
+	{
+		return false;
+	}
+
+
+	// Returns true iff the turn strings of this may differ from turnString(), because getTurnString() is overridden.
+	boolean hasOwnTurnString()
+	{
+		for (Class<?> c = this.getClass(); c != RouteFormatter.class; c = c.getSuperclass())
+		{
+			try
+			{
+				c.getDeclaredMethod("getTurnString", double.class, double.class);
+				return true;
+			}
+			catch (NoSuchMethodException e)
+			{
+				// Not overridden by c, maybe by a superclass.
+			}
+		}
+		return false;
+	}
+
+
+	// The turn string of getTurnString(), which MultiRouteFormatter computes once for the formatters that don't
+	// override it.
+	static String turnString(double origHeading, double newHeading)
 	{
 		assert 0 <= origHeading && origHeading < 360 : "originalHeading is not valid";
 		assert 0 <= newHeading && newHeading < 360 : "newHeading is not valid";
@@ -29,8 +29,12 @@ public class RouteFormatterGUI extends JPanel {
 	private DrivingRouteFormatter drivingDirections;
 	private WalkingRouteFormatter walkingDirections;
 
-	// We need to get the heading at the end of the current feature.
-	Double prevGeoFeatureHeading;
+	// Keeps track of which directions line each added segment changes.
+	private DirectionsSession directionsSession;
+
+	// The indexes of the formatters in directionsSession.
+	private static final int walkingIndex = 0;
+	private static final int drivingIndex = 1;
 
 	/**
 	 * Creates a new RoutFormatterGUI JPanel.
@@ -41,6 +45,7 @@ public class RouteFormatterGUI extends JPanel {
 		// Initializing the formatters.
 		drivingDirections = new DrivingRouteFormatter();
 		walkingDirections = new WalkingRouteFormatter();
+		directionsSession = new DirectionsSession(0, walkingDirections, drivingDirections);
 
 		// create a GeoSegmentsDialog (secondary window)
 		dlgSegments = new GeoSegmentsDialog(frame, this);
@@ -161,94 +166,51 @@ public class RouteFormatterGUI extends JPanel {
 
 		// Add segment to list
 		model.addElement(segment);
-		String walking, driving;
 
-		boolean firstFeature = false;
+		// The session tells whether the segment starts a new feature or extends the last one.
+		DirectionsSession.Delta delta = this.directionsSession.addSegment(segment);
+		this.route = this.directionsSession.getRoute();
+		String walking = delta.getLine(walkingIndex);
+		String driving = delta.getLine(drivingIndex);
 
-		if(this.route == null)
+		if (delta.getChange() == DirectionsSession.Change.REPLACE_LAST_LINE)
 		{
-			this.route = new Route(segment);
-			walking = walkingDirections.computeLine(this.route.getEndFeature(),0);
-			driving = drivingDirections.computeLine(this.route.getEndFeature(),0);
-
+			// Overwriting this feature directions.
+			replaceLastLine(this.txtWalkingDirections, walking);
+			replaceLastLine(this.txtDrivingDirections, driving);
+		}
+		else // A new Feature is added.
+		{
+			// Append the new feature's directions to panel.
 			txtWalkingDirections.append(walking);
 			txtDrivingDirections.append(driving);
 		}
-		else
-		{
-			// First, check if the new added segment has the same name as the last feature.
-			boolean sameFeature = this.route.getEndFeature().getName().equals(segment.getName());
-
-			// Get the feature's list size: used to determine whether we only have one feature.
-			int numOfFeatures = this.route.getGeoFeaturesSize();
-
-			if (numOfFeatures == 1 && firstFeature == false)
-			{
-				firstFeature = true;
-			}
-
-
-			if (sameFeature)
-			{
-				this.route = this.route.addSegment(segment);
-
-				if (firstFeature) // Corner case for only one feature in the route's list
-				{
-					walking = walkingDirections.computeLine(this.route.getEndFeature(),0);
-					driving = drivingDirections.computeLine(this.route.getEndFeature(),0);
-				}
-				else
-				{
-					walking = walkingDirections.computeLine(this.route.getEndFeature(), prevGeoFeatureHeading);
-					driving = drivingDirections.computeLine(this.route.getEndFeature(), prevGeoFeatureHeading);
-				}
-
-				// Overwriting this feature directions.
-				// find the index of the last line
-				int numOfLines1 = this.txtWalkingDirections.getLineCount();
-				int numOfLines2 = this.txtDrivingDirections.getLineCount();
-				// get the start and end offset of the last line
-				int startIndex1 = 0;
-				int startIndex2 = 0;
-				int endIndex1 = 0;
-				int endIndex2 = 0;
-				try
-				{
-					startIndex1 = this.txtWalkingDirections.getLineStartOffset(numOfLines1-2);
-					startIndex2 = this.txtDrivingDirections.getLineStartOffset(numOfLines2-2);
-					endIndex1 = this.txtWalkingDirections.getLineEndOffset(numOfLines1-2);
-					endIndex2 = this.txtDrivingDirections.getLineEndOffset(numOfLines2-2);
-				}
-				catch (BadLocationException e)
-				{
-					e.printStackTrace();
-				}
-
-				// replace the text.
-				this.txtWalkingDirections.replaceRange(walking, startIndex1, endIndex1);
-				this.txtDrivingDirections.replaceRange(driving, startIndex2, endIndex2);
-			}
-			else // A new Feature is added.
-			{
-				// We need to get the heading at the end of the current feature.
-				prevGeoFeatureHeading = this.route.getEndHeading();
-				Route newRoute =  this.route.addSegment(segment);
-				this.route = newRoute;
-				walking = walkingDirections.computeLine(this.route.getEndFeature(), prevGeoFeatureHeading);
-				driving = drivingDirections.computeLine(this.route.getEndFeature(), prevGeoFeatureHeading);
-
-				// Append the new feature's directions to panel.
-				txtWalkingDirections.append(walking);
-				txtDrivingDirections.append(driving);
+	}
 
-			}
 
+	// Replaces the last newline-terminated line of txtDirections with line.
+	private static void replaceLastLine(JTextArea txtDirections, String line)
+	{
+		// find the index of the last line
+		int numOfLines = txtDirections.getLineCount();
+		// get the start and end offset of the last line
+		int startIndex = 0;
+		int endIndex = 0;
+		try
+		{
+			startIndex = txtDirections.getLineStartOffset(numOfLines-2);
+			endIndex = txtDirections.getLineEndOffset(numOfLines-2);
+		}
+		catch (BadLocationException e)
+		{
+			e.printStackTrace();
 		}
 
-
-
+		// replace the text.
+		txtDirections.replaceRange(line, startIndex, endIndex);
 	}
 
+
     /**
      * returns this route
      * @return this route
@@ -0,0 +1,100 @@
+package HW1;
+
+import java.util.Iterator;
+
+public class RouteTest {
+
+	private static final double tolerance = 0.0000001;
+
+	private GeoSegment[] chain;
+
+
+	public RouteTest() {
+		chain = RouteAppendBenchmark.createSegments(2000);
+	}
+
+
+	boolean same(double x, double y) {
+		return ((y >= x-tolerance) && (y <= x+tolerance));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Returns true iff the segments of route are exactly chain[0..count).
+	boolean hasSegments(Route route, int count) {
+		Iterator<GeoSegment> iter = route.getGeoSegments();
+		for (int i = 0; i < count; i++) {
+			if (!iter.hasNext() || !iter.next().equals(chain[i]))
+				return false;
+		}
+		return !iter.hasNext();
+	}
+
+
+	public void test() {
+		Route[] routes = new Route[chain.length];
+		routes[0] = new Route(chain[0]);
+		for (int i = 1; i < chain.length; i++)
+			routes[i] = routes[i - 1].addSegment(chain[i]);
+
+		show("addSegment()");
+		show("Long route has all of its segments in order",
+			hasSegments(routes[chain.length - 1], chain.length));
+		show("Earlier routes are not changed by later appends",
+			hasSegments(routes[0], 1) && hasSegments(routes[31], 32)
+				&& hasSegments(routes[32], 33) && hasSegments(routes[1056], 1057));
+		show("Appending twice to the same route keeps both results apart",
+			hasSegments(routes[40].addSegment(chain[41]), 42) && hasSegments(routes[41], 42));
+
+		show("getGeoFeatures()");
+		show("Same named segments are grouped into one feature",
+			routes[chain.length - 1].getGeoFeaturesSize() == chain.length / 10);
+		show("Earlier routes keep their own last feature",
+			routes[14].getEndFeature().getEnd().equals(chain[14].getP2())
+				&& routes[19].getEndFeature().getEnd().equals(chain[19].getP2()));
+		Iterator<GeoFeature> features = routes[25].getGeoFeatures();
+		boolean removeRejected = false;
+		features.next();
+		try {
+			features.remove();
+		}
+		catch (UnsupportedOperationException e) {
+			removeRejected = true;
+		}
+		show("Iterator of GeoFeatures can't modify the route", removeRejected);
+
+		show("equals() & hashCode()");
+		Route copy = new Route(chain[0]);
+		for (int i = 1; i <= 100; i++)
+			copy = copy.addSegment(chain[i]);
+		show("Routes with the same segments are equal", copy.equals(routes[100]) && routes[100].equals(copy));
+		show(".equals() routes have the same .hashCode()", copy.hashCode() == routes[100].hashCode());
+		show("Routes with different segments are not equal", !routes[100].equals(routes[99]));
+
+		show("getLength()");
+		double length = 0;
+		for (int i = 0; i <= 100; i++)
+			length += chain[i].getLength();
+		show("Length is the sum of the segments' lengths", same(routes[100].getLength(), length));
+	}
+
+
+	public static void main(String[] args) {
+		RouteTest routeTest = new RouteTest();
+		routeTest.test();
+	}
+}
@@ -0,0 +1,99 @@
+package HW1;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Measures the latency of shortest path queries between random nodes of a
+ * generated street grid with a million nodes, with A* and with Dijkstra,
+ * and checks both find paths of the same length.
+ * <p>
+ * Usage: <tt>java -Xmx4g HW1.RoutingBenchmark [gridSize] [numOfQueries]</tt>
+ */
+public class RoutingBenchmark {
+
+	private static final double tolerance = 0.0000001;
+
+	private final RoadGraph graph;
+	private final int[] sources;
+	private final int[] targets;
+
+
+	public RoutingBenchmark(int gridSize, int numOfQueries) {
+		graph = RoadGraphBenchmark.createGraph(gridSize);
+		Random random = new Random(11);
+		sources = new int[numOfQueries];
+		targets = new int[numOfQueries];
+		for (int i = 0; i < numOfQueries; i++) {
+			sources[i] = random.nextInt(graph.numOfNodes());
+			targets[i] = random.nextInt(graph.numOfNodes());
+		}
+	}
+
+
+	/**
+	 * Returns the median of the given times, in milliseconds.
+	 */
+	static double medianMillis(long[] nanos) {
+		long[] sorted = nanos.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2] / 1e6;
+	}
+
+
+	// Runs all the queries, filling their times, distances and settled node counts.
+	void runQueries(ShortestPathRouter router, long[] nanos, double[] distances, long[] settled) {
+		for (int i = 0; i < sources.length; i++) {
+			long begin = System.nanoTime();
+			boolean found = router.search(sources[i], targets[i]);
+			nanos[i] = System.nanoTime() - begin;
+			distances[i] = found ? router.getDistance() : -1;
+			settled[i] = router.getSettledCount();
+		}
+	}
+
+
+	public void run() {
+		int n = sources.length;
+		ShortestPathRouter aStar = new ShortestPathRouter(graph, true);
+		ShortestPathRouter dijkstra = new ShortestPathRouter(graph, false);
+		long[] aStarNanos = new long[n];
+		long[] dijkstraNanos = new long[n];
+		double[] aStarDistances = new double[n];
+		double[] dijkstraDistances = new double[n];
+		long[] aStarSettled = new long[n];
+		long[] dijkstraSettled = new long[n];
+
+		// The first pass warms up the JVM.
+		for (int round = 0; round < 2; round++) {
+			runQueries(aStar, aStarNanos, aStarDistances, aStarSettled);
+			runQueries(dijkstra, dijkstraNanos, dijkstraDistances, dijkstraSettled);
+		}
+
+		int mismatches = 0;
+		for (int i = 0; i < n; i++)
+			if (Math.abs(aStarDistances[i] - dijkstraDistances[i]) > tolerance)
+				mismatches++;
+
+		Route route = null;
+		for (int i = 0; i < n && route == null; i++)
+			route = aStar.route(graph.getNodePoint(sources[i]), graph.getNodePoint(targets[i]));
+
+		System.out.println(graph + ", " + n + " queries");
+		System.out.printf("A*:       median %.2f ms, %d nodes settled on average%n",
+				medianMillis(aStarNanos), Arrays.stream(aStarSettled).sum() / n);
+		System.out.printf("Dijkstra: median %.2f ms, %d nodes settled on average%n",
+				medianMillis(dijkstraNanos), Arrays.stream(dijkstraSettled).sum() / n);
+		System.out.println("Queries with different lengths: " + mismatches);
+		if (route != null)
+			System.out.println("Sample route: " + route.getGeoFeaturesSize() + " features, "
+					+ new DrivingRouteFormatter().computeDirections(route, 0).split("\n").length + " lines of directions");
+	}
+
+
+	public static void main(String[] args) {
+		int gridSize = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+		int numOfQueries = (args.length > 1) ? Integer.parseInt(args[1]) : 200;
+		new RoutingBenchmark(gridSize, numOfQueries).run();
+	}
+}
@@ -0,0 +1,502 @@
+package HW1;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SegmentFileLoader loads files of segments, of any size, into
+ * GeoSegmentTables.
+ * <p>
+ * A segment file has a line per segment: its name, and then the latitude
+ * and longitude of its first endpoint and of its second endpoint, in
+ * millionths of degrees, separated by commas or tabs, as in
+ * <pre>
+ *   Hankin Road,32782269,35013820,32783098,35014528
+ * </pre>
+ * The lines end with <tt>\n</tt> or <tt>\r\n</tt>, spaces around the
+ * fields are ignored, and so are empty lines. The name may hold commas and
+ * tabs itself, and double quotes around it are removed. A first line whose
+ * last field isn't a number is a header, and is skipped; any other line
+ * that isn't a segment fails. The text is UTF-8.
+ * <p>
+ * The file is memory mapped a chunk of whole lines at a time, and the
+ * chunks are parsed in parallel. A line is parsed from its end backwards:
+ * the four numbers straight from the mapped bytes, and what is left is the
+ * name. A name is looked up by its bytes in a dictionary of the chunk, so
+ * a String is only made of the first line of a chunk with that name, and
+ * no object is made per line. The lengths and headings are computed in
+ * the chunks too, which are finally merged into one table, in the order
+ * of the file.
+ */
+public final class SegmentFileLoader {
+
+	// The size of the chunks the file is split into, in bytes.
+	static final int DEFAULT_CHUNK_SIZE = 32 << 20;
+
+	// The longest line, in bytes. A chunk maps this much of the next one, to end its last line.
+	private static final int maxLineLength = 64 << 10;
+
+
+	private SegmentFileLoader()
+	{
+	}
+
+
+	/**
+	 * Loads a segment file, using all the available processors.
+	 * @requires file != null
+	 * @return a new GeoSegmentTable with the segments of the lines of file,
+	 *         in order.
+	 * @throws IOException if file can't be read, or has a line that isn't
+	 *         a segment.
+	 */
+	public static GeoSegmentTable load(File file) throws IOException
+	{
+		return load(file, Runtime.getRuntime().availableProcessors());
+	}
+
+
+	/**
+	 * Loads a segment file.
+	 * @requires file != null && numOfThreads > 0
+	 * @return a new GeoSegmentTable with the segments of the lines of file,
+	 *         in order, parsed by numOfThreads threads.
+	 * @throws IOException if file can't be read, or has a line that isn't
+	 *         a segment.
+	 */
+	public static GeoSegmentTable load(File file, int numOfThreads) throws IOException
+	{
+		return load(file, numOfThreads, DEFAULT_CHUNK_SIZE);
+	}
+
+
+	/**
+	 * Loads the GeoSegments of a segment file, using all the available
+	 * processors.
+	 * @requires file != null
+	 * @return a new list of the GeoSegments of the lines of file, in order.
+	 *         Segments with the same name share the name String.
+	 * @throws IOException if file can't be read, or has a line that isn't
+	 *         a segment.
+	 */
+	public static List<GeoSegment> loadGeoSegments(File file) throws IOException
+	{
+		GeoSegmentTable table = load(file);
+		List<GeoSegment> geoSegments = new ArrayList<>(table.size());
+		GeoSegmentTable.View view = table.view();
+		for (int i = 0; i < table.size(); i++)
+			geoSegments.add(view.moveTo(i).toGeoSegment());
+		return geoSegments;
+	}
+
+
+	// Loads a file in chunks of chunkSize bytes.
+	static GeoSegmentTable load(File file, int numOfThreads, int chunkSize) throws IOException
+	{
+		assert file != null && numOfThreads > 0 && 0 < chunkSize && chunkSize < Integer.MAX_VALUE - maxLineLength
+				: "SegmentFileLoader: bad arguments";
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			long fileSize = channel.size();
+			int numOfChunks = (int) Math.max(1, (fileSize + chunkSize - 1) / chunkSize);
+			Chunk[] chunks = new Chunk[numOfChunks];
+			AtomicInteger nextChunk = new AtomicInteger(0);
+			IOException[] failure = new IOException[1];
+			Runnable task = () -> {
+				for (int c = nextChunk.getAndIncrement(); c < numOfChunks; c = nextChunk.getAndIncrement())
+				{
+					try
+					{
+						chunks[c] = new Chunk(channel, fileSize, (long) c * chunkSize,
+								Math.min(fileSize, (long) (c + 1) * chunkSize));
+					}
+					catch (IOException e)
+					{
+						synchronized (failure)
+						{
+							failure[0] = e;
+						}
+						nextChunk.set(numOfChunks);
+					}
+				}
+			};
+			ParallelTasks.run(task, Math.min(numOfThreads, numOfChunks), "SegmentFileLoader", "loading");
+			if (failure[0] != null)
+				throw failure[0];
+			return merge(chunks);
+		}
+	}
+
+
+	// Concatenates the columns of the chunks, and maps the name ids of each chunk to ones of a single dictionary.
+	private static GeoSegmentTable merge(Chunk[] chunks)
+	{
+		long total = 0;
+		for (Chunk chunk : chunks)
+			total += chunk.size;
+		if (total > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("SegmentFileLoader: too many segments for a table");
+		int size = (int) total;
+		int[] latitudes1 = new int[size];
+		int[] longitudes1 = new int[size];
+		int[] latitudes2 = new int[size];
+		int[] longitudes2 = new int[size];
+		double[] lengths = new double[size];
+		double[] headings = new double[size];
+		int[] nameIds = new int[size];
+		List<String> names = new ArrayList<>();
+		Map<String, Integer> nameIdsByName = new HashMap<>();
+		int at = 0;
+		for (int c = 0; c < chunks.length; c++)
+		{
+			Chunk chunk = chunks[c];
+			int[] globalIds = new int[chunk.numOfNames];
+			for (int n = 0; n < chunk.numOfNames; n++)
+			{
+				Integer id = nameIdsByName.get(chunk.names[n]);
+				if (id == null)
+				{
+					id = names.size();
+					names.add(chunk.names[n]);
+					nameIdsByName.put(chunk.names[n], id);
+				}
+				globalIds[n] = id;
+			}
+			System.arraycopy(chunk.latitudes1, 0, latitudes1, at, chunk.size);
+			System.arraycopy(chunk.longitudes1, 0, longitudes1, at, chunk.size);
+			System.arraycopy(chunk.latitudes2, 0, latitudes2, at, chunk.size);
+			System.arraycopy(chunk.longitudes2, 0, longitudes2, at, chunk.size);
+			System.arraycopy(chunk.lengths, 0, lengths, at, chunk.size);
+			System.arraycopy(chunk.headings, 0, headings, at, chunk.size);
+			for (int i = 0; i < chunk.size; i++)
+				nameIds[at + i] = globalIds[chunk.nameIds[i]];
+			at += chunk.size;
+			// Lets the columns of the chunk go while the next ones are copied.
+			chunks[c] = null;
+		}
+		return new GeoSegmentTable(latitudes1, longitudes1, latitudes2, longitudes2, lengths, headings, nameIds,
+				names.toArray(new String[0]));
+	}
+
+
+	/**
+	 * The segments of the lines that start in a range of bytes of the file,
+	 * in columns as in GeoSegmentTable, with names ids of its own.
+	 */
+	private static final class Chunk {
+
+		private static final int initialCapacity = 16;
+
+		// The mapped bytes, from the one before the chunk to maxLineLength after it, until the chunk is parsed.
+		private MappedByteBuffer bytes;
+		// The offset of this.bytes in the file.
+		private final long offset;
+
+		private int size = 0;
+		private int[] latitudes1;
+		private int[] longitudes1;
+		private int[] latitudes2;
+		private int[] longitudes2;
+		private double[] lengths;
+		private double[] headings;
+		private int[] nameIds;
+
+		// The names, by id, and an open addressing hash table of ids + 1, by the hash of the bytes of the name.
+		private int numOfNames = 0;
+		private String[] names = new String[initialCapacity];
+		private int[] nameStarts = new int[initialCapacity];
+		private int[] nameEnds = new int[initialCapacity];
+		private int[] nameHashes = new int[initialCapacity];
+		private int[] slots = new int[2 * initialCapacity];
+
+		// The name of the line being parsed, set by parseName(), and where the number parseNumber() parsed last
+		// starts.
+		private int nameStart;
+		private int nameEnd;
+		private int numberStart;
+
+
+		// Parses the lines that start in [start, end) of the file.
+		Chunk(FileChannel channel, long fileSize, long start, long end) throws IOException
+		{
+			// The byte before the chunk tells whether a line starts right at the chunk.
+			this.offset = (start > 0) ? start - 1 : 0;
+			long mapEnd = Math.min(fileSize, end + maxLineLength);
+			this.bytes = channel.map(FileChannel.MapMode.READ_ONLY, this.offset, mapEnd - this.offset);
+			int capacity = (int) Math.max(initialCapacity, (end - start) / 32);
+			this.latitudes1 = new int[capacity];
+			this.longitudes1 = new int[capacity];
+			this.latitudes2 = new int[capacity];
+			this.longitudes2 = new int[capacity];
+			this.lengths = new double[capacity];
+			this.headings = new double[capacity];
+			this.nameIds = new int[capacity];
+
+			int limit = this.bytes.limit();
+			int chunkEnd = (int) (end - this.offset);
+			int pos = 0;
+			// A line that starts before the chunk belongs to the chunk before.
+			if (start > 0)
+			{
+				while (pos < limit && this.bytes.get(pos) != '\n')
+					pos++;
+				pos++;
+			}
+			boolean header = start == 0;
+			while (pos < chunkEnd)
+			{
+				int lineEnd = pos;
+				while (lineEnd < limit && this.bytes.get(lineEnd) != '\n')
+					lineEnd++;
+				if (lineEnd == limit && mapEnd < fileSize)
+					throw new IOException("SegmentFileLoader: line longer than " + maxLineLength + " bytes at byte "
+							+ (this.offset + pos));
+				if (!header || !this.isHeader(pos, lineEnd))
+					this.parseLine(pos, lineEnd);
+				header = false;
+				pos = lineEnd + 1;
+			}
+			this.bytes = null;
+		}
+
+
+		// Returns true iff the line in [start, end) is a header: a line whose last field isn't a number.
+		private boolean isHeader(int start, int end)
+		{
+			if (end > start && this.bytes.get(end - 1) == '\r')
+				end--;
+			end = this.skipSpaces(start, end);
+			int pos = end;
+			while (pos > start && isDigit(this.bytes.get(pos - 1)))
+				pos--;
+			if (pos == end)
+				return end > start;
+			if (pos > start && this.bytes.get(pos - 1) == '-')
+				pos--;
+			pos = this.skipSpaces(start, pos);
+			return pos > start && this.bytes.get(pos - 1) != ',' && this.bytes.get(pos - 1) != '\t';
+		}
+
+
+		// Parses the line in [start, end). Nothing is added for a line that isn't a segment.
+		private void parseLine(int start, int end) throws IOException
+		{
+			if (end > start && this.bytes.get(end - 1) == '\r')
+				end--;
+			end = this.skipSpaces(start, end);
+			if (end == start)
+				return;
+
+			// Back from the end: longitude2, latitude2, longitude1 and latitude1, each after its separator.
+			long longitude2 = this.parseNumber(start, end);
+			int pos = this.skipSeparator(start, this.numberStart);
+			long latitude2 = this.parseNumber(start, pos);
+			pos = this.skipSeparator(start, this.numberStart);
+			long longitude1 = this.parseNumber(start, pos);
+			pos = this.skipSeparator(start, this.numberStart);
+			long latitude1 = this.parseNumber(start, pos);
+			pos = this.skipSeparator(start, this.numberStart);
+			if (!isLatitude(latitude1) || !isLongitude(longitude1) || !isLatitude(latitude2) || !isLongitude(longitude2))
+				throw this.badLine(start, "coordinates out of range");
+			this.parseName(start, pos);
+
+			if (this.size == this.nameIds.length)
+				this.grow();
+			int i = this.size++;
+			this.latitudes1[i] = (int) latitude1;
+			this.longitudes1[i] = (int) longitude1;
+			this.latitudes2[i] = (int) latitude2;
+			this.longitudes2[i] = (int) longitude2;
+			this.lengths[i] = GeoPointCodec.distance((int) latitude1, (int) longitude1, (int) latitude2, (int) longitude2);
+			this.headings[i] = GeoSegmentTable.heading((int) latitude1, (int) longitude1, (int) latitude2,
+					(int) longitude2);
+			this.nameIds[i] = this.nameId();
+		}
+
+
+		// Parses the integer that ends at end, after skipping spaces back from end, and sets this.numberStart.
+		private long parseNumber(int lineStart, int end) throws IOException
+		{
+			int pos = this.skipSpaces(lineStart, end);
+			long value = 0;
+			long place = 1;
+			int digits = 0;
+			while (pos > lineStart && isDigit(this.bytes.get(pos - 1)))
+			{
+				if (++digits > 10)
+					throw this.badLine(lineStart, "number too long");
+				value += (this.bytes.get(pos - 1) - '0') * place;
+				place *= 10;
+				pos--;
+			}
+			if (digits == 0)
+				throw this.badLine(lineStart, "missing number");
+			if (pos > lineStart && this.bytes.get(pos - 1) == '-')
+			{
+				value = -value;
+				pos--;
+			}
+			this.numberStart = pos;
+			return value;
+		}
+
+
+		// Returns where the field before the separator that ends at end ends.
+		private int skipSeparator(int lineStart, int end) throws IOException
+		{
+			int pos = this.skipSpaces(lineStart, end);
+			if (pos == lineStart || (this.bytes.get(pos - 1) != ',' && this.bytes.get(pos - 1) != '\t'))
+				throw this.badLine(lineStart, "missing separator");
+			return pos - 1;
+		}
+
+
+		// Returns the position of the last byte in [start, end) that isn't a space, plus 1, or start if all are.
+		private int skipSpaces(int start, int end)
+		{
+			while (end > start && this.bytes.get(end - 1) == ' ')
+				end--;
+			return end;
+		}
+
+
+		// Sets this.nameStart and this.nameEnd to the name in [lineStart, end), without spaces and quotes around it.
+		private void parseName(int lineStart, int end) throws IOException
+		{
+			int start = lineStart;
+			while (start < end && this.bytes.get(start) == ' ')
+				start++;
+			end = this.skipSpaces(start, end);
+			if (end - start >= 2 && this.bytes.get(start) == '"' && this.bytes.get(end - 1) == '"')
+			{
+				start++;
+				end--;
+			}
+			if (start == end)
+				throw this.badLine(lineStart, "missing name");
+			this.nameStart = start;
+			this.nameEnd = end;
+		}
+
+
+		// Returns the id of the name of the line being parsed, adding it to the dictionary if needed.
+		private int nameId()
+		{
+			int hash = 0;
+			for (int pos = this.nameStart; pos < this.nameEnd; pos++)
+				hash = 31 * hash + this.bytes.get(pos);
+			int mask = this.slots.length - 1;
+			for (int slot = (hash ^ hash >>> 16) & mask; ; slot = (slot + 1) & mask)
+			{
+				int id = this.slots[slot] - 1;
+				if (id < 0)
+				{
+					id = this.addName(hash);
+					this.slots[slot] = id + 1;
+					if (2 * this.numOfNames > this.slots.length)
+						this.rehash();
+					return id;
+				}
+				if (this.nameHashes[id] == hash && this.sameName(id))
+					return id;
+			}
+		}
+
+
+		// Returns true iff the name with the given id has the bytes of the name of the line being parsed.
+		private boolean sameName(int id)
+		{
+			int length = this.nameEnd - this.nameStart;
+			if (this.nameEnds[id] - this.nameStarts[id] != length)
+				return false;
+			for (int i = 0; i < length; i++)
+				if (this.bytes.get(this.nameStarts[id] + i) != this.bytes.get(this.nameStart + i))
+					return false;
+			return true;
+		}
+
+
+		private int addName(int hash)
+		{
+			if (this.numOfNames == this.names.length)
+			{
+				int capacity = 2 * this.numOfNames;
+				this.names = Arrays.copyOf(this.names, capacity);
+				this.nameStarts = Arrays.copyOf(this.nameStarts, capacity);
+				this.nameEnds = Arrays.copyOf(this.nameEnds, capacity);
+				this.nameHashes = Arrays.copyOf(this.nameHashes, capacity);
+			}
+			byte[] name = new byte[this.nameEnd - this.nameStart];
+			for (int i = 0; i < name.length; i++)
+				name[i] = this.bytes.get(this.nameStart + i);
+			int id = this.numOfNames++;
+			this.names[id] = new String(name, StandardCharsets.UTF_8);
+			this.nameStarts[id] = this.nameStart;
+			this.nameEnds[id] = this.nameEnd;
+			this.nameHashes[id] = hash;
+			return id;
+		}
+
+
+		private void rehash()
+		{
+			this.slots = new int[2 * this.slots.length];
+			int mask = this.slots.length - 1;
+			for (int id = 0; id < this.numOfNames; id++)
+			{
+				int hash = this.nameHashes[id];
+				int slot = (hash ^ hash >>> 16) & mask;
+				while (this.slots[slot] != 0)
+					slot = (slot + 1) & mask;
+				this.slots[slot] = id + 1;
+			}
+		}
+
+
+		private void grow()
+		{
+			int capacity = 2 * this.nameIds.length;
+			this.latitudes1 = Arrays.copyOf(this.latitudes1, capacity);
+			this.longitudes1 = Arrays.copyOf(this.longitudes1, capacity);
+			this.latitudes2 = Arrays.copyOf(this.latitudes2, capacity);
+			this.longitudes2 = Arrays.copyOf(this.longitudes2, capacity);
+			this.lengths = Arrays.copyOf(this.lengths, capacity);
+			this.headings = Arrays.copyOf(this.headings, capacity);
+			this.nameIds = Arrays.copyOf(this.nameIds, capacity);
+		}
+
+
+		private IOException badLine(int pos, String reason)
+		{
+			return new IOException("SegmentFileLoader: " + reason + " in the line at byte " + (this.offset + pos));
+		}
+	}
+
+
+	private static boolean isDigit(byte b)
+	{
+		return '0' <= b && b <= '9';
+	}
+
+
+	private static boolean isLatitude(long latitude)
+	{
+		return GeoPoint.MIN_LATITUDE <= latitude && latitude <= GeoPoint.MAX_LATITUDE;
+	}
+
+
+	private static boolean isLongitude(long longitude)
+	{
+		return GeoPoint.MIN_LONGITUDE <= longitude && longitude <= GeoPoint.MAX_LONGITUDE;
+	}
+}
@@ -0,0 +1,111 @@
+package HW1;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Writes a file of random segments, and measures how fast SegmentFileLoader
+ * loads it, in GB and lines per second, on one thread and on all the
+ * available processors, next to reading it line by line with a
+ * BufferedReader and String.split().
+ * <p>
+ * Usage: <tt>java -Xmx4g HW1.SegmentFileLoaderBenchmark [numOfLines]</tt>
+ */
+public class SegmentFileLoaderBenchmark {
+
+	private final int numOfLines;
+
+
+	public SegmentFileLoaderBenchmark(int numOfLines) {
+		this.numOfLines = numOfLines;
+	}
+
+
+	// Writes numOfLines random segments, named after 10000 streets, to a new temporary file.
+	static File createFile(int numOfLines) throws IOException {
+		File file = File.createTempFile("segments", ".csv");
+		file.deleteOnExit();
+		Random random = new Random(19);
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+			out.write("name,lat1,lon1,lat2,lon2\n".getBytes(StandardCharsets.UTF_8));
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < numOfLines; i++) {
+				int latitude = 29000000 + random.nextInt(4500000);
+				int longitude = 34000000 + random.nextInt(2000000);
+				sb.setLength(0);
+				sb.append("Street ").append(random.nextInt(10000)).append(',').append(latitude).append(',')
+					.append(longitude).append(',').append(latitude + random.nextInt(1801) - 900).append(',')
+					.append(longitude + random.nextInt(2001) - 1000).append('\n');
+				for (int j = 0; j < sb.length(); j++)
+					out.write(sb.charAt(j));
+			}
+		}
+		return file;
+	}
+
+
+	// Loads the file the simple way: a String per line, split into a String per field.
+	static GeoSegmentTable readLines(File file) throws IOException {
+		GeoSegmentTable.Builder builder = new GeoSegmentTable.Builder();
+		try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+			in.readLine();
+			for (String line = in.readLine(); line != null; line = in.readLine()) {
+				String[] fields = line.split(",");
+				builder.add(fields[0], Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+						Integer.parseInt(fields[3]), Integer.parseInt(fields[4]));
+			}
+		}
+		return builder.build();
+	}
+
+
+	// Returns the best time of 3 loads of the file on numOfThreads threads, in seconds.
+	static double load(File file, int numOfThreads) throws IOException {
+		long best = Long.MAX_VALUE;
+		for (int round = 0; round < 3; round++) {
+			long begin = System.nanoTime();
+			SegmentFileLoader.load(file, numOfThreads);
+			best = Math.min(best, System.nanoTime() - begin);
+		}
+		return best / 1e9;
+	}
+
+
+	public void run() throws IOException {
+		long begin = System.nanoTime();
+		File file = createFile(numOfLines);
+		double writeSeconds = (System.nanoTime() - begin) / 1e9;
+		double gigabytes = file.length() / 1e9;
+
+		GeoSegmentTable table = SegmentFileLoader.load(file);
+		int numOfThreads = Runtime.getRuntime().availableProcessors();
+		double single = load(file, 1);
+		double parallel = load(file, numOfThreads);
+		begin = System.nanoTime();
+		GeoSegmentTable expected = readLines(file);
+		double lines = (System.nanoTime() - begin) / 1e9;
+		boolean same = SegmentFileLoaderTest.sameSegments(table, expected);
+
+		System.out.printf("File:           %.2f GB, %d lines, written in %.1f s%n", gigabytes, numOfLines, writeSeconds);
+		System.out.printf("1 thread:       %.2f s, %.2f GB/s, %.1f M lines/s%n",
+				single, gigabytes / single, numOfLines / single / 1e6);
+		System.out.printf("%d threads:      %.2f s, %.2f GB/s, %.1f M lines/s%n",
+				numOfThreads, parallel, gigabytes / parallel, numOfLines / parallel / 1e6);
+		System.out.printf("BufferedReader: %.2f s, %.2f GB/s, %.1f M lines/s%n",
+				lines, gigabytes / lines, numOfLines / lines / 1e6);
+		System.out.println("Same table as BufferedReader: " + same + ", " + table.numOfNames() + " names");
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		int numOfLines = (args.length > 0) ? Integer.parseInt(args[0]) : 20000000;
+		new SegmentFileLoaderBenchmark(numOfLines).run();
+	}
+}
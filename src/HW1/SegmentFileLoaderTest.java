@@ -0,0 +1,167 @@
+package HW1;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+public class SegmentFileLoaderTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Writes text to a new temporary file, which is deleted on exit.
+	static File write(String text) throws IOException {
+		File file = File.createTempFile("segments", ".csv");
+		file.deleteOnExit();
+		try (OutputStream out = new FileOutputStream(file)) {
+			out.write(text.getBytes(StandardCharsets.UTF_8));
+		}
+		return file;
+	}
+
+
+	// Returns the lines of a segment file with random names and segments.
+	static String createFile(int numOfLines, int numOfNames, Random random) {
+		StringBuilder sb = new StringBuilder("name,lat1,lon1,lat2,lon2\n");
+		for (int i = 0; i < numOfLines; i++) {
+			int latitude = 32000000 + random.nextInt(1000000);
+			int longitude = 34500000 + random.nextInt(1000000);
+			sb.append("Road ").append(random.nextInt(numOfNames)).append(random.nextBoolean() ? ',' : '\t')
+				.append(latitude).append(',').append(longitude).append(',')
+				.append(latitude + random.nextInt(2001) - 1000).append(',')
+				.append(longitude - random.nextInt(1000)).append('\n');
+		}
+		return sb.toString();
+	}
+
+
+	// Returns true iff both tables have the same segments, with the same names, in the same order.
+	static boolean sameSegments(GeoSegmentTable a, GeoSegmentTable b) {
+		if (a.size() != b.size())
+			return false;
+		for (int i = 0; i < a.size(); i++)
+			if (!a.getGeoSegment(i).equals(b.getGeoSegment(i)) || a.getLength(i) != b.getLength(i)
+					|| a.getHeading(i) != b.getHeading(i))
+				return false;
+		return true;
+	}
+
+
+	// Returns true iff loading a line, and then the text, fails with an IOException.
+	static boolean fails(String text) {
+		try {
+			SegmentFileLoader.load(write("Road,1,2,3,4\n" + text), 1);
+			return false;
+		}
+		catch (IOException e) {
+			return true;
+		}
+	}
+
+
+	public void test() throws IOException {
+		show("load()");
+		StringBuilder example = new StringBuilder("name,lat1,lon1,lat2,lon2\n");
+		GeoSegmentTable.Builder builder = new GeoSegmentTable.Builder();
+		for (GeoSegment gs : ExampleGeoSegments.segments) {
+			example.append(gs.getName()).append(',').append(gs.getP1().getLatitude()).append(',')
+				.append(gs.getP1().getLongitude()).append(',').append(gs.getP2().getLatitude()).append(',')
+				.append(gs.getP2().getLongitude()).append('\n');
+			builder.add(gs);
+		}
+		GeoSegmentTable expected = builder.build();
+		GeoSegmentTable table = SegmentFileLoader.load(write(example.toString()));
+		show("Example segments load as written, without the header", sameSegments(table, expected));
+		show("Same names share an id", table.numOfNames() == expected.numOfNames());
+
+		GeoSegmentTable odd = SegmentFileLoader.load(write(
+				"Hankin Road\t32782269\t35013820\t32783098\t35014528\r\n"
+				+ "\n"
+				+ "  \"Herzl, Upper\" , -1 , -2 , 3 , 4  \r\n"
+				+ "\r\n"
+				+ "Rehov Ha'Atzmaut, Yafo,-90000000,-180000000,90000000,180000000"));
+		show("Tabs, CRLF, spaces, quotes, commas in names and a last line with no newline", odd.size() == 3
+			&& odd.getName(0).equals("Hankin Road") && odd.getLatitude2(0) == 32783098
+			&& odd.getName(1).equals("Herzl, Upper") && odd.getLatitude1(1) == -1 && odd.getLongitude1(1) == -2
+			&& odd.getLongitude2(1) == 4 && odd.getName(2).equals("Rehov Ha'Atzmaut, Yafo")
+			&& odd.getLongitude1(2) == -180000000);
+		show("UTF-8 names", SegmentFileLoader.load(write("\u05d4\u05e8\u05e6\u05dc,1,2,3,4\n")).getName(0)
+			.equals("\u05d4\u05e8\u05e6\u05dc"));
+		show("Empty file has no segments", SegmentFileLoader.load(write("")).size() == 0
+			&& SegmentFileLoader.load(write("name,lat1,lon1,lat2,lon2\n")).size() == 0);
+
+		show("Chunks");
+		Random random = new Random(13);
+		File big = write(createFile(20000, 300, random));
+		GeoSegmentTable whole = SegmentFileLoader.load(big, 1, SegmentFileLoader.DEFAULT_CHUNK_SIZE);
+		boolean chunked = true;
+		for (int chunkSize : new int[] { 1000, 4093, 65536 })
+			chunked &= sameSegments(SegmentFileLoader.load(big, 3, chunkSize), whole);
+		File small = write(createFile(200, 20, random));
+		GeoSegmentTable smallWhole = SegmentFileLoader.load(small, 1);
+		for (int chunkSize : new int[] { 1, 7, 46, 47 })
+			chunked &= sameSegments(SegmentFileLoader.load(small, 3, chunkSize), smallWhole);
+		show("Any chunk size loads the same segments", chunked);
+		show("Names of all the chunks share one dictionary", whole.numOfNames() == 300
+			&& SegmentFileLoader.load(big, 3, 1000).numOfNames() == 300);
+		String[] lines = createFile(50, 10, random).split("\n");
+		boolean parsed = true;
+		GeoSegmentTable few = SegmentFileLoader.load(write(String.join("\n", lines)), 2, 100);
+		for (int i = 1; i < lines.length; i++) {
+			String[] fields = lines[i].split("[,\t]");
+			parsed &= few.getName(i - 1).equals(fields[0]) && few.getLatitude1(i - 1) == Integer.parseInt(fields[1])
+				&& few.getLongitude1(i - 1) == Integer.parseInt(fields[2])
+				&& few.getLatitude2(i - 1) == Integer.parseInt(fields[3])
+				&& few.getLongitude2(i - 1) == Integer.parseInt(fields[4]);
+		}
+		show("Segments are the fields of the lines, in order", parsed && few.size() == lines.length - 1);
+
+		show("loadGeoSegments()");
+		List<GeoSegment> geoSegments = SegmentFileLoader.loadGeoSegments(write(example.toString()));
+		boolean same = geoSegments.size() == ExampleGeoSegments.segments.length;
+		for (int i = 0; same && i < geoSegments.size(); i++)
+			same &= geoSegments.get(i).equals(ExampleGeoSegments.segments[i]);
+		show("GeoSegments are the example segments", same);
+		show("GeoSegments of a name share its String", geoSegments.get(1).getName() == geoSegments.get(2).getName());
+
+		show("Bad lines");
+		show("Missing field fails", fails("Road,1,2,3\n"));
+		show("Missing name fails", fails(",1,2,3,4\n") && fails("\"\",1,2,3,4\n"));
+		show("Bad number fails", fails("Road,1,2,3,4x\n") && fails("Road,1,2,3,x4\n") && fails("Road,1,2,3,12345678901\n"));
+		show("Coordinates out of range fail", fails("Road,90000001,2,3,4\n") && fails("Road,1,2,3,-180000001\n"));
+		show("Header after the first line fails", fails("name,lat1,lon1,lat2,lon2\n"));
+		String message = "";
+		try {
+			SegmentFileLoader.load(write("Road,1,2,3,12345678901\nRoad,1,2,3,4\n"), 1);
+		}
+		catch (IOException e) {
+			message = e.getMessage();
+		}
+		show("A bad first line that ends with a number fails, with its offset",
+			message.endsWith("number too long in the line at byte 0"));
+		show("A first line that ends with a name is a header", SegmentFileLoader.load(
+			write("Road,1,2,3,4,name\nRoad,1,2,3,4\n"), 1).size() == 1);
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		SegmentFileLoaderTest loaderTest = new SegmentFileLoaderTest();
+		loaderTest.test();
+	}
+}
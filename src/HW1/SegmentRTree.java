@@ -0,0 +1,621 @@
+package HW1;
+
+import java.util.Arrays;
+
+/**
+ * A SegmentRTree is a spatial index over the segments of a GeoSegmentTable,
+ * which finds the segments nearest to a point and the segments that
+ * intersect a box without scanning the whole table.
+ * <p>
+ * The tree is bulk loaded with Sort-Tile-Recursive packing, top-down: the
+ * segments are sorted by the longitude of their centers into vertical
+ * slices, every slice by latitude, and every tile of a slice is packed the
+ * same way into the children of its node. Every node except the last of
+ * each level is full, so the tree needs no child pointers: the children of
+ * the node j of a level are the nodes, or segments, j*M to j*M+M-1 of the
+ * level below it, where M is the number of children of a node. The
+ * coordinates of the segments, in packing order, and the bounding boxes of
+ * the nodes, level by level, are kept in flat <tt>int</tt> arrays.
+ * <p>
+ * Distances are measured in the plane GeoPoint.distanceTo() uses, with its
+ * kilometers per degree of latitude and longitude, so the distance from a
+ * point to a segment is the distance to the nearest point along it, and
+ * equals GeoPoint.distanceTo() when that is one of its endpoints.
+ * <p>
+ * SegmentRTrees are immutable, hence safe for use by multiple threads.
+ * Queries are run by Query objects, one per thread, which reuse their
+ * buffers from one query to the next.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   table : GeoSegmentTable    // the indexed segments, whose indexes are their ids
+ * </pre>
+ */
+public class SegmentRTree {
+
+	/** The number of children of a node. **/
+	public static final int NODE_CAPACITY = 16;
+
+	// The millionth of a degree
+	private static final int millionth = 1000000;
+
+	private final GeoSegmentTable table;
+	private final int size;
+	private final int[] ids;			// the table index of the segment in each position of the packing order.
+	private final int[] coordinates;	// [4i..4i+3]: latitude1, longitude1, latitude2, longitude2 of position i.
+	private final int[] levelStarts;	// the first node of each level, from the leaves up, and the number of nodes.
+	private final int[] bounds;			// [4k..4k+3]: min latitude, min longitude, max latitude, max longitude of node k.
+	private final long buildNanos;
+
+	// Rep. Inv.:
+	// this.ids is a permutation of 0..this.size-1, and this.coordinates[4i..4i+3] are the coordinates of the
+	//     endpoints of the segment this.ids[i] of this.table.
+	// level L (0 for the leaves) holds the nodes this.levelStarts[L]..this.levelStarts[L+1]-1, the last level has a
+	//     single node, the root, and there are no levels if this.size = 0.
+	// the node j of level L covers the positions j*M^(L+1) to min(this.size, (j+1)*M^(L+1))-1, and its bounds are
+	//     the smallest box that holds all their endpoints.
+
+	// Abstraction Function:
+	// The tree indexes the segments of this.table. A node stands for the segments of the positions it covers.
+
+	private SegmentRTree(GeoSegmentTable table, int[] ids, int[] coordinates, int[] levelStarts, int[] bounds,
+			long buildNanos)
+	{
+		this.table = table;
+		this.size = table.size();
+		this.ids = ids;
+		this.coordinates = coordinates;
+		this.levelStarts = levelStarts;
+		this.bounds = bounds;
+		this.buildNanos = buildNanos;
+		this.checkRep();
+	}
+
+
+	/**
+	 * Builds the index of a table.
+	 * @requires table != null
+	 * @return a new SegmentRTree whose table is table.
+	 */
+	public static SegmentRTree build(GeoSegmentTable table)
+	{
+		assert table != null : "SegmentRTree: table is null";
+		long begin = System.nanoTime();
+		int size = table.size();
+		int[] order = new int[size];
+		for (int i = 0; i < size; i++)
+			order[i] = i;
+		int height = 0;
+		long leafCapacity = 1;
+		while (leafCapacity < size)
+		{
+			leafCapacity *= NODE_CAPACITY;
+			height++;
+		}
+		if (size > 0 && height == 0)
+			height = 1;
+		if (height > 1)
+			pack(table, order, new long[size], 0, size, leafCapacity / NODE_CAPACITY);
+
+		int[] coordinates = new int[4 * size];
+		for (int i = 0; i < size; i++)
+		{
+			int id = order[i];
+			coordinates[4 * i] = table.getLatitude1(id);
+			coordinates[4 * i + 1] = table.getLongitude1(id);
+			coordinates[4 * i + 2] = table.getLatitude2(id);
+			coordinates[4 * i + 3] = table.getLongitude2(id);
+		}
+
+		// The bounds of the leaves, from the segments, then of every level from the one below it.
+		int[] levelStarts = new int[height + 1];
+		int below = size;
+		for (int level = 0; level < height; level++)
+		{
+			int count = (below + NODE_CAPACITY - 1) / NODE_CAPACITY;
+			levelStarts[level + 1] = levelStarts[level] + count;
+			below = count;
+		}
+		int[] bounds = new int[4 * levelStarts[height]];
+		for (int k = 0; k < levelStarts[height]; k++)
+		{
+			bounds[4 * k] = bounds[4 * k + 1] = Integer.MAX_VALUE;
+			bounds[4 * k + 2] = bounds[4 * k + 3] = Integer.MIN_VALUE;
+		}
+		for (int i = 0; i < size; i++)
+		{
+			int k = 4 * (i / NODE_CAPACITY);
+			include(bounds, k, coordinates[4 * i], coordinates[4 * i + 1]);
+			include(bounds, k, coordinates[4 * i + 2], coordinates[4 * i + 3]);
+		}
+		for (int level = 1; level < height; level++)
+		{
+			for (int child = levelStarts[level - 1]; child < levelStarts[level]; child++)
+			{
+				int k = 4 * (levelStarts[level] + (child - levelStarts[level - 1]) / NODE_CAPACITY);
+				include(bounds, k, bounds[4 * child], bounds[4 * child + 1]);
+				include(bounds, k, bounds[4 * child + 2], bounds[4 * child + 3]);
+			}
+		}
+		return new SegmentRTree(table, order, coordinates, levelStarts, bounds, System.nanoTime() - begin);
+	}
+
+
+	/**
+	 * Returns the indexed table.
+	 * @return this.table
+	 */
+	public GeoSegmentTable getTable()
+	{
+		return this.table;
+	}
+
+
+	/**
+	 * Returns the number of indexed segments.
+	 * @return this.table.size()
+	 */
+	public int size()
+	{
+		return this.size;
+	}
+
+
+	/**
+	 * Returns the number of levels of nodes.
+	 * @return the number of levels of nodes of this tree, which is 0 if
+	 *         this.table is empty.
+	 */
+	public int getHeight()
+	{
+		return this.levelStarts.length - 1;
+	}
+
+
+	/**
+	 * Computes the distance from a point to a segment.
+	 * @requires 0 <= id < this.size() and (latitude, longitude) is valid as
+	 *           defined by the GeoPoint constructor.
+	 * @return the distance in kilometers from (latitude, longitude) to the
+	 *         nearest point of the segment id of this.table.
+	 */
+	public double distance(int id, int latitude, int longitude)
+	{
+		assert 0 <= id && id < this.size : "SegmentRTree: id out of range " + id;
+		return segmentDistance(latitude, longitude, this.table.getLatitude1(id), this.table.getLongitude1(id),
+				this.table.getLatitude2(id), this.table.getLongitude2(id));
+	}
+
+
+	/**
+	 * Finds the segments nearest to a point.
+	 * @requires p != null && k >= 0
+	 * @return a new array of the ids of the min(k, this.size()) segments
+	 *         nearest to p, from the nearest one.
+	 */
+	public int[] nearest(GeoPoint p, int k)
+	{
+		assert p != null : "SegmentRTree: p is null";
+		Query query = this.newQuery();
+		int count = query.nearest(p.getLatitude(), p.getLongitude(), k);
+		return Arrays.copyOf(query.ids, count);
+	}
+
+
+	/**
+	 * Finds the segments that intersect a box.
+	 * @requires minLatitude <= maxLatitude && minLongitude <= maxLongitude
+	 * @return a new array of the ids of the segments that have a point in
+	 *         the box from (minLatitude, minLongitude) to (maxLatitude,
+	 *         maxLongitude), borders included, in no particular order.
+	 */
+	public int[] window(int minLatitude, int minLongitude, int maxLatitude, int maxLongitude)
+	{
+		Query query = this.newQuery();
+		int count = query.window(minLatitude, minLongitude, maxLatitude, maxLongitude);
+		return Arrays.copyOf(query.ids, count);
+	}
+
+
+	/**
+	 * Returns a new Query of this tree.
+	 * @return a new Query of this tree with no results.
+	 */
+	public Query newQuery()
+	{
+		return new Query();
+	}
+
+
+	/**
+	 * Returns the time it took to build this tree.
+	 * @return the number of nanoseconds build() took.
+	 */
+	public long getBuildNanos()
+	{
+		return this.buildNanos;
+	}
+
+
+	/**
+	 * Returns an approximation of the memory used by this tree.
+	 * @return the number of bytes taken by the arrays of this tree, not
+	 *         including this.table.
+	 */
+	public long estimateMemoryBytes()
+	{
+		return 4L * (this.ids.length + this.coordinates.length + this.levelStarts.length + this.bounds.length);
+	}
+
+
+	/**
+	 * Returns a string representation of this.
+	 * @return a string representation of this.
+	 */
+	@Override
+	public String toString()
+	{
+		return "SegmentRTree: " + this.size + " segments, " + this.getHeight() + " levels, "
+				+ (this.bounds.length / 4) + " nodes";
+	}
+
+
+	// Packs order[from..to) into tiles of tileSize segments, and every tile into smaller ones, down to single segments.
+	private static void pack(GeoSegmentTable table, int[] order, long[] keys, int from, int to, long tileSize)
+	{
+		if (tileSize <= 1)
+			return;
+		long tiles = (to - from + tileSize - 1) / tileSize;
+		long sliceSize = (long) Math.ceil(Math.sqrt(tiles)) * tileSize;
+		sort(table, order, keys, from, to, false);
+		for (long slice = from; slice < to; slice += sliceSize)
+		{
+			int sliceEnd = (int) Math.min(to, slice + sliceSize);
+			sort(table, order, keys, (int) slice, sliceEnd, true);
+			for (long tile = slice; tile < sliceEnd; tile += tileSize)
+				pack(table, order, keys, (int) tile, (int) Math.min(sliceEnd, tile + tileSize), tileSize / NODE_CAPACITY);
+		}
+	}
+
+
+	// Sorts order[from..to) by the latitude, or the longitude, of the centers of the segments.
+	private static void sort(GeoSegmentTable table, int[] order, long[] keys, int from, int to, boolean byLatitude)
+	{
+		for (int i = from; i < to; i++)
+		{
+			int id = order[i];
+			// Twice the coordinate of the center, shifted to be non negative, above the id.
+			long center = byLatitude
+					? (long) table.getLatitude1(id) + table.getLatitude2(id) - 2L * GeoPoint.MIN_LATITUDE
+					: (long) table.getLongitude1(id) + table.getLongitude2(id) - 2L * GeoPoint.MIN_LONGITUDE;
+			keys[i] = (center << 32) | id;
+		}
+		Arrays.sort(keys, from, to);
+		for (int i = from; i < to; i++)
+			order[i] = (int) keys[i];
+	}
+
+
+	// Grows the box at bounds[k..k+3] to hold a point.
+	private static void include(int[] bounds, int k, int latitude, int longitude)
+	{
+		bounds[k] = Math.min(bounds[k], latitude);
+		bounds[k + 1] = Math.min(bounds[k + 1], longitude);
+		bounds[k + 2] = Math.max(bounds[k + 2], latitude);
+		bounds[k + 3] = Math.max(bounds[k + 3], longitude);
+	}
+
+
+	// Returns the distance from a point to the nearest point of a box, which is 0 inside it.
+	private static double boxDistance(int latitude, int longitude, int[] bounds, int k)
+	{
+		long latitudeDelta = Math.max(0, Math.max((long) bounds[k] - latitude, (long) latitude - bounds[k + 2]));
+		long longitudeDelta = Math.max(0, Math.max((long) bounds[k + 1] - longitude, (long) longitude - bounds[k + 3]));
+		double y = (double) latitudeDelta / millionth * GeoPoint.KM_PER_DEGREE_LATITUDE;
+		double x = (double) longitudeDelta / millionth * GeoPoint.KM_PER_DEGREE_LONGITUDE;
+		return Math.sqrt(y * y + x * x);
+	}
+
+
+	// Returns the distance from a point to the nearest point of the segment between two points.
+	private static double segmentDistance(int latitude, int longitude, int latitude1, int longitude1,
+			int latitude2, int longitude2)
+	{
+		double segmentY = (double) (latitude2 - latitude1) / millionth * GeoPoint.KM_PER_DEGREE_LATITUDE;
+		double segmentX = (double) (longitude2 - longitude1) / millionth * GeoPoint.KM_PER_DEGREE_LONGITUDE;
+		double pointY = (double) (latitude - latitude1) / millionth * GeoPoint.KM_PER_DEGREE_LATITUDE;
+		double pointX = (double) (longitude - longitude1) / millionth * GeoPoint.KM_PER_DEGREE_LONGITUDE;
+		double squaredLength = segmentY * segmentY + segmentX * segmentX;
+		double t = (squaredLength == 0) ? 0 : (pointY * segmentY + pointX * segmentX) / squaredLength;
+		// Nearest to an endpoint, the distance is computed exactly as GeoPoint.distanceTo() does.
+		if (t <= 0)
+			return GeoPointCodec.distance(latitude, longitude, latitude1, longitude1);
+		if (t >= 1)
+			return GeoPointCodec.distance(latitude, longitude, latitude2, longitude2);
+		double y = pointY - t * segmentY;
+		double x = pointX - t * segmentX;
+		return Math.sqrt(y * y + x * x);
+	}
+
+
+	// Returns true iff the segment at position i has a point in the box, borders included.
+	private boolean intersects(int i, int minLatitude, int minLongitude, int maxLatitude, int maxLongitude)
+	{
+		int latitude1 = this.coordinates[4 * i];
+		int longitude1 = this.coordinates[4 * i + 1];
+		int latitude2 = this.coordinates[4 * i + 2];
+		int longitude2 = this.coordinates[4 * i + 3];
+		if (Math.max(latitude1, latitude2) < minLatitude || Math.min(latitude1, latitude2) > maxLatitude
+				|| Math.max(longitude1, longitude2) < minLongitude || Math.min(longitude1, longitude2) > maxLongitude)
+			return false;
+		// The bounding boxes overlap, so the segment misses the box only if all four corners are strictly on
+		// one side of its line.
+		long side1 = side(latitude1, longitude1, latitude2, longitude2, minLatitude, minLongitude);
+		long side2 = side(latitude1, longitude1, latitude2, longitude2, minLatitude, maxLongitude);
+		long side3 = side(latitude1, longitude1, latitude2, longitude2, maxLatitude, minLongitude);
+		long side4 = side(latitude1, longitude1, latitude2, longitude2, maxLatitude, maxLongitude);
+		return !((side1 > 0 && side2 > 0 && side3 > 0 && side4 > 0) || (side1 < 0 && side2 < 0 && side3 < 0 && side4 < 0));
+	}
+
+
+	// Returns the sign of the cross product that tells on which side of a line through two points a third one is.
+	private static long side(int latitude1, int longitude1, int latitude2, int longitude2, int latitude, int longitude)
+	{
+		return Long.signum(((long) latitude2 - latitude1) * ((long) longitude - longitude1)
+				- ((long) longitude2 - longitude1) * ((long) latitude - latitude1));
+	}
+
+
+	private void checkRep()
+	{
+		assert this.ids.length == this.size && this.coordinates.length == 4 * this.size : "SegmentRTree: bad segments";
+		assert (this.size == 0) == (this.levelStarts.length == 1) : "SegmentRTree: bad levels";
+		assert this.size == 0 || this.levelStarts[this.levelStarts.length - 1]
+				- this.levelStarts[this.levelStarts.length - 2] == 1 : "SegmentRTree: more than one root";
+		assert this.bounds.length == 4 * this.levelStarts[this.levelStarts.length - 1] : "SegmentRTree: bad bounds";
+	}
+
+
+	/**
+	 * A Query runs nearest segment and window queries on a SegmentRTree. A
+	 * Query keeps the results of its last query, and its work buffers, in
+	 * arrays it reuses across queries, so it isn't safe for use by multiple
+	 * threads.
+	 * <p>
+	 * <b>The following fields are used in the specification:</b>
+	 * <pre>
+	 *   results : sequence    // the ids of the segments found by the last query
+	 *   distances : sequence  // the distance of each result from the point of the last nearest query
+	 * </pre>
+	 */
+	public final class Query {
+
+		private int[] ids = new int[NODE_CAPACITY];
+		private double[] distances = new double[NODE_CAPACITY];
+		private int count = 0;
+
+		// A binary min-heap of positions of segments, as is, and of nodes, as size() + node, with their distances.
+		private int[] heapItems = new int[4 * NODE_CAPACITY];
+		private double[] heapKeys = new double[4 * NODE_CAPACITY];
+		private int heapSize = 0;
+
+		// The nodes a window query has yet to visit.
+		private int[] stack = new int[4 * NODE_CAPACITY];
+
+		// Rep. Inv.:
+		// 0 <= this.count <= this.ids.length = this.distances.length, and the heap is empty between queries.
+
+		// Abstraction Function:
+		// results = this.ids[0..this.count), distances = this.distances[0..this.count).
+
+		private Query()
+		{
+		}
+
+
+		/**
+		 * Finds the segments nearest to a point.
+		 * @requires k >= 0 and (latitude, longitude) is valid as defined by
+		 *           the GeoPoint constructor.
+		 * @modifies this
+		 * @effects sets this.results to the ids of the min(k, size())
+		 *          segments nearest to (latitude, longitude), from the
+		 *          nearest one, and this.distances to their distances.
+		 * @return the number of results.
+		 */
+		public int nearest(int latitude, int longitude, int k)
+		{
+			assert k >= 0 : "SegmentRTree.Query: negative k";
+			this.count = 0;
+			if (size == 0 || k == 0)
+				return 0;
+			this.ensureResults(Math.min(k, size));
+			int height = levelStarts.length - 1;
+			this.push(size + levelStarts[height - 1], 0);
+			while (this.heapSize > 0 && this.count < k)
+			{
+				double distance = this.heapKeys[0];
+				int item = this.pop();
+				if (item < size)
+				{
+					// Segments are keyed by their exact distance, so none left in the heap is nearer.
+					this.ids[this.count] = SegmentRTree.this.ids[item];
+					this.distances[this.count++] = distance;
+					continue;
+				}
+				int node = item - size;
+				int level = this.levelOf(node);
+				int first = (node - levelStarts[level]) * NODE_CAPACITY;
+				if (level == 0)
+				{
+					int end = Math.min(size, first + NODE_CAPACITY);
+					for (int i = first; i < end; i++)
+						this.push(i, segmentDistance(latitude, longitude, coordinates[4 * i], coordinates[4 * i + 1],
+								coordinates[4 * i + 2], coordinates[4 * i + 3]));
+				}
+				else
+				{
+					int end = Math.min(levelStarts[level], levelStarts[level - 1] + first + NODE_CAPACITY);
+					for (int child = levelStarts[level - 1] + first; child < end; child++)
+						this.push(size + child, boxDistance(latitude, longitude, bounds, 4 * child));
+				}
+			}
+			this.heapSize = 0;
+			return this.count;
+		}
+
+
+		/**
+		 * Finds the segments that intersect a box.
+		 * @requires minLatitude <= maxLatitude && minLongitude <= maxLongitude
+		 * @modifies this
+		 * @effects sets this.results to the ids of the segments that have a
+		 *          point in the box from (minLatitude, minLongitude) to
+		 *          (maxLatitude, maxLongitude), borders included, in no
+		 *          particular order, and this.distances to zeros.
+		 * @return the number of results.
+		 */
+		public int window(int minLatitude, int minLongitude, int maxLatitude, int maxLongitude)
+		{
+			assert minLatitude <= maxLatitude && minLongitude <= maxLongitude : "SegmentRTree.Query: bad box";
+			this.count = 0;
+			if (size == 0)
+				return 0;
+			int height = levelStarts.length - 1;
+			int top = 0;
+			this.stack[top++] = levelStarts[height - 1];
+			while (top > 0)
+			{
+				int node = this.stack[--top];
+				int k = 4 * node;
+				if (bounds[k] > maxLatitude || bounds[k + 2] < minLatitude
+						|| bounds[k + 1] > maxLongitude || bounds[k + 3] < minLongitude)
+					continue;
+				int level = this.levelOf(node);
+				int first = (node - levelStarts[level]) * NODE_CAPACITY;
+				if (level == 0)
+				{
+					int end = Math.min(size, first + NODE_CAPACITY);
+					for (int i = first; i < end; i++)
+					{
+						if (intersects(i, minLatitude, minLongitude, maxLatitude, maxLongitude))
+						{
+							this.ensureResults(this.count + 1);
+							this.distances[this.count] = 0;
+							this.ids[this.count++] = SegmentRTree.this.ids[i];
+						}
+					}
+				}
+				else
+				{
+					int end = Math.min(levelStarts[level], levelStarts[level - 1] + first + NODE_CAPACITY);
+					if (top + NODE_CAPACITY > this.stack.length)
+						this.stack = Arrays.copyOf(this.stack, this.stack.length * 2);
+					for (int child = levelStarts[level - 1] + first; child < end; child++)
+						this.stack[top++] = child;
+				}
+			}
+			return this.count;
+		}
+
+
+		/**
+		 * Returns the number of results of the last query.
+		 * @return the length of this.results.
+		 */
+		public int size()
+		{
+			return this.count;
+		}
+
+
+		/**
+		 * Returns a result of the last query.
+		 * @requires 0 <= i < this.size()
+		 * @return this.results[i]
+		 */
+		public int getId(int i)
+		{
+			assert 0 <= i && i < this.count : "SegmentRTree.Query: result out of range " + i;
+			return this.ids[i];
+		}
+
+
+		/**
+		 * Returns the distance of a result of the last query.
+		 * @requires 0 <= i < this.size()
+		 * @return this.distances[i], in kilometers.
+		 */
+		public double getDistance(int i)
+		{
+			assert 0 <= i && i < this.count : "SegmentRTree.Query: result out of range " + i;
+			return this.distances[i];
+		}
+
+
+		// Returns the level of a node.
+		private int levelOf(int node)
+		{
+			int level = 0;
+			while (node >= levelStarts[level + 1])
+				level++;
+			return level;
+		}
+
+
+		private void ensureResults(int capacity)
+		{
+			if (capacity > this.ids.length)
+			{
+				int length = Math.max(capacity, this.ids.length * 2);
+				this.ids = Arrays.copyOf(this.ids, length);
+				this.distances = Arrays.copyOf(this.distances, length);
+			}
+		}
+
+
+		private void push(int item, double key)
+		{
+			if (this.heapSize == this.heapItems.length)
+			{
+				this.heapItems = Arrays.copyOf(this.heapItems, this.heapSize * 2);
+				this.heapKeys = Arrays.copyOf(this.heapKeys, this.heapSize * 2);
+			}
+			int i = this.heapSize++;
+			while (i > 0 && this.heapKeys[(i - 1) / 2] > key)
+			{
+				int parent = (i - 1) / 2;
+				this.heapItems[i] = this.heapItems[parent];
+				this.heapKeys[i] = this.heapKeys[parent];
+				i = parent;
+			}
+			this.heapItems[i] = item;
+			this.heapKeys[i] = key;
+		}
+
+
+		private int pop()
+		{
+			int top = this.heapItems[0];
+			int item = this.heapItems[--this.heapSize];
+			double key = this.heapKeys[this.heapSize];
+			int i = 0;
+			while (true)
+			{
+				int child = 2 * i + 1;
+				if (child >= this.heapSize)
+					break;
+				if (child + 1 < this.heapSize && this.heapKeys[child + 1] < this.heapKeys[child])
+					child++;
+				if (this.heapKeys[child] >= key)
+					break;
+				this.heapItems[i] = this.heapItems[child];
+				this.heapKeys[i] = this.heapKeys[child];
+				i = child;
+			}
+			this.heapItems[i] = item;
+			this.heapKeys[i] = key;
+			return top;
+		}
+	}
+}
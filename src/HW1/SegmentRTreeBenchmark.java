@@ -0,0 +1,171 @@
+package HW1;
+
+import java.util.Random;
+
+/**
+ * Builds a SegmentRTree over random short segments, and compares its
+ * nearest segment and window queries with full scans of the table, on one
+ * thread and on all the available processors.
+ * <p>
+ * Usage: <tt>java -Xmx4g HW1.SegmentRTreeBenchmark [numOfSegments] [numOfQueries]</tt>
+ * (run with 1000000 and 10000000 segments)
+ */
+public class SegmentRTreeBenchmark {
+
+	// The segments are spread over a square of this many millionths of degrees per side, about 110 km.
+	private static final int area = 1000000;
+
+	// Full scans are slow, so only this many queries are compared with them.
+	private static final int numOfScans = 20;
+
+	private final int numOfSegments;
+	private final int numOfQueries;
+
+
+	public SegmentRTreeBenchmark(int numOfSegments, int numOfQueries) {
+		this.numOfSegments = numOfSegments;
+		this.numOfQueries = numOfQueries;
+	}
+
+
+	// Creates segments of up to about 100 meters, in random directions, spread evenly over the area.
+	static GeoSegmentTable createTable(int numOfSegments) {
+		Random random = new Random(7);
+		GeoSegmentTable.Builder builder = new GeoSegmentTable.Builder();
+		int[] nameIds = new int[1000];
+		for (int i = 0; i < nameIds.length; i++)
+			nameIds[i] = builder.nameId("Road " + i);
+		for (int i = 0; i < numOfSegments; i++) {
+			int latitude = 32000000 + random.nextInt(area);
+			int longitude = 34500000 + random.nextInt(area);
+			builder.add(nameIds[i % nameIds.length], latitude, longitude,
+					latitude + random.nextInt(1801) - 900, longitude + random.nextInt(2001) - 1000);
+		}
+		return builder.build();
+	}
+
+
+	// Returns the id of the segment nearest to a point, by scanning the whole table.
+	static int scanNearest(SegmentRTree tree, int latitude, int longitude) {
+		int best = -1;
+		double bestDistance = Double.POSITIVE_INFINITY;
+		for (int id = 0; id < tree.size(); id++) {
+			double distance = tree.distance(id, latitude, longitude);
+			if (distance < bestDistance) {
+				bestDistance = distance;
+				best = id;
+			}
+		}
+		return best;
+	}
+
+
+	// Returns the number of segments with an endpoint in a box, by scanning the whole table.
+	static int scanWindow(GeoSegmentTable table, int minLatitude, int minLongitude, int maxLatitude, int maxLongitude) {
+		int count = 0;
+		for (int i = 0; i < table.size(); i++) {
+			int latitude = table.getLatitude1(i);
+			int longitude = table.getLongitude1(i);
+			if (minLatitude <= latitude && latitude <= maxLatitude && minLongitude <= longitude && longitude <= maxLongitude)
+				count++;
+		}
+		return count;
+	}
+
+
+	// Runs the nearest queries of one thread, returning the number of results.
+	long runNearest(SegmentRTree tree, int[] latitudes, int[] longitudes, int k, int thread, int numOfThreads) {
+		SegmentRTree.Query query = tree.newQuery();
+		long results = 0;
+		for (int i = thread; i < latitudes.length; i += numOfThreads)
+			results += query.nearest(latitudes[i], longitudes[i], k);
+		return results;
+	}
+
+
+	// Runs all the nearest queries on numOfThreads threads, returning the number of queries per second.
+	double nearestThroughput(SegmentRTree tree, int[] latitudes, int[] longitudes, int k, int numOfThreads)
+			throws InterruptedException {
+		Thread[] threads = new Thread[numOfThreads];
+		long begin = System.nanoTime();
+		for (int t = 0; t < numOfThreads; t++) {
+			final int thread = t;
+			threads[t] = new Thread(() -> runNearest(tree, latitudes, longitudes, k, thread, numOfThreads));
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		return latitudes.length / ((System.nanoTime() - begin) / 1e9);
+	}
+
+
+	public void run() throws InterruptedException {
+		GeoSegmentTable table = createTable(numOfSegments);
+		long before = GeoSegmentTableBenchmark.usedMemory();
+		SegmentRTree tree = SegmentRTree.build(table);
+		long treeBytes = GeoSegmentTableBenchmark.usedMemory() - before;
+
+		Random random = new Random(11);
+		int[] latitudes = new int[numOfQueries];
+		int[] longitudes = new int[numOfQueries];
+		for (int i = 0; i < numOfQueries; i++) {
+			latitudes[i] = 32000000 + random.nextInt(area);
+			longitudes[i] = 34500000 + random.nextInt(area);
+		}
+
+		// Warm up, and check the nearest segments against full scans.
+		SegmentRTree.Query query = tree.newQuery();
+		int mismatches = 0;
+		long begin = System.nanoTime();
+		for (int i = 0; i < numOfScans; i++) {
+			int expected = scanNearest(tree, latitudes[i], longitudes[i]);
+			query.nearest(latitudes[i], longitudes[i], 1);
+			if (tree.distance(expected, latitudes[i], longitudes[i]) != query.getDistance(0))
+				mismatches++;
+		}
+		double scanNearestMicros = (System.nanoTime() - begin) / 1e3 / numOfScans;
+		runNearest(tree, latitudes, longitudes, 10, 0, 1);
+
+		begin = System.nanoTime();
+		runNearest(tree, latitudes, longitudes, 1, 0, 1);
+		double nearestMicros = (System.nanoTime() - begin) / 1e3 / numOfQueries;
+		begin = System.nanoTime();
+		runNearest(tree, latitudes, longitudes, 10, 0, 1);
+		double nearest10Micros = (System.nanoTime() - begin) / 1e3 / numOfQueries;
+
+		// Windows of about 1 km by 1 km.
+		long windowResults = 0;
+		begin = System.nanoTime();
+		for (int i = 0; i < numOfQueries; i++)
+			windowResults += query.window(latitudes[i], longitudes[i], latitudes[i] + 9000, longitudes[i] + 10700);
+		double windowMicros = (System.nanoTime() - begin) / 1e3 / numOfQueries;
+		begin = System.nanoTime();
+		for (int i = 0; i < numOfScans; i++)
+			scanWindow(table, latitudes[i], longitudes[i], latitudes[i] + 9000, longitudes[i] + 10700);
+		double scanWindowMicros = (System.nanoTime() - begin) / 1e3 / numOfScans;
+
+		int numOfThreads = Runtime.getRuntime().availableProcessors();
+		double singleThroughput = nearestThroughput(tree, latitudes, longitudes, 1, 1);
+		double parallelThroughput = nearestThroughput(tree, latitudes, longitudes, 1, numOfThreads);
+
+		System.out.println(tree);
+		System.out.printf("Build:              %.2f s, %.1f MB (estimated %.1f MB), table %.1f MB%n",
+				tree.getBuildNanos() / 1e9, treeBytes / 1e6, tree.estimateMemoryBytes() / 1e6,
+				table.estimateMemoryBytes() / 1e6);
+		System.out.printf("Nearest segment:    %.2f us, full scan %.0f us (%.0fx)%n",
+				nearestMicros, scanNearestMicros, scanNearestMicros / nearestMicros);
+		System.out.printf("10 nearest:         %.2f us%n", nearest10Micros);
+		System.out.printf("1 km window:        %.2f us for %.1f segments on average, full scan %.0f us%n",
+				windowMicros, (double) windowResults / numOfQueries, scanWindowMicros);
+		System.out.printf("Nearest throughput: %.0f queries/s on 1 thread, %.0f on %d threads%n",
+				singleThroughput, parallelThroughput, numOfThreads);
+		System.out.println("Nearest segments different from the full scan: " + mismatches);
+	}
+
+
+	public static void main(String[] args) throws InterruptedException {
+		int numOfSegments = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+		int numOfQueries = (args.length > 1) ? Integer.parseInt(args[1]) : 100000;
+		new SegmentRTreeBenchmark(numOfSegments, numOfQueries).run();
+	}
+}
@@ -0,0 +1,183 @@
+package HW1;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class SegmentRTreeTest {
+
+	private static final double tolerance = 0.0000001;
+
+
+	boolean same(double x, double y) {
+		return ((y >= x-tolerance) && (y <= x+tolerance));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Creates segments of random lengths and directions around the Technion.
+	static GeoSegmentTable createTable(int numOfSegments, long seed) {
+		Random random = new Random(seed);
+		GeoSegmentTable.Builder builder = new GeoSegmentTable.Builder();
+		for (int i = 0; i < numOfSegments; i++) {
+			int latitude = 32700000 + random.nextInt(100000);
+			int longitude = 35000000 + random.nextInt(100000);
+			builder.add("Road " + (i % 50), latitude, longitude,
+					latitude + random.nextInt(4001) - 2000, longitude + random.nextInt(4001) - 2000);
+		}
+		return builder.build();
+	}
+
+
+	// Returns true iff the query found the k segments nearest to the point, from the nearest one.
+	boolean matchesScan(SegmentRTree tree, SegmentRTree.Query query, int latitude, int longitude, int k) {
+		int count = query.nearest(latitude, longitude, k);
+		double[] expected = new double[tree.size()];
+		for (int id = 0; id < tree.size(); id++)
+			expected[id] = tree.distance(id, latitude, longitude);
+		Arrays.sort(expected);
+		if (count != Math.min(k, tree.size()))
+			return false;
+		for (int i = 0; i < count; i++)
+			if (!same(query.getDistance(i), expected[i])
+					|| !same(tree.distance(query.getId(i), latitude, longitude), expected[i]))
+				return false;
+		return true;
+	}
+
+
+	// Returns true iff window() found exactly the segments that the scan of segmentInBox() finds.
+	boolean matchesScan(SegmentRTree tree, int minLatitude, int minLongitude, int maxLatitude, int maxLongitude) {
+		int[] found = tree.window(minLatitude, minLongitude, maxLatitude, maxLongitude);
+		Arrays.sort(found);
+		GeoSegmentTable table = tree.getTable();
+		int count = 0;
+		for (int id = 0; id < table.size(); id++) {
+			if (segmentInBox(table, id, minLatitude, minLongitude, maxLatitude, maxLongitude)) {
+				if (count >= found.length || found[count] != id)
+					return false;
+				count++;
+			}
+		}
+		return count == found.length;
+	}
+
+
+	// Returns true iff one of 2001 evenly spaced points of segment id, including its endpoints, is in the box.
+	static boolean segmentInBox(GeoSegmentTable table, int id, int minLatitude, int minLongitude,
+			int maxLatitude, int maxLongitude) {
+		for (int step = 0; step <= 2000; step++) {
+			double latitude = table.getLatitude1(id) + (table.getLatitude2(id) - table.getLatitude1(id)) * step / 2000.0;
+			double longitude = table.getLongitude1(id) + (table.getLongitude2(id) - table.getLongitude1(id)) * step / 2000.0;
+			if (minLatitude <= latitude && latitude <= maxLatitude && minLongitude <= longitude && longitude <= maxLongitude)
+				return true;
+		}
+		return false;
+	}
+
+
+	public void test() throws InterruptedException {
+		GeoSegmentTable example = new GeoSegmentTable(Arrays.asList(ExampleGeoSegments.segments));
+		SegmentRTree exampleTree = SegmentRTree.build(example);
+		GeoSegmentTable table = createTable(5000, 3);
+		SegmentRTree tree = SegmentRTree.build(table);
+
+		show("build()");
+		show("Tree of the example has a single leaf", exampleTree.size() == example.size() && exampleTree.getHeight() == 1);
+		show("Tree of 5000 segments has 4 levels", tree.size() == 5000 && tree.getHeight() == 4);
+		SegmentRTree empty = SegmentRTree.build(new GeoSegmentTable.Builder().build());
+		show("Empty tree finds nothing", empty.getHeight() == 0
+				&& empty.nearest(new GeoPoint(32700000, 35000000), 3).length == 0
+				&& empty.window(32700000, 35000000, 32800000, 35100000).length == 0);
+
+		show("distance()");
+		GeoSegment gs = ExampleGeoSegments.segments[0];
+		GeoPoint p = ExampleGeoSegments.points[3];
+		show("Distance beyond an endpoint is GeoPoint.distanceTo()",
+			exampleTree.distance(0, p.getLatitude(), p.getLongitude()) == Math.min(p.distanceTo(gs.getP1()), p.distanceTo(gs.getP2())));
+		show("Distance from a point on the segment is 0",
+			tree.distance(0, table.getLatitude1(0), table.getLongitude1(0)) == 0);
+		GeoSegmentTable vertical = new GeoSegmentTable(Arrays.asList(
+			new GeoSegment("Vertical", new GeoPoint(32000000, 35000000), new GeoPoint(32002000, 35000000))));
+		show("Distance from beside the middle is the perpendicular one",
+			same(SegmentRTree.build(vertical).distance(0, 32001000, 35001000), GeoPoint.KM_PER_DEGREE_LONGITUDE / 1000));
+
+		show("nearest()");
+		SegmentRTree.Query query = tree.newQuery();
+		Random random = new Random(5);
+		boolean nearest = true;
+		for (int i = 0; i < 50; i++)
+			nearest &= matchesScan(tree, query, 32690000 + random.nextInt(120000), 34990000 + random.nextInt(120000),
+					1 + random.nextInt(20));
+		show("Nearest segments match a full scan", nearest);
+		show("Asking for more segments than there are returns them all",
+			matchesScan(exampleTree, exampleTree.newQuery(), p.getLatitude(), p.getLongitude(), 100));
+		int[] ids = tree.nearest(new GeoPoint(table.getLatitude2(42), table.getLongitude2(42)), 1);
+		show("Segment through the point is the nearest",
+			ids.length == 1 && tree.distance(ids[0], table.getLatitude2(42), table.getLongitude2(42)) == 0);
+
+		show("window()");
+		boolean windows = true;
+		for (int i = 0; i < 30; i++) {
+			int latitude = 32690000 + random.nextInt(120000);
+			int longitude = 34990000 + random.nextInt(120000);
+			windows &= matchesScan(tree, latitude, longitude, latitude + random.nextInt(10000), longitude + random.nextInt(10000));
+		}
+		show("Window results match a full scan", windows);
+		show("Box around everything finds every segment", tree.window(32600000, 34900000, 32900000, 35200000).length == 5000);
+		show("Box that only crosses a segment finds it",
+			matchesScan(SegmentRTree.build(vertical), 32000900, 34999000, 32001100, 35001000)
+			&& SegmentRTree.build(vertical).window(32000900, 34999000, 32001100, 35001000).length == 1);
+		show("Box beside a diagonal segment, within its bounds, doesn't find it",
+			SegmentRTree.build(new GeoSegmentTable(Arrays.asList(new GeoSegment("Diagonal",
+				new GeoPoint(32000000, 35000000), new GeoPoint(32002000, 35002000))))).window(32001500, 35000000, 32002000, 35000500).length == 0);
+
+		show("Concurrent reads");
+		int[][] expected = new int[20][];
+		for (int i = 0; i < expected.length; i++)
+			expected[i] = tree.nearest(new GeoPoint(32700000 + 5000 * i, 35000000 + 5000 * i), 5);
+		boolean[] ok = new boolean[4];
+		Thread[] threads = new Thread[ok.length];
+		for (int t = 0; t < threads.length; t++) {
+			final int thread = t;
+			threads[t] = new Thread(() -> {
+				SegmentRTree.Query threadQuery = tree.newQuery();
+				boolean equal = true;
+				for (int round = 0; round < 50; round++) {
+					for (int i = 0; i < expected.length; i++) {
+						int count = threadQuery.nearest(32700000 + 5000 * i, 35000000 + 5000 * i, 5);
+						for (int j = 0; j < count; j++)
+							equal &= threadQuery.getId(j) == expected[i][j];
+					}
+				}
+				ok[thread] = equal;
+			});
+			threads[t].start();
+		}
+		boolean allEqual = true;
+		for (int t = 0; t < threads.length; t++) {
+			threads[t].join();
+			allEqual &= ok[t];
+		}
+		show("Threads sharing a tree find the same segments", allEqual);
+	}
+
+
+	public static void main(String[] args) throws InterruptedException {
+		SegmentRTreeTest treeTest = new SegmentRTreeTest();
+		treeTest.test();
+	}
+}
@@ -0,0 +1,380 @@
+package HW1;
+
+import java.util.Arrays;
+
+/**
+ * A ShortestPathRouter finds shortest paths between the nodes of a
+ * RoadGraph, and returns them as Routes that the RouteFormatters can
+ * compute directions for.
+ * <p>
+ * The search is A*, with the straight line distance to the target, as
+ * computed by GeoPoint.distanceTo(), as its heuristic. Since every edge is
+ * exactly as long as the straight line between its endpoints, the
+ * heuristic never overestimates, and the paths found are shortest. The
+ * router can also run plain Dijkstra, by turning the heuristic off, or
+ * ALT, by giving it a LandmarkTable, whose lower bounds follow the roads
+ * and are usually much tighter than the straight line.
+ * <p>
+ * The landmark bounds are rounded, so they may be slightly inconsistent:
+ * a node may be reached by a shorter path after it was settled. The search
+ * then reopens it, which keeps the paths shortest.
+ * <p>
+ * searchWithin() runs Dijkstra from a node until every node within a given
+ * distance of it is settled, for the many short distances, from one node
+ * to the nodes around it, that map matching needs.
+ * <p>
+ * All the per-node state is kept in primitive arrays allocated once per
+ * router, together with an indexed binary heap of node ids. A generation
+ * number stamped on every node a search reaches tells which entries are
+ * current, so a search doesn't clear the arrays and costs time in
+ * proportion to the nodes it reaches, not to the size of the graph.
+ * <p>
+ * A router holds the state of its last search, so it isn't safe for use
+ * by multiple threads; use one router per thread. Any number of routers
+ * may share the same RoadGraph.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   graph : RoadGraph            // the graph the router searches
+ *   useHeuristic : boolean       // true for A*, false for Dijkstra
+ *   landmarks : LandmarkTable    // the landmark bounds A* uses as well, or null
+ *   path : sequence              // the edges of the path found by the last search
+ *   distance : real              // the length of path, in kilometers
+ *   settled : integer            // the number of nodes the last search settled
+ *   within : set                 // the shortest paths found by the last searchWithin()
+ * </pre>
+ */
+public class ShortestPathRouter {
+
+	// A settled node is reopened only by a path shorter by more than this many kilometers. Smaller differences are
+	// rounding errors in summing edge lengths, which would otherwise reopen nodes over and over on equal paths.
+	private static final double reopenTolerance = 1e-9;
+
+	private final RoadGraph graph;
+	private final boolean useHeuristic;
+	private final LandmarkTable landmarks;
+	private final IntMinHeap heap;
+	private final double[] distances;
+	private final int[] prevEdges;
+	private final int[] stamps;		// the generation in which the node was reached, negated once it is settled.
+	private int generation;
+
+	private int source;
+	private int target;
+	private boolean found;
+	private boolean within;		// true iff the last search was searchWithin().
+	private int settled;
+
+	// Rep. Inv.:
+	// all the per-node arrays have this.graph.numOfNodes() elements.
+	// this.landmarks is null or a table of this.graph, and if it isn't null, this.useHeuristic is true.
+	// for every node n with |this.stamps[n]| = this.generation: this.distances[n] is the length of a path from
+	//     this.source to n whose last edge is this.prevEdges[n], or -1 when n = this.source, and n was settled with
+	//     that distance if this.stamps[n] = -this.generation.
+	// |this.stamps[n]| <= this.generation for every node n.
+
+	// Abstraction Function:
+	// If this.found, path is the edges this.prevEdges[...] followed back from this.target to this.source, in
+	// reverse order, and distance = this.distances[this.target].
+
+	/**
+	 * Constructs a new ShortestPathRouter that uses A*.
+	 * @requires graph != null
+	 * @effects Constructs a new ShortestPathRouter r such that
+	 *          r.graph = graph && r.useHeuristic = true && r.path is empty.
+	 */
+	public ShortestPathRouter(RoadGraph graph)
+	{
+		this(graph, true);
+	}
+
+
+	/**
+	 * Constructs a new ShortestPathRouter.
+	 * @requires graph != null
+	 * @effects Constructs a new ShortestPathRouter r such that
+	 *          r.graph = graph && r.useHeuristic = useHeuristic &&
+	 *          r.landmarks = null && r.path is empty.
+	 */
+	public ShortestPathRouter(RoadGraph graph, boolean useHeuristic)
+	{
+		this(graph, useHeuristic, null);
+	}
+
+
+	/**
+	 * Constructs a new ShortestPathRouter that uses ALT.
+	 * @requires landmarks != null
+	 * @effects Constructs a new ShortestPathRouter r such that
+	 *          r.graph = landmarks.graph && r.useHeuristic = true &&
+	 *          r.landmarks = landmarks && r.path is empty.
+	 */
+	public ShortestPathRouter(LandmarkTable landmarks)
+	{
+		this(landmarks.getGraph(), true, landmarks);
+	}
+
+
+	private ShortestPathRouter(RoadGraph graph, boolean useHeuristic, LandmarkTable landmarks)
+	{
+		assert graph != null : "ShortestPathRouter: graph is null";
+		int numOfNodes = graph.numOfNodes();
+		this.graph = graph;
+		this.useHeuristic = useHeuristic;
+		this.landmarks = landmarks;
+		this.heap = new IntMinHeap(numOfNodes);
+		this.distances = new double[numOfNodes];
+		this.prevEdges = new int[numOfNodes];
+		this.stamps = new int[numOfNodes];
+		this.generation = 0;
+		this.found = false;
+		this.checkRep();
+	}
+
+
+	/**
+	 * Returns the graph of this router.
+	 * @return this.graph
+	 */
+	public RoadGraph getGraph()
+	{
+		return this.graph;
+	}
+
+
+	/**
+	 * Finds a shortest path between two nodes.
+	 * @requires 0 <= source, target < this.graph.numOfNodes()
+	 * @modifies this
+	 * @effects sets this.path to a shortest path from source to target,
+	 *          which is empty if source = target, and this.distance to its
+	 *          length. If target can't be reached from source, sets
+	 *          this.path to an empty sequence.
+	 * @return true iff target can be reached from source.
+	 */
+	public boolean search(int source, int target)
+	{
+		assert 0 <= source && source < this.distances.length && 0 <= target && target < this.distances.length
+				: "ShortestPathRouter: node out of range";
+		this.nextGeneration();
+		this.source = source;
+		this.target = target;
+		this.settled = 0;
+		this.found = false;
+		this.within = false;
+
+		int targetLatitude = this.graph.getNodeLatitude(target);
+		int targetLongitude = this.graph.getNodeLongitude(target);
+		this.reach(source, 0, -1);
+		this.heap.offer(source, this.estimate(source, targetLatitude, targetLongitude));
+		while (!this.heap.isEmpty())
+		{
+			int n = this.heap.poll();
+			this.stamps[n] = -this.generation;
+			this.settled++;
+			if (n == target)
+			{
+				this.found = true;
+				break;
+			}
+			double distance = this.distances[n];
+			for (int e = this.graph.firstEdge(n); e < this.graph.endEdge(n); e++)
+			{
+				int next = this.graph.getEdgeTarget(e);
+				int stamp = this.stamps[next];
+				double nextDistance = distance + this.graph.getEdgeLength(e);
+				// A settled node is only improved on, and reopened, when the heuristic isn't consistent.
+				if (stamp == -this.generation ? nextDistance < this.distances[next] - reopenTolerance
+						: stamp != this.generation || nextDistance < this.distances[next])
+				{
+					this.reach(next, nextDistance, e);
+					this.heap.offer(next, nextDistance + this.estimate(next, targetLatitude, targetLongitude));
+				}
+			}
+		}
+		this.heap.clear();
+		this.checkRep();
+		return this.found;
+	}
+
+
+	/**
+	 * Finds the shortest paths from a node to all the nodes up to a
+	 * distance from it, with Dijkstra whatever this.useHeuristic is.
+	 * @requires 0 <= source < this.graph.numOfNodes() && maxDistance >= 0
+	 * @modifies this
+	 * @effects sets this.path to an empty sequence, and this.within to
+	 *          the shortest paths from source to every node at most
+	 *          maxDistance from it.
+	 */
+	public void searchWithin(int source, double maxDistance)
+	{
+		assert 0 <= source && source < this.distances.length && maxDistance >= 0
+				: "ShortestPathRouter: bad arguments";
+		this.nextGeneration();
+		this.source = source;
+		this.target = -1;
+		this.settled = 0;
+		this.found = false;
+		this.within = true;
+
+		this.reach(source, 0, -1);
+		this.heap.offer(source, 0);
+		while (!this.heap.isEmpty() && this.heap.peekKey() <= maxDistance)
+		{
+			int n = this.heap.poll();
+			this.stamps[n] = -this.generation;
+			this.settled++;
+			double distance = this.distances[n];
+			for (int e = this.graph.firstEdge(n); e < this.graph.endEdge(n); e++)
+			{
+				int next = this.graph.getEdgeTarget(e);
+				int stamp = this.stamps[next];
+				double nextDistance = distance + this.graph.getEdgeLength(e);
+				if (stamp != -this.generation && (stamp != this.generation || nextDistance < this.distances[next]))
+				{
+					this.reach(next, nextDistance, e);
+					this.heap.offer(next, nextDistance);
+				}
+			}
+		}
+		this.heap.clear();
+		this.checkRep();
+	}
+
+
+	/**
+	 * Returns the distance to a node found by the last searchWithin().
+	 * @requires the last search was searchWithin() &&
+	 *           0 <= node < this.graph.numOfNodes()
+	 * @return the length of the path to node in this.within, or
+	 *         Double.POSITIVE_INFINITY if node isn't in this.within.
+	 */
+	public double getDistanceTo(int node)
+	{
+		assert this.within : "ShortestPathRouter: the last search wasn't searchWithin()";
+		return (this.stamps[node] == -this.generation) ? this.distances[node] : Double.POSITIVE_INFINITY;
+	}
+
+
+	/**
+	 * Returns the path to a node found by the last searchWithin().
+	 * @requires the last search was searchWithin() && node is in this.within
+	 * @return a new array of the ids of the edges of the path to node in
+	 *         this.within, in order.
+	 */
+	public int[] getPathEdgesTo(int node)
+	{
+		assert this.within && this.stamps[node] == -this.generation : "ShortestPathRouter: node wasn't reached";
+		return this.pathTo(node);
+	}
+
+
+	/**
+	 * Finds a shortest route between two points.
+	 * @requires from != null && to != null
+	 * @modifies this
+	 * @effects sets this.path as search() does, with the nodes of from and to.
+	 * @return a new Route along this.path that starts at the GeoPoint
+	 *         object from, or null if from or to isn't a node of
+	 *         this.graph, if from = to, or if there is no path from from to
+	 *         to.
+	 */
+	public Route route(GeoPoint from, GeoPoint to)
+	{
+		assert from != null && to != null : "ShortestPathRouter: null point";
+		int source = this.graph.nodeOf(from);
+		int target = this.graph.nodeOf(to);
+		if (source < 0 || target < 0 || source == target || !this.search(source, target))
+			return null;
+		return this.graph.toRoute(this.getPathEdges(), from);
+	}
+
+
+	/**
+	 * Returns the length of the path found by the last search.
+	 * @requires the last search found a path.
+	 * @return this.distance
+	 */
+	public double getDistance()
+	{
+		assert this.found : "ShortestPathRouter: no path";
+		return this.distances[this.target];
+	}
+
+
+	/**
+	 * Returns the path found by the last search.
+	 * @return a new array of the ids of the edges of this.path, in order.
+	 */
+	public int[] getPathEdges()
+	{
+		if (!this.found)
+			return new int[0];
+		return this.pathTo(this.target);
+	}
+
+
+	/**
+	 * Returns the number of nodes the last search settled.
+	 * @return this.settled
+	 */
+	public int getSettledCount()
+	{
+		return this.settled;
+	}
+
+
+	// Returns the edges of the path to node n, followed back from it to this.source.
+	private int[] pathTo(int n)
+	{
+		int count = 0;
+		for (int node = n; node != this.source; node = this.graph.getEdgeSource(this.prevEdges[node]))
+			count++;
+		int[] path = new int[count];
+		for (int node = n; node != this.source; node = this.graph.getEdgeSource(this.prevEdges[node]))
+			path[--count] = this.prevEdges[node];
+		return path;
+	}
+
+
+	// Sets the distance and the last edge of the best known path to node n.
+	private void reach(int n, double distance, int prevEdge)
+	{
+		this.stamps[n] = this.generation;
+		this.distances[n] = distance;
+		this.prevEdges[n] = prevEdge;
+	}
+
+
+	// Returns the heuristic distance from node n to the target, which is 0 for Dijkstra.
+	private double estimate(int n, int targetLatitude, int targetLongitude)
+	{
+		if (!this.useHeuristic)
+			return 0;
+		double straight = GeoPointCodec.distance(this.graph.getNodeLatitude(n), this.graph.getNodeLongitude(n),
+				targetLatitude, targetLongitude);
+		return (this.landmarks == null) ? straight : Math.max(straight, this.landmarks.lowerBound(n, this.target));
+	}
+
+
+	// Starts a new search, clearing the stamps only when the generation number wraps around.
+	private void nextGeneration()
+	{
+		if (this.generation == Integer.MAX_VALUE)
+		{
+			Arrays.fill(this.stamps, 0);
+			this.generation = 0;
+		}
+		this.generation++;
+	}
+
+
+	private void checkRep()
+	{
+		assert this.distances.length == this.graph.numOfNodes() && this.prevEdges.length == this.distances.length
+				&& this.stamps.length == this.distances.length
+				: "ShortestPathRouter: bad node arrays";
+		assert this.heap.isEmpty() : "ShortestPathRouter: heap not cleared";
+	}
+}
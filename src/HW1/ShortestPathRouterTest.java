@@ -0,0 +1,134 @@
+package HW1;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+public class ShortestPathRouterTest {
+
+	private static final double tolerance = 0.0000001;
+
+	private final GeoPoint[] points = ExampleGeoSegments.points;
+
+
+	boolean same(double x, double y) {
+		return ((y >= x-tolerance) && (y <= x+tolerance));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Returns the lengths of the shortest paths from source to every node, computed by Bellman-Ford.
+	static double[] bellmanFord(RoadGraph graph, int source) {
+		double[] distances = new double[graph.numOfNodes()];
+		Arrays.fill(distances, Double.POSITIVE_INFINITY);
+		distances[source] = 0;
+		for (boolean changed = true; changed; ) {
+			changed = false;
+			for (int n = 0; n < graph.numOfNodes(); n++) {
+				for (int e = graph.firstEdge(n); e < graph.endEdge(n); e++) {
+					double distance = distances[n] + graph.getEdgeLength(e);
+					if (distance < distances[graph.getEdgeTarget(e)] - tolerance) {
+						distances[graph.getEdgeTarget(e)] = distance;
+						changed = true;
+					}
+				}
+			}
+		}
+		return distances;
+	}
+
+
+	// Returns true iff router found a path whose edges are connected and add up to its distance.
+	static boolean isPath(ShortestPathRouter router, int source, int target) {
+		RoadGraph graph = router.getGraph();
+		int node = source;
+		double length = 0;
+		for (int e : router.getPathEdges()) {
+			if (graph.getEdgeSource(e) != node)
+				return false;
+			length += graph.getEdgeLength(e);
+			node = graph.getEdgeTarget(e);
+		}
+		return node == target && Math.abs(length - router.getDistance()) < tolerance;
+	}
+
+
+	public void test() {
+		RoadGraph.Builder builder = new RoadGraph.Builder();
+		for (GeoSegment gs : ExampleGeoSegments.segments)
+			builder.addSegment(gs, false);
+		RoadGraph example = builder.build();
+		ShortestPathRouter router = new ShortestPathRouter(example);
+
+		show("route()");
+		Route route = router.route(points[0], points[5]);
+		show("Route starts and ends at the given points",
+			route != null && route.getStart() == points[0] && route.getEnd().equals(points[5]));
+		show("Route is as long as the shortest path", route != null && same(route.getLength(), router.getDistance()));
+		show("Route cuts through Hanita rather than going around Hagalil", route != null
+			&& new WalkingRouteFormatter().computeDirections(route, 0).equals(
+				"Turn slight right onto Hankin Road and walk for 2 minutes.\n"
+				+ "Turn slight right onto Trumpeldor Avenue and walk for 8 minutes.\n"
+				+ "Turn left onto Hanita and walk for 27 minutes.\n"));
+		Iterator<GeoSegment> segments = route.getGeoSegments();
+		boolean shared = true;
+		GeoPoint prev = segments.next().getP2();
+		while (segments.hasNext()) {
+			GeoSegment gs = segments.next();
+			shared &= gs.getP1() == prev;
+			prev = gs.getP2();
+		}
+		show("Consecutive segments share their GeoPoints", shared);
+		show("Unknown points have no route", router.route(new GeoPoint(32783099, 35014528), points[5]) == null);
+		show("A point has no route to itself", router.route(points[3], points[3]) == null);
+
+		show("search()");
+		RoadGraph grid = RoadGraphBenchmark.createGraph(25);
+		ShortestPathRouter aStar = new ShortestPathRouter(grid, true);
+		ShortestPathRouter dijkstra = new ShortestPathRouter(grid, false);
+		boolean shortest = true;
+		boolean connected = true;
+		int unreachable = 0;
+		for (int source = 0; source < grid.numOfNodes(); source += 37) {
+			double[] expected = bellmanFord(grid, source);
+			for (int target = 0; target < grid.numOfNodes(); target += 11) {
+				boolean found = aStar.search(source, target);
+				boolean dijkstraFound = dijkstra.search(source, target);
+				if (expected[target] == Double.POSITIVE_INFINITY) {
+					shortest &= !found && !dijkstraFound && aStar.getPathEdges().length == 0;
+					unreachable++;
+					continue;
+				}
+				shortest &= found && dijkstraFound && same(aStar.getDistance(), expected[target])
+						&& same(dijkstra.getDistance(), expected[target]);
+				connected &= isPath(aStar, source, target) && isPath(dijkstra, source, target);
+			}
+		}
+		show("A* and Dijkstra find the shortest distances", shortest);
+		show("Paths are connected and as long as their distance", connected);
+		show("Some nodes can't be reached through one-way streets", unreachable > 0);
+		aStar.search(0, grid.numOfNodes() - 1);
+		int aStarSettled = aStar.getSettledCount();
+		dijkstra.search(0, grid.numOfNodes() - 1);
+		show("A* settles fewer nodes than Dijkstra", aStarSettled < dijkstra.getSettledCount());
+	}
+
+
+	public static void main(String[] args) {
+		ShortestPathRouterTest routerTest = new ShortestPathRouterTest();
+		routerTest.test();
+	}
+}
@@ -0,0 +1,453 @@
+package HW1;
+
+import java.util.Arrays;
+
+/**
+ * SpaceFillingCurves maps the coordinates of GeoPoints onto positions along
+ * space-filling curves, so that sorting points by their key puts points
+ * that are near each other on the map near each other in the order.
+ * <p>
+ * Three keys are computed from the <tt>int</tt> latitude and longitude, in
+ * millionths of degrees, with no allocation:
+ * <ul>
+ * <li>the Hilbert key, the position along a Hilbert curve. Consecutive
+ *     positions are always adjacent cells, so it preserves locality best.
+ * <li>the Z-order (Morton) key, which interleaves the bits of the
+ *     latitude and the longitude.
+ * <li>the geohash, the standard base 32 string, whose prefixes are ever
+ *     larger cells, and the long key it is the base 32 form of.
+ * </ul>
+ * The Hilbert and Z-order keys are lossless: the coordinates are shifted
+ * to be non negative, and take 29 bits each, so the keys are non negative
+ * longs that sort with Arrays.sort() and decode back into the coordinates.
+ * <p>
+ * A box is turned into a few ranges of keys, which together hold the keys
+ * of all the points in the box, so a set of points sorted by key is
+ * queried by a few range scans.
+ */
+public final class SpaceFillingCurves {
+
+	/** The number of bits of each coordinate in the Hilbert and Z-order keys. **/
+	public static final int BITS_PER_COORDINATE = 29;
+
+	/** The largest precision of a geohash, in characters. **/
+	public static final int MAX_GEOHASH_PRECISION = 12;
+
+	private static final int latitudeRange = GeoPoint.MAX_LATITUDE - GeoPoint.MIN_LATITUDE;
+	private static final long longitudeRange = (long) GeoPoint.MAX_LONGITUDE - GeoPoint.MIN_LONGITUDE;
+
+	private static final char[] base32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+	// The Hilbert curve is walked 4 bits of each coordinate at a time. A state is the way the current cell is
+	// turned: bit 0 swaps the coordinates, and bit 1 flips them, before they choose a quadrant.
+	private static final int chunkBits = 4;
+	// [state << 8 | x nibble << 4 | y nibble]: the 8 bits of the key, and the next state above them.
+	private static final short[] hilbertEncode = new short[4 << 8];
+	// [state << 8 | 8 bits of the key]: the x nibble, y nibble, and the next state, as for hilbertEncode.
+	private static final short[] hilbertDecode = new short[4 << 8];
+	// [state << 2 | quadrant]: the digit, 0 to 3, of the quadrant (x bit << 1 | y bit) and the next state above it.
+	private static final byte[] hilbertStep = new byte[16];
+	// The state of the cell of all the valid points, below the leading zero bits of the coordinates.
+	private static final int hilbertTopState;
+
+	static
+	{
+		for (int state = 0; state < 4; state++)
+		{
+			for (int quadrant = 0; quadrant < 4; quadrant++)
+			{
+				int x = quadrant >> 1;
+				int y = quadrant & 1;
+				if ((state & 1) != 0)
+				{
+					int swap = x;
+					x = y;
+					y = swap;
+				}
+				if ((state & 2) != 0)
+				{
+					x ^= 1;
+					y ^= 1;
+				}
+				int digit = (3 * x) ^ y;
+				// The lower quadrants are turned as in the classic curve: swapped below y = 0, and flipped too
+				// below x = 1, y = 0.
+				int next = (y == 0) ? state ^ 1 ^ (x << 1) : state;
+				hilbertStep[state << 2 | quadrant] = (byte) (digit << 2 | next);
+			}
+		}
+		for (int state = 0; state < 4; state++)
+		{
+			for (int x = 0; x < 16; x++)
+			{
+				for (int y = 0; y < 16; y++)
+				{
+					int current = state;
+					int digits = 0;
+					for (int bit = chunkBits - 1; bit >= 0; bit--)
+					{
+						int step = hilbertStep[current << 2 | ((x >> bit) & 1) << 1 | ((y >> bit) & 1)];
+						digits = (digits << 2) | (step >> 2);
+						current = step & 3;
+					}
+					hilbertEncode[state << 8 | x << 4 | y] = (short) (current << 8 | digits);
+					hilbertDecode[state << 8 | digits] = (short) (current << 8 | x << 4 | y);
+				}
+			}
+		}
+		int state = 0;
+		for (int bit = 32; bit > BITS_PER_COORDINATE; bit--)
+			state = hilbertStep[state << 2] & 3;
+		hilbertTopState = state;
+	}
+
+	private SpaceFillingCurves()
+	{
+	}
+
+
+	/**
+	 * Computes the Hilbert key of a point.
+	 * @requires (latitude, longitude) is valid as defined by the GeoPoint
+	 *           constructor.
+	 * @return the non negative position of (latitude, longitude) along a
+	 *         Hilbert curve of order BITS_PER_COORDINATE.
+	 */
+	public static long hilbertKey(int latitude, int longitude)
+	{
+		int x = longitude - GeoPoint.MIN_LONGITUDE;
+		int y = latitude - GeoPoint.MIN_LATITUDE;
+		// Walked over 32 bits; the 3 leading zero bits of each coordinate add nothing to the key.
+		long key = 0;
+		int state = 0;
+		for (int shift = 32 - chunkBits; shift >= 0; shift -= chunkBits)
+		{
+			int entry = hilbertEncode[state << 8 | ((x >>> shift) & 15) << 4 | ((y >>> shift) & 15)];
+			key = (key << 8) | (entry & 0xFF);
+			state = entry >> 8;
+		}
+		return key;
+	}
+
+
+	/**
+	 * Computes the Hilbert key of a GeoPoint.
+	 * @requires gp != null
+	 * @return hilbertKey(gp.getLatitude(), gp.getLongitude())
+	 */
+	public static long hilbertKey(GeoPoint gp)
+	{
+		assert gp != null : "SpaceFillingCurves: gp is null";
+		return hilbertKey(gp.getLatitude(), gp.getLongitude());
+	}
+
+
+	/**
+	 * Returns the point of a Hilbert key, packed as GeoPointCodec packs it.
+	 * @requires key was returned by hilbertKey()
+	 * @return GeoPointCodec.pack(latitude, longitude) of the point whose
+	 *         key is key.
+	 */
+	public static long decodeHilbert(long key)
+	{
+		int x = 0;
+		int y = 0;
+		int state = 0;
+		for (int shift = 64 - 2 * chunkBits; shift >= 0; shift -= 2 * chunkBits)
+		{
+			int entry = hilbertDecode[state << 8 | (int) ((key >>> shift) & 0xFF)];
+			x = (x << chunkBits) | ((entry >> 4) & 15);
+			y = (y << chunkBits) | (entry & 15);
+			state = entry >> 8;
+		}
+		return GeoPointCodec.pack(y + GeoPoint.MIN_LATITUDE, x + GeoPoint.MIN_LONGITUDE);
+	}
+
+
+	/**
+	 * Computes the Z-order key of a point.
+	 * @requires (latitude, longitude) is valid as defined by the GeoPoint
+	 *           constructor.
+	 * @return the non negative key whose odd bits are the bits of the
+	 *         shifted latitude and whose even bits are the bits of the
+	 *         shifted longitude.
+	 */
+	public static long zOrderKey(int latitude, int longitude)
+	{
+		return spread(latitude - GeoPoint.MIN_LATITUDE) << 1 | spread(longitude - GeoPoint.MIN_LONGITUDE);
+	}
+
+
+	/**
+	 * Returns the point of a Z-order key, packed as GeoPointCodec packs it.
+	 * @requires key was returned by zOrderKey()
+	 * @return GeoPointCodec.pack(latitude, longitude) of the point whose
+	 *         key is key.
+	 */
+	public static long decodeZOrder(long key)
+	{
+		return GeoPointCodec.pack(compact(key >>> 1) + GeoPoint.MIN_LATITUDE, compact(key) + GeoPoint.MIN_LONGITUDE);
+	}
+
+
+	/**
+	 * Computes the geohash of a point as a number.
+	 * @requires (latitude, longitude) is valid as defined by the GeoPoint
+	 *           constructor && 1 <= precision <= MAX_GEOHASH_PRECISION
+	 * @return the 5 * precision bits of the geohash of (latitude, longitude)
+	 *         with precision characters, whose base 32 digits are its
+	 *         characters.
+	 */
+	public static long geohashKey(int latitude, int longitude, int precision)
+	{
+		assert 1 <= precision && precision <= MAX_GEOHASH_PRECISION : "SpaceFillingCurves: bad precision " + precision;
+		int bits = 5 * precision;
+		// The longitude takes the first bit, and the extra one when the number of bits is odd.
+		int longitudeBits = (bits + 1) / 2;
+		int latitudeBits = bits / 2;
+		long longitudeCell = Math.min((((long) longitude - GeoPoint.MIN_LONGITUDE) << longitudeBits) / longitudeRange,
+				(1L << longitudeBits) - 1);
+		long latitudeCell = Math.min((((long) latitude - GeoPoint.MIN_LATITUDE) << latitudeBits) / latitudeRange,
+				(1L << latitudeBits) - 1);
+		return (bits % 2 == 0) ? spread(longitudeCell) << 1 | spread(latitudeCell)
+				: spread(longitudeCell) | spread(latitudeCell) << 1;
+	}
+
+
+	/**
+	 * Appends the geohash of a point.
+	 * @requires sb != null && 1 <= precision <= MAX_GEOHASH_PRECISION and
+	 *           (latitude, longitude) is valid as defined by the GeoPoint
+	 *           constructor.
+	 * @modifies sb
+	 * @effects appends the geohash of (latitude, longitude) with precision
+	 *          characters to sb.
+	 * @return sb
+	 */
+	public static StringBuilder appendGeohash(StringBuilder sb, int latitude, int longitude, int precision)
+	{
+		assert sb != null : "SpaceFillingCurves: sb is null";
+		long key = geohashKey(latitude, longitude, precision);
+		for (int shift = 5 * (precision - 1); shift >= 0; shift -= 5)
+			sb.append(base32[(int) (key >>> shift) & 31]);
+		return sb;
+	}
+
+
+	/**
+	 * Computes the geohash of a GeoPoint.
+	 * @requires gp != null && 1 <= precision <= MAX_GEOHASH_PRECISION
+	 * @return the geohash of gp with precision characters.
+	 */
+	public static String geohash(GeoPoint gp, int precision)
+	{
+		assert gp != null : "SpaceFillingCurves: gp is null";
+		return appendGeohash(new StringBuilder(precision), gp.getLatitude(), gp.getLongitude(), precision).toString();
+	}
+
+
+	/**
+	 * Covers a box with ranges of Hilbert keys.
+	 * @requires minLatitude <= maxLatitude && minLongitude <= maxLongitude,
+	 *           both corners are valid as defined by the GeoPoint
+	 *           constructor, && maxRanges > 0
+	 * @return a new array of 2n keys, n <= maxRanges: the first and last
+	 *         keys of n disjoint, increasing ranges that hold the Hilbert
+	 *         keys of all the points of the box from (minLatitude,
+	 *         minLongitude) to (maxLatitude, maxLongitude), borders
+	 *         included, and possibly of some points outside it.
+	 */
+	public static long[] hilbertRanges(int minLatitude, int minLongitude, int maxLatitude, int maxLongitude,
+			int maxRanges)
+	{
+		return ranges(true, minLatitude, minLongitude, maxLatitude, maxLongitude, maxRanges);
+	}
+
+
+	/**
+	 * Covers a box with ranges of Z-order keys.
+	 * @requires as hilbertRanges() does.
+	 * @return as hilbertRanges() does, for the Z-order keys of the points.
+	 */
+	public static long[] zOrderRanges(int minLatitude, int minLongitude, int maxLatitude, int maxLongitude,
+			int maxRanges)
+	{
+		return ranges(false, minLatitude, minLongitude, maxLatitude, maxLongitude, maxRanges);
+	}
+
+
+	/**
+	 * Orders the segments of a table along the Hilbert curve.
+	 * @requires table != null
+	 * @return a new array of the indexes of the segments of table, sorted by
+	 *         the Hilbert keys of their first endpoints.
+	 */
+	public static int[] hilbertOrder(GeoSegmentTable table)
+	{
+		assert table != null : "SpaceFillingCurves: table is null";
+		int size = table.size();
+		long[] keys = new long[size];
+		int[] order = new int[size];
+		for (int i = 0; i < size; i++)
+		{
+			keys[i] = hilbertKey(table.getLatitude1(i), table.getLongitude1(i));
+			order[i] = i;
+		}
+		radixSort(keys, order);
+		return order;
+	}
+
+
+	// Spreads the low 32 bits of v over the even bits of the result.
+	private static long spread(long v)
+	{
+		v &= 0xFFFFFFFFL;
+		v = (v | v << 16) & 0x0000FFFF0000FFFFL;
+		v = (v | v << 8) & 0x00FF00FF00FF00FFL;
+		v = (v | v << 4) & 0x0F0F0F0F0F0F0F0FL;
+		v = (v | v << 2) & 0x3333333333333333L;
+		return (v | v << 1) & 0x5555555555555555L;
+	}
+
+
+	// Gathers the even bits of v, the inverse of spread().
+	private static int compact(long v)
+	{
+		v &= 0x5555555555555555L;
+		v = (v | v >>> 1) & 0x3333333333333333L;
+		v = (v | v >>> 2) & 0x0F0F0F0F0F0F0F0FL;
+		v = (v | v >>> 4) & 0x00FF00FF00FF00FFL;
+		v = (v | v >>> 8) & 0x0000FFFF0000FFFFL;
+		return (int) (v | v >>> 16);
+	}
+
+
+	private static long[] ranges(boolean hilbert, int minLatitude, int minLongitude, int maxLatitude, int maxLongitude,
+			int maxRanges)
+	{
+		assert minLatitude <= maxLatitude && minLongitude <= maxLongitude && maxRanges > 0
+				: "SpaceFillingCurves: bad box";
+		int minX = minLongitude - GeoPoint.MIN_LONGITUDE;
+		int minY = minLatitude - GeoPoint.MIN_LATITUDE;
+		int maxX = maxLongitude - GeoPoint.MIN_LONGITUDE;
+		int maxY = maxLatitude - GeoPoint.MIN_LATITUDE;
+		// Cells are split until they are about a 16th of the box; smaller ones would add ranges, not precision.
+		int extent = Math.max(maxX - minX, maxY - minY) / 16;
+		int minCellBits = (extent == 0) ? 0 : 31 - Integer.numberOfLeadingZeros(extent);
+		Ranges ranges = new Ranges();
+		cover(ranges, hilbert, 0, 0, BITS_PER_COORDINATE, 0, hilbertTopState, minCellBits, minX, minY, maxX, maxY);
+		return ranges.merge(maxRanges);
+	}
+
+
+	// Adds the ranges of the keys of the points of a box in the cell of 2^cellBits by 2^cellBits from (x, y),
+	// whose keys begin with prefix, and which is turned by state on the Hilbert curve.
+	private static void cover(Ranges ranges, boolean hilbert, int x, int y, int cellBits, long prefix, int state,
+			int minCellBits, int minX, int minY, int maxX, int maxY)
+	{
+		int last = (1 << cellBits) - 1;
+		if (x > maxX || y > maxY || x + last < minX || y + last < minY)
+			return;
+		long first = prefix << 2 * cellBits;
+		if (cellBits <= minCellBits || (minX <= x && x + last <= maxX && minY <= y && y + last <= maxY))
+		{
+			ranges.add(first, first + (1L << 2 * cellBits) - 1);
+			return;
+		}
+		// The quadrants, in the order of their keys.
+		int half = 1 << (cellBits - 1);
+		for (int digit = 0; digit < 4; digit++)
+		{
+			for (int quadrant = 0; quadrant < 4; quadrant++)
+			{
+				int step = (hilbert) ? hilbertStep[state << 2 | quadrant] : ((quadrant & 1) << 1 | quadrant >> 1) << 2;
+				if (step >> 2 == digit)
+					cover(ranges, hilbert, x + (quadrant >> 1) * half, y + (quadrant & 1) * half, cellBits - 1,
+							prefix << 2 | digit, step & 3, minCellBits, minX, minY, maxX, maxY);
+			}
+		}
+	}
+
+
+	// Sorts keys, and order along with them, by 8 passes of a byte each, since the keys are non negative.
+	private static void radixSort(long[] keys, int[] order)
+	{
+		int size = keys.length;
+		long[] keyBuffer = new long[size];
+		int[] orderBuffer = new int[size];
+		int[] counts = new int[257];
+		for (int shift = 0; shift < 64; shift += 8)
+		{
+			Arrays.fill(counts, 0);
+			for (long key : keys)
+				counts[(int) (key >>> shift & 0xFF) + 1]++;
+			if (counts[1] == size)
+				continue;		// every key has a zero byte here.
+			for (int b = 0; b < 256; b++)
+				counts[b + 1] += counts[b];
+			for (int i = 0; i < size; i++)
+			{
+				int j = counts[(int) (keys[i] >>> shift & 0xFF)]++;
+				keyBuffer[j] = keys[i];
+				orderBuffer[j] = order[i];
+			}
+			System.arraycopy(keyBuffer, 0, keys, 0, size);
+			System.arraycopy(orderBuffer, 0, order, 0, size);
+		}
+	}
+
+
+	// The ranges of a cover, in increasing order, with adjacent ones joined.
+	private static final class Ranges {
+
+		private long[] bounds = new long[32];
+		private int size = 0;
+
+		private void add(long first, long last)
+		{
+			if (this.size > 0 && this.bounds[2 * this.size - 1] + 1 == first)
+			{
+				this.bounds[2 * this.size - 1] = last;
+				return;
+			}
+			if (2 * this.size == this.bounds.length)
+				this.bounds = Arrays.copyOf(this.bounds, this.bounds.length * 2);
+			this.bounds[2 * this.size] = first;
+			this.bounds[2 * this.size + 1] = last;
+			this.size++;
+		}
+
+
+		// Joins the ranges across the smallest gaps between them, until at most maxRanges are left.
+		private long[] merge(int maxRanges)
+		{
+			if (this.size <= maxRanges)
+				return Arrays.copyOf(this.bounds, 2 * this.size);
+			long[] gaps = new long[this.size - 1];
+			for (int i = 0; i < gaps.length; i++)
+				gaps[i] = this.bounds[2 * i + 2] - this.bounds[2 * i + 1];
+			long[] sorted = gaps.clone();
+			Arrays.sort(sorted);
+			long threshold = sorted[this.size - maxRanges - 1];
+			int ties = this.size - maxRanges;
+			for (long gap : sorted)
+				if (gap < threshold)
+					ties--;
+			long[] merged = new long[2 * maxRanges];
+			int count = 0;
+			merged[0] = this.bounds[0];
+			for (int i = 0; i < gaps.length; i++)
+			{
+				boolean join = gaps[i] < threshold || (gaps[i] == threshold && ties-- > 0);
+				if (!join)
+				{
+					merged[2 * count + 1] = this.bounds[2 * i + 1];
+					count++;
+					merged[2 * count] = this.bounds[2 * i + 2];
+				}
+			}
+			merged[2 * count + 1] = this.bounds[2 * this.size - 1];
+			return Arrays.copyOf(merged, 2 * (count + 1));
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package HW1;
+
+import java.util.Random;
+
+/**
+ * Measures how many keys per second SpaceFillingCurves encodes and decodes,
+ * how long covering a box with ranges takes, and how much sorting segments
+ * along the Hilbert curve shortens the jumps between consecutive ones.
+ * <p>
+ * Usage: <tt>java -Xmx2g HW1.SpaceFillingCurvesBenchmark [numOfPoints]</tt>
+ */
+public class SpaceFillingCurvesBenchmark {
+
+	private final int[] latitudes;
+	private final int[] longitudes;
+
+
+	public SpaceFillingCurvesBenchmark(int numOfPoints) {
+		Random random = new Random(21);
+		latitudes = new int[numOfPoints];
+		longitudes = new int[numOfPoints];
+		for (int i = 0; i < numOfPoints; i++) {
+			latitudes[i] = 29000000 + random.nextInt(4500000);
+			longitudes[i] = 34000000 + random.nextInt(2000000);
+		}
+	}
+
+
+	// Returns the millions of keys per second of the best of 5 rounds, and adds the keys to sum.
+	double encode(int curve, long[] sum) {
+		long best = Long.MAX_VALUE;
+		for (int round = 0; round < 5; round++) {
+			long begin = System.nanoTime();
+			long s = 0;
+			for (int i = 0; i < latitudes.length; i++) {
+				if (curve == 0)
+					s += SpaceFillingCurves.hilbertKey(latitudes[i], longitudes[i]);
+				else if (curve == 1)
+					s += SpaceFillingCurves.zOrderKey(latitudes[i], longitudes[i]);
+				else
+					s += SpaceFillingCurves.geohashKey(latitudes[i], longitudes[i], SpaceFillingCurves.MAX_GEOHASH_PRECISION);
+			}
+			best = Math.min(best, System.nanoTime() - begin);
+			sum[0] += s;
+		}
+		return latitudes.length / (best / 1e3);
+	}
+
+
+	// Returns the total distance between consecutive segments of the table in the given order.
+	static double jumps(GeoSegmentTable table, int[] order) {
+		double total = 0;
+		for (int i = 1; i < order.length; i++)
+			total += GeoPointCodec.distance(table.getLatitude2(order[i - 1]), table.getLongitude2(order[i - 1]),
+					table.getLatitude1(order[i]), table.getLongitude1(order[i]));
+		return total;
+	}
+
+
+	public void run() {
+		int n = latitudes.length;
+		long[] sum = new long[1];
+		double hilbert = encode(0, sum);
+		double zOrder = encode(1, sum);
+		double geohash = encode(2, sum);
+
+		long[] keys = new long[n];
+		for (int i = 0; i < n; i++)
+			keys[i] = SpaceFillingCurves.hilbertKey(latitudes[i], longitudes[i]);
+		long best = Long.MAX_VALUE;
+		for (int round = 0; round < 5; round++) {
+			long begin = System.nanoTime();
+			for (long key : keys)
+				sum[0] += SpaceFillingCurves.decodeHilbert(key);
+			best = Math.min(best, System.nanoTime() - begin);
+		}
+		double decode = n / (best / 1e3);
+
+		StringBuilder sb = new StringBuilder();
+		best = Long.MAX_VALUE;
+		for (int round = 0; round < 5; round++) {
+			long begin = System.nanoTime();
+			for (int i = 0; i < n; i++) {
+				sb.setLength(0);
+				SpaceFillingCurves.appendGeohash(sb, latitudes[i], longitudes[i], SpaceFillingCurves.MAX_GEOHASH_PRECISION);
+				sum[0] += sb.charAt(11);
+			}
+			best = Math.min(best, System.nanoTime() - begin);
+		}
+		double geohashStrings = n / (best / 1e3);
+
+		// Boxes of about 1 km, covered by up to 16 ranges.
+		int numOfBoxes = 10000;
+		long rangeKeys = 0;
+		long begin = System.nanoTime();
+		for (int i = 0; i < numOfBoxes; i++) {
+			long[] ranges = SpaceFillingCurves.hilbertRanges(latitudes[i], longitudes[i],
+					latitudes[i] + 9000, longitudes[i] + 10700, 16);
+			for (int r = 0; r < ranges.length; r += 2)
+				rangeKeys += ranges[r + 1] - ranges[r] + 1;
+		}
+		double rangeMicros = (System.nanoTime() - begin) / 1e3 / numOfBoxes;
+
+		GeoSegmentTable table = SegmentRTreeBenchmark.createTable(Math.min(n, 1000000));
+		begin = System.nanoTime();
+		int[] order = SpaceFillingCurves.hilbertOrder(table);
+		double orderMillis = (System.nanoTime() - begin) / 1e6;
+		int[] identity = new int[table.size()];
+		for (int i = 0; i < identity.length; i++)
+			identity[i] = i;
+
+		System.out.printf("hilbertKey():   %.1f M keys/s%n", hilbert);
+		System.out.printf("zOrderKey():    %.1f M keys/s%n", zOrder);
+		System.out.printf("geohashKey():   %.1f M keys/s%n", geohash);
+		System.out.printf("decodeHilbert(): %.1f M keys/s%n", decode);
+		System.out.printf("appendGeohash(): %.1f M strings/s%n", geohashStrings);
+		System.out.printf("hilbertRanges(): %.1f us per 1 km box, covering %.1f times its points%n",
+				rangeMicros, rangeKeys / (numOfBoxes * 9001.0 * 10701.0));
+		System.out.printf("hilbertOrder():  %.0f ms for %d segments; consecutive segments %.0f km apart in all, "
+				+ "%.0f km in table order%n", orderMillis, table.size(), jumps(table, order), jumps(table, identity));
+		System.out.println("(checksum " + sum[0] + ")");
+	}
+
+
+	public static void main(String[] args) {
+		int numOfPoints = (args.length > 0) ? Integer.parseInt(args[0]) : 10000000;
+		new SpaceFillingCurvesBenchmark(numOfPoints).run();
+	}
+}
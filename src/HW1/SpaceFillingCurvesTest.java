@@ -0,0 +1,191 @@
+package HW1;
+
+import java.util.Random;
+
+public class SpaceFillingCurvesTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// The classic Hilbert curve mapping of a cell of a 2^32 by 2^32 grid, one bit at a time.
+	static long referenceHilbert(long x, long y) {
+		long key = 0;
+		for (long s = 1L << 31; s > 0; s /= 2) {
+			long rx = (x & s) > 0 ? 1 : 0;
+			long ry = (y & s) > 0 ? 1 : 0;
+			key += s * s * ((3 * rx) ^ ry);
+			if (ry == 0) {
+				if (rx == 1) {
+					x = 0xFFFFFFFFL - x;
+					y = 0xFFFFFFFFL - y;
+				}
+				long t = x;
+				x = y;
+				y = t;
+			}
+		}
+		return key;
+	}
+
+
+	// Returns true iff the key of every point of the box is in one of the ranges, which are increasing and disjoint.
+	static boolean covers(long[] ranges, boolean hilbert, int minLatitude, int minLongitude, int maxLatitude,
+			int maxLongitude, Random random) {
+		for (int i = 3; i < ranges.length; i += 2)
+			if (ranges[i - 1] <= ranges[i - 2] + 1 || ranges[i] < ranges[i - 1])
+				return false;
+		for (int i = 0; i < 2000; i++) {
+			int latitude = minLatitude + random.nextInt(maxLatitude - minLatitude + 1);
+			int longitude = minLongitude + random.nextInt(maxLongitude - minLongitude + 1);
+			if (i < 4) {
+				latitude = (i % 2 == 0) ? minLatitude : maxLatitude;
+				longitude = (i < 2) ? minLongitude : maxLongitude;
+			}
+			long key = hilbert ? SpaceFillingCurves.hilbertKey(latitude, longitude)
+					: SpaceFillingCurves.zOrderKey(latitude, longitude);
+			boolean found = false;
+			for (int r = 0; r < ranges.length; r += 2)
+				found |= ranges[r] <= key && key <= ranges[r + 1];
+			if (!found)
+				return false;
+		}
+		return true;
+	}
+
+
+	public void test() {
+		Random random = new Random(9);
+		int[] latitudes = new int[10000];
+		int[] longitudes = new int[latitudes.length];
+		for (int i = 0; i < latitudes.length; i++) {
+			latitudes[i] = GeoPoint.MIN_LATITUDE + random.nextInt(GeoPoint.MAX_LATITUDE - GeoPoint.MIN_LATITUDE + 1);
+			longitudes[i] = GeoPoint.MIN_LONGITUDE + random.nextInt(GeoPoint.MAX_LONGITUDE - GeoPoint.MIN_LONGITUDE + 1);
+		}
+		latitudes[0] = GeoPoint.MIN_LATITUDE;
+		longitudes[0] = GeoPoint.MIN_LONGITUDE;
+		latitudes[1] = GeoPoint.MAX_LATITUDE;
+		longitudes[1] = GeoPoint.MAX_LONGITUDE;
+
+		show("hilbertKey()");
+		boolean classic = true;
+		boolean hilbertRoundTrip = true;
+		boolean nonNegative = true;
+		for (int i = 0; i < latitudes.length; i++) {
+			long key = SpaceFillingCurves.hilbertKey(latitudes[i], longitudes[i]);
+			classic &= key == referenceHilbert(longitudes[i] - GeoPoint.MIN_LONGITUDE, latitudes[i] - GeoPoint.MIN_LATITUDE);
+			hilbertRoundTrip &= SpaceFillingCurves.decodeHilbert(key) == GeoPointCodec.pack(latitudes[i], longitudes[i]);
+			nonNegative &= key >= 0 && key < 1L << 2 * SpaceFillingCurves.BITS_PER_COORDINATE;
+		}
+		show("Keys are the ones of the classic curve", classic);
+		show("Keys decode back into their points", hilbertRoundTrip);
+		show("Keys are non negative and fit in 58 bits", nonNegative);
+		boolean adjacent = true;
+		for (int i = 0; i < latitudes.length; i++) {
+			long point = SpaceFillingCurves.decodeHilbert(SpaceFillingCurves.hilbertKey(latitudes[i], longitudes[i]) + 1);
+			int steps = Math.abs(GeoPointCodec.latitude(point) - latitudes[i])
+					+ Math.abs(GeoPointCodec.longitude(point) - longitudes[i]);
+			adjacent &= steps == 1;
+		}
+		show("Consecutive keys are adjacent points", adjacent);
+		GeoPoint technion = new GeoPoint(32777000, 35023000);
+		show("Key of a GeoPoint is the key of its coordinates",
+			SpaceFillingCurves.hilbertKey(technion) == SpaceFillingCurves.hilbertKey(32777000, 35023000));
+
+		show("zOrderKey()");
+		boolean zRoundTrip = true;
+		boolean interleaved = true;
+		for (int i = 0; i < latitudes.length; i++) {
+			long key = SpaceFillingCurves.zOrderKey(latitudes[i], longitudes[i]);
+			zRoundTrip &= SpaceFillingCurves.decodeZOrder(key) == GeoPointCodec.pack(latitudes[i], longitudes[i]);
+			int bit = random.nextInt(SpaceFillingCurves.BITS_PER_COORDINATE);
+			interleaved &= ((key >>> (2 * bit + 1)) & 1) == ((latitudes[i] - GeoPoint.MIN_LATITUDE) >>> bit & 1)
+					&& ((key >>> (2 * bit)) & 1) == ((longitudes[i] - GeoPoint.MIN_LONGITUDE) >>> bit & 1);
+		}
+		show("Keys decode back into their points", zRoundTrip);
+		show("Latitude bits are odd and longitude bits even", interleaved);
+
+		show("geohash()");
+		show("Geohash of Jutland is u4pruydqqvj",
+			SpaceFillingCurves.geohash(new GeoPoint(57649110, 10407440), 11).equals("u4pruydqqvj"));
+		show("Geohash of the Technion is svb",
+			SpaceFillingCurves.geohash(technion, 3).equals("svb"));
+		show("Shorter geohashes are prefixes",
+			SpaceFillingCurves.geohash(technion, 12).startsWith(SpaceFillingCurves.geohash(technion, 7)));
+		show("Corners of the world are 0 and zzzz",
+			SpaceFillingCurves.geohash(new GeoPoint(GeoPoint.MIN_LATITUDE, GeoPoint.MIN_LONGITUDE), 4).equals("0000")
+			&& SpaceFillingCurves.geohash(new GeoPoint(GeoPoint.MAX_LATITUDE, GeoPoint.MAX_LONGITUDE), 4).equals("zzzz"));
+		StringBuilder sb = new StringBuilder("at ");
+		SpaceFillingCurves.appendGeohash(sb, technion.getLatitude(), technion.getLongitude(), 5);
+		show("appendGeohash() appends", sb.toString().equals("at " + SpaceFillingCurves.geohash(technion, 5)));
+
+		show("hilbertRanges() & zOrderRanges()");
+		boolean hilbertCovers = true;
+		boolean zOrderCovers = true;
+		boolean bounded = true;
+		for (int i = 0; i < 50; i++) {
+			int minLatitude = 32000000 + random.nextInt(1000000);
+			int minLongitude = 34000000 + random.nextInt(1000000);
+			int maxLatitude = minLatitude + random.nextInt(i < 25 ? 2000 : 200000);
+			int maxLongitude = minLongitude + random.nextInt(i < 25 ? 2000 : 200000);
+			int maxRanges = 1 + random.nextInt(16);
+			long[] hilbert = SpaceFillingCurves.hilbertRanges(minLatitude, minLongitude, maxLatitude, maxLongitude, maxRanges);
+			long[] zOrder = SpaceFillingCurves.zOrderRanges(minLatitude, minLongitude, maxLatitude, maxLongitude, maxRanges);
+			hilbertCovers &= covers(hilbert, true, minLatitude, minLongitude, maxLatitude, maxLongitude, random);
+			zOrderCovers &= covers(zOrder, false, minLatitude, minLongitude, maxLatitude, maxLongitude, random);
+			bounded &= hilbert.length <= 2 * maxRanges && zOrder.length <= 2 * maxRanges && hilbert.length > 0;
+		}
+		show("Hilbert ranges cover the box", hilbertCovers);
+		show("Z-order ranges cover the box", zOrderCovers);
+		show("No more than maxRanges ranges", bounded);
+		long[] single = SpaceFillingCurves.hilbertRanges(32777000, 35023000, 32777000, 35023000, 4);
+		show("Box of a single point is its key",
+			single.length == 2 && single[0] == SpaceFillingCurves.hilbertKey(technion) && single[1] == single[0]);
+		long[] tight = SpaceFillingCurves.hilbertRanges(32700000, 35000000, 32710000, 35010000, 1000);
+		long[] loose = SpaceFillingCurves.hilbertRanges(32700000, 35000000, 32710000, 35010000, 4);
+		show("More ranges cover fewer keys", span(tight) < span(loose));
+
+		show("hilbertOrder()");
+		GeoSegmentTable table = SegmentRTreeTest.createTable(3000, 4);
+		int[] order = SpaceFillingCurves.hilbertOrder(table);
+		boolean sorted = true;
+		boolean[] seen = new boolean[table.size()];
+		for (int i = 0; i < order.length; i++) {
+			seen[order[i]] = true;
+			if (i > 0)
+				sorted &= SpaceFillingCurves.hilbertKey(table.getLatitude1(order[i - 1]), table.getLongitude1(order[i - 1]))
+					<= SpaceFillingCurves.hilbertKey(table.getLatitude1(order[i]), table.getLongitude1(order[i]));
+		}
+		boolean permutation = order.length == table.size();
+		for (boolean s : seen)
+			permutation &= s;
+		show("Order is a permutation of the segments", permutation);
+		show("Segments are sorted by the keys of their first endpoints", sorted);
+	}
+
+
+	// Returns the number of keys in the ranges.
+	static long span(long[] ranges) {
+		long span = 0;
+		for (int r = 0; r < ranges.length; r += 2)
+			span += ranges[r + 1] - ranges[r] + 1;
+		return span;
+	}
+
+
+	public static void main(String[] args) {
+		SpaceFillingCurvesTest curvesTest = new SpaceFillingCurvesTest();
+		curvesTest.test();
+	}
+}
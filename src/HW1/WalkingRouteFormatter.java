@@ -1,7 +1,5 @@
 package HW1;
 
-import java.text.DecimalFormat;
-
 /**
  * A WalkingDirections class knows how to create a textual description of
  * directions from one location to another suitable for a pedestrian.
@@ -55,6 +53,11 @@ public class WalkingRouteFormatter extends RouteFormatter {
 	// Walking speed = 20 kilometers per hour
 	private static final double walkingSpeed  = 20;
 
+	// The template of a line, compiled once and shared by all the WalkingRouteFormatters.
+	private static final DirectionTemplate.DefaultLocale lineTemplate = DirectionTemplate.forDefaultLocale(
+			DirectionTemplate.TURN + " onto " + DirectionTemplate.NAME + " and walk for " + DirectionTemplate.VALUE
+					+ " minutes.\n", 0, false);
+
   	public String computeLine(GeoFeature geoFeature, double origHeading) {
   		
 		// Implementation hint:
@@ -64,11 +67,56 @@ public class WalkingRouteFormatter extends RouteFormatter {
 		// and at:
 		// http://docs.oracle.com/javase/8/docs/api/java/text/DecimalFormat.html
 
+		StringBuilder line = new StringBuilder();
+		this.computeLine(geoFeature, origHeading, line);
+		return line.toString();
+  	}
+
+
+  	/**
+     * Computes a single line of a multi-line directions String, as
+     * computeLine(geoFeature, origHeading) does, and appends it to out.
+     * @requires geoFeature != null && out != null && 0 <= origHeading < 360
+     * @param geoFeature the geographical feature to traverse.
+     * @param origHeading the initial heading.
+     * @param out the buffer the line is appended to.
+     * @modifies out
+     * @effects appends computeLine(geoFeature, origHeading) to out.
+     **/
+  	@Override
+  	public void computeLine(GeoFeature geoFeature, double origHeading, StringBuilder out) {
 		assert (geoFeature != null) : "WalkingRouteFormatter assert: geoFeature is null";
 		assert (0 <= origHeading && origHeading < 360) : "WalkingRouteFormatter assert: origHeading bad value";
-		String heading = this.getTurnString(origHeading, geoFeature.getStartHeading());
-		String gfName = geoFeature.getName();
-		Double walkingTime = new Double(Math.round(geoFeature.getLength() * walkingSpeed));
-		return String.format("%s onto %s and walk for %d minutes.\n", heading, gfName, walkingTime.intValue());
+		this.computeLine(geoFeature, origHeading, this.getTurnString(origHeading, geoFeature.getStartHeading()),
+				geoFeature.getName(), geoFeature.getLength(), out);
+  	}
+
+
+  	/**
+     * Computes a single line of a multi-line directions String, as
+     * computeLine(geoFeature, origHeading) does, from the turn string and
+     * the metrics of the feature, and appends it to out.
+     * @requires geoFeature != null && out != null && 0 <= origHeading < 360 &&
+     *           turn, name and length are the turn string, name and length
+     *           of geoFeature.
+     * @modifies out
+     * @effects appends computeLine(geoFeature, origHeading) to out.
+     **/
+  	@Override
+  	protected void computeLine(GeoFeature geoFeature, double origHeading, String turn, String name, double length,
+  			StringBuilder out) {
+		int walkingTime = (int) Math.round(length * walkingSpeed);
+		lineTemplate.get().render(turn, name, walkingTime, out);
+  	}
+
+
+  	/**
+     * Returns whether the lines of this formatter depend only on the turn
+     * string and the name and length of the feature.
+     * @return true
+     **/
+  	@Override
+  	protected boolean rendersFromMetrics() {
+		return true;
   	}
 }